@@ -0,0 +1,168 @@
+package com.example.trading.bench;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Rows per second inserted into {@code market_data}- and {@code alert_triggers}-shaped tables,
+ * replaying the JDBC traffic Hibernate issues for each id strategy. {@code identity} is one
+ * {@code INSERT ... RETURNING id} round trip per row, since Hibernate cannot batch IDENTITY
+ * inserts; {@code pooled} fetches one sequence value per 50 rows and sends the rows as JDBC
+ * batches of {@code hibernate.jdbc.batch_size}. Needs a PostgreSQL at {@code -Dbench.jdbc.url}
+ * (user {@code -Dbench.jdbc.user}, password {@code -Dbench.jdbc.password}); it writes only to
+ * session-local temp tables. One op is one row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+    private static final int ROWS = 1000;
+    private static final int ALLOCATION_SIZE = 50;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"bars", "triggers"})
+    String table;
+
+    Connection connection;
+    Shape shape;
+    long row;
+
+    /** One benchmarked table: its DDL and how to bind a generated row. */
+    enum Shape {
+        BARS("""
+                symbol VARCHAR(255) NOT NULL, timeframe VARCHAR(255) NOT NULL, timestamp TIMESTAMP NOT NULL,
+                open NUMERIC(19,8), high NUMERIC(19,8), low NUMERIC(19,8), close NUMERIC(19,8), volume NUMERIC(19,8)
+                """, "symbol, timeframe, timestamp, open, high, low, close, volume", 8) {
+            @Override
+            void bind(PreparedStatement ps, int first, long n) throws SQLException {
+                BigDecimal price = BigDecimal.valueOf(10_000_000_000L + n % 1_000_000, 8);
+                ps.setString(first, "SYM" + (n % 500));
+                ps.setString(first + 1, "1m");
+                ps.setTimestamp(first + 2, Timestamp.valueOf(LocalDateTime.of(2020, 1, 1, 0, 0).plusMinutes(n)));
+                ps.setBigDecimal(first + 3, price);
+                ps.setBigDecimal(first + 4, price);
+                ps.setBigDecimal(first + 5, price);
+                ps.setBigDecimal(first + 6, price);
+                ps.setBigDecimal(first + 7, BigDecimal.valueOf(n % 10_000, 2));
+            }
+        },
+        TRIGGERS("""
+                alert_id BIGINT, user_id BIGINT, status VARCHAR(255), triggered_at TIMESTAMP,
+                trigger_data TEXT, delivery_method VARCHAR(255)
+                """, "alert_id, user_id, status, triggered_at, trigger_data, delivery_method", 6) {
+            @Override
+            void bind(PreparedStatement ps, int first, long n) throws SQLException {
+                ps.setLong(first, n % 100_000);
+                ps.setLong(first + 1, n % 10_000);
+                ps.setString(first + 2, "PENDING");
+                ps.setTimestamp(first + 3, Timestamp.valueOf(LocalDateTime.of(2020, 1, 1, 0, 0).plusSeconds(n)));
+                ps.setString(first + 4, "{\"symbol\":\"SYM" + (n % 500) + "\",\"price\":\"101.25\"}");
+                ps.setString(first + 5, "EMAIL");
+            }
+        };
+
+        final String columnDdl;
+        final String columns;
+        final int columnCount;
+
+        Shape(String columnDdl, String columns, int columnCount) {
+            this.columnDdl = columnDdl;
+            this.columns = columns;
+            this.columnCount = columnCount;
+        }
+
+        abstract void bind(PreparedStatement ps, int first, long n) throws SQLException;
+
+        String placeholders() {
+            return "?" + ", ?".repeat(columnCount - 1);
+        }
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/trade_crafter?reWriteBatchedInserts=true"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "password"));
+        connection.setAutoCommit(false);
+        shape = Shape.valueOf(table.toUpperCase());
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TEMP TABLE bench_identity (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + shape.columnDdl + ")");
+            st.execute("CREATE TEMP TABLE bench_pooled (id BIGINT PRIMARY KEY, " + shape.columnDdl + ")");
+            st.execute("CREATE TEMP SEQUENCE bench_pooled_seq INCREMENT BY " + ALLOCATION_SIZE);
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("TRUNCATE bench_identity, bench_pooled");
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long identity() throws SQLException {
+        String sql = "INSERT INTO bench_identity (" + shape.columns + ") VALUES (" + shape.placeholders() + ")";
+        long last = 0;
+        try (PreparedStatement ps = connection.prepareStatement(sql, new String[] {"id"})) {
+            for (int i = 0; i < ROWS; i++) {
+                shape.bind(ps, 1, row++);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    last = keys.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long pooled() throws SQLException {
+        String sql = "INSERT INTO bench_pooled (id, " + shape.columns + ") VALUES (?, " + shape.placeholders() + ")";
+        long next = 0;
+        long hi = 0;
+        try (PreparedStatement seq = connection.prepareStatement("SELECT nextval('bench_pooled_seq')");
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < ROWS; i++) {
+                if (next >= hi) {
+                    try (ResultSet rs = seq.executeQuery()) {
+                        rs.next();
+                        hi = rs.getLong(1) + ALLOCATION_SIZE;
+                        next = hi - ALLOCATION_SIZE;
+                    }
+                }
+                ps.setLong(1, next++);
+                shape.bind(ps, 2, row++);
+                ps.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) ps.executeBatch();
+            }
+            ps.executeBatch();
+        }
+        connection.commit();
+        return next;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.trading.bench;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.market.Candle;
+import com.example.trading.market.CandleAggregator;
+import com.example.trading.market.Timeframe;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Ticks per second through {@link CandleAggregator} across six timeframes. The ingestion
+ * target is 100k ticks/s on one core; results are reported in ops/ms (1 op = 1 tick).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandleAggregatorBenchmark {
+    private static final int TICKS = 1 << 16;
+
+    @Param({"5", "500"})
+    int symbolCount;
+
+    String[] symbols;
+    long[] prices;
+    long[] sizes;
+    long[] gaps;
+    CandleAggregator aggregator;
+    long clock;
+    int i;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        Random random = new Random(5);
+        symbols = new String[TICKS];
+        prices = new long[TICKS];
+        sizes = new long[TICKS];
+        gaps = new long[TICKS];
+        for (int t = 0; t < TICKS; t++) {
+            symbols[t] = "SYM" + random.nextInt(symbolCount);
+            prices[t] = FixedPoint.of(100) + random.nextInt(100_000_000);
+            sizes[t] = 1 + random.nextInt(100_000_000);
+            gaps[t] = random.nextInt(20);
+        }
+        aggregator = new CandleAggregator(Timeframe.parseAll("1m,5m,15m,1h,4h,1d"), (Candle c) -> blackhole.consume(c));
+        clock = 1_700_000_000_000L;
+    }
+
+    @Benchmark
+    public void onTick() {
+        int t = i++ & (TICKS - 1);
+        clock += gaps[t];
+        aggregator.onTick(symbols[t], clock, prices[t], sizes[t]);
+    }
+}
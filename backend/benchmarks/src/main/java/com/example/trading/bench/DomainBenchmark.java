@@ -0,0 +1,72 @@
+package com.example.trading.bench;
+
+import com.example.trading.domain.Order;
+import com.example.trading.domain.PaperTradingAccount;
+import com.example.trading.domain.Trade;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Per-call cost of the entity business methods used on every fill and mark-to-market. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomainBenchmark {
+    Trade trade;
+    PaperTradingAccount account;
+    Order order;
+    BigDecimal[] equities;
+    BigDecimal fillVolume;
+    BigDecimal fillPrice;
+    int tick;
+
+    @Setup
+    public void setUp() {
+        trade = new Trade();
+        trade.setSide(Trade.TradeSide.BUY);
+        trade.setOpenPrice(new BigDecimal("64250.12500000"));
+        trade.setClosePrice(new BigDecimal("65010.75000000"));
+        trade.setVolume(new BigDecimal("0.35000000"));
+        trade.setCommission(new BigDecimal("4.50000000"));
+        trade.setSlippage(new BigDecimal("1.25000000"));
+
+        account = new PaperTradingAccount();
+        account.setBalance(new BigDecimal("10000.00000000"));
+        account.setEquity(new BigDecimal("10000.00000000"));
+        account.setMargin(new BigDecimal("2500.00000000"));
+        equities = new BigDecimal[64];
+        for (int i = 0; i < equities.length; i++) {
+            equities[i] = new BigDecimal("10000.00000000").add(BigDecimal.valueOf(i * 1737L - 50_000L, 2));
+        }
+
+        fillVolume = new BigDecimal("0.01000000");
+        fillPrice = new BigDecimal("64250.12500000");
+        order = new Order();
+        order.setVolume(new BigDecimal("1.00000000"));
+    }
+
+    @Benchmark
+    public BigDecimal tradeCalculatePnL() {
+        trade.calculatePnL();
+        return trade.getPnl();
+    }
+
+    @Benchmark
+    public BigDecimal accountUpdateEquity() {
+        account.updateEquity(equities[tick++ & (equities.length - 1)]);
+        return account.getMarginLevel();
+    }
+
+    @Benchmark
+    public Order.OrderStatus orderFill() {
+        // 100 partial fills complete the order; start over instead of paying for a per-invocation setup
+        if (order.isFullyFilled()) {
+            order.setFilledVolume(BigDecimal.ZERO);
+        }
+        order.fill(fillVolume, fillPrice);
+        return order.getStatus();
+    }
+}
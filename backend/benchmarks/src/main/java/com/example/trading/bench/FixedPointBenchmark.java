@@ -0,0 +1,72 @@
+package com.example.trading.bench;
+
+import com.example.trading.domain.FixedPoint;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mark-to-market of a book of open positions: immutable BigDecimal arithmetic versus
+ * FixedPoint scaled longs. Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FixedPointBenchmark {
+    @Param({"40", "1000"})
+    int positions;
+
+    BigDecimal[] openPrices;
+    BigDecimal[] volumes;
+    boolean[] longs;
+    BigDecimal last;
+
+    long[] openPricesFixed;
+    long[] volumesFixed;
+    long lastFixed;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        openPrices = new BigDecimal[positions];
+        volumes = new BigDecimal[positions];
+        longs = new boolean[positions];
+        openPricesFixed = new long[positions];
+        volumesFixed = new long[positions];
+        for (int i = 0; i < positions; i++) {
+            openPrices[i] = BigDecimal.valueOf(60_000 + random.nextInt(10_000), 0).add(BigDecimal.valueOf(random.nextInt(100), 2));
+            volumes[i] = BigDecimal.valueOf(1 + random.nextInt(500_000), 5);
+            longs[i] = random.nextBoolean();
+            openPricesFixed[i] = FixedPoint.fromBigDecimal(openPrices[i]);
+            volumesFixed[i] = FixedPoint.fromBigDecimal(volumes[i]);
+        }
+        last = new BigDecimal("65123.45");
+        lastFixed = FixedPoint.fromBigDecimal(last);
+    }
+
+    @Benchmark
+    public BigDecimal markToMarketBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < positions; i++) {
+            BigDecimal direction = longs[i] ? BigDecimal.ONE : BigDecimal.ONE.negate();
+            BigDecimal pnl = last.subtract(openPrices[i]).multiply(direction).multiply(volumes[i]).setScale(2, RoundingMode.HALF_UP);
+            total = total.add(pnl);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long markToMarketFixedPoint() {
+        long total = 0L;
+        for (int i = 0; i < positions; i++) {
+            long priceDiff = longs[i] ? FixedPoint.subtract(lastFixed, openPricesFixed[i]) : FixedPoint.subtract(openPricesFixed[i], lastFixed);
+            total = FixedPoint.add(total, FixedPoint.round(FixedPoint.multiply(priceDiff, volumesFixed[i]), 2));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.trading.bench;
+
+import com.example.trading.indicator.Atr;
+import com.example.trading.indicator.Bollinger;
+import com.example.trading.indicator.Ema;
+import com.example.trading.indicator.RollingExtreme;
+import com.example.trading.indicator.Rsi;
+import com.example.trading.indicator.Sma;
+import com.example.trading.indicator.Stdev;
+import com.example.trading.indicator.Vwap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of feeding one bar to each streaming indicator, in ns/op (1 op = 1 bar). The
+ * {@code period} parameter shows that the per-bar cost does not grow with the window.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndicatorBenchmark {
+    private static final int BARS = 1 << 16;
+
+    @Param({"14", "200"})
+    int period;
+
+    double[] close;
+    double[] high;
+    double[] low;
+    double[] volume;
+    Sma sma;
+    Ema ema;
+    Rsi rsi;
+    Atr atr;
+    Stdev stdev;
+    Bollinger bollinger;
+    Vwap vwap;
+    RollingExtreme highest;
+    int i;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(16);
+        close = new double[BARS];
+        high = new double[BARS];
+        low = new double[BARS];
+        volume = new double[BARS];
+        double price = 30_000;
+        for (int b = 0; b < BARS; b++) {
+            price *= 1 + random.nextGaussian() * 0.002;
+            close[b] = price;
+            high[b] = price * (1 + random.nextDouble() * 0.003);
+            low[b] = price * (1 - random.nextDouble() * 0.003);
+            volume[b] = 1 + random.nextDouble() * 10;
+        }
+        sma = new Sma(period);
+        ema = new Ema(period);
+        rsi = new Rsi(period);
+        atr = new Atr(period);
+        stdev = new Stdev(period);
+        bollinger = new Bollinger(period, 2);
+        vwap = new Vwap(TimeUnit.DAYS.toMillis(1));
+        highest = RollingExtreme.highest(period);
+    }
+
+    private int next() {
+        return i++ & (BARS - 1);
+    }
+
+    @Benchmark
+    public double sma() {
+        return sma.update(close[next()]);
+    }
+
+    @Benchmark
+    public double ema() {
+        return ema.update(close[next()]);
+    }
+
+    @Benchmark
+    public double rsi() {
+        return rsi.update(close[next()]);
+    }
+
+    @Benchmark
+    public double atr() {
+        int b = next();
+        return atr.update(high[b], low[b], close[b]);
+    }
+
+    @Benchmark
+    public double stdev() {
+        return stdev.update(close[next()]);
+    }
+
+    @Benchmark
+    public double bollinger() {
+        bollinger.update(close[next()]);
+        return bollinger.upper();
+    }
+
+    @Benchmark
+    public double vwap() {
+        int b = next();
+        return vwap.update(i * 60_000L, (high[b] + low[b] + close[b]) / 3, volume[b]);
+    }
+
+    @Benchmark
+    public double highest() {
+        return highest.update(close[next()]);
+    }
+}
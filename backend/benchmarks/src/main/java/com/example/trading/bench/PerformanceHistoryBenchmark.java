@@ -0,0 +1,133 @@
+package com.example.trading.bench;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A user's daily PnL history as {@code PerformanceController#history} reads it from
+ * {@code daily_pnl_rollup}, next to the per-trade scan and in-memory aggregation it replaced.
+ * Both run real queries against a PostgreSQL at {@code -Dbench.jdbc.url} (user
+ * {@code -Dbench.jdbc.user}, password {@code -Dbench.jdbc.password}), over session-local temp
+ * tables seeded with the same span of history for the benchmarked user and 50 others.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerformanceHistoryBenchmark {
+    private static final int OTHER_USERS = 50;
+
+    @Param({"30", "1000"})
+    int days;
+
+    @Param({"20"})
+    int tradesPerDay;
+
+    Connection connection;
+    UUID userId;
+    PreparedStatement rollupQuery;
+    PreparedStatement tradeQuery;
+
+    record DailyPnl(LocalDate date, BigDecimal pnl) {}
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/trade_crafter?reWriteBatchedInserts=true"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "password"));
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TEMP TABLE bench_trades (user_id UUID NOT NULL, status VARCHAR(10) NOT NULL, "
+                    + "closeTime TIMESTAMP WITH TIME ZONE, finalPnl DECIMAL(15,2))");
+            st.execute("CREATE INDEX ON bench_trades (user_id)");
+            st.execute("CREATE TEMP TABLE bench_rollup (user_id UUID NOT NULL, trade_date DATE NOT NULL, "
+                    + "pnl DECIMAL(15,2) NOT NULL, trade_count INTEGER NOT NULL, UNIQUE (user_id, trade_date))");
+        }
+
+        Random random = new Random(11);
+        userId = UUID.randomUUID();
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        try (PreparedStatement trade = connection.prepareStatement(
+                     "INSERT INTO bench_trades (user_id, status, closeTime, finalPnl) VALUES (?, 'CLOSED', ?, ?)");
+             PreparedStatement day = connection.prepareStatement(
+                     "INSERT INTO bench_rollup (user_id, trade_date, pnl, trade_count) VALUES (?, ?, ?, ?)")) {
+            for (int u = 0; u <= OTHER_USERS; u++) {
+                UUID user = u == 0 ? userId : UUID.randomUUID();
+                for (int d = 0; d < days; d++) {
+                    BigDecimal dayTotal = BigDecimal.ZERO;
+                    for (int t = 0; t < tradesPerDay; t++) {
+                        BigDecimal pnl = BigDecimal.valueOf(random.nextInt(200_000) - 100_000, 2);
+                        trade.setObject(1, user);
+                        trade.setTimestamp(2, Timestamp.valueOf(start.plusDays(d).atTime(t % 24, 0)));
+                        trade.setBigDecimal(3, pnl);
+                        trade.addBatch();
+                        dayTotal = dayTotal.add(pnl);
+                    }
+                    day.setObject(1, user);
+                    day.setDate(2, Date.valueOf(start.plusDays(d)));
+                    day.setBigDecimal(3, dayTotal);
+                    day.setInt(4, tradesPerDay);
+                    day.addBatch();
+                }
+                trade.executeBatch();
+                day.executeBatch();
+            }
+        }
+        try (Statement st = connection.createStatement()) {
+            st.execute("ANALYZE bench_trades");
+            st.execute("ANALYZE bench_rollup");
+        }
+
+        rollupQuery = connection.prepareStatement(
+                "SELECT trade_date, pnl FROM bench_rollup WHERE user_id = ? ORDER BY trade_date");
+        tradeQuery = connection.prepareStatement(
+                "SELECT closeTime, finalPnl FROM bench_trades WHERE user_id = ? AND status = 'CLOSED'");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<DailyPnl> rollupHistory() throws SQLException {
+        rollupQuery.setObject(1, userId);
+        List<DailyPnl> out = new ArrayList<>(days);
+        try (ResultSet rs = rollupQuery.executeQuery()) {
+            while (rs.next()) out.add(new DailyPnl(rs.getDate(1).toLocalDate(), rs.getBigDecimal(2)));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public List<DailyPnl> perTradeAggregation() throws SQLException {
+        tradeQuery.setObject(1, userId);
+        Map<LocalDate, BigDecimal> byDay = new TreeMap<>();
+        try (ResultSet rs = tradeQuery.executeQuery()) {
+            while (rs.next()) {
+                byDay.merge(rs.getTimestamp(1).toLocalDateTime().toLocalDate(), rs.getBigDecimal(2), BigDecimal::add);
+            }
+        }
+        List<DailyPnl> out = new ArrayList<>(byDay.size());
+        for (var e : byDay.entrySet()) out.add(new DailyPnl(e.getKey(), e.getValue()));
+        return out;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.trading.bench;
+
+import com.example.trading.domain.Portfolio;
+import com.example.trading.domain.Trade;
+import com.example.trading.domain.User;
+import com.example.trading.market.MarketDataService;
+import com.example.trading.market.PriceTick;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.repository.PortfolioRepository;
+import com.example.trading.repository.TradeRepository;
+import com.example.trading.repository.UserRepository;
+import com.example.trading.service.PortfolioService;
+import com.example.trading.service.PortfolioService.PortfolioSnapshot;
+import com.example.trading.service.PositionBook;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * {@link PortfolioService#getRealtimeSnapshot} over a seeded position book, with quotes from
+ * an in-memory {@link MarketDataService} and repositories stubbed out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PortfolioSnapshotBenchmark {
+    private static final String[] SYMBOLS = {"BTC-USD", "ETH-USD", "SOL-USD", "AAPL", "MSFT", "TSLA", "NVDA", "EURUSD=X"};
+
+    @Param({"1", "40", "1000"})
+    int openTrades;
+
+    UUID userId;
+    PortfolioService portfolioService;
+    PositionBook positionBook;
+    PriceTickPublisher tickPublisher;
+    PriceTick[] ticks;
+    int tick;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        userId = UUID.randomUUID();
+        User user = new User();
+        user.setId(1L);
+        user.setAuthSubject(userId);
+
+        List<Trade> trades = new ArrayList<>();
+        for (int i = 0; i < openTrades; i++) {
+            Trade t = new Trade();
+            t.setId((long) i + 1);
+            t.setUser(user);
+            t.setSymbol(SYMBOLS[i % SYMBOLS.length]);
+            t.setSide(random.nextBoolean() ? Trade.TradeSide.BUY : Trade.TradeSide.SELL);
+            t.setVolume(BigDecimal.valueOf(1 + random.nextInt(1000), 2));
+            t.setOpenPrice(BigDecimal.valueOf(10_000 + random.nextInt(50_000), 2));
+            t.setStatus(Trade.TradeStatus.OPEN);
+            trades.add(t);
+        }
+
+        Portfolio portfolio = new Portfolio();
+        portfolio.setUserId(userId);
+        portfolio.setInitialBalance(new BigDecimal("10000.00"));
+        portfolio.setBalance(new BigDecimal("10000.00"));
+        portfolio.setMargin(new BigDecimal("1500.00"));
+
+        Map<String, BigDecimal> quotes = new HashMap<>();
+        for (String symbol : SYMBOLS) quotes.put(symbol, BigDecimal.valueOf(20_000 + random.nextInt(40_000), 2));
+        MarketDataService marketData = new MarketDataService() {
+            @Override
+            public CompletableFuture<Map<String, BigDecimal>> getLastPricesAsync(Collection<String> symbols) {
+                Map<String, BigDecimal> prices = new HashMap<>();
+                for (String symbol : symbols) prices.put(symbol, quotes.get(symbol));
+                return CompletableFuture.completedFuture(prices);
+            }
+        };
+
+        TradeRepository tradeRepository = Stubs.repository(TradeRepository.class, Map.of(
+                "findByUserIdAndStatus", args -> trades));
+        PortfolioRepository portfolioRepository = Stubs.repository(PortfolioRepository.class, Map.of(
+                "findByUserId", args -> Optional.of(portfolio)));
+        UserRepository userRepository = Stubs.repository(UserRepository.class, Map.of(
+                "findByAuthSubject", args -> Optional.of(user)));
+
+        // Long interval: ticks are injected directly below, the poller never fires during a run
+        tickPublisher = new PriceTickPublisher(marketData, event -> {}, Duration.ofDays(1));
+        positionBook = new PositionBook(tradeRepository, portfolioRepository, userRepository, marketData, tickPublisher,
+                Duration.ofDays(1), 1);
+        portfolioService = new PortfolioService(positionBook);
+        portfolioService.getRealtimeSnapshot(userId);
+
+        ticks = new PriceTick[256];
+        for (int i = 0; i < ticks.length; i++) {
+            String symbol = SYMBOLS[i % SYMBOLS.length];
+            ticks[i] = new PriceTick(symbol, quotes.get(symbol).add(BigDecimal.valueOf(random.nextInt(2000) - 1000, 2)), Instant.now());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        positionBook.shutdown();
+        tickPublisher.shutdown();
+    }
+
+    @Benchmark
+    public PortfolioSnapshot snapshot() {
+        return portfolioService.getRealtimeSnapshot(userId);
+    }
+
+    @Benchmark
+    public PortfolioSnapshot tickThenSnapshot() {
+        positionBook.onPriceTick(ticks[tick++ & (ticks.length - 1)]);
+        return portfolioService.getRealtimeSnapshot(userId);
+    }
+}
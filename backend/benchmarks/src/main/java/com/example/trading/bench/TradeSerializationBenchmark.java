@@ -0,0 +1,58 @@
+package com.example.trading.bench;
+
+import com.example.trading.domain.Trade;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Jackson serialization of trade lists as returned by {@code GET /api/trades}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeSerializationBenchmark {
+    @Param({"50", "5000"})
+    int trades;
+
+    ObjectMapper objectMapper;
+    List<Trade> tradeList;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        Random random = new Random(3);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        tradeList = new ArrayList<>(trades);
+        for (int i = 0; i < trades; i++) {
+            Trade t = new Trade();
+            t.setId((long) i);
+            t.setSymbol(i % 2 == 0 ? "BTC-USD" : "ETH-USD");
+            t.setSide(random.nextBoolean() ? Trade.TradeSide.BUY : Trade.TradeSide.SELL);
+            t.setVolume(BigDecimal.valueOf(1 + random.nextInt(100_000), 5));
+            t.setOpenPrice(BigDecimal.valueOf(1_000_000 + random.nextInt(5_000_000), 2));
+            t.setClosePrice(BigDecimal.valueOf(1_000_000 + random.nextInt(5_000_000), 2));
+            t.setOpenTime(start.plusMinutes(i * 15L));
+            t.setCloseTime(start.plusMinutes(i * 15L + 60));
+            t.setStatus(Trade.TradeStatus.CLOSED);
+            t.calculatePnL();
+            tradeList.add(t);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeTradeList() throws Exception {
+        return objectMapper.writeValueAsBytes(tradeList);
+    }
+}
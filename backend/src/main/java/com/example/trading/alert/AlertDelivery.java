@@ -0,0 +1,50 @@
+package com.example.trading.alert;
+
+import com.example.trading.domain.Alert;
+import com.example.trading.domain.AlertTrigger;
+import com.example.trading.domain.User;
+import java.util.UUID;
+
+/**
+ * Everything a channel needs to deliver one {@link AlertTrigger}, copied out of the entities
+ * while their session is open so delivery workers never touch JPA.
+ *
+ * @param userSubject the alert owner's auth subject (the JWT {@code sub} the stream was opened
+ *                    with), which keys {@link AlertStreamHub}; null for users never linked to one
+ * @param data    the trigger's JSON payload
+ * @param attempt 1 for the first try
+ */
+public record AlertDelivery(
+  long triggerId,
+  AlertTrigger.DeliveryMethod method,
+  long alertId,
+  UUID userSubject,
+  String alertName,
+  String emailAddress,
+  String webhookUrl,
+  String data,
+  int attempt
+) {
+  static AlertDelivery of(AlertTrigger trigger) {
+    Alert alert = trigger.getAlert();
+    return new AlertDelivery(
+      trigger.getId(),
+      trigger.getDeliveryMethod(),
+      alert.getId(),
+      subject(alert.getUser()),
+      alert.getName(),
+      alert.getEmailAddress(),
+      alert.getWebhookUrl(),
+      trigger.getTriggerData(),
+      1
+    );
+  }
+
+  AlertDelivery retry() {
+    return new AlertDelivery(triggerId, method, alertId, userSubject, alertName, emailAddress, webhookUrl, data, attempt + 1);
+  }
+
+  private static UUID subject(User user) {
+    return user != null ? user.getAuthSubject() : null;
+  }
+}
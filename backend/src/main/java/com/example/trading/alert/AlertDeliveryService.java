@@ -0,0 +1,308 @@
+package com.example.trading.alert;
+
+import com.example.trading.domain.AlertTrigger;
+import com.example.trading.repository.AlertTriggerRepository;
+import com.example.trading.repository.WriteRetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Delivers PENDING {@link AlertTrigger}s. Every {@link DeliveryChannel} gets its own lane: a
+ * bounded queue drained in batches by the channel's own worker threads, so a slow SMTP server
+ * never holds up webhooks. Failures are retried with exponential backoff up to
+ * {@code max-attempts}; final outcomes are collected and written in bulk through
+ * {@link AlertTrigger#markDelivered()} / {@link AlertTrigger#markFailed(String)}.
+ *
+ * <p>{@link #submit} never blocks. When a lane's queue is full the trigger simply stays
+ * PENDING in the database, and a periodic recovery scan pages PENDING rows back in as the
+ * queue drains; the same scan picks up triggers left over from before a restart, and a
+ * trigger re-read that way starts again at attempt 1. Status writes that fail transiently are
+ * retried with backoff on the thread that flushed them. Delivery is at-least-once: a trigger
+ * whose status write fails for good is delivered again by recovery.
+ */
+@Service
+public class AlertDeliveryService {
+  private static final int MAX_ERROR_LENGTH = 1000;
+
+  private final AlertTriggerRepository triggerRepository;
+  private final TransactionTemplate tx;
+  private final TransactionTemplate readOnlyTx;
+  private final WriteRetry retry = new WriteRetry("alert-status-writer");
+  private final Map<AlertTrigger.DeliveryMethod, Lane> lanes = new EnumMap<>(AlertTrigger.DeliveryMethod.class);
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final Duration recoveryInterval;
+  private final int statusBatchSize;
+  private final Duration statusFlushInterval;
+  private final List<Thread> threads = new CopyOnWriteArrayList<>();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "alert-delivery-scheduler");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private final Object statusLock = new Object();
+  private List<Outcome> statusPending = new ArrayList<>();
+
+  private final Counter delivered;
+  private final Counter failed;
+  private final Counter retried;
+  private final Counter deferred;
+  private final Counter statusWriteFailures;
+
+  public AlertDeliveryService(
+    List<DeliveryChannel> channels,
+    AlertTriggerRepository triggerRepository,
+    PlatformTransactionManager transactionManager,
+    MeterRegistry meterRegistry,
+    @Value("${alerts.delivery.max-attempts:5}") int maxAttempts,
+    @Value("${alerts.delivery.initial-backoff:PT2S}") Duration initialBackoff,
+    @Value("${alerts.delivery.max-backoff:PT5M}") Duration maxBackoff,
+    @Value("${alerts.delivery.recovery-interval:PT10S}") Duration recoveryInterval,
+    @Value("${alerts.delivery.status-batch-size:500}") int statusBatchSize,
+    @Value("${alerts.delivery.status-flush-interval:PT1S}") Duration statusFlushInterval
+  ) {
+    this.triggerRepository = triggerRepository;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.recoveryInterval = recoveryInterval;
+    this.statusBatchSize = statusBatchSize;
+    this.statusFlushInterval = statusFlushInterval;
+    for (DeliveryChannel channel : channels) {
+      Lane lane = new Lane(channel);
+      lanes.put(channel.method(), lane);
+      Gauge.builder("alerts.delivery.queued", lane.queue, BlockingQueue::size)
+        .tag("channel", channel.method().name())
+        .register(meterRegistry);
+    }
+    this.delivered = Counter.builder("alerts.delivery").tag("result", "delivered").register(meterRegistry);
+    this.failed = Counter.builder("alerts.delivery").tag("result", "failed").register(meterRegistry);
+    this.retried = Counter.builder("alerts.delivery").tag("result", "retried").register(meterRegistry);
+    this.deferred = Counter.builder("alerts.delivery").tag("result", "deferred").register(meterRegistry);
+    this.statusWriteFailures = Counter.builder("alerts.delivery.status-write-failures").register(meterRegistry);
+  }
+
+  private record Outcome(long triggerId, AlertTrigger.DeliveryMethod method, String error) {}
+
+  private final class Lane {
+    final DeliveryChannel channel;
+    final BlockingQueue<AlertDelivery> queue;
+    // Queued, being delivered, waiting for a retry or for its status write; never re-enqueued
+    final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    // Bumped whenever a PENDING trigger could not be queued. A recovery pass scans from id 0 to
+    // the end, possibly over several runs; overflows after the pass started need another pass
+    final AtomicLong overflows = new AtomicLong(1);
+    long recoveredOverflows;
+    long passOverflows;
+    long cursor;
+
+    Lane(DeliveryChannel channel) {
+      this.channel = channel;
+      this.queue = new ArrayBlockingQueue<>(channel.queueCapacity());
+    }
+
+    void offer(AlertDelivery d) {
+      if (queue.offer(d)) return;
+      inFlight.remove(d.triggerId());
+      overflows.incrementAndGet();
+      deferred.increment();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    for (Lane lane : lanes.values()) {
+      for (int i = 1; i <= lane.channel.workers(); i++) {
+        Thread t = new Thread(() -> work(lane), "alert-delivery-" + lane.channel.method().name().toLowerCase() + "-" + i);
+        t.setDaemon(true);
+        threads.add(t);
+        t.start();
+      }
+    }
+    long flushMillis = statusFlushInterval.toMillis();
+    scheduler.scheduleWithFixedDelay(this::flushStatus, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    scheduler.scheduleWithFixedDelay(this::recover, 0, recoveryInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /** Queues freshly recorded triggers without blocking; whatever doesn't fit waits for recovery. */
+  public void submit(List<AlertDelivery> deliveries) {
+    for (AlertDelivery d : deliveries) {
+      Lane lane = lanes.get(d.method());
+      if (lane == null) {
+        complete(new Outcome(d.triggerId(), d.method(), "No delivery channel for " + d.method()));
+      } else if (lane.inFlight.add(d.triggerId())) {
+        lane.offer(d);
+      }
+    }
+  }
+
+  private void work(Lane lane) {
+    DeliveryChannel channel = lane.channel;
+    List<AlertDelivery> batch = new ArrayList<>(channel.batchSize());
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        batch.add(lane.queue.take());
+      } catch (InterruptedException e) {
+        return;
+      }
+      lane.queue.drainTo(batch, channel.batchSize() - 1);
+      List<String> errors;
+      try {
+        errors = channel.deliver(batch);
+      } catch (RuntimeException e) {
+        errors = Collections.nCopies(batch.size(), String.valueOf(e));
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        AlertDelivery d = batch.get(i);
+        String error = errors.get(i);
+        if (error != null && d.attempt() < maxAttempts) {
+          retried.increment();
+          scheduler.schedule(() -> lane.offer(d.retry()), backoff(d.attempt()), TimeUnit.MILLISECONDS);
+        } else {
+          complete(new Outcome(d.triggerId(), d.method(), error));
+        }
+      }
+      batch.clear();
+    }
+  }
+
+  private long backoff(int attempt) {
+    long base = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+    long capped = Math.min(base, maxBackoff.toMillis());
+    // +-20% jitter so a burst of failures doesn't retry in lockstep
+    return (long) (capped * (0.8 + 0.4 * ThreadLocalRandom.current().nextDouble()));
+  }
+
+  private void complete(Outcome outcome) {
+    List<Outcome> full = null;
+    synchronized (statusLock) {
+      statusPending.add(outcome);
+      if (statusPending.size() >= statusBatchSize) {
+        full = statusPending;
+        statusPending = new ArrayList<>();
+      }
+    }
+    if (full != null) writeStatus(full);
+  }
+
+  private void flushStatus() {
+    List<Outcome> batch;
+    synchronized (statusLock) {
+      if (statusPending.isEmpty()) return;
+      batch = statusPending;
+      statusPending = new ArrayList<>();
+    }
+    writeStatus(batch);
+  }
+
+  private void writeStatus(List<Outcome> batch) {
+    try {
+      boolean written = retry.run(batch.size(), () -> tx.executeWithoutResult(status -> {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Outcome o : batch) ids.add(o.triggerId());
+        Map<Long, AlertTrigger> triggers = new HashMap<>();
+        for (AlertTrigger t : triggerRepository.findAllById(ids)) triggers.put(t.getId(), t);
+        for (Outcome o : batch) {
+          AlertTrigger trigger = triggers.get(o.triggerId());
+          if (trigger == null) continue;
+          if (o.error() == null) {
+            trigger.markDelivered();
+          } else {
+            String error = o.error();
+            trigger.markFailed(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+          }
+        }
+      }));
+      if (written) {
+        for (Outcome o : batch) (o.error() == null ? delivered : failed).increment();
+      } else {
+        statusWriteFailures.increment(batch.size());
+        lanes.values().forEach(lane -> lane.overflows.incrementAndGet());
+      }
+    } finally {
+      for (Outcome o : batch) {
+        Lane lane = lanes.get(o.method());
+        if (lane != null) lane.inFlight.remove(o.triggerId());
+      }
+    }
+  }
+
+  private void recover() {
+    for (Lane lane : lanes.values()) {
+      try {
+        recover(lane);
+      } catch (DataAccessException | TransactionException e) {
+        // the database is unavailable; try again on the next run
+      }
+    }
+  }
+
+  /** Pages PENDING triggers for the lane's method into its queue while there is room. */
+  private void recover(Lane lane) {
+    if (lane.cursor == 0) {
+      long overflows = lane.overflows.get();
+      if (overflows == lane.recoveredOverflows) return;
+      lane.passOverflows = overflows;
+    }
+    while (lane.queue.remainingCapacity() > 0) {
+      int room = lane.queue.remainingCapacity();
+      long after = lane.cursor;
+      List<AlertDelivery> page = readOnlyTx.execute(status ->
+        triggerRepository.findPendingForDelivery(lane.channel.method(), after, PageRequest.ofSize(room))
+          .stream().map(AlertDelivery::of).toList());
+      for (AlertDelivery d : page) {
+        if (lane.inFlight.add(d.triggerId()) && !lane.queue.offer(d)) {
+          lane.inFlight.remove(d.triggerId());
+          return;
+        }
+        lane.cursor = d.triggerId();
+      }
+      if (page.size() < room) {
+        lane.cursor = 0;
+        lane.recoveredOverflows = lane.passOverflows;
+        return;
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    threads.forEach(Thread::interrupt);
+    for (Thread t : threads) t.join(TimeUnit.SECONDS.toMillis(5));
+    scheduler.shutdownNow();
+    flushStatus();
+  }
+}
@@ -0,0 +1,393 @@
+package com.example.trading.alert;
+
+import com.example.trading.domain.Alert;
+import com.example.trading.domain.Alert.AlertStatus;
+import com.example.trading.domain.AlertTrigger;
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.market.PriceTick;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.repository.ActiveAlertCondition;
+import com.example.trading.repository.AlertRepository;
+import com.example.trading.repository.AlertTriggerRepository;
+import com.example.trading.repository.ChangedAlertCondition;
+import com.example.trading.repository.WriteRetry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Live evaluation of price alerts. Each active {@link Alert}'s condition is parsed once into a
+ * {@link PriceCondition} and indexed per symbol in {@link SymbolAlerts}, so a price tick costs a
+ * map lookup and a heap peek unless it actually crosses thresholds. Fired alerts are collected
+ * into batches and a single writer thread records them as {@link AlertTrigger} rows (one per
+ * delivery method), bumps the alert's trigger count and hands the new triggers to
+ * {@link AlertDeliveryService}. The writer's queue is unbounded so that a burst of triggers
+ * never stalls the tick path; fired-alert records are small. A batch that fails transiently is
+ * retried until it lands; one that fails permanently is split and written alert by alert, so
+ * only the fired alerts that can not be recorded are dropped.
+ *
+ * <p>Alerts are edited outside this service, so a loader thread keeps the index current: every
+ * {@code refresh-interval} it pages through alerts whose {@code updated_at} moved since the last
+ * pass (re-reading {@code refresh-overlap} back, for commits that land late) and registers or
+ * unregisters them, and every {@code reconcile-interval} it re-reads all active alerts and drops
+ * the ones that are gone, which also catches deletes. Re-registering an unchanged condition is
+ * a no-op, so an alert keeps its armed state across passes. Conditions that are not price
+ * conditions are skipped and counted under {@code alerts.engine.unsupported}; a trigger for an
+ * alert that is no longer active is discarded and the alert dropped from the index.
+ */
+@Service
+public class AlertEngine {
+  private final AlertRepository alertRepository;
+  private final AlertTriggerRepository alertTriggerRepository;
+  private final AlertDeliveryService deliveryService;
+  private final PriceTickPublisher tickPublisher;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate tx;
+  private final int batchSize;
+  private final int loadPageSize;
+  private final Duration refreshInterval;
+  private final Duration refreshOverlap;
+  private final Duration reconcileInterval;
+  private final WriteRetry retry = new WriteRetry("alert_triggers");
+
+  private final Map<String, SymbolAlerts> books = new ConcurrentHashMap<>();
+  private final Map<Long, PriceCondition> conditionsByAlert = new ConcurrentHashMap<>();
+  // Alerts whose condition is not a price condition, so reloads count each one once
+  private final Set<Long> rejected = ConcurrentHashMap.newKeySet();
+  private final Object lock = new Object();
+  private List<Fired> pending;
+  private final ThreadPoolExecutor writerPool;
+  private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "alert-flusher");
+    t.setDaemon(true);
+    return t;
+  });
+  private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "alert-loader");
+    t.setDaemon(true);
+    return t;
+  });
+  // Start of the last refresh pass; loader thread only after startup
+  private LocalDateTime refreshedAt;
+
+  private final Counter fired;
+  private final Counter unsupported;
+  private final Counter recorded;
+  private final Counter failed;
+  private final Counter reloadFailed;
+
+  public AlertEngine(
+    AlertRepository alertRepository,
+    AlertTriggerRepository alertTriggerRepository,
+    AlertDeliveryService deliveryService,
+    PriceTickPublisher tickPublisher,
+    ObjectMapper objectMapper,
+    PlatformTransactionManager transactionManager,
+    MeterRegistry meterRegistry,
+    @Value("${alerts.engine.batch-size:500}") int batchSize,
+    @Value("${alerts.engine.flush-interval:PT1S}") Duration flushInterval,
+    @Value("${alerts.engine.load-page-size:10000}") int loadPageSize,
+    @Value("${alerts.engine.refresh-interval:PT5S}") Duration refreshInterval,
+    @Value("${alerts.engine.refresh-overlap:PT1M}") Duration refreshOverlap,
+    @Value("${alerts.engine.reconcile-interval:PT10M}") Duration reconcileInterval
+  ) {
+    this.alertRepository = alertRepository;
+    this.alertTriggerRepository = alertTriggerRepository;
+    this.deliveryService = deliveryService;
+    this.tickPublisher = tickPublisher;
+    this.objectMapper = objectMapper;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.loadPageSize = loadPageSize;
+    this.refreshInterval = refreshInterval;
+    this.refreshOverlap = refreshOverlap;
+    this.reconcileInterval = reconcileInterval;
+    this.pending = new ArrayList<>(batchSize);
+    this.writerPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread t = new Thread(r, "alert-writer");
+      t.setDaemon(true);
+      return t;
+    });
+    this.fired = Counter.builder("alerts.engine.fired").register(meterRegistry);
+    this.unsupported = Counter.builder("alerts.engine.unsupported").register(meterRegistry);
+    this.recorded = Counter.builder("alerts.engine.triggers").tag("result", "recorded").register(meterRegistry);
+    this.failed = Counter.builder("alerts.engine.triggers").tag("result", "failed").register(meterRegistry);
+    this.reloadFailed = Counter.builder("alerts.engine.reloads").tag("result", "failed").register(meterRegistry);
+    Gauge.builder("alerts.engine.active", conditionsByAlert, Map::size).register(meterRegistry);
+
+    long flushMillis = flushInterval.toMillis();
+    flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private record Fired(long alertId, String symbol, boolean above, long threshold, long price, long epochMillis) {}
+
+  /** Indexes every active alert, then keeps the index current on the loader thread. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    refreshedAt = LocalDateTime.now();
+    reconcile();
+    long refreshMillis = refreshInterval.toMillis();
+    long reconcileMillis = reconcileInterval.toMillis();
+    loader.scheduleWithFixedDelay(() -> reload(this::refresh), refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    loader.scheduleWithFixedDelay(() -> reload(this::reconcile), reconcileMillis, reconcileMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void reload(Runnable pass) {
+    try {
+      pass.run();
+    } catch (DataAccessException e) {
+      // The next pass covers the same changes
+      reloadFailed.increment();
+    }
+  }
+
+  /** Registers every active alert, reading only ids and conditions in keyset pages, and drops the rest. */
+  private void reconcile() {
+    Set<Long> active = new HashSet<>();
+    long after = 0;
+    while (true) {
+      List<ActiveAlertCondition> page = alertRepository.findActiveConditionsAfter(after, PageRequest.ofSize(loadPageSize));
+      for (ActiveAlertCondition row : page) {
+        active.add(row.getId());
+        register(row.getId(), row.getCondition());
+      }
+      if (page.size() < loadPageSize) break;
+      after = page.get(page.size() - 1).getId();
+    }
+    for (Long id : conditionsByAlert.keySet()) {
+      if (!active.contains(id)) unregister(id);
+    }
+    rejected.retainAll(active);
+  }
+
+  /** Applies alerts created, edited, paused or resumed since the previous pass. */
+  private void refresh() {
+    LocalDateTime started = LocalDateTime.now();
+    LocalDateTime since = refreshedAt.minus(refreshOverlap);
+    long afterId = 0;
+    while (true) {
+      List<ChangedAlertCondition> page = alertRepository.findChangedAfter(since, afterId, PageRequest.ofSize(loadPageSize));
+      for (ChangedAlertCondition row : page) {
+        if (row.getStatus() == AlertStatus.ACTIVE) register(row.getId(), row.getCondition());
+        else unregister(row.getId());
+      }
+      if (page.size() < loadPageSize) break;
+      ChangedAlertCondition last = page.get(page.size() - 1);
+      since = last.getUpdatedAt();
+      afterId = last.getId();
+    }
+    refreshedAt = started;
+  }
+
+  /** Adds or replaces the alert in the index; inactive alerts are removed instead. */
+  public boolean register(Alert alert) {
+    if (alert.getStatus() != AlertStatus.ACTIVE) {
+      unregister(alert.getId());
+      return false;
+    }
+    return register(alert.getId(), alert.getCondition());
+  }
+
+  /**
+   * Returns false, leaving the alert unindexed, if {@code condition} is not a price condition.
+   * An alert already indexed with the same condition is left as it is, armed or re-arming.
+   */
+  public boolean register(long alertId, String condition) {
+    PriceCondition parsed;
+    try {
+      parsed = PriceCondition.parse(condition);
+    } catch (IllegalArgumentException e) {
+      if (rejected.add(alertId)) unsupported.increment();
+      unregister(alertId);
+      return false;
+    }
+    rejected.remove(alertId);
+    PriceCondition previous = conditionsByAlert.put(alertId, parsed);
+    if (parsed.equals(previous)) return true;
+    if (previous != null && !previous.symbol().equals(parsed.symbol())) removeFromBook(previous.symbol(), alertId);
+    books.compute(parsed.symbol(), (symbol, book) -> {
+      if (book == null) {
+        book = new SymbolAlerts();
+        tickPublisher.watch(symbol);
+      }
+      book.add(alertId, parsed);
+      return book;
+    });
+    return true;
+  }
+
+  public void unregister(Long alertId) {
+    PriceCondition condition = conditionsByAlert.remove(alertId);
+    if (condition != null) removeFromBook(condition.symbol(), alertId);
+  }
+
+  private void removeFromBook(String symbol, long alertId) {
+    books.computeIfPresent(symbol, (s, book) -> {
+      book.remove(alertId);
+      if (book.size() > 0) return book;
+      tickPublisher.unwatch(s);
+      return null;
+    });
+  }
+
+  public int activeCount() {
+    return conditionsByAlert.size();
+  }
+
+  @EventListener
+  public void onPriceTick(PriceTick tick) {
+    onTick(tick.symbol(), tick.timestamp().toEpochMilli(), FixedPoint.fromBigDecimal(tick.price()));
+  }
+
+  /** Evaluates a new last price for {@code symbol}; {@code price} is a FixedPoint long. */
+  public void onTick(String symbol, long epochMillis, long price) {
+    SymbolAlerts book = books.get(symbol);
+    if (book == null) return;
+    book.onPrice(price, epochMillis, (alertId, above, threshold, last, at) ->
+      enqueue(new Fired(alertId, symbol, above, threshold, last, at)));
+  }
+
+  private void enqueue(Fired f) {
+    fired.increment();
+    List<Fired> full = null;
+    synchronized (lock) {
+      pending.add(f);
+      if (pending.size() >= batchSize) {
+        full = pending;
+        pending = new ArrayList<>(batchSize);
+      }
+    }
+    if (full != null) submit(full);
+  }
+
+  private void flush() {
+    List<Fired> batch;
+    synchronized (lock) {
+      if (pending.isEmpty()) return;
+      batch = pending;
+      pending = new ArrayList<>(batchSize);
+    }
+    submit(batch);
+  }
+
+  private void submit(List<Fired> batch) {
+    if (writerPool.isShutdown()) {
+      write(batch);
+    } else {
+      writerPool.execute(() -> write(batch));
+    }
+  }
+
+  private void write(List<Fired> batch) {
+    AtomicReference<Recorded> result = new AtomicReference<>();
+    if (retry.run(batch.size(), () -> result.set(tx.execute(status -> record(batch))))) {
+      if (result.get() == null) return;
+      result.get().gone().forEach(this::unregister);
+      deliveryService.submit(result.get().deliveries());
+    } else if (batch.size() > 1 && !Thread.currentThread().isInterrupted()) {
+      // The whole batch rolled back; record its alerts one by one so only the bad ones are lost
+      for (Fired f : batch) write(List.of(f));
+    } else {
+      failed.increment(batch.size());
+    }
+  }
+
+  /** {@code gone}: alerts deleted or deactivated since they were indexed. */
+  private record Recorded(List<Long> gone, List<AlertDelivery> deliveries) {}
+
+  private Recorded record(List<Fired> batch) {
+    Set<Long> ids = new LinkedHashSet<>();
+    for (Fired f : batch) ids.add(f.alertId());
+    Map<Long, Alert> alerts = new HashMap<>();
+    for (Alert a : alertRepository.findWithDeliveryMethodsByIdIn(ids)) alerts.put(a.getId(), a);
+
+    List<AlertTrigger> triggers = new ArrayList<>(batch.size());
+    List<Long> gone = new ArrayList<>();
+    for (Fired f : batch) {
+      Alert alert = alerts.get(f.alertId());
+      if (alert == null || alert.getStatus() != AlertStatus.ACTIVE) {
+        gone.add(f.alertId());
+        continue;
+      }
+      alert.trigger();
+      String data = triggerData(f);
+      if (alert.getDeliveryMethods() == null || alert.getDeliveryMethods().isEmpty()) {
+        // Nothing to send; record the trigger as already handled so delivery never picks it up
+        AlertTrigger trigger = trigger(alert, data, null);
+        trigger.markDelivered();
+        triggers.add(trigger);
+      } else {
+        for (Alert.DeliveryMethod method : alert.getDeliveryMethods()) {
+          triggers.add(trigger(alert, data, AlertTrigger.DeliveryMethod.valueOf(method.name())));
+        }
+      }
+    }
+    List<AlertDelivery> deliveries = new ArrayList<>(triggers.size());
+    for (AlertTrigger trigger : alertTriggerRepository.saveAll(triggers)) {
+      if (trigger.isPending()) deliveries.add(AlertDelivery.of(trigger));
+    }
+    recorded.increment(triggers.size());
+    return new Recorded(gone, deliveries);
+  }
+
+  private static AlertTrigger trigger(Alert alert, String data, AlertTrigger.DeliveryMethod method) {
+    AlertTrigger trigger = new AlertTrigger();
+    trigger.setAlert(alert);
+    trigger.setUser(alert.getUser());
+    trigger.setDeliveryMethod(method);
+    trigger.setTriggerData(data);
+    return trigger;
+  }
+
+  private String triggerData(Fired f) {
+    Map<String, Object> data = new LinkedHashMap<>();
+    data.put("symbol", f.symbol());
+    data.put("direction", f.above() ? "above" : "below");
+    data.put("threshold", FixedPoint.toBigDecimal(f.threshold()).stripTrailingZeros().toPlainString());
+    data.put("price", FixedPoint.toBigDecimal(f.price()).stripTrailingZeros().toPlainString());
+    data.put("time", Instant.ofEpochMilli(f.epochMillis()).toString());
+    try {
+      return objectMapper.writeValueAsString(data);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    loader.shutdownNow();
+    flusher.shutdownNow();
+    flush();
+    writerPool.shutdown();
+    writerPool.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,61 @@
+package com.example.trading.alert;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Open in-app notification streams per user, keyed by the user's auth subject (JWT
+ * {@code sub}). Web notifications are delivered by pushing an {@code alert} event to every
+ * stream the alert owner has open.
+ */
+@Component
+public class AlertStreamHub {
+  private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+
+  private final Map<UUID, Set<SseEmitter>> streams = new ConcurrentHashMap<>();
+
+  public SseEmitter subscribe(UUID userId) {
+    SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+    streams.computeIfAbsent(userId, u -> ConcurrentHashMap.newKeySet()).add(emitter);
+    emitter.onCompletion(() -> remove(userId, emitter));
+    emitter.onTimeout(() -> remove(userId, emitter));
+    emitter.onError(e -> remove(userId, emitter));
+    return emitter;
+  }
+
+  /** Returns true if at least one of the user's streams accepted the event. */
+  boolean send(UUID userId, String json) {
+    Set<SseEmitter> emitters = userId != null ? streams.get(userId) : null;
+    if (emitters == null) return false;
+    boolean sent = false;
+    for (SseEmitter emitter : emitters) {
+      try {
+        emitter.send(SseEmitter.event().name("alert").data(json));
+        sent = true;
+      } catch (IOException | IllegalStateException e) {
+        remove(userId, emitter);
+        emitter.completeWithError(e);
+      }
+    }
+    return sent;
+  }
+
+  private void remove(UUID userId, SseEmitter emitter) {
+    streams.computeIfPresent(userId, (u, emitters) -> {
+      emitters.remove(emitter);
+      return emitters.isEmpty() ? null : emitters;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    streams.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+  }
+}
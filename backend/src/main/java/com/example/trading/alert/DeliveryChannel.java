@@ -0,0 +1,26 @@
+package com.example.trading.alert;
+
+import com.example.trading.domain.AlertTrigger;
+import java.util.List;
+
+/**
+ * One way of delivering alert triggers. {@link AlertDeliveryService} gives every channel its
+ * own bounded queue and worker threads and hands it batches of up to {@link #batchSize()}
+ * deliveries, so a channel can amortize connection setup across the batch.
+ */
+public interface DeliveryChannel {
+  AlertTrigger.DeliveryMethod method();
+
+  int workers();
+
+  int queueCapacity();
+
+  int batchSize();
+
+  /**
+   * Delivers {@code batch}, returning one entry per delivery in the same order: {@code null}
+   * when it was delivered, otherwise the error. Failed deliveries are retried with backoff.
+   * Implementations must not throw for a single bad delivery.
+   */
+  List<String> deliver(List<AlertDelivery> batch);
+}
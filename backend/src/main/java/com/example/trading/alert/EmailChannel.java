@@ -0,0 +1,104 @@
+package com.example.trading.alert;
+
+import com.example.trading.domain.AlertTrigger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends alert emails. A batch goes out through a single {@link JavaMailSender#send(SimpleMailMessage...)}
+ * call, which reuses one SMTP connection for every message instead of connecting per alert.
+ */
+@Component
+@ConditionalOnProperty(name = "alerts.email.enabled", havingValue = "true", matchIfMissing = true)
+public class EmailChannel implements DeliveryChannel {
+  private final JavaMailSender mailSender;
+  private final String fromAddress;
+  private final int workers;
+  private final int queueCapacity;
+  private final int batchSize;
+
+  public EmailChannel(
+    JavaMailSender mailSender,
+    @Value("${alerts.email.from-address:noreply@tradecrafter.com}") String fromAddress,
+    @Value("${alerts.delivery.email.workers:2}") int workers,
+    @Value("${alerts.delivery.email.queue-capacity:10000}") int queueCapacity,
+    @Value("${alerts.delivery.email.batch-size:50}") int batchSize
+  ) {
+    this.mailSender = mailSender;
+    this.fromAddress = fromAddress;
+    this.workers = workers;
+    this.queueCapacity = queueCapacity;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public AlertTrigger.DeliveryMethod method() {
+    return AlertTrigger.DeliveryMethod.EMAIL;
+  }
+
+  @Override
+  public int workers() {
+    return workers;
+  }
+
+  @Override
+  public int queueCapacity() {
+    return queueCapacity;
+  }
+
+  @Override
+  public int batchSize() {
+    return batchSize;
+  }
+
+  @Override
+  public List<String> deliver(List<AlertDelivery> batch) {
+    String[] errors = new String[batch.size()];
+    List<SimpleMailMessage> messages = new ArrayList<>(batch.size());
+    Map<SimpleMailMessage, Integer> index = new IdentityHashMap<>();
+    for (int i = 0; i < batch.size(); i++) {
+      AlertDelivery d = batch.get(i);
+      if (d.emailAddress() == null || d.emailAddress().isBlank()) {
+        errors[i] = "No email address on alert";
+        continue;
+      }
+      SimpleMailMessage message = new SimpleMailMessage();
+      message.setFrom(fromAddress);
+      message.setTo(d.emailAddress());
+      message.setSubject("Alert triggered: " + d.alertName());
+      message.setText("Your alert \"" + d.alertName() + "\" was triggered.\n\n" + d.data());
+      messages.add(message);
+      index.put(message, i);
+    }
+    if (messages.isEmpty()) return Arrays.asList(errors);
+    try {
+      mailSender.send(messages.toArray(SimpleMailMessage[]::new));
+    } catch (MailSendException e) {
+      // Partial failure: only the listed messages failed; without a list the whole send did
+      if (e.getFailedMessages().isEmpty()) {
+        for (Integer i : index.values()) errors[i] = describe(e);
+      }
+      for (Map.Entry<Object, Exception> failed : e.getFailedMessages().entrySet()) {
+        Integer i = index.get(failed.getKey());
+        if (i != null) errors[i] = describe(failed.getValue());
+      }
+    } catch (MailException e) {
+      for (Integer i : index.values()) errors[i] = describe(e);
+    }
+    return Arrays.asList(errors);
+  }
+
+  private static String describe(Exception e) {
+    return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.trading.alert;
+
+import com.example.trading.domain.FixedPoint;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Typed form of a price alert condition such as {@code BTCUSDT crosses above 65000} or
+ * {@code EURUSD=X <= 1.05}. Thresholds are normalized to inclusive FixedPoint bounds:
+ * {@code > 100} becomes "at or above 100.00000001".
+ *
+ * <p>Without {@code crosses} the condition is a level: it fires as soon as it holds,
+ * including on the first price seen. With {@code crosses} it fires only when the price is
+ * observed moving from one side of the threshold to the other. Either way an alert that fired
+ * re-arms once the price is back on the other side, so it fires once per crossing.
+ *
+ * @param above     true for "at or above {@code threshold}", false for "at or below"
+ * @param threshold FixedPoint price
+ */
+public record PriceCondition(String symbol, boolean above, long threshold, boolean cross) {
+  private static final Pattern SYNTAX = Pattern.compile(
+    "\\s*(\\S+)\\s+(crosses\\s+)?(above|below|>=|<=|>|<)\\s*([-+]?\\d+(?:\\.\\d+)?)\\s*",
+    Pattern.CASE_INSENSITIVE);
+
+  /** @throws IllegalArgumentException if {@code condition} is not a price condition */
+  public static PriceCondition parse(String condition) {
+    Matcher m = condition == null ? null : SYNTAX.matcher(condition);
+    if (m == null || !m.matches()) {
+      throw new IllegalArgumentException("Not a price condition: " + condition);
+    }
+    long value = FixedPoint.parse(m.group(4));
+    boolean cross = m.group(2) != null;
+    return switch (m.group(3).toLowerCase(Locale.ROOT)) {
+      case "above", ">=" -> new PriceCondition(m.group(1), true, value, cross);
+      case ">" -> new PriceCondition(m.group(1), true, FixedPoint.add(value, 1), cross);
+      case "below", "<=" -> new PriceCondition(m.group(1), false, value, cross);
+      default -> new PriceCondition(m.group(1), false, FixedPoint.subtract(value, 1), cross);
+    };
+  }
+}
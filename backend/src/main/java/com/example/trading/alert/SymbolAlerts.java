@@ -0,0 +1,153 @@
+package com.example.trading.alert;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Active price alerts for one symbol. Every alert sits in exactly one of two heaps: armed
+ * (waiting to fire) or re-arming (waiting for the price to return to the other side of its
+ * threshold). A tick pops only the entries whose thresholds it reached, so its cost is
+ * O(1 + crossed * log n) however many alerts are registered. Alert state lives in parallel
+ * primitive arrays indexed by slot; heap entries refer to {@code generation << 32 | slot}
+ * and are dropped lazily once the alert is removed.
+ */
+final class SymbolAlerts {
+  private static final byte ABOVE = 1;
+  private static final byte CROSS = 2;
+
+  @FunctionalInterface
+  interface FireSink {
+    void fired(long alertId, boolean above, long threshold, long price, long epochMillis);
+  }
+
+  private final ThresholdHeap rising = new ThresholdHeap(true);
+  private final ThresholdHeap falling = new ThresholdHeap(false);
+  private final Map<Long, Integer> slotsById = new HashMap<>();
+  private long[] alertIds = new long[16];
+  private long[] thresholds = new long[16];
+  private byte[] flags = new byte[16];
+  private int[] generations = new int[16];
+  private int[] freeSlots = new int[16];
+  private int freeCount;
+  private int slotCount;
+  private int stale;
+
+  // Added before the first price is known; placed on the next tick
+  private long[] unplaced = new long[16];
+  private int unplacedCount;
+  private long last;
+
+  synchronized int size() {
+    return slotsById.size();
+  }
+
+  synchronized void add(long alertId, PriceCondition condition) {
+    remove(alertId);
+    int slot = freeCount > 0 ? freeSlots[--freeCount] : newSlot();
+    alertIds[slot] = alertId;
+    thresholds[slot] = condition.threshold();
+    flags[slot] = (byte) ((condition.above() ? ABOVE : 0) | (condition.cross() ? CROSS : 0));
+    slotsById.put(alertId, slot);
+    long ref = ref(slot);
+    if (last > 0) {
+      place(ref, last);
+    } else {
+      if (unplacedCount == unplaced.length) unplaced = Arrays.copyOf(unplaced, unplacedCount * 2);
+      unplaced[unplacedCount++] = ref;
+    }
+  }
+
+  synchronized boolean remove(long alertId) {
+    Integer slot = slotsById.remove(alertId);
+    if (slot == null) return false;
+    generations[slot]++;
+    if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+    freeSlots[freeCount++] = slot;
+    if (++stale > 1024 && stale > slotsById.size()) compact();
+    return true;
+  }
+
+  /** Applies a new last price and reports every alert it fires to {@code sink}. */
+  synchronized void onPrice(long price, long epochMillis, FireSink sink) {
+    if (price <= 0) return;
+    last = price;
+    if (unplacedCount > 0) {
+      for (int i = 0; i < unplacedCount; i++) {
+        if (live(unplaced[i])) place(unplaced[i], price);
+      }
+      unplacedCount = 0;
+    }
+    // Entries moved during the first loop can't be reached by the second: an ABOVE alert
+    // fired at >= t re-arms at <= t - 1, and a BELOW alert re-armed at >= t + 1 waits at <= t
+    while (rising.reached(price)) {
+      long ref = rising.topRef();
+      rising.pop();
+      if (!live(ref)) {
+        stale--;
+        continue;
+      }
+      int slot = (int) ref;
+      if ((flags[slot] & ABOVE) != 0) {
+        sink.fired(alertIds[slot], true, thresholds[slot], price, epochMillis);
+        falling.push(thresholds[slot] - 1, ref);
+      } else {
+        falling.push(thresholds[slot], ref);
+      }
+    }
+    while (falling.reached(price)) {
+      long ref = falling.topRef();
+      falling.pop();
+      if (!live(ref)) {
+        stale--;
+        continue;
+      }
+      int slot = (int) ref;
+      if ((flags[slot] & ABOVE) == 0) {
+        sink.fired(alertIds[slot], false, thresholds[slot], price, epochMillis);
+        rising.push(thresholds[slot] + 1, ref);
+      } else {
+        rising.push(thresholds[slot], ref);
+      }
+    }
+  }
+
+  /** Initial placement: a crossing alert already past its threshold starts re-arming. */
+  private void place(long ref, long price) {
+    int slot = (int) ref;
+    long t = thresholds[slot];
+    boolean cross = (flags[slot] & CROSS) != 0;
+    if ((flags[slot] & ABOVE) != 0) {
+      if (cross && price >= t) falling.push(t - 1, ref);
+      else rising.push(t, ref);
+    } else {
+      if (cross && price <= t) rising.push(t + 1, ref);
+      else falling.push(t, ref);
+    }
+  }
+
+  private void compact() {
+    rising.retain(this::live);
+    falling.retain(this::live);
+    stale = 0;
+  }
+
+  private boolean live(long ref) {
+    return generations[(int) ref] == (int) (ref >>> 32);
+  }
+
+  private long ref(int slot) {
+    return ((long) generations[slot] << 32) | slot;
+  }
+
+  private int newSlot() {
+    if (slotCount == alertIds.length) {
+      int n = slotCount * 2;
+      alertIds = Arrays.copyOf(alertIds, n);
+      thresholds = Arrays.copyOf(thresholds, n);
+      flags = Arrays.copyOf(flags, n);
+      generations = Arrays.copyOf(generations, n);
+    }
+    return slotCount++;
+  }
+}
@@ -0,0 +1,85 @@
+package com.example.trading.alert;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Binary heap of (threshold, ref) pairs in parallel primitive arrays. A rising heap
+ * surfaces the lowest threshold and is "reached" once the price is at or above it; a falling
+ * heap surfaces the highest and is reached at or below. Falling keys are stored negated so
+ * both directions share one min-heap.
+ */
+public final class ThresholdHeap {
+  private final boolean rising;
+  private long[] keys = new long[16];
+  private long[] refs = new long[16];
+  private int size;
+
+  public ThresholdHeap(boolean rising) {
+    this.rising = rising;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Whether the top entry's threshold is reached at {@code price}. */
+  public boolean reached(long price) {
+    return size > 0 && keys[0] <= (rising ? price : -price);
+  }
+
+  public long topRef() {
+    return refs[0];
+  }
+
+  public void push(long threshold, long ref) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      refs = Arrays.copyOf(refs, size * 2);
+    }
+    long key = rising ? threshold : -threshold;
+    int i = size++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (keys[parent] <= key) break;
+      keys[i] = keys[parent];
+      refs[i] = refs[parent];
+      i = parent;
+    }
+    keys[i] = key;
+    refs[i] = ref;
+  }
+
+  public void pop() {
+    size--;
+    if (size > 0) siftDown(0, keys[size], refs[size]);
+  }
+
+  /** Drops every entry whose ref fails {@code live} and re-heapifies in O(n). */
+  public void retain(LongPredicate live) {
+    int n = 0;
+    for (int i = 0; i < size; i++) {
+      if (live.test(refs[i])) {
+        keys[n] = keys[i];
+        refs[n] = refs[i];
+        n++;
+      }
+    }
+    size = n;
+    for (int i = (size >>> 1) - 1; i >= 0; i--) siftDown(i, keys[i], refs[i]);
+  }
+
+  private void siftDown(int i, long key, long ref) {
+    int half = size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+      if (key <= keys[child]) break;
+      keys[i] = keys[child];
+      refs[i] = refs[child];
+      i = child;
+    }
+    keys[i] = key;
+    refs[i] = ref;
+  }
+}
@@ -0,0 +1,61 @@
+package com.example.trading.alert;
+
+import com.example.trading.domain.AlertTrigger;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-app notifications over the user's open {@link AlertStreamHub} streams. A user with no
+ * stream open fails the attempt, so the trigger is retried with backoff and reaches them if
+ * they connect before the retries run out.
+ */
+@Component
+public class WebNotificationChannel implements DeliveryChannel {
+  private final AlertStreamHub streamHub;
+  private final int workers;
+  private final int queueCapacity;
+  private final int batchSize;
+
+  public WebNotificationChannel(
+    AlertStreamHub streamHub,
+    @Value("${alerts.delivery.web-notification.workers:2}") int workers,
+    @Value("${alerts.delivery.web-notification.queue-capacity:10000}") int queueCapacity,
+    @Value("${alerts.delivery.web-notification.batch-size:200}") int batchSize
+  ) {
+    this.streamHub = streamHub;
+    this.workers = workers;
+    this.queueCapacity = queueCapacity;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public AlertTrigger.DeliveryMethod method() {
+    return AlertTrigger.DeliveryMethod.WEB_NOTIFICATION;
+  }
+
+  @Override
+  public int workers() {
+    return workers;
+  }
+
+  @Override
+  public int queueCapacity() {
+    return queueCapacity;
+  }
+
+  @Override
+  public int batchSize() {
+    return batchSize;
+  }
+
+  @Override
+  public List<String> deliver(List<AlertDelivery> batch) {
+    List<String> errors = new ArrayList<>(batch.size());
+    for (AlertDelivery d : batch) {
+      errors.add(streamHub.send(d.userSubject(), d.data()) ? null : "No open notification stream");
+    }
+    return errors;
+  }
+}
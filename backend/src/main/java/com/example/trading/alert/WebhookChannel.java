@@ -0,0 +1,157 @@
+package com.example.trading.alert;
+
+import com.example.trading.domain.AlertTrigger;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * POSTs the trigger JSON to the alert's webhook URL. One shared {@link HttpClient} prefers
+ * HTTP/2, so requests in a batch to the same host are multiplexed over one connection (and
+ * HTTP/1.1 hosts get pooled keep-alive connections); the whole batch is sent concurrently and
+ * awaited together.
+ *
+ * <p>Webhook URLs are user input, so before each call the URL must be {@code https} and every
+ * address its host resolves to must be public: loopback, private, link-local (which includes
+ * cloud metadata endpoints), carrier-grade NAT, multicast and reserved ranges are refused.
+ * The client resolves the host again when it connects; requiring a certificate valid for the
+ * host is what keeps a rebinding DNS answer from reaching an internal service.
+ */
+@Component
+public class WebhookChannel implements DeliveryChannel {
+  private final HttpClient client;
+  private final Duration timeout;
+  private final int workers;
+  private final int queueCapacity;
+  private final int batchSize;
+
+  public WebhookChannel(
+    @Value("${alerts.delivery.webhook.timeout:PT10S}") Duration timeout,
+    @Value("${alerts.delivery.webhook.workers:4}") int workers,
+    @Value("${alerts.delivery.webhook.queue-capacity:10000}") int queueCapacity,
+    @Value("${alerts.delivery.webhook.batch-size:100}") int batchSize
+  ) {
+    this.client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_2)
+      .connectTimeout(timeout)
+      .followRedirects(HttpClient.Redirect.NEVER)
+      .build();
+    this.timeout = timeout;
+    this.workers = workers;
+    this.queueCapacity = queueCapacity;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public AlertTrigger.DeliveryMethod method() {
+    return AlertTrigger.DeliveryMethod.WEBHOOK;
+  }
+
+  @Override
+  public int workers() {
+    return workers;
+  }
+
+  @Override
+  public int queueCapacity() {
+    return queueCapacity;
+  }
+
+  @Override
+  public int batchSize() {
+    return batchSize;
+  }
+
+  @Override
+  public List<String> deliver(List<AlertDelivery> batch) {
+    List<CompletableFuture<String>> calls = new ArrayList<>(batch.size());
+    for (AlertDelivery d : batch) calls.add(post(d));
+    List<String> errors = new ArrayList<>(batch.size());
+    long deadline = System.nanoTime() + timeout.toNanos();
+    for (CompletableFuture<String> call : calls) {
+      try {
+        errors.add(call.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+      } catch (TimeoutException e) {
+        call.cancel(true);
+        errors.add("Timed out after " + timeout);
+      } catch (ExecutionException e) {
+        errors.add(String.valueOf(e.getCause()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        errors.add("Interrupted");
+      }
+    }
+    return errors;
+  }
+
+  private CompletableFuture<String> post(AlertDelivery d) {
+    HttpRequest request;
+    try {
+      URI uri = URI.create(d.webhookUrl());
+      String rejected = rejectReason(uri);
+      if (rejected != null) return CompletableFuture.completedFuture(rejected);
+      request = HttpRequest.newBuilder(uri)
+        .timeout(timeout)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(d.data()))
+        .build();
+    } catch (IllegalArgumentException | NullPointerException e) {
+      return CompletableFuture.completedFuture("Invalid webhook URL: " + d.webhookUrl());
+    }
+    return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+      .thenApply(response -> response.statusCode() / 100 == 2 ? null : "HTTP " + response.statusCode());
+  }
+
+  /** Why {@code uri} must not be called, or null for an https URL whose host is public. */
+  static String rejectReason(URI uri) {
+    if (!"https".equalsIgnoreCase(uri.getScheme())) return "Webhook URL must use https: " + uri;
+    String host = uri.getHost();
+    if (host == null || uri.getRawUserInfo() != null) return "Webhook URL must name a host and no credentials: " + uri;
+    InetAddress[] addresses;
+    try {
+      addresses = InetAddress.getAllByName(host);
+    } catch (UnknownHostException e) {
+      return "Unknown webhook host " + host;
+    }
+    for (InetAddress address : addresses) {
+      if (!isPublic(address)) return "Webhook host " + host + " resolves to non-public address " + address.getHostAddress();
+    }
+    return null;
+  }
+
+  static boolean isPublic(InetAddress address) {
+    if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+      || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+      return false;
+    }
+    byte[] b = address.getAddress();
+    if (address instanceof Inet4Address) {
+      int first = b[0] & 0xff;
+      int second = b[1] & 0xff;
+      return first != 0
+        && !(first == 100 && (second & 0xc0) == 64) // 100.64.0.0/10 carrier-grade NAT
+        && !(first == 192 && second == 0 && (b[2] & 0xff) == 0) // 192.0.0.0/24 protocol assignments
+        && !(first == 198 && (second & 0xfe) == 18) // 198.18.0.0/15 benchmarking
+        && first < 240; // 240.0.0.0/4 reserved and broadcast
+    }
+    if ((b[0] & 0xfe) == 0xfc) return false; // fc00::/7 unique local
+    // ::/96 IPv4-compatible and 64:ff9b::/96 NAT64 addresses can embed any IPv4 address
+    boolean nat64 = b[0] == 0 && b[1] == 0x64 && (b[2] & 0xff) == 0xff && (b[3] & 0xff) == 0x9b;
+    boolean embedsIpv4 = nat64 || b[0] == 0 && b[1] == 0 && b[2] == 0 && b[3] == 0;
+    for (int i = 4; embedsIpv4 && i < 12; i++) embedsIpv4 = b[i] == 0;
+    return !embedsIpv4;
+  }
+}
@@ -0,0 +1,81 @@
+package com.example.trading.backtest;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.market.ArchivedCandles;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Single-pass bar replay. Signals are taken at each bar's close and filled at the next
+ * bar's open, moved against the trader by {@code slippage}; open positions are marked to
+ * market at every close. Nothing is allocated per bar or per trade, so throughput is bound
+ * by the strategy's own {@link BarSignal} cost. Arithmetic is in doubles: the outputs
+ * (returns, Sharpe, drawdown ratios) are floating-point statistics and are rounded to the
+ * {@code BacktestResult} column scales once at the end.
+ */
+public final class BacktestEngine {
+  private static final double ONE = FixedPoint.ONE;
+  private static final int CANCEL_CHECK_MASK = (1 << 16) - 1;
+
+  private BacktestEngine() {
+  }
+
+  /**
+   * @param initialBalance starting cash
+   * @param volume         units traded per position
+   * @param slippage       fractional price penalty per fill, e.g. {@code 0.001}
+   * @param barMillis      timeframe length, used to annualize Sharpe
+   * @param curvePoints    maximum equity-curve samples kept
+   */
+  public record Settings(double initialBalance, double volume, double slippage, long barMillis, int curvePoints) {}
+
+  /** Replays bars {@code [from, to)}; throws {@link CancellationException} once {@code cancelled} is true. */
+  public static BacktestStats run(
+    ArchivedCandles bars,
+    int from,
+    int to,
+    BarSignal signal,
+    Settings settings,
+    BooleanSupplier cancelled
+  ) {
+    BacktestStats stats = new BacktestStats(settings.initialBalance(), settings.barMillis(), to - from, settings.curvePoints());
+    double volume = settings.volume();
+    double slippage = settings.slippage();
+    double cash = settings.initialBalance();
+    int position = 0;
+    int target = 0;
+    double entry = 0;
+
+    for (int i = from; i < to; i++) {
+      if (target != position) {
+        double open = bars.open(i) / ONE;
+        if (position != 0) {
+          double exit = open * (1 - position * slippage);
+          double pnl = position * volume * (exit - entry);
+          cash += pnl;
+          stats.onTradeClosed(pnl);
+        }
+        position = target;
+        entry = open * (1 + position * slippage);
+      }
+
+      double close = bars.close(i) / ONE;
+      // On the last bar a position still open is marked at the price it is closed at below
+      double mark = i == to - 1 ? close * (1 - position * slippage) : close;
+      stats.onEquity(bars.time(i), cash + position * volume * (mark - entry));
+
+      int wanted = signal.onBar(bars, i);
+      target = wanted > 0 ? 1 : wanted < 0 ? -1 : 0;
+
+      if ((i & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) throw new CancellationException();
+    }
+
+    // A position still open is closed at the last close, moved against it like any other exit;
+    // the last equity point was marked at that price, so it is already the final balance
+    if (position != 0 && to > from) {
+      double exit = bars.close(to - 1) / ONE * (1 - position * slippage);
+      stats.onTradeClosed(position * volume * (exit - entry));
+    }
+    return stats;
+  }
+}
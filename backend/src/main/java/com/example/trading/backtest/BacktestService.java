@@ -0,0 +1,422 @@
+package com.example.trading.backtest;
+
+import com.example.trading.domain.BacktestResult;
+import com.example.trading.domain.BacktestResult.BacktestStatus;
+import com.example.trading.domain.Strategy;
+import com.example.trading.market.ArchivedCandles;
+import com.example.trading.market.CandleArchive;
+import com.example.trading.market.CandleArchiveExporter;
+import com.example.trading.market.Timeframe;
+import com.example.trading.pine.PinePlan;
+import com.example.trading.pine.PinePlanCache;
+import com.example.trading.repository.BacktestResultRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs backtests asynchronously on a bounded worker pool. Each run is persisted as
+ * {@link BacktestStatus#QUEUED} when submitted, marked {@code RUNNING} once a worker picks it up
+ * and updated once more to {@code COMPLETED}, {@code FAILED} or {@code CANCELLED}. Bars come from the
+ * {@link CandleArchive} (brought up to date from {@code market_data} first), capped at the
+ * most recent {@code trading.backtesting.max-bars} of the requested range. Parameter
+ * sweeps run separately on a bounded {@link ForkJoinPool}.
+ */
+@Service
+public class BacktestService {
+  private static final int CURVE_POINTS = 500;
+
+  private final CandleArchive archive;
+  private final CandleArchiveExporter exporter;
+  private final BacktestResultRepository backtestResultRepository;
+  private final PinePlanCache planCache;
+  private final ObjectMapper objectMapper;
+  private final double slippage;
+  private final BigDecimal defaultBalance;
+  private final int maxBars;
+  private final ExecutorService workers;
+  private final ForkJoinPool sweepPool;
+  private final int maxCombinations;
+  private final Map<Long, AtomicBoolean> cancelFlags = new ConcurrentHashMap<>();
+
+  public BacktestService(
+    CandleArchive archive,
+    CandleArchiveExporter exporter,
+    BacktestResultRepository backtestResultRepository,
+    PinePlanCache planCache,
+    ObjectMapper objectMapper,
+    @Value("${trading.paper-trading.slippage:0.001}") double slippage,
+    @Value("${trading.paper-trading.default-balance:10000.0}") BigDecimal defaultBalance,
+    @Value("${trading.backtesting.max-bars:1000000}") int maxBars,
+    @Value("${trading.backtesting.workers:0}") int workerCount,
+    @Value("${trading.backtesting.sweep.parallelism:0}") int sweepParallelism,
+    @Value("${trading.backtesting.sweep.max-combinations:100000}") int maxCombinations
+  ) {
+    this.archive = archive;
+    this.exporter = exporter;
+    this.backtestResultRepository = backtestResultRepository;
+    this.planCache = planCache;
+    this.objectMapper = objectMapper;
+    this.slippage = slippage;
+    this.defaultBalance = defaultBalance;
+    this.maxBars = maxBars;
+    AtomicInteger n = new AtomicInteger();
+    int threads = workerCount > 0 ? workerCount : Runtime.getRuntime().availableProcessors();
+    this.workers = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "backtest-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    this.sweepPool = new ForkJoinPool(sweepParallelism > 0 ? sweepParallelism : Runtime.getRuntime().availableProcessors());
+    this.maxCombinations = maxCombinations;
+  }
+
+  /**
+   * @param from       first bar open time (inclusive); {@code null} for the start of history
+   * @param to         last bar open time (exclusive); {@code null} for now
+   * @param volume     units per position; {@code null} for 1
+   * @param parameters strategy inputs, stored with the result
+   */
+  public record BacktestRequest(
+    String symbol,
+    String timeframe,
+    LocalDateTime from,
+    LocalDateTime to,
+    BigDecimal initialBalance,
+    BigDecimal volume,
+    Map<String, String> parameters
+  ) {}
+
+  /** Backtests the strategy's compiled Pine script with {@code request.parameters()} as inputs. */
+  public CompletableFuture<BacktestResult> submit(Strategy strategy, BacktestRequest request) {
+    return submit(strategy, request, planCache.plan(strategy).instantiate(request.parameters()));
+  }
+
+  public CompletableFuture<BacktestResult> submit(Strategy strategy, BacktestRequest request, BarSignal signal) {
+    BigDecimal balance = request.initialBalance() != null ? request.initialBalance() : defaultBalance;
+    BacktestResult result = new BacktestResult();
+    result.setStrategy(strategy);
+    result.setSymbol(request.symbol());
+    result.setTimeframe(request.timeframe());
+    result.setParameters(toJson(request.parameters()));
+    result.setStatus(BacktestStatus.QUEUED);
+    new BacktestStats(balance.doubleValue(), Timeframe.parse(request.timeframe()).millis(), 0, 0).applyTo(result);
+    BacktestResult saved = backtestResultRepository.save(result);
+
+    AtomicBoolean cancelled = new AtomicBoolean();
+    cancelFlags.put(saved.getId(), cancelled);
+    return CompletableFuture.supplyAsync(() -> run(saved, request, balance, signal, cancelled), workers)
+      .whenComplete((r, ex) -> cancelFlags.remove(saved.getId()));
+  }
+
+  /**
+   * @param base   series, range, balance and the fixed strategy parameters
+   * @param grid   candidate values per swept parameter; every combination is run
+   * @param metric ranking used to pick the results that are kept
+   * @param topK   how many of the best combinations are persisted
+   */
+  public record SweepRequest(
+    BacktestRequest base,
+    Map<String, List<String>> grid,
+    SweepMetric metric,
+    int topK
+  ) {}
+
+  /** Sweeps the strategy's compiled Pine script; the plan is compiled once for all combinations. */
+  public CompletableFuture<List<BacktestResult>> sweep(Strategy strategy, SweepRequest request) {
+    PinePlan plan = planCache.plan(strategy);
+    return sweep(strategy, request, plan::instantiate);
+  }
+
+  /**
+   * Runs every combination of {@code request.grid()} on the shared sweep pool and persists
+   * only the best {@code topK} as completed {@link BacktestResult}s, best first. All workers
+   * scan the same memory-mapped bars; {@code signals} builds a fresh {@link BarSignal} per
+   * combination from the merged fixed + swept parameters. Cancelling the returned future
+   * stops the sweep at the next cancellation check.
+   */
+  public CompletableFuture<List<BacktestResult>> sweep(
+    Strategy strategy,
+    SweepRequest request,
+    Function<Map<String, String>, BarSignal> signals
+  ) {
+    Grid grid = new Grid(request.base().parameters(), request.grid());
+    if (grid.size() > maxCombinations) {
+      throw new IllegalArgumentException("Sweep has " + grid.size() + " combinations; the limit is " + maxCombinations);
+    }
+    if (request.topK() < 1) throw new IllegalArgumentException("topK must be at least 1");
+
+    CompletableFuture<List<BacktestResult>> future = new CompletableFuture<>();
+    sweepPool.execute(() -> {
+      try {
+        future.complete(runSweep(strategy, request, grid, signals, future::isCancelled));
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  /** Requests cancellation of a running backtest; returns false if it is not running here. */
+  public boolean cancel(Long backtestId) {
+    AtomicBoolean flag = cancelFlags.get(backtestId);
+    if (flag == null) return false;
+    flag.set(true);
+    return true;
+  }
+
+  private BacktestResult run(
+    BacktestResult result,
+    BacktestRequest request,
+    BigDecimal balance,
+    BarSignal signal,
+    AtomicBoolean cancelled
+  ) {
+    result.setStatus(BacktestStatus.RUNNING);
+    backtestResultRepository.save(result);
+    try {
+      Window window = load(request);
+      BacktestStats stats = window.run(signal, settings(request, balance, CURVE_POINTS), cancelled::get);
+      complete(result, window, stats);
+    } catch (CancellationException e) {
+      result.setStatus(BacktestStatus.CANCELLED);
+    } catch (RuntimeException e) {
+      result.setStatus(BacktestStatus.FAILED);
+      backtestResultRepository.save(result);
+      throw e;
+    }
+    return backtestResultRepository.save(result);
+  }
+
+  private List<BacktestResult> runSweep(
+    Strategy strategy,
+    SweepRequest request,
+    Grid grid,
+    Function<Map<String, String>, BarSignal> signals,
+    BooleanSupplier cancelled
+  ) {
+    BacktestRequest base = request.base();
+    BigDecimal balance = base.initialBalance() != null ? base.initialBalance() : defaultBalance;
+    Window window = load(base);
+    // Rank without equity curves, then re-run only the winners with one
+    BacktestEngine.Settings ranking = settings(base, balance, 0);
+    TopK best = new SweepTask(window, grid, signals, ranking, request.metric(), request.topK(), cancelled, 0, grid.size()).invoke();
+
+    BacktestEngine.Settings full = settings(base, balance, CURVE_POINTS);
+    List<BacktestResult> results = new ArrayList<>();
+    for (Scored s : best.bestFirst()) {
+      Map<String, String> parameters = grid.combination(s.combination());
+      BacktestResult result = new BacktestResult();
+      result.setStrategy(strategy);
+      result.setSymbol(base.symbol());
+      result.setTimeframe(base.timeframe());
+      result.setParameters(toJson(parameters));
+      complete(result, window, window.run(signals.apply(parameters), full, cancelled));
+      results.add(result);
+    }
+    return backtestResultRepository.saveAll(results);
+  }
+
+  /** Splits the combination index range in halves down to single runs; each half returns its own top K. */
+  private static final class SweepTask extends RecursiveTask<TopK> {
+    private static final long serialVersionUID = 1L;
+
+    private final Window window;
+    private final Grid grid;
+    private final Function<Map<String, String>, BarSignal> signals;
+    private final BacktestEngine.Settings settings;
+    private final SweepMetric metric;
+    private final int k;
+    private final BooleanSupplier cancelled;
+    private final int lo;
+    private final int hi;
+
+    SweepTask(
+      Window window,
+      Grid grid,
+      Function<Map<String, String>, BarSignal> signals,
+      BacktestEngine.Settings settings,
+      SweepMetric metric,
+      int k,
+      BooleanSupplier cancelled,
+      int lo,
+      int hi
+    ) {
+      this.window = window;
+      this.grid = grid;
+      this.signals = signals;
+      this.settings = settings;
+      this.metric = metric;
+      this.k = k;
+      this.cancelled = cancelled;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected TopK compute() {
+      if (hi - lo == 1) {
+        if (cancelled.getAsBoolean()) throw new CancellationException();
+        BacktestStats stats = window.run(signals.apply(grid.combination(lo)), settings, cancelled);
+        TopK top = new TopK(k);
+        top.offer(new Scored(lo, metric.score(stats)));
+        return top;
+      }
+      int mid = (lo + hi) >>> 1;
+      SweepTask left = new SweepTask(window, grid, signals, settings, metric, k, cancelled, lo, mid);
+      left.fork();
+      TopK right = new SweepTask(window, grid, signals, settings, metric, k, cancelled, mid, hi).compute();
+      return right.merge(left.join());
+    }
+  }
+
+  private record Scored(int combination, double score) {}
+
+  /** Bounded min-heap: keeps the {@code k} highest scores seen. */
+  private static final class TopK {
+    private final int k;
+    private final PriorityQueue<Scored> heap = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+
+    TopK(int k) {
+      this.k = k;
+    }
+
+    void offer(Scored s) {
+      if (Double.isNaN(s.score())) return;
+      if (heap.size() < k) {
+        heap.add(s);
+      } else if (s.score() > heap.peek().score()) {
+        heap.poll();
+        heap.add(s);
+      }
+    }
+
+    TopK merge(TopK other) {
+      other.heap.forEach(this::offer);
+      return this;
+    }
+
+    List<Scored> bestFirst() {
+      List<Scored> out = new ArrayList<>(heap);
+      out.sort(Comparator.comparingDouble(Scored::score).reversed());
+      return out;
+    }
+  }
+
+  /**
+   * Cartesian product of the swept values, addressed by index (mixed radix), so workers
+   * decode their combination instead of the sweep materialising every map up front.
+   */
+  private static final class Grid {
+    private final Map<String, String> fixed;
+    private final String[] names;
+    private final String[][] values;
+    private final int size;
+
+    Grid(Map<String, String> fixed, Map<String, List<String>> grid) {
+      this.fixed = fixed != null ? fixed : Map.of();
+      this.names = grid.keySet().toArray(String[]::new);
+      this.values = new String[names.length][];
+      long n = 1;
+      for (int i = 0; i < names.length; i++) {
+        values[i] = grid.get(names[i]).toArray(String[]::new);
+        if (values[i].length == 0) throw new IllegalArgumentException("No values for parameter " + names[i]);
+        n = Math.multiplyExact(n, values[i].length);
+      }
+      this.size = (int) Math.min(n, Integer.MAX_VALUE);
+    }
+
+    int size() {
+      return size;
+    }
+
+    Map<String, String> combination(int index) {
+      Map<String, String> out = new LinkedHashMap<>(fixed);
+      for (int i = names.length - 1; i >= 0; i--) {
+        out.put(names[i], values[i][index % values[i].length]);
+        index /= values[i].length;
+      }
+      return out;
+    }
+  }
+
+  private Window load(BacktestRequest request) {
+    exporter.export(request.symbol(), request.timeframe());
+    ArchivedCandles bars = archive.open(request.symbol(), request.timeframe());
+    int from = request.from() != null ? bars.indexOf(epochMillis(request.from())) : 0;
+    int to = request.to() != null ? bars.indexOf(epochMillis(request.to())) : bars.size();
+    return new Window(bars, Math.max(from, to - maxBars), to);
+  }
+
+  private BacktestEngine.Settings settings(BacktestRequest request, BigDecimal balance, int curvePoints) {
+    return new BacktestEngine.Settings(
+      balance.doubleValue(),
+      request.volume() != null ? request.volume().doubleValue() : 1.0,
+      slippage,
+      Timeframe.parse(request.timeframe()).millis(),
+      curvePoints
+    );
+  }
+
+  private static void complete(BacktestResult result, Window window, BacktestStats stats) {
+    stats.applyTo(result);
+    if (window.to() > window.from()) {
+      result.setStartDate(toLocal(window.bars().time(window.from())));
+      result.setEndDate(toLocal(window.bars().time(window.to() - 1)));
+    }
+    result.setStatus(BacktestStatus.COMPLETED);
+  }
+
+  /** Bars {@code [from, to)} of one series; read-only and safe to share across threads. */
+  private record Window(ArchivedCandles bars, int from, int to) {
+    BacktestStats run(BarSignal signal, BacktestEngine.Settings settings, BooleanSupplier cancelled) {
+      return BacktestEngine.run(bars, from, to, signal, settings, cancelled);
+    }
+  }
+
+  private String toJson(Map<String, String> parameters) {
+    try {
+      return objectMapper.writeValueAsString(parameters != null ? parameters : Map.of());
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Unserializable backtest parameters", e);
+    }
+  }
+
+  private static long epochMillis(LocalDateTime utc) {
+    return utc.toInstant(ZoneOffset.UTC).toEpochMilli();
+  }
+
+  private static LocalDateTime toLocal(long epochMillis) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    cancelFlags.values().forEach(f -> f.set(true));
+    workers.shutdown();
+    sweepPool.shutdownNow();
+  }
+}
@@ -0,0 +1,141 @@
+package com.example.trading.backtest;
+
+import com.example.trading.domain.BacktestResult;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Every {@link BacktestResult} metric maintained incrementally in primitives, so a run costs
+ * O(1) memory regardless of bar or trade count: running peak for drawdown, Welford
+ * mean/variance of per-bar returns for Sharpe, win/loss sums for the trade statistics, and a
+ * fixed-stride sample of the equity curve.
+ */
+public final class BacktestStats {
+  /** Scale-2 columns are {@code precision = 5}; clamp rather than fail the insert. */
+  private static final double PERCENT_COLUMN_MAX = 999.99;
+
+  private final double initialBalance;
+  private final double annualization;
+  private final int curveStride;
+  private final StringBuilder curve = new StringBuilder("[");
+
+  private double equity;
+  private double peak;
+  private double maxDrawdown;
+  private long bars;
+  private double returnMean;
+  private double returnM2;
+  private long lastTime;
+  private boolean lastSampled;
+
+  private int trades;
+  private int wins;
+  private int losses;
+  private double grossWin;
+  private double grossLoss;
+
+  BacktestStats(double initialBalance, long barMillis, int expectedBars, int curvePoints) {
+    this.initialBalance = initialBalance;
+    this.annualization = Math.sqrt(365.0 * 24 * 60 * 60 * 1000 / barMillis);
+    this.curveStride = Math.max(1, (expectedBars + curvePoints - 1) / Math.max(1, curvePoints));
+    this.equity = initialBalance;
+    this.peak = initialBalance;
+  }
+
+  void onEquity(long time, double value) {
+    if (equity > 0) {
+      double r = value / equity - 1;
+      bars++;
+      double delta = r - returnMean;
+      returnMean += delta / bars;
+      returnM2 += delta * (r - returnMean);
+    }
+    equity = value;
+    if (value > peak) peak = value;
+    else if (peak > 0 && (peak - value) / peak > maxDrawdown) maxDrawdown = (peak - value) / peak;
+
+    lastTime = time;
+    lastSampled = bars % curveStride == 0;
+    if (lastSampled) sample(time, value);
+  }
+
+  void onTradeClosed(double pnl) {
+    trades++;
+    if (pnl > 0) {
+      wins++;
+      grossWin += pnl;
+    } else if (pnl < 0) {
+      losses++;
+      grossLoss -= pnl;
+    }
+  }
+
+  private void sample(long time, double value) {
+    if (curve.length() > 1) curve.append(',');
+    curve.append('[').append(time).append(',').append(Math.round(value * 100) / 100.0).append(']');
+  }
+
+  public double equity() {
+    return equity;
+  }
+
+  public double totalReturnPercent() {
+    return initialBalance > 0 ? (equity - initialBalance) / initialBalance * 100 : 0;
+  }
+
+  public double maxDrawdownPercent() {
+    // Equity below zero is a total loss, not a >100% drawdown
+    return Math.min(maxDrawdown, 1.0) * 100;
+  }
+
+  public double sharpeRatio() {
+    if (bars < 2) return 0;
+    double std = Math.sqrt(returnM2 / (bars - 1));
+    return std > 0 ? returnMean / std * annualization : 0;
+  }
+
+  /**
+   * Gross win over gross loss; {@link Double#POSITIVE_INFINITY} when there were wins and no
+   * losses, 0 without wins. The stored column caps it at 999.99.
+   */
+  public double profitFactor() {
+    if (grossLoss > 0) return grossWin / grossLoss;
+    return grossWin > 0 ? Double.POSITIVE_INFINITY : 0;
+  }
+
+  public double winRatePercent() {
+    return trades > 0 ? 100.0 * wins / trades : 0;
+  }
+
+  public int totalTrades() {
+    return trades;
+  }
+
+  /** Copies the metrics into {@code result}, rounded to the column scales. */
+  public void applyTo(BacktestResult result) {
+    if (!lastSampled && bars > 0) sample(lastTime, equity);
+    result.setInitialBalance(money(initialBalance));
+    result.setFinalBalance(money(equity));
+    result.setTotalPnL(money(equity - initialBalance));
+    result.setTotalReturn(percent(totalReturnPercent()));
+    result.setMaxDrawdown(percent(maxDrawdownPercent()));
+    result.setTotalTrades(trades);
+    result.setWinningTrades(wins);
+    result.setLosingTrades(losses);
+    result.setWinRate(percent(winRatePercent()));
+    result.setAverageWin(money(wins > 0 ? grossWin / wins : 0));
+    result.setAverageLoss(money(losses > 0 ? grossLoss / losses : 0));
+    result.setProfitFactor(percent(profitFactor()));
+    result.setSharpeRatio(percent(sharpeRatio()));
+    result.setEquityCurve(curve + "]");
+  }
+
+  private static BigDecimal money(double v) {
+    return BigDecimal.valueOf(v).setScale(8, RoundingMode.HALF_UP);
+  }
+
+  private static BigDecimal percent(double v) {
+    double clamped = Math.max(-PERCENT_COLUMN_MAX, Math.min(PERCENT_COLUMN_MAX, v));
+    return BigDecimal.valueOf(clamped).setScale(2, RoundingMode.HALF_UP);
+  }
+}
@@ -0,0 +1,15 @@
+package com.example.trading.backtest;
+
+import com.example.trading.market.CandleSeries;
+
+/**
+ * Strategy logic as seen by the backtest engine and the live paper-trading runner.
+ * {@link #onBar} is called once per bar, in order, after bar {@code i} has closed; it may read
+ * any bar {@code <= i} and returns the desired position: {@code 1} long, {@code -1} short,
+ * {@code 0} flat. The backtest engine fills the change at the next bar's open. Instances are
+ * stateful and used by one run only.
+ */
+@FunctionalInterface
+public interface BarSignal {
+  int onBar(CandleSeries bars, int i);
+}
@@ -0,0 +1,37 @@
+package com.example.trading.backtest;
+
+/** Ranking key for parameter sweeps; {@link #score} is higher-is-better for every metric. */
+public enum SweepMetric {
+  TOTAL_RETURN {
+    @Override
+    double score(BacktestStats stats) {
+      return stats.totalReturnPercent();
+    }
+  },
+  SHARPE_RATIO {
+    @Override
+    double score(BacktestStats stats) {
+      return stats.sharpeRatio();
+    }
+  },
+  PROFIT_FACTOR {
+    @Override
+    double score(BacktestStats stats) {
+      return stats.profitFactor();
+    }
+  },
+  WIN_RATE {
+    @Override
+    double score(BacktestStats stats) {
+      return stats.winRatePercent();
+    }
+  },
+  MAX_DRAWDOWN {
+    @Override
+    double score(BacktestStats stats) {
+      return -stats.maxDrawdownPercent();
+    }
+  };
+
+  abstract double score(BacktestStats stats);
+}
@@ -0,0 +1,74 @@
+package com.example.trading.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+
+/**
+ * Bounded in-process cache whose entries expire a fixed time after they were loaded. The
+ * least recently read entry is evicted once {@code maxSize} is exceeded.
+ *
+ * <p>Callers that load values themselves and also invalidate keys take {@link #epoch()} before
+ * loading and store the result with {@link #putIfCurrent}; a load that raced with an
+ * {@link #invalidate} is then dropped instead of caching a stale value.
+ */
+public final class TtlCache<K, V> {
+  private final long ttlNanos;
+  private final int maxSize;
+  private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private long epoch;
+  private Counter evictions;
+
+  private record Entry<V>(V value, long loadedAt) {}
+
+  public TtlCache(Duration ttl, int maxSize) {
+    this.ttlNanos = ttl.toNanos();
+    this.maxSize = maxSize;
+  }
+
+  /** Registers {@code <name>.size} and {@code <name>.evictions} meters. */
+  public TtlCache<K, V> bindTo(MeterRegistry registry, String name) {
+    this.evictions = Counter.builder(name + ".evictions").register(registry);
+    Gauge.builder(name + ".size", this, TtlCache::size).register(registry);
+    return this;
+  }
+
+  /** The cached value, or null when absent or older than the TTL at {@code now}. */
+  public synchronized V get(K key, long now) {
+    Entry<V> entry = entries.get(key);
+    return entry != null && now - entry.loadedAt() < ttlNanos ? entry.value() : null;
+  }
+
+  /** {@code loadedAt} is the {@link System#nanoTime()} the value was loaded at. */
+  public synchronized void put(K key, V value, long loadedAt) {
+    entries.put(key, new Entry<>(value, loadedAt));
+    if (entries.size() > maxSize) {
+      var eldest = entries.entrySet().iterator();
+      eldest.next();
+      eldest.remove();
+      if (evictions != null) evictions.increment();
+    }
+  }
+
+  public synchronized long epoch() {
+    return epoch;
+  }
+
+  /** Stores the value only if nothing was invalidated since {@code epoch} was taken. */
+  public synchronized boolean putIfCurrent(K key, V value, long loadedAt, long epoch) {
+    if (this.epoch != epoch) return false;
+    put(key, value, loadedAt);
+    return true;
+  }
+
+  public synchronized void invalidate(K key) {
+    epoch++;
+    entries.remove(key);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+}
@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 public class AlertTrigger {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alert_triggers_seq")
+    @SequenceGenerator(name = "alert_triggers_seq", sequenceName = "alert_triggers_seq", allocationSize = 50)
     private Long id;
     
     @NotNull
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -45,15 +46,15 @@ public class BacktestResult {
     private BigDecimal maxDrawdown;
     
     @NotNull
-    @Positive
+    @PositiveOrZero
     private Integer totalTrades;
     
     @NotNull
-    @Positive
+    @PositiveOrZero
     private Integer winningTrades;
     
     @NotNull
-    @Positive
+    @PositiveOrZero
     private Integer losingTrades;
     
     @NotNull
@@ -323,6 +324,6 @@ public class BacktestResult {
     }
     
     public enum BacktestStatus {
-        RUNNING, COMPLETED, FAILED, CANCELLED
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.example.trading.domain;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "daily_pnl_rollup", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "trade_date"}))
+public class DailyPnlRollup {
+  @Id
+  @Column(name = "id")
+  private UUID id;
+
+  @Column(name = "user_id", nullable = false)
+  private UUID userId;
+
+  @Column(name = "trade_date", nullable = false)
+  private LocalDate tradeDate;
+
+  @Column(name = "pnl", nullable = false)
+  private BigDecimal pnl;
+
+  @Column(name = "trade_count", nullable = false)
+  private int tradeCount;
+
+  @Column(name = "created_at")
+  private OffsetDateTime createdAt;
+
+  @Column(name = "updated_at")
+  private OffsetDateTime updatedAt;
+
+  @PrePersist
+  public void prePersist() {
+    if (id == null) id = UUID.randomUUID();
+    createdAt = OffsetDateTime.now();
+    updatedAt = createdAt;
+  }
+
+  @PreUpdate
+  public void preUpdate() {
+    updatedAt = OffsetDateTime.now();
+  }
+
+  // Getters and setters
+  public UUID getId() { return id; }
+  public void setId(UUID id) { this.id = id; }
+  public UUID getUserId() { return userId; }
+  public void setUserId(UUID userId) { this.userId = userId; }
+  public LocalDate getTradeDate() { return tradeDate; }
+  public void setTradeDate(LocalDate tradeDate) { this.tradeDate = tradeDate; }
+  public BigDecimal getPnl() { return pnl; }
+  public void setPnl(BigDecimal pnl) { this.pnl = pnl; }
+  public int getTradeCount() { return tradeCount; }
+  public void setTradeCount(int tradeCount) { this.tradeCount = tradeCount; }
+  public OffsetDateTime getCreatedAt() { return createdAt; }
+  public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+  public OffsetDateTime getUpdatedAt() { return updatedAt; }
+  public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
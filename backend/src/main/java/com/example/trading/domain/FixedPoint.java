@@ -0,0 +1,167 @@
+package com.example.trading.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic on raw {@code long}s scaled by 10^8, matching the
+ * {@code precision = 19, scale = 8} money and price columns. Values stay primitive on hot
+ * paths and are converted to {@link BigDecimal} only at the persistence/JSON boundary.
+ * Every operation throws {@link ArithmeticException} on overflow instead of wrapping.
+ */
+public final class FixedPoint {
+    public static final int SCALE = 8;
+    public static final long ONE = 100_000_000L;
+    public static final long ZERO = 0L;
+
+    private FixedPoint() {
+    }
+
+    public static long of(long units) {
+        return Math.multiplyExact(units, ONE);
+    }
+
+    public static long fromBigDecimal(BigDecimal value) {
+        if (value == null) {
+            return ZERO;
+        }
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Parses a plain decimal such as {@code -123.456} from {@code text[start, end)} without
+     * going through {@link BigDecimal}; digits past the 8th decimal round half away from zero.
+     */
+    public static long parse(CharSequence text, int start, int end) {
+        boolean negative = false;
+        int i = start;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long units = 0;
+        int decimals = -1;
+        boolean digits = false;
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9') {
+                digits = true;
+                if (decimals < SCALE) {
+                    units = Math.addExact(Math.multiplyExact(units, 10L), c - '0');
+                    if (decimals >= 0) {
+                        decimals++;
+                    }
+                } else if (decimals == SCALE) {
+                    roundUp = c >= '5';
+                    decimals++;
+                }
+            } else {
+                throw new NumberFormatException("Not a decimal: " + text.subSequence(start, end));
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("Not a decimal: " + text.subSequence(start, end));
+        }
+        int fractionDigits = Math.min(Math.max(decimals, 0), SCALE);
+        long value = Math.multiplyExact(units, POWERS_OF_TEN[SCALE - fractionDigits]);
+        if (roundUp) {
+            value = Math.addExact(value, 1L);
+        }
+        return negative ? -value : value;
+    }
+
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    public static BigDecimal toBigDecimal(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    public static BigDecimal toBigDecimal(long value, int scale) {
+        return BigDecimal.valueOf(round(value, scale), SCALE).setScale(scale, RoundingMode.UNNECESSARY);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long negate(long a) {
+        return Math.negateExact(a);
+    }
+
+    /** a * b, rounded half away from zero to 8 decimals. */
+    public static long multiply(long a, long b) {
+        // (ah*S + al)(bh*S + bl) / S = ah*bh*S + ah*bl + al*bh + al*bl/S; only the last term is fractional
+        long ah = a / ONE;
+        long al = a % ONE;
+        long bh = b / ONE;
+        long bl = b % ONE;
+        long result = Math.multiplyExact(Math.multiplyExact(ah, bh), ONE);
+        result = Math.addExact(result, Math.multiplyExact(ah, bl));
+        result = Math.addExact(result, Math.multiplyExact(al, bh));
+        return Math.addExact(result, divideRounded(al * bl, ONE));
+    }
+
+    /** a / b, rounded half away from zero to 8 decimals. */
+    public static long divide(long a, long b) {
+        if (b == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (b > DIGIT_LOOP_MAX_DIVISOR || b < -DIGIT_LOOP_MAX_DIVISOR) {
+            // The digit loop below would overflow scaling the remainder by 10
+            return BigDecimal.valueOf(a).multiply(BigDecimal.valueOf(ONE))
+                    .divide(BigDecimal.valueOf(b), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+        long quotient = a / b;
+        long remainder = Math.abs(a % b);
+        long divisor = Math.abs(b);
+        long fraction = 0;
+        for (int i = 0; i < SCALE; i++) {
+            remainder = Math.multiplyExact(remainder, 10L);
+            fraction = fraction * 10 + remainder / divisor;
+            remainder %= divisor;
+        }
+        if (remainder * 2 >= divisor) {
+            fraction++;
+        }
+        int sign = (a < 0) == (b < 0) ? 1 : -1;
+        return Math.addExact(Math.multiplyExact(quotient, ONE), sign * fraction);
+    }
+
+    /** Rounds half away from zero to the given number of decimals (0..8), keeping the 10^8 scale. */
+    public static long round(long value, int decimals) {
+        if (decimals < 0 || decimals > SCALE) {
+            throw new IllegalArgumentException("decimals must be between 0 and " + SCALE);
+        }
+        long unit = POWERS_OF_TEN[SCALE - decimals];
+        return Math.multiplyExact(divideRounded(value, unit), unit);
+    }
+
+    public static int signum(long value) {
+        return Long.signum(value);
+    }
+
+    private static long divideRounded(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    private static final long DIGIT_LOOP_MAX_DIVISOR = Long.MAX_VALUE / 10;
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L
+    };
+}
@@ -10,13 +10,14 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "market_data", indexes = {
-    @Index(name = "idx_symbol_timeframe_timestamp", columnList = "symbol, timeframe, timestamp"),
+    @Index(name = "idx_symbol_timeframe_timestamp", columnList = "symbol, timeframe, timestamp", unique = true),
     @Index(name = "idx_timestamp", columnList = "timestamp")
 })
 public class MarketData {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "market_data_seq")
+    @SequenceGenerator(name = "market_data_seq", sequenceName = "market_data_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
@@ -75,6 +76,10 @@ public class Order {
     @OneToOne(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Position position;
     
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "execution_id")
+    private PaperTradingExecution execution;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -256,6 +261,14 @@ public class Order {
         this.position = position;
     }
     
+    public PaperTradingExecution getExecution() {
+        return execution;
+    }
+    
+    public void setExecution(PaperTradingExecution execution) {
+        this.execution = execution;
+    }
+    
     public enum OrderType {
         MARKET, LIMIT, STOP, STOP_LIMIT
     }
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
@@ -30,24 +31,23 @@ public class PaperTradingAccount {
     @Column(precision = 19, scale = 8)
     private BigDecimal balance;
     
+    // Equity and free margin go to zero or below when losses outrun the margin held
     @NotNull
-    @Positive
     @Column(precision = 19, scale = 8)
     private BigDecimal equity;
     
     @NotNull
-    @Positive
+    @PositiveOrZero
     @Column(precision = 19, scale = 8)
     private BigDecimal margin;
     
     @NotNull
-    @Positive
     @Column(precision = 19, scale = 8)
     private BigDecimal freeMargin;
     
+    // Equity / margin in percent; thousands of percent are normal for lightly used accounts
     @NotNull
-    @Positive
-    @Column(precision = 5, scale = 2)
+    @Column(precision = 19, scale = 2)
     private BigDecimal marginLevel = BigDecimal.valueOf(100.0);
     
     @Enumerated(EnumType.STRING)
@@ -69,6 +69,10 @@ public class PaperTradingAccount {
     @Column(name = "last_activity")
     private LocalDateTime lastActivity;
     
+    // Balance and margin are written by several background writers; a stale write fails instead of overwriting
+    @Version
+    private Long version;
+    
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<TeamMember> teamMembers;
     
@@ -114,21 +118,26 @@ public class PaperTradingAccount {
     // Business methods
     public void updateEquity(BigDecimal newEquity) {
         this.equity = newEquity;
-        this.freeMargin = equity.subtract(margin);
-        if (margin.compareTo(BigDecimal.ZERO) > 0) {
-            this.marginLevel = equity.divide(margin, 2, BigDecimal.ROUND_HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
-        } else {
-            this.marginLevel = BigDecimal.valueOf(100.0);
-        }
+        recalculateMargin();
     }
     
     public void updateMargin(BigDecimal newMargin) {
         this.margin = newMargin;
-        this.freeMargin = equity.subtract(margin);
-        if (margin.compareTo(BigDecimal.ZERO) > 0) {
-            this.marginLevel = equity.divide(margin, 2, BigDecimal.ROUND_HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
+        recalculateMargin();
+    }
+    
+    /** Whether equity still covers the margin held plus {@code required} more. */
+    public boolean hasFreeMargin(BigDecimal required) {
+        return equity.subtract(margin).compareTo(required) >= 0;
+    }
+    
+    private void recalculateMargin() {
+        long equityValue = FixedPoint.fromBigDecimal(equity);
+        long marginValue = FixedPoint.fromBigDecimal(margin);
+        this.freeMargin = FixedPoint.toBigDecimal(FixedPoint.subtract(equityValue, marginValue));
+        if (marginValue > 0) {
+            long level = FixedPoint.round(FixedPoint.divide(equityValue, marginValue), 2);
+            this.marginLevel = FixedPoint.toBigDecimal(FixedPoint.multiply(level, FixedPoint.of(100)), 2);
         } else {
             this.marginLevel = BigDecimal.valueOf(100.0);
         }
@@ -247,6 +256,14 @@ public class PaperTradingAccount {
         this.lastActivity = lastActivity;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public Set<TeamMember> getTeamMembers() {
         return teamMembers;
     }
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 public class PaperTradingExecution {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "paper_trading_executions_seq")
+    @SequenceGenerator(name = "paper_trading_executions_seq", sequenceName = "paper_trading_executions_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
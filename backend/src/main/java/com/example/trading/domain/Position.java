@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 public class Position {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "positions_seq")
+    @SequenceGenerator(name = "positions_seq", sequenceName = "positions_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
@@ -63,6 +64,10 @@ public class Position {
     @Column(name = "closed_at")
     private LocalDateTime closedAt;
     
+    // Closed by strategies, SL/TP and stop-out alike; only the first close commits
+    @Version
+    private Long version;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id")
     private PaperTradingAccount account;
@@ -243,6 +248,14 @@ public class Position {
         this.closedAt = closedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public PaperTradingAccount getAccount() {
         return account;
     }
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Set;
 
@@ -51,6 +52,20 @@ public class Strategy {
     @Column(name = "version")
     private String version = "1.0";
     
+    // Where the strategy paper-trades while ACTIVE; a strategy without these only backtests
+    @Column(name = "live_symbol")
+    private String liveSymbol;
+    
+    @Column(name = "live_timeframe")
+    private String liveTimeframe;
+    
+    @Column(name = "live_volume", precision = 19, scale = 8)
+    private BigDecimal liveVolume;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "live_account_id")
+    private PaperTradingAccount liveAccount;
+    
     @OneToMany(mappedBy = "strategy", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<BacktestResult> backtestResults;
     
@@ -168,6 +183,38 @@ public class Strategy {
         this.version = version;
     }
     
+    public String getLiveSymbol() {
+        return liveSymbol;
+    }
+    
+    public void setLiveSymbol(String liveSymbol) {
+        this.liveSymbol = liveSymbol;
+    }
+    
+    public String getLiveTimeframe() {
+        return liveTimeframe;
+    }
+    
+    public void setLiveTimeframe(String liveTimeframe) {
+        this.liveTimeframe = liveTimeframe;
+    }
+    
+    public BigDecimal getLiveVolume() {
+        return liveVolume;
+    }
+    
+    public void setLiveVolume(BigDecimal liveVolume) {
+        this.liveVolume = liveVolume;
+    }
+    
+    public PaperTradingAccount getLiveAccount() {
+        return liveAccount;
+    }
+    
+    public void setLiveAccount(PaperTradingAccount liveAccount) {
+        this.liveAccount = liveAccount;
+    }
+    
     public Set<BacktestResult> getBacktestResults() {
         return backtestResults;
     }
@@ -1,5 +1,6 @@
 package com.example.trading.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -13,7 +14,8 @@ import java.time.LocalDateTime;
 public class Trade {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trades_seq")
+    @SequenceGenerator(name = "trades_seq", sequenceName = "trades_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
@@ -33,11 +35,19 @@ public class Trade {
     @Column(precision = 19, scale = 8)
     private BigDecimal openPrice;
     
-    @NotNull
+    // Null while the trade is open
     @Positive
     @Column(precision = 19, scale = 8)
     private BigDecimal closePrice;
     
+    @Positive
+    @Column(name = "stop_loss", precision = 19, scale = 8)
+    private BigDecimal stopLoss;
+    
+    @Positive
+    @Column(name = "take_profit", precision = 19, scale = 8)
+    private BigDecimal takeProfit;
+    
     @NotNull
     @Column(precision = 19, scale = 8)
     private BigDecimal pnl;
@@ -67,14 +77,17 @@ public class Trade {
     @Column(columnDefinition = "TEXT")
     private String notes;
     
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id")
     private PaperTradingAccount account;
     
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
     
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "strategy_id")
     private Strategy strategy;
@@ -88,20 +101,25 @@ public class Trade {
     
     // Business methods
     public void calculatePnL() {
-        if (side == TradeSide.BUY) {
-            pnl = closePrice.subtract(openPrice).multiply(volume);
-        } else {
-            pnl = openPrice.subtract(closePrice).multiply(volume);
-        }
+        long open = FixedPoint.fromBigDecimal(openPrice);
+        long close = FixedPoint.fromBigDecimal(closePrice);
+        long qty = FixedPoint.fromBigDecimal(volume);
+        
+        long priceDiff = side == TradeSide.BUY
+                ? FixedPoint.subtract(close, open)
+                : FixedPoint.subtract(open, close);
+        long netPnl = FixedPoint.multiply(priceDiff, qty);
         
         // Subtract commission and slippage
-        pnl = pnl.subtract(commission).subtract(slippage);
+        netPnl = FixedPoint.subtract(netPnl, FixedPoint.fromBigDecimal(commission));
+        netPnl = FixedPoint.subtract(netPnl, FixedPoint.fromBigDecimal(slippage));
+        pnl = FixedPoint.toBigDecimal(netPnl);
         
         // Calculate percentage
-        BigDecimal totalCost = openPrice.multiply(volume);
-        if (totalCost.compareTo(BigDecimal.ZERO) > 0) {
-            pnlPercent = pnl.divide(totalCost, 4, BigDecimal.ROUND_HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
+        long totalCost = FixedPoint.multiply(open, qty);
+        if (totalCost > 0) {
+            long ratio = FixedPoint.round(FixedPoint.divide(netPnl, totalCost), 4);
+            pnlPercent = FixedPoint.toBigDecimal(FixedPoint.multiply(ratio, FixedPoint.of(100)), 2);
         }
     }
     
@@ -166,6 +184,22 @@ public class Trade {
         this.closePrice = closePrice;
     }
     
+    public BigDecimal getStopLoss() {
+        return stopLoss;
+    }
+    
+    public void setStopLoss(BigDecimal stopLoss) {
+        this.stopLoss = stopLoss;
+    }
+    
+    public BigDecimal getTakeProfit() {
+        return takeProfit;
+    }
+    
+    public void setTakeProfit(BigDecimal takeProfit) {
+        this.takeProfit = takeProfit;
+    }
+    
     public BigDecimal getPnl() {
         return pnl;
     }
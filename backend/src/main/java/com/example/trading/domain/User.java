@@ -12,6 +12,7 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 @Entity
 @Table(name = "users")
@@ -21,6 +22,10 @@ public class User implements UserDetails {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Supabase auth user id (the JWT subject) this account belongs to
+    @Column(name = "auth_subject", unique = true)
+    private UUID authSubject;
+    
     @NotBlank
     @Size(max = 50)
     @Column(unique = true)
@@ -96,6 +101,14 @@ public class User implements UserDetails {
         this.id = id;
     }
     
+    public UUID getAuthSubject() {
+        return authSubject;
+    }
+    
+    public void setAuthSubject(UUID authSubject) {
+        this.authSubject = authSubject;
+    }
+    
     public String getUsername() {
         return username;
     }
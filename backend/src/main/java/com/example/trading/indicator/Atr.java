@@ -0,0 +1,63 @@
+package com.example.trading.indicator;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.market.Candle;
+
+/** Average true range: Wilder-smoothed true range, as {@code ta.atr}. */
+public final class Atr implements Indicator {
+  private final int period;
+  private final Ema smoother;
+  private double previousClose = Double.NaN;
+
+  public Atr(int period) {
+    this.period = States.periodOf(period);
+    this.smoother = Ema.wilder(period);
+  }
+
+  public int period() {
+    return period;
+  }
+
+  public double update(double high, double low, double close) {
+    if (Double.isNaN(high) || Double.isNaN(low) || Double.isNaN(close)) return value();
+    double range = high - low;
+    double trueRange = Double.isNaN(previousClose)
+      ? range
+      : Math.max(range, Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+    previousClose = close;
+    return smoother.update(trueRange);
+  }
+
+  public double update(Candle candle) {
+    double one = FixedPoint.ONE;
+    return update(candle.high() / one, candle.low() / one, candle.close() / one);
+  }
+
+  @Override
+  public double value() {
+    return smoother.value();
+  }
+
+  @Override
+  public boolean isReady() {
+    return smoother.isReady();
+  }
+
+  @Override
+  public void reset() {
+    smoother.reset();
+    previousClose = Double.NaN;
+  }
+
+  @Override
+  public double[] snapshot() {
+    return new double[] {States.ATR, period, previousClose, smoother.seen(), smoother.raw()};
+  }
+
+  @Override
+  public void restore(double[] state) {
+    States.check(state, 5, States.ATR, period);
+    previousClose = state[2];
+    smoother.set((int) state[3], state[4]);
+  }
+}
@@ -0,0 +1,82 @@
+package com.example.trading.indicator;
+
+import java.util.Arrays;
+
+/**
+ * Bollinger Bands: {@link Sma} middle band with upper and lower bands {@code multiplier}
+ * population standard deviations away, as {@code ta.bb}. {@link #value()} is the middle band.
+ */
+public final class Bollinger implements Indicator {
+  private final double multiplier;
+  private final Stdev stdev;
+
+  public Bollinger(int period, double multiplier) {
+    if (!(multiplier > 0)) throw new IllegalArgumentException("multiplier must be positive, got " + multiplier);
+    this.multiplier = multiplier;
+    this.stdev = new Stdev(period);
+  }
+
+  public int period() {
+    return stdev.period();
+  }
+
+  public double multiplier() {
+    return multiplier;
+  }
+
+  /** Returns the middle band. */
+  public double update(double x) {
+    stdev.update(x);
+    return value();
+  }
+
+  @Override
+  public double value() {
+    return stdev.mean();
+  }
+
+  public double upper() {
+    return stdev.mean() + multiplier * stdev.value();
+  }
+
+  public double lower() {
+    return stdev.mean() - multiplier * stdev.value();
+  }
+
+  /** Band width relative to the middle band, {@code (upper - lower) / middle}. */
+  public double bandwidth() {
+    return 2 * multiplier * stdev.value() / stdev.mean();
+  }
+
+  /** Where {@code x} sits between the bands: 0 at the lower band, 1 at the upper. */
+  public double percentB(double x) {
+    double width = 2 * multiplier * stdev.value();
+    return width == 0 ? 0.5 : (x - lower()) / width;
+  }
+
+  @Override
+  public boolean isReady() {
+    return stdev.isReady();
+  }
+
+  @Override
+  public void reset() {
+    stdev.reset();
+  }
+
+  @Override
+  public double[] snapshot() {
+    double[] inner = stdev.snapshot();
+    double[] state = new double[2 + inner.length];
+    state[0] = States.BOLLINGER;
+    state[1] = multiplier;
+    System.arraycopy(inner, 0, state, 2, inner.length);
+    return state;
+  }
+
+  @Override
+  public void restore(double[] state) {
+    States.checkHeader(state, States.BOLLINGER, multiplier);
+    stdev.restore(Arrays.copyOfRange(state, 2, state.length));
+  }
+}
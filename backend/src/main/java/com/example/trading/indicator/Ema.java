@@ -0,0 +1,84 @@
+package com.example.trading.indicator;
+
+/**
+ * Exponential moving average, seeded with the simple average of the first {@code period}
+ * values as Pine's {@code ta.ema} is. {@link #wilder} gives Wilder's smoothing
+ * ({@code ta.rma}, alpha {@code 1/period}) used by RSI and ATR.
+ */
+public final class Ema implements Indicator {
+  private final int period;
+  private final boolean wilder;
+  private final double alpha;
+  private int seen;
+  private double value;
+
+  public Ema(int period) {
+    this(period, false);
+  }
+
+  private Ema(int period, boolean wilder) {
+    this.period = States.periodOf(period);
+    this.wilder = wilder;
+    this.alpha = wilder ? 1.0 / period : 2.0 / (period + 1);
+  }
+
+  public static Ema wilder(int period) {
+    return new Ema(period, true);
+  }
+
+  public int period() {
+    return period;
+  }
+
+  public double update(double x) {
+    if (Double.isNaN(x)) return value();
+    if (seen < period) {
+      value += x;
+      if (++seen == period) value /= period;
+    } else {
+      value += alpha * (x - value);
+    }
+    return value();
+  }
+
+  @Override
+  public double value() {
+    return seen >= period ? value : Double.NaN;
+  }
+
+  @Override
+  public boolean isReady() {
+    return seen >= period;
+  }
+
+  @Override
+  public void reset() {
+    seen = 0;
+    value = 0;
+  }
+
+  int seen() {
+    return seen;
+  }
+
+  double raw() {
+    return value;
+  }
+
+  void set(int seen, double value) {
+    if (seen < 0) throw new IllegalArgumentException("Negative bar count in state");
+    this.seen = seen;
+    this.value = value;
+  }
+
+  @Override
+  public double[] snapshot() {
+    return new double[] {States.EMA, period, wilder ? 1 : 0, seen, value};
+  }
+
+  @Override
+  public void restore(double[] state) {
+    States.check(state, 5, States.EMA, period, wilder ? 1 : 0);
+    set((int) state[3], state[4]);
+  }
+}
@@ -0,0 +1,34 @@
+package com.example.trading.indicator;
+
+/**
+ * A streaming technical indicator. Each implementation keeps its rolling state in primitive
+ * fields and fixed-size arrays allocated up front, so feeding one bar is O(1) and allocation
+ * free regardless of the period. NaN inputs are skipped; {@link #value()} is NaN until enough
+ * bars have been seen.
+ *
+ * <p>{@link #snapshot()} captures the complete state as a flat {@code double[]} that can be
+ * stored and later passed to {@link #restore} on an instance with the same parameters, so
+ * one indicator definition can be warmed by a backtest, carried into live evaluation or
+ * parked between alert checks without replaying history.
+ */
+public interface Indicator {
+  /** Latest value, or NaN while warming up. */
+  double value();
+
+  /** Whether enough bars have been seen for {@link #value()} to be defined. */
+  boolean isReady();
+
+  /** Forgets all bars, as if newly constructed. */
+  void reset();
+
+  /** A copy of the full rolling state; the instance keeps no reference to it. */
+  double[] snapshot();
+
+  /**
+   * Replaces the rolling state with one taken from {@link #snapshot()}.
+   *
+   * @throws IllegalArgumentException if the state was taken from an indicator of a different
+   *                                  kind or with different parameters
+   */
+  void restore(double[] state);
+}
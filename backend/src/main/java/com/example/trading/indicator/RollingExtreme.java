@@ -0,0 +1,105 @@
+package com.example.trading.indicator;
+
+/**
+ * Highest or lowest of the last {@code period} values ({@code ta.highest} / {@code ta.lowest}).
+ * Keeps a monotonic deque of candidate values, so each update is amortized O(1): every value
+ * enters and leaves the deque at most once.
+ */
+public final class RollingExtreme implements Indicator {
+  private final int period;
+  private final boolean highest;
+  private final Window window;
+  // circular deque of (value, sequence) candidates, best at the front
+  private final double[] values;
+  private final long[] sequences;
+  private int front;
+  private int count;
+  private long sequence;
+
+  public RollingExtreme(int period, boolean highest) {
+    this.period = States.periodOf(period);
+    this.highest = highest;
+    this.window = new Window(period);
+    this.values = new double[period];
+    this.sequences = new long[period];
+  }
+
+  public static RollingExtreme highest(int period) {
+    return new RollingExtreme(period, true);
+  }
+
+  public static RollingExtreme lowest(int period) {
+    return new RollingExtreme(period, false);
+  }
+
+  public int period() {
+    return period;
+  }
+
+  public double update(double x) {
+    if (Double.isNaN(x)) return value();
+    window.push(x);
+    offer(x);
+    return value();
+  }
+
+  private void offer(double x) {
+    long seq = sequence++;
+    if (count > 0 && sequences[front] <= seq - period) {
+      front = wrap(front + 1);
+      count--;
+    }
+    while (count > 0) {
+      int back = wrap(front + count - 1);
+      if (highest ? values[back] > x : values[back] < x) break;
+      count--;
+    }
+    int slot = wrap(front + count);
+    values[slot] = x;
+    sequences[slot] = seq;
+    count++;
+  }
+
+  private int wrap(int i) {
+    return i >= period ? i - period : i;
+  }
+
+  @Override
+  public double value() {
+    return window.full() ? values[front] : Double.NaN;
+  }
+
+  @Override
+  public boolean isReady() {
+    return window.full();
+  }
+
+  @Override
+  public void reset() {
+    window.clear();
+    front = 0;
+    count = 0;
+    sequence = 0;
+  }
+
+  /** Stores the window only; the deque is rebuilt from it on {@link #restore}. */
+  @Override
+  public double[] snapshot() {
+    double[] state = new double[3 + window.stateLength()];
+    state[0] = States.EXTREME;
+    state[1] = period;
+    state[2] = highest ? 1 : 0;
+    window.save(state, 3);
+    return state;
+  }
+
+  @Override
+  public void restore(double[] state) {
+    States.check(state, 3 + window.stateLength(), States.EXTREME, period, highest ? 1 : 0);
+    window.load(state, 3);
+    front = 0;
+    count = 0;
+    sequence = 0;
+    for (int i = window.size() - 1; i >= 0; i--) offer(window.get(i));
+  }
+}
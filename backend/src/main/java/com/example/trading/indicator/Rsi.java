@@ -0,0 +1,64 @@
+package com.example.trading.indicator;
+
+/** Relative strength index with Wilder smoothing of gains and losses, as {@code ta.rsi}. */
+public final class Rsi implements Indicator {
+  private final int period;
+  private final Ema gains;
+  private final Ema losses;
+  private double previous = Double.NaN;
+
+  public Rsi(int period) {
+    this.period = States.periodOf(period);
+    this.gains = Ema.wilder(period);
+    this.losses = Ema.wilder(period);
+  }
+
+  public int period() {
+    return period;
+  }
+
+  public double update(double x) {
+    if (Double.isNaN(x)) return value();
+    double change = x - previous;
+    previous = x;
+    if (!Double.isNaN(change)) {
+      gains.update(Math.max(change, 0));
+      losses.update(Math.max(-change, 0));
+    }
+    return value();
+  }
+
+  @Override
+  public double value() {
+    if (!gains.isReady()) return Double.NaN;
+    double up = gains.value();
+    double down = losses.value();
+    if (down == 0) return up == 0 ? 50 : 100;
+    return 100 - 100 / (1 + up / down);
+  }
+
+  @Override
+  public boolean isReady() {
+    return gains.isReady();
+  }
+
+  @Override
+  public void reset() {
+    gains.reset();
+    losses.reset();
+    previous = Double.NaN;
+  }
+
+  @Override
+  public double[] snapshot() {
+    return new double[] {States.RSI, period, previous, gains.seen(), gains.raw(), losses.seen(), losses.raw()};
+  }
+
+  @Override
+  public void restore(double[] state) {
+    States.check(state, 7, States.RSI, period);
+    previous = state[2];
+    gains.set((int) state[3], state[4]);
+    losses.set((int) state[5], state[6]);
+  }
+}
@@ -0,0 +1,72 @@
+package com.example.trading.indicator;
+
+/**
+ * Simple moving average over the last {@code period} values. The running sum is
+ * Kahan-compensated, so adding and removing millions of values does not drift.
+ */
+public final class Sma implements Indicator {
+  private final int period;
+  private final Window window;
+  private double sum;
+  private double compensation;
+
+  public Sma(int period) {
+    this.period = States.periodOf(period);
+    this.window = new Window(period);
+  }
+
+  public int period() {
+    return period;
+  }
+
+  public double update(double x) {
+    if (Double.isNaN(x)) return value();
+    if (window.full()) add(-window.oldest());
+    window.push(x);
+    add(x);
+    return value();
+  }
+
+  private void add(double x) {
+    double y = x - compensation;
+    double t = sum + y;
+    compensation = (t - sum) - y;
+    sum = t;
+  }
+
+  @Override
+  public double value() {
+    return window.full() ? sum / period : Double.NaN;
+  }
+
+  @Override
+  public boolean isReady() {
+    return window.full();
+  }
+
+  @Override
+  public void reset() {
+    window.clear();
+    sum = 0;
+    compensation = 0;
+  }
+
+  @Override
+  public double[] snapshot() {
+    double[] state = new double[4 + window.stateLength()];
+    state[0] = States.SMA;
+    state[1] = period;
+    state[2] = sum;
+    state[3] = compensation;
+    window.save(state, 4);
+    return state;
+  }
+
+  @Override
+  public void restore(double[] state) {
+    States.check(state, 4 + window.stateLength(), States.SMA, period);
+    sum = state[2];
+    compensation = state[3];
+    window.load(state, 4);
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.trading.indicator;
+
+/**
+ * Snapshot layout helpers. Every snapshot starts with a kind tag and the indicator's
+ * parameters so that {@link Indicator#restore} can reject a state taken from something else.
+ */
+final class States {
+  static final double SMA = 1;
+  static final double EMA = 2;
+  static final double RSI = 3;
+  static final double ATR = 4;
+  static final double STDEV = 5;
+  static final double BOLLINGER = 6;
+  static final double VWAP = 7;
+  static final double EXTREME = 8;
+
+  private States() {
+  }
+
+  static void check(double[] state, int length, double kind, double... parameters) {
+    checkHeader(state, kind, parameters);
+    if (state.length != length) throw new IllegalArgumentException("State has " + state.length + " values, expected " + length);
+  }
+
+  /** Checks only the tag and parameters, for states that embed another indicator's state. */
+  static void checkHeader(double[] state, double kind, double... parameters) {
+    if (state == null || state.length < 1 + parameters.length || state[0] != kind) {
+      throw new IllegalArgumentException("State was not taken from this kind of indicator");
+    }
+    for (int i = 0; i < parameters.length; i++) {
+      if (Double.compare(state[1 + i], parameters[i]) != 0) {
+        throw new IllegalArgumentException("State was taken from an indicator with different parameters");
+      }
+    }
+  }
+
+  static int periodOf(int period) {
+    if (period < 1) throw new IllegalArgumentException("period must be at least 1, got " + period);
+    return period;
+  }
+}
@@ -0,0 +1,80 @@
+package com.example.trading.indicator;
+
+/**
+ * Population standard deviation over the last {@code period} values, as {@code ta.stdev}.
+ * Mean and sum of squared deviations are updated with Welford's sliding-window recurrence
+ * rather than a running sum of squares, which loses all precision on prices far from zero.
+ */
+public final class Stdev implements Indicator {
+  private final int period;
+  private final Window window;
+  private double mean;
+  private double m2;
+
+  public Stdev(int period) {
+    this.period = States.periodOf(period);
+    this.window = new Window(period);
+  }
+
+  public int period() {
+    return period;
+  }
+
+  public double update(double x) {
+    if (Double.isNaN(x)) return value();
+    if (window.full()) {
+      double old = window.oldest();
+      double next = mean + (x - old) / period;
+      m2 += (x - old) * (x - next + old - mean);
+      if (m2 < 0) m2 = 0;
+      mean = next;
+    } else {
+      double delta = x - mean;
+      mean += delta / (window.size() + 1);
+      m2 += delta * (x - mean);
+    }
+    window.push(x);
+    return value();
+  }
+
+  /** Mean of the current window; equals an {@link Sma} of the same period once ready. */
+  public double mean() {
+    return window.full() ? mean : Double.NaN;
+  }
+
+  @Override
+  public double value() {
+    return window.full() ? Math.sqrt(m2 / period) : Double.NaN;
+  }
+
+  @Override
+  public boolean isReady() {
+    return window.full();
+  }
+
+  @Override
+  public void reset() {
+    window.clear();
+    mean = 0;
+    m2 = 0;
+  }
+
+  @Override
+  public double[] snapshot() {
+    double[] state = new double[4 + window.stateLength()];
+    state[0] = States.STDEV;
+    state[1] = period;
+    state[2] = mean;
+    state[3] = m2;
+    window.save(state, 4);
+    return state;
+  }
+
+  @Override
+  public void restore(double[] state) {
+    States.check(state, 4 + window.stateLength(), States.STDEV, period);
+    mean = state[2];
+    m2 = state[3];
+    window.load(state, 4);
+  }
+}
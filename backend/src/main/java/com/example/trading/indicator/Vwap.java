@@ -0,0 +1,83 @@
+package com.example.trading.indicator;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.market.Candle;
+
+/**
+ * Volume-weighted average price, anchored like {@code ta.vwap}: the sums restart at the first
+ * bar of each anchor period (UTC-aligned, e.g. one day), or never when the anchor is 0.
+ */
+public final class Vwap implements Indicator {
+  private final long anchorMillis;
+  private long periodStart = Long.MIN_VALUE;
+  private double notional;
+  private double volume;
+
+  /** @param anchorMillis session length in millis; 0 for a single cumulative VWAP */
+  public Vwap(long anchorMillis) {
+    if (anchorMillis < 0) throw new IllegalArgumentException("anchorMillis must not be negative");
+    this.anchorMillis = anchorMillis;
+  }
+
+  public long anchorMillis() {
+    return anchorMillis;
+  }
+
+  /**
+   * @param timeMillis bar open time, used only to detect a new anchor period
+   * @param price      the bar's representative price, usually {@code hlc3}
+   */
+  public double update(long timeMillis, double price, double volume) {
+    if (anchorMillis > 0) {
+      long start = Math.floorDiv(timeMillis, anchorMillis) * anchorMillis;
+      if (start != periodStart) {
+        periodStart = start;
+        notional = 0;
+        this.volume = 0;
+      }
+    }
+    if (!Double.isNaN(price) && !Double.isNaN(volume) && volume > 0) {
+      notional += price * volume;
+      this.volume += volume;
+    }
+    return value();
+  }
+
+  /** Feeds the candle at its {@code hlc3} typical price. */
+  public double update(Candle candle) {
+    double one = FixedPoint.ONE;
+    double typical = (candle.high() + candle.low() + candle.close()) / 3.0 / one;
+    return update(candle.openTime(), typical, candle.volume() / one);
+  }
+
+  @Override
+  public double value() {
+    return volume > 0 ? notional / volume : Double.NaN;
+  }
+
+  @Override
+  public boolean isReady() {
+    return volume > 0;
+  }
+
+  @Override
+  public void reset() {
+    periodStart = Long.MIN_VALUE;
+    notional = 0;
+    volume = 0;
+  }
+
+  @Override
+  public double[] snapshot() {
+    // epoch millis fit a double exactly
+    return new double[] {States.VWAP, anchorMillis, periodStart, notional, volume};
+  }
+
+  @Override
+  public void restore(double[] state) {
+    States.check(state, 5, States.VWAP, anchorMillis);
+    periodStart = (long) state[2];
+    notional = state[3];
+    volume = state[4];
+  }
+}
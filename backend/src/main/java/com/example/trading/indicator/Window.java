@@ -0,0 +1,68 @@
+package com.example.trading.indicator;
+
+import java.util.Arrays;
+
+/** Fixed-capacity ring of the last {@code capacity} values; the oldest drops out on push. */
+final class Window {
+  private final double[] values;
+  private int head;
+  private int size;
+
+  Window(int capacity) {
+    this.values = new double[capacity];
+  }
+
+  int capacity() {
+    return values.length;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean full() {
+    return size == values.length;
+  }
+
+  /** The value that the next {@link #push} will evict; only meaningful when {@link #full()}. */
+  double oldest() {
+    return values[head];
+  }
+
+  /** {@code back} values ago; 0 is the newest. */
+  double get(int back) {
+    int i = head - 1 - back;
+    return values[i < 0 ? i + values.length : i];
+  }
+
+  void push(double x) {
+    values[head] = x;
+    if (++head == values.length) head = 0;
+    if (size < values.length) size++;
+  }
+
+  void clear() {
+    Arrays.fill(values, 0);
+    head = 0;
+    size = 0;
+  }
+
+  /** Writes {@code size} followed by the values oldest-first; returns the next offset. */
+  int save(double[] out, int offset) {
+    out[offset++] = size;
+    for (int i = size - 1; i >= 0; i--) out[offset++] = get(i);
+    return offset;
+  }
+
+  int load(double[] in, int offset) {
+    clear();
+    int n = (int) in[offset++];
+    if (n < 0 || n > values.length) throw new IllegalArgumentException("Window size " + n + " exceeds capacity " + values.length);
+    for (int i = 0; i < n; i++) push(in[offset++]);
+    return offset;
+  }
+
+  int stateLength() {
+    return 1 + values.length;
+  }
+}
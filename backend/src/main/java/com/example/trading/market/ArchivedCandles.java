@@ -0,0 +1,109 @@
+package com.example.trading.market;
+
+import java.nio.LongBuffer;
+
+/**
+ * Read-only, memory-mapped view of one archived (symbol, timeframe) series. Each column is a
+ * {@link LongBuffer} over the mapped file, so scanning reads straight from the page cache
+ * with no per-bar objects. Prices, volume and vwap are {@link com.example.trading.domain.FixedPoint}
+ * longs; {@link #time} is the UTC bar start in epoch millis, strictly ascending.
+ * The view covers the bars present when it was opened; later appends need a fresh view.
+ */
+public final class ArchivedCandles implements CandleSeries {
+  private static final LongBuffer NONE = LongBuffer.allocate(0).asReadOnlyBuffer();
+
+  private final String symbol;
+  private final String timeframe;
+  private final int size;
+  private final LongBuffer time;
+  private final LongBuffer open;
+  private final LongBuffer high;
+  private final LongBuffer low;
+  private final LongBuffer close;
+  private final LongBuffer volume;
+  private final LongBuffer vwap;
+
+  ArchivedCandles(
+    String symbol,
+    String timeframe,
+    int size,
+    LongBuffer time,
+    LongBuffer open,
+    LongBuffer high,
+    LongBuffer low,
+    LongBuffer close,
+    LongBuffer volume,
+    LongBuffer vwap
+  ) {
+    this.symbol = symbol;
+    this.timeframe = timeframe;
+    this.size = size;
+    this.time = time;
+    this.open = open;
+    this.high = high;
+    this.low = low;
+    this.close = close;
+    this.volume = volume;
+    this.vwap = vwap;
+  }
+
+  static ArchivedCandles empty(String symbol, String timeframe) {
+    return new ArchivedCandles(symbol, timeframe, 0, NONE, NONE, NONE, NONE, NONE, NONE, NONE);
+  }
+
+  public String symbol() {
+    return symbol;
+  }
+
+  public String timeframe() {
+    return timeframe;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long time(int i) {
+    return time.get(i);
+  }
+
+  public long open(int i) {
+    return open.get(i);
+  }
+
+  public long high(int i) {
+    return high.get(i);
+  }
+
+  public long low(int i) {
+    return low.get(i);
+  }
+
+  public long close(int i) {
+    return close.get(i);
+  }
+
+  public long volume(int i) {
+    return volume.get(i);
+  }
+
+  public long vwap(int i) {
+    return vwap.get(i);
+  }
+
+  /** Index of the first bar with {@code time >= epochMillis}, or {@link #size()} if none. */
+  public int indexOf(long epochMillis) {
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (time.get(mid) < epochMillis) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  public Candle candle(int i) {
+    return new Candle(symbol, timeframe, time(i), open(i), high(i), low(i), close(i), volume(i), vwap(i), 0);
+  }
+}
@@ -0,0 +1,124 @@
+package com.example.trading.market;
+
+import com.example.trading.cache.TtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process quote cache in front of {@link YahooMarketDataService}.
+ * Quotes younger than the TTL are served from memory; concurrent misses for the
+ * same symbol share one upstream fetch instead of each issuing their own.
+ */
+@Service
+@Primary
+public class CachingMarketDataService implements MarketDataService {
+  private final MarketDataService delegate;
+  private final TtlCache<String, BigDecimal> cache;
+  private final Map<String, CompletableFuture<BigDecimal>> inFlight = new ConcurrentHashMap<>();
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter coalesced;
+
+  public CachingMarketDataService(
+    YahooMarketDataService delegate,
+    MeterRegistry meterRegistry,
+    @Value("${market.data.quote-cache.ttl:PT1S}") Duration ttl,
+    @Value("${market.data.quote-cache.max-size:10000}") int maxSize
+  ) {
+    this.delegate = delegate;
+    this.cache = new TtlCache<String, BigDecimal>(ttl, maxSize).bindTo(meterRegistry, "market.quotes.cache");
+
+    this.hits = cacheCounter(meterRegistry, "hit");
+    this.misses = cacheCounter(meterRegistry, "miss");
+    this.coalesced = cacheCounter(meterRegistry, "coalesced");
+  }
+
+  @Override
+  public CompletableFuture<Map<String, BigDecimal>> getLastPricesAsync(Collection<String> symbols) {
+    Map<String, BigDecimal> hitPrices = new HashMap<>();
+    Map<String, CompletableFuture<BigDecimal>> owned = new HashMap<>();
+    Map<String, CompletableFuture<BigDecimal>> pending = new HashMap<>();
+    long now = System.nanoTime();
+
+    for (String symbol : new LinkedHashSet<>(symbols)) {
+      BigDecimal cached = cache.get(symbol, now);
+      if (cached != null) {
+        hits.increment();
+        hitPrices.put(symbol, cached);
+        continue;
+      }
+      CompletableFuture<BigDecimal> mine = new CompletableFuture<>();
+      CompletableFuture<BigDecimal> existing = inFlight.putIfAbsent(symbol, mine);
+      if (existing != null) {
+        coalesced.increment();
+        pending.put(symbol, existing);
+      } else {
+        misses.increment();
+        owned.put(symbol, mine);
+        pending.put(symbol, mine);
+      }
+    }
+
+    if (!owned.isEmpty()) {
+      fetch(owned);
+    }
+    if (pending.isEmpty()) {
+      return CompletableFuture.completedFuture(hitPrices);
+    }
+    return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0]))
+      .handle((done, ex) -> {
+        Map<String, BigDecimal> prices = new HashMap<>(hitPrices);
+        for (var e : pending.entrySet()) {
+          BigDecimal price = e.getValue().exceptionally(err -> null).join();
+          if (price != null) prices.put(e.getKey(), price);
+        }
+        return prices;
+      });
+  }
+
+  private void fetch(Map<String, CompletableFuture<BigDecimal>> owned) {
+    List<String> toFetch = new ArrayList<>(owned.keySet());
+    CompletableFuture<Map<String, BigDecimal>> upstream;
+    try {
+      upstream = delegate.getLastPricesAsync(toFetch);
+    } catch (RuntimeException e) {
+      // A delegate that throws instead of failing its future must still release the waiters
+      upstream = CompletableFuture.failedFuture(e);
+    }
+    upstream.whenComplete((fetched, ex) -> {
+      long fetchedAt = System.nanoTime();
+      for (String symbol : toFetch) {
+        CompletableFuture<BigDecimal> mine = owned.get(symbol);
+        BigDecimal price = ex == null && fetched != null ? fetched.get(symbol) : null;
+        // Cache before leaving inFlight, so a concurrent miss either joins this fetch or hits the cache
+        if (price != null) {
+          cache.put(symbol, price, fetchedAt);
+        }
+        inFlight.remove(symbol, mine);
+        if (ex != null) {
+          mine.completeExceptionally(ex);
+        } else {
+          mine.complete(price);
+        }
+      }
+    });
+  }
+
+  private static Counter cacheCounter(MeterRegistry registry, String result) {
+    return Counter.builder("market.quotes.cache").tag("result", result).register(registry);
+  }
+}
@@ -0,0 +1,18 @@
+package com.example.trading.market;
+
+/**
+ * A completed OHLCV bar. Prices, volume and vwap are {@link com.example.trading.domain.FixedPoint}
+ * longs; {@code openTime} is the UTC bar start in epoch millis.
+ */
+public record Candle(
+  String symbol,
+  String timeframe,
+  long openTime,
+  long open,
+  long high,
+  long low,
+  long close,
+  long volume,
+  long vwap,
+  int tickCount
+) {}
@@ -0,0 +1,113 @@
+package com.example.trading.market;
+
+import com.example.trading.domain.FixedPoint;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Rolls ticks into OHLCV + vwap bars for several timeframes at once. A bar is emitted to the
+ * sink when the first tick of the next bucket arrives, so bars with no trades are never
+ * written. Not thread-safe: one aggregator per tick source, fed from a single thread.
+ * Ticks older than the open bar of a timeframe are counted as late and skipped for that
+ * timeframe rather than rewriting a bar that was already emitted.
+ */
+public final class CandleAggregator implements TickSource.TickHandler {
+  private final Timeframe[] timeframes;
+  private final Consumer<Candle> sink;
+  private final Map<String, Bar[]> openBars = new HashMap<>();
+  private long ticks;
+  private long lateTicks;
+
+  public CandleAggregator(List<Timeframe> timeframes, Consumer<Candle> sink) {
+    if (timeframes.isEmpty()) throw new IllegalArgumentException("At least one timeframe is required");
+    this.timeframes = timeframes.toArray(Timeframe[]::new);
+    this.sink = sink;
+  }
+
+  @Override
+  public void onTick(String symbol, long epochMillis, long price, long size) {
+    if (price <= 0 || size < 0) return;
+    Bar[] bars = openBars.get(symbol);
+    if (bars == null) {
+      bars = new Bar[timeframes.length];
+      for (int i = 0; i < bars.length; i++) bars[i] = new Bar();
+      openBars.put(symbol, bars);
+    }
+    ticks++;
+    // vwap numerator only; kept in double so a busy daily bar cannot overflow the 10^8 scale
+    double notional = (double) price * (double) size;
+    for (int i = 0; i < timeframes.length; i++) {
+      Bar bar = bars[i];
+      long start = timeframes[i].bucketStart(epochMillis);
+      if (start != bar.start || bar.tickCount == 0) {
+        if (bar.tickCount > 0) {
+          if (start < bar.start) {
+            lateTicks++;
+            continue;
+          }
+          sink.accept(bar.toCandle(symbol, timeframes[i].label()));
+        }
+        bar.reset(start, price);
+      }
+      bar.add(price, size, notional);
+    }
+  }
+
+  /**
+   * Emits every bar still open, e.g. at the end of a finite replay. Not for a feed that was cut
+   * off, whose open bars are partial.
+   */
+  public void flushOpen() {
+    for (var e : openBars.entrySet()) {
+      Bar[] bars = e.getValue();
+      for (int i = 0; i < bars.length; i++) {
+        if (bars[i].tickCount == 0) continue;
+        sink.accept(bars[i].toCandle(e.getKey(), timeframes[i].label()));
+        bars[i].tickCount = 0;
+      }
+    }
+  }
+
+  public long ticks() {
+    return ticks;
+  }
+
+  public long lateTicks() {
+    return lateTicks;
+  }
+
+  private static final class Bar {
+    long start;
+    long open;
+    long high;
+    long low;
+    long close;
+    long volume;
+    double notional;
+    int tickCount;
+
+    void reset(long start, long price) {
+      this.start = start;
+      open = high = low = close = price;
+      volume = 0;
+      notional = 0;
+      tickCount = 0;
+    }
+
+    void add(long price, long size, double tickNotional) {
+      if (price > high) high = price;
+      if (price < low) low = price;
+      close = price;
+      volume = FixedPoint.add(volume, size);
+      notional += tickNotional;
+      tickCount++;
+    }
+
+    Candle toCandle(String symbol, String timeframe) {
+      long vwap = volume > 0 ? Math.round(notional / volume) : close;
+      return new Candle(symbol, timeframe, start, open, high, low, close, volume, vwap, tickCount);
+    }
+  }
+}
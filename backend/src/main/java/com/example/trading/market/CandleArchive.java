@@ -0,0 +1,231 @@
+package com.example.trading.market;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only columnar candle archive for deep backtest history. Each (symbol, timeframe)
+ * is a directory holding one file per column ({@code time.col}, {@code open.col}, ...) of
+ * little-endian 8-byte longs, so bar {@code i} of every column lives at offset {@code 8 * i}.
+ * Readers memory-map the columns via {@link FileChannel#map} and scan them in place.
+ *
+ * <p>Appends write the {@code time} column last, and the bar count is the shortest column,
+ * so a reader never sees a partially written bar; the next append truncates any torn tail.
+ * Appends to one series are serialized on a striped lock, and a column is only ever cut back
+ * to the published bar count, never below it, so a mapped view can not lose its pages.
+ *
+ * <p>A series whose history changed below its newest bar is rebuilt into a staging copy next to
+ * the archive ({@link #appendStaged}), which {@link #publishStaged} swaps in for the live
+ * directory under the series lock; {@link #open} takes the same lock, so readers see either the
+ * old series or the new one, and views mapped earlier keep the replaced files' pages. This
+ * process must be the only writer of the archive directory.
+ */
+@Component
+public class CandleArchive {
+  private static final String[] COLUMNS = {"open", "high", "low", "close", "volume", "vwap", "time"};
+
+  private static final int LOCK_STRIPES = 64;
+
+  private final Path root;
+  private final Path staging;
+  private final Object[] locks = new Object[LOCK_STRIPES];
+
+  public CandleArchive(@Value("${market.data.archive.dir:data/candles}") Path root) {
+    this.root = root;
+    this.staging = root.resolveSibling(root.getFileName() + ".staging");
+    for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+  }
+
+  /** Runs {@code work} holding the series' append lock, e.g. to make a read-then-append atomic. */
+  public <T> T exclusive(String symbol, String timeframe, Supplier<T> work) {
+    synchronized (lockFor(symbol, timeframe)) {
+      return work.get();
+    }
+  }
+
+  /** Maps every bar currently archived for the series; empty if nothing was archived yet. */
+  public ArchivedCandles open(String symbol, String timeframe) {
+    Path dir = seriesDir(symbol, timeframe);
+    synchronized (lockFor(symbol, timeframe)) {
+      return map(symbol, timeframe, dir);
+    }
+  }
+
+  private static ArchivedCandles map(String symbol, String timeframe, Path dir) {
+    if (!Files.isDirectory(dir)) return ArchivedCandles.empty(symbol, timeframe);
+    try {
+      int size = Math.toIntExact(barCount(dir));
+      if (size == 0) return ArchivedCandles.empty(symbol, timeframe);
+      LongBuffer[] columns = new LongBuffer[COLUMNS.length];
+      for (int c = 0; c < COLUMNS.length; c++) {
+        try (FileChannel ch = FileChannel.open(dir.resolve(COLUMNS[c] + ".col"), StandardOpenOption.READ)) {
+          // The mapping stays valid after the channel is closed
+          columns[c] = ch.map(FileChannel.MapMode.READ_ONLY, 0, (long) size * Long.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .asLongBuffer();
+        }
+      }
+      return new ArchivedCandles(symbol, timeframe, size,
+        columns[6], columns[0], columns[1], columns[2], columns[3], columns[4], columns[5]);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Open time of the newest archived bar, or {@link Long#MIN_VALUE} if the series is empty. */
+  public long lastTime(String symbol, String timeframe) {
+    ArchivedCandles bars = open(symbol, timeframe);
+    return bars.size() == 0 ? Long.MIN_VALUE : bars.time(bars.size() - 1);
+  }
+
+  /**
+   * Appends bars in ascending time order; bars not newer than the last archived bar are
+   * skipped.
+   */
+  public int append(String symbol, String timeframe, List<Candle> candles) {
+    if (candles.isEmpty()) return 0;
+    synchronized (lockFor(symbol, timeframe)) {
+      return appendLocked(seriesDir(symbol, timeframe), candles);
+    }
+  }
+
+  /**
+   * Appends to the series' staging copy like {@link #append}, without taking the series lock;
+   * only the one rebuild of a series may write its staging copy.
+   */
+  public int appendStaged(String symbol, String timeframe, List<Candle> candles) {
+    if (candles.isEmpty()) return 0;
+    return appendLocked(stagedDir(symbol, timeframe), candles);
+  }
+
+  /** Deletes the series' staging copy, e.g. one left behind by an interrupted rebuild. */
+  public void discardStaged(String symbol, String timeframe) {
+    deleteTree(stagedDir(symbol, timeframe));
+  }
+
+  /** Replaces the live series with its staging copy; a no-op if nothing was staged. */
+  public void publishStaged(String symbol, String timeframe) {
+    Path staged = stagedDir(symbol, timeframe);
+    Path dir = seriesDir(symbol, timeframe);
+    Path replaced;
+    try {
+      synchronized (lockFor(symbol, timeframe)) {
+        if (!Files.isDirectory(staged)) return;
+        Files.createDirectories(staging);
+        replaced = Files.createTempDirectory(staging, "replaced-");
+        if (Files.isDirectory(dir)) Files.move(dir, replaced.resolve("series"), StandardCopyOption.ATOMIC_MOVE);
+        Files.createDirectories(dir.getParent());
+        Files.move(staged, dir, StandardCopyOption.ATOMIC_MOVE);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    deleteTree(replaced);
+  }
+
+  private int appendLocked(Path dir, List<Candle> candles) {
+    try {
+      Files.createDirectories(dir);
+      long count = barCount(dir);
+      long last = count == 0 ? Long.MIN_VALUE : readLong(dir.resolve("time.col"), count - 1);
+
+      long[][] values = new long[COLUMNS.length][candles.size()];
+      int n = 0;
+      for (Candle c : candles) {
+        if (c.openTime() <= last) continue;
+        values[0][n] = c.open();
+        values[1][n] = c.high();
+        values[2][n] = c.low();
+        values[3][n] = c.close();
+        values[4][n] = c.volume();
+        values[5][n] = c.vwap();
+        values[6][n] = c.openTime();
+        last = c.openTime();
+        n++;
+      }
+      if (n == 0) return 0;
+
+      ByteBuffer buf = ByteBuffer.allocate(n * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      for (int col = 0; col < COLUMNS.length; col++) {
+        buf.clear();
+        buf.asLongBuffer().put(values[col], 0, n);
+        buf.limit(n * Long.BYTES);
+        try (FileChannel ch = FileChannel.open(dir.resolve(COLUMNS[col] + ".col"),
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+          // Drops only a torn tail past the published count
+          if (ch.size() > count * Long.BYTES) ch.truncate(count * Long.BYTES);
+          ch.position(count * Long.BYTES);
+          while (buf.hasRemaining()) ch.write(buf);
+          ch.force(false);
+        }
+      }
+      return n;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static long readLong(Path file, long index) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (buf.hasRemaining()) {
+        if (ch.read(buf, index * Long.BYTES + buf.position()) < 0) throw new IOException("Short read: " + file);
+      }
+    }
+    return buf.getLong(0);
+  }
+
+  private static long barCount(Path dir) throws IOException {
+    long count = Long.MAX_VALUE;
+    for (String column : COLUMNS) {
+      Path file = dir.resolve(column + ".col");
+      count = Math.min(count, Files.exists(file) ? Files.size(file) / Long.BYTES : 0);
+    }
+    return count;
+  }
+
+  private static void deleteTree(Path dir) {
+    if (!Files.exists(dir)) return;
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Object lockFor(String symbol, String timeframe) {
+    return locks[Math.floorMod(31 * symbol.hashCode() + timeframe.hashCode(), LOCK_STRIPES)];
+  }
+
+  private Path seriesDir(String symbol, String timeframe) {
+    return root.resolve(segment(symbol)).resolve(segment(timeframe));
+  }
+
+  private Path stagedDir(String symbol, String timeframe) {
+    return staging.resolve(segment(symbol)).resolve(segment(timeframe));
+  }
+
+  private static String segment(String name) {
+    String encoded = URLEncoder.encode(name, StandardCharsets.UTF_8);
+    if (encoded.isEmpty() || encoded.equals(".") || encoded.equals("..")) {
+      throw new IllegalArgumentException("Bad series name: " + name);
+    }
+    return encoded;
+  }
+}
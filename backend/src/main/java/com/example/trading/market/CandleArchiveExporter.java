@@ -0,0 +1,143 @@
+package com.example.trading.market;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.repository.MarketDataRepository;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Copies {@code market_data} rows into the {@link CandleArchive}, incrementally: only bars
+ * newer than the last archived one are read. Rows are streamed with a JDBC cursor straight
+ * into primitive candles, never materialised as {@code MarketData} entities. Exports of the
+ * same series run one at a time under the archive's series lock, so concurrent backtests on a
+ * series wait for one export instead of each scanning and appending the same rows. Rows older
+ * than the newest archived bar, such as a backfill's, need a {@link #rebuild}.
+ */
+@Component
+public class CandleArchiveExporter {
+  private static final int FETCH_SIZE = 10_000;
+  private static final int CHUNK = 50_000;
+  private static final String SELECT = """
+    SELECT timestamp, open, high, low, close, volume, vwap
+    FROM market_data
+    WHERE symbol = ? AND timeframe = ? AND timestamp > ?
+    ORDER BY timestamp
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final MarketDataRepository marketDataRepository;
+  private final CandleArchive archive;
+  private final TransactionTemplate readOnlyTx;
+  private final boolean exportOnStartup;
+
+  public CandleArchiveExporter(
+    JdbcTemplate jdbcTemplate,
+    MarketDataRepository marketDataRepository,
+    CandleArchive archive,
+    PlatformTransactionManager transactionManager,
+    @Value("${market.data.archive.export-on-startup:false}") boolean exportOnStartup
+  ) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.marketDataRepository = marketDataRepository;
+    this.archive = archive;
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.exportOnStartup = exportOnStartup;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void exportOnStartup() {
+    if (!exportOnStartup) return;
+    Thread t = new Thread(this::exportAll, "candle-archive-export");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /** Exports every stored (symbol, timeframe); returns the number of bars appended. */
+  public long exportAll() {
+    long total = 0;
+    for (String symbol : marketDataRepository.findAllSymbols()) {
+      for (String timeframe : marketDataRepository.findTimeframesBySymbol(symbol)) {
+        total += export(symbol, timeframe);
+      }
+    }
+    return total;
+  }
+
+  /** Appends the bars of one series that are newer than its archive; returns how many. */
+  public long export(String symbol, String timeframe) {
+    // Postgres only honours the fetch size (streams instead of buffering the whole result)
+    // inside a transaction
+    return archive.exclusive(symbol, timeframe, () -> {
+      Long appended = readOnlyTx.execute(status -> exportInTransaction(symbol, timeframe));
+      return appended != null ? appended : 0L;
+    });
+  }
+
+  /**
+   * Re-exports the whole series into a staging copy and swaps it in for the archived one. For
+   * series that gained rows older than their newest archived bar, which incremental exports never
+   * read. A series not archived yet is left to its first export; returns the bars written.
+   */
+  public long rebuild(String symbol, String timeframe) {
+    if (archive.lastTime(symbol, timeframe) == Long.MIN_VALUE) return 0;
+    archive.discardStaged(symbol, timeframe);
+    Long written = readOnlyTx.execute(status ->
+      copy(symbol, timeframe, Long.MIN_VALUE, chunk -> archive.appendStaged(symbol, timeframe, chunk)));
+    archive.publishStaged(symbol, timeframe);
+    return written != null ? written : 0L;
+  }
+
+  private long exportInTransaction(String symbol, String timeframe) {
+    return copy(symbol, timeframe, archive.lastTime(symbol, timeframe), chunk -> archive.append(symbol, timeframe, chunk));
+  }
+
+  /** Streams the series' rows newer than {@code last} into {@code sink} in chunks. */
+  private long copy(String symbol, String timeframe, long last, ToIntFunction<List<Candle>> sink) {
+    Timestamp after = last == Long.MIN_VALUE
+      ? Timestamp.valueOf(LocalDateTime.of(1970, 1, 1, 0, 0))
+      : Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(last), ZoneOffset.UTC));
+
+    List<Candle> chunk = new ArrayList<>(CHUNK);
+    long[] appended = {0};
+    jdbcTemplate.query(con -> {
+      var ps = con.prepareStatement(SELECT);
+      ps.setFetchSize(FETCH_SIZE);
+      ps.setString(1, symbol);
+      ps.setString(2, timeframe);
+      ps.setTimestamp(3, after);
+      return ps;
+    }, rs -> {
+      chunk.add(new Candle(
+        symbol,
+        timeframe,
+        rs.getTimestamp(1).toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli(),
+        FixedPoint.fromBigDecimal(rs.getBigDecimal(2)),
+        FixedPoint.fromBigDecimal(rs.getBigDecimal(3)),
+        FixedPoint.fromBigDecimal(rs.getBigDecimal(4)),
+        FixedPoint.fromBigDecimal(rs.getBigDecimal(5)),
+        FixedPoint.fromBigDecimal(rs.getBigDecimal(6)),
+        FixedPoint.fromBigDecimal(rs.getBigDecimal(7)),
+        0
+      ));
+      if (chunk.size() == CHUNK) {
+        appended[0] += sink.applyAsInt(chunk);
+        chunk.clear();
+      }
+    });
+    appended[0] += sink.applyAsInt(chunk);
+    return appended[0];
+  }
+}
@@ -0,0 +1,154 @@
+package com.example.trading.market;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.repository.MarketDataCopyLoader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills {@code market_data} from CSV files of
+ * {@code epochMillis,symbol,timeframe,open,high,low,close,volume[,vwap]} lines (optionally
+ * gzipped) through {@link MarketDataCopyLoader}. Run it as a one-off by starting the app with
+ * {@code market.data.import.files} set to a comma-separated list of paths; each file is one
+ * transaction, and bars already stored are skipped. Blank lines, {@code #} comments and a
+ * non-numeric header line are skipped. With {@code market.data.import.rebuild-indexes}, meant
+ * for a maintenance window, the time index is dropped before the first file and rebuilt after
+ * the last. Once bars were inserted, every series the files touched is reloaded into the
+ * {@link CandleStore} and rebuilt in the {@link CandleArchive}, since both only follow the
+ * newest bars on their own.
+ */
+@Component
+public class CandleImporter {
+  private final MarketDataCopyLoader loader;
+  private final CandleStore store;
+  private final CandleArchiveExporter exporter;
+  private final List<Path> files;
+  private final boolean rebuildIndexes;
+  private final Counter inserted;
+  private final Counter duplicates;
+
+  public CandleImporter(
+    MarketDataCopyLoader loader,
+    CandleStore store,
+    CandleArchiveExporter exporter,
+    MeterRegistry meterRegistry,
+    @Value("${market.data.import.files:}") List<Path> files,
+    @Value("${market.data.import.rebuild-indexes:false}") boolean rebuildIndexes
+  ) {
+    this.loader = loader;
+    this.store = store;
+    this.exporter = exporter;
+    this.files = files;
+    this.rebuildIndexes = rebuildIndexes;
+    this.inserted = Counter.builder("market.import.bars").tag("result", "inserted").register(meterRegistry);
+    this.duplicates = Counter.builder("market.import.bars").tag("result", "duplicate").register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void importOnStartup() {
+    if (files.isEmpty()) return;
+    Thread t = new Thread(this::importAll, "candle-import");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  private record SeriesKey(String symbol, String timeframe) {}
+
+  private void importAll() {
+    Set<SeriesKey> changed = new LinkedHashSet<>();
+    if (rebuildIndexes) loader.dropSecondaryIndexes();
+    try {
+      for (Path file : files) load(file, changed);
+    } finally {
+      if (rebuildIndexes) loader.rebuildSecondaryIndexes();
+      refresh(changed);
+    }
+  }
+
+  public MarketDataCopyLoader.Result importFile(Path file) {
+    Set<SeriesKey> changed = new LinkedHashSet<>();
+    try {
+      return load(file, changed);
+    } finally {
+      refresh(changed);
+    }
+  }
+
+  /** Loads one file, adding the series it touched to {@code changed} if any bar was new. */
+  private MarketDataCopyLoader.Result load(Path file, Set<SeriesKey> changed) {
+    Set<SeriesKey> touched = new LinkedHashSet<>();
+    MarketDataCopyLoader.Result result = loader.load(sink -> parse(file, touched, sink));
+    inserted.increment(result.inserted());
+    duplicates.increment(result.duplicates());
+    if (result.inserted() > 0) changed.addAll(touched);
+    return result;
+  }
+
+  private void refresh(Set<SeriesKey> changed) {
+    for (SeriesKey key : changed) {
+      store.reload(key.symbol(), key.timeframe());
+      exporter.rebuild(key.symbol(), key.timeframe());
+    }
+  }
+
+  private static void parse(Path file, Set<SeriesKey> touched, MarketDataCopyLoader.BarSink sink) throws IOException {
+    InputStream raw = Files.newInputStream(file);
+    if (file.getFileName().toString().endsWith(".gz")) raw = new GZIPInputStream(raw, 1 << 16);
+    try (BufferedReader in = new BufferedReader(new InputStreamReader(raw, StandardCharsets.UTF_8), 1 << 16)) {
+      String symbol = "";
+      String timeframe = "";
+      int[] commas = new int[8];
+      String line;
+      long lineNo = 0;
+      while ((line = in.readLine()) != null) {
+        lineNo++;
+        if (line.isBlank() || line.charAt(0) == '#' || !Character.isDigit(line.charAt(0))) continue;
+        int n = 0;
+        for (int i = line.indexOf(','); i >= 0 && n < commas.length; i = line.indexOf(',', i + 1)) commas[n++] = i;
+        if (n < 7) {
+          throw new IllegalArgumentException(file + ":" + lineNo
+            + ": expected epochMillis,symbol,timeframe,open,high,low,close,volume[,vwap]");
+        }
+        // Files are usually grouped by series; reuse the previous line's strings when they match
+        String previousSymbol = symbol;
+        String previousTimeframe = timeframe;
+        symbol = field(line, commas[0] + 1, commas[1], symbol);
+        timeframe = field(line, commas[1] + 1, commas[2], timeframe);
+        // field() hands back the previous instance when unchanged
+        if (symbol != previousSymbol || timeframe != previousTimeframe) touched.add(new SeriesKey(symbol, timeframe));
+        int volumeEnd = n > 7 ? commas[7] : line.length();
+        sink.bar(
+          symbol,
+          timeframe,
+          Long.parseLong(line, 0, commas[0], 10),
+          FixedPoint.parse(line, commas[2] + 1, commas[3]),
+          FixedPoint.parse(line, commas[3] + 1, commas[4]),
+          FixedPoint.parse(line, commas[4] + 1, commas[5]),
+          FixedPoint.parse(line, commas[5] + 1, commas[6]),
+          FixedPoint.parse(line, commas[6] + 1, volumeEnd),
+          n > 7 && volumeEnd + 1 < line.length() ? FixedPoint.parse(line, volumeEnd + 1, line.length()) : 0
+        );
+      }
+    }
+  }
+
+  private static String field(String line, int start, int end, String previous) {
+    int len = end - start;
+    return previous.length() == len && line.regionMatches(start, previous, 0, len) ? previous : line.substring(start, end);
+  }
+}
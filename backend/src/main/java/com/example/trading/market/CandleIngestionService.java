@@ -0,0 +1,182 @@
+package com.example.trading.market;
+
+import com.example.trading.repository.MarketDataBatchWriter;
+import com.example.trading.repository.WriteRetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tick-to-candle pipeline: every {@link TickSource} bean is drained on its own thread into a
+ * {@link CandleAggregator}, and completed bars are written to {@code market_data} in JDBC
+ * batches by a single writer thread; each bar is also appended to the {@link CandleStore} so
+ * chart reads see it before the batch lands, and published as an application event for live
+ * consumers such as the paper-trading strategy runner. Aggregation never waits on the database unless the
+ * writer falls {@code write-queue-capacity} batches behind, at which point the ingest thread
+ * writes the batch itself (caller-runs backpressure). A batch that fails while the database is
+ * unreachable is retried with backoff by {@link WriteRetry}; bars already stored are skipped on
+ * retry, so a batch that committed but reported an error is not written twice.
+ */
+@Service
+public class CandleIngestionService {
+  private final List<TickSource> sources;
+  private final MarketDataBatchWriter writer;
+  private final CandleStore candleStore;
+  private final ApplicationEventPublisher events;
+  private final MeterRegistry meterRegistry;
+  private final List<Timeframe> timeframes;
+  private final int batchSize;
+  private final Object lock = new Object();
+  private List<Candle> pending;
+  private final List<Thread> ingestThreads = new CopyOnWriteArrayList<>();
+  private volatile boolean stopping;
+  private final ThreadPoolExecutor writerPool;
+  private final WriteRetry retry = new WriteRetry("market_data");
+  private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "candle-flusher");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private final Counter written;
+  private final Counter failed;
+
+  public CandleIngestionService(
+    List<TickSource> sources,
+    MarketDataBatchWriter writer,
+    CandleStore candleStore,
+    ApplicationEventPublisher events,
+    MeterRegistry meterRegistry,
+    @Value("${market.data.candles.timeframes:1m,5m,15m,1h,4h,1d}") String timeframes,
+    @Value("${market.data.candles.batch-size:500}") int batchSize,
+    @Value("${market.data.candles.write-queue-capacity:16}") int writeQueueCapacity,
+    @Value("${market.data.candles.flush-interval:PT1S}") Duration flushInterval
+  ) {
+    this.sources = sources;
+    this.writer = writer;
+    this.candleStore = candleStore;
+    this.events = events;
+    this.meterRegistry = meterRegistry;
+    this.timeframes = Timeframe.parseAll(timeframes);
+    this.batchSize = batchSize;
+    this.pending = new ArrayList<>(batchSize);
+    this.writerPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(writeQueueCapacity), r -> {
+        Thread t = new Thread(r, "candle-writer");
+        t.setDaemon(true);
+        return t;
+      }, new ThreadPoolExecutor.CallerRunsPolicy());
+    this.written = Counter.builder("market.candles.written").register(meterRegistry);
+    this.failed = Counter.builder("market.candles.failed").register(meterRegistry);
+
+    // Live feeds can go quiet; don't let completed bars sit in a half-full batch
+    long flushMillis = flushInterval.toMillis();
+    flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Order(1)
+  public void start() {
+    for (TickSource source : sources) {
+      Thread t = new Thread(() -> ingest(source), "candle-ingest-" + source.name());
+      t.setDaemon(true);
+      ingestThreads.add(t);
+      t.start();
+    }
+  }
+
+  /**
+   * Drains {@code source} on the calling thread until it ends, then emits the bars still
+   * open and hands everything pending to the writer. Returns the number of ticks consumed.
+   * When the feed fails or is stopped by {@link #shutdown} instead, the open bars are partial and
+   * are dropped: stored, they would keep out the complete bar a restarted feed emits for the
+   * same open time.
+   */
+  public long ingest(TickSource source) {
+    CandleAggregator aggregator = new CandleAggregator(timeframes, this::emit);
+    FunctionCounter.builder("market.candles.ticks", aggregator, CandleAggregator::ticks)
+      .tag("source", source.name())
+      .register(meterRegistry);
+    FunctionCounter.builder("market.candles.late-ticks", aggregator, CandleAggregator::lateTicks)
+      .tag("source", source.name())
+      .register(meterRegistry);
+    boolean ended = false;
+    try {
+      source.stream(aggregator);
+      ended = !stopping;
+    } catch (Exception e) {
+      throw new IllegalStateException("Tick source " + source.name() + " failed", e);
+    } finally {
+      if (ended) aggregator.flushOpen();
+      flush();
+    }
+    return aggregator.ticks();
+  }
+
+  private void emit(Candle candle) {
+    candleStore.append(candle);
+    events.publishEvent(candle);
+    List<Candle> full = null;
+    synchronized (lock) {
+      pending.add(candle);
+      if (pending.size() >= batchSize) {
+        full = pending;
+        pending = new ArrayList<>(batchSize);
+      }
+    }
+    if (full != null) submit(full);
+  }
+
+  private void flush() {
+    List<Candle> batch;
+    synchronized (lock) {
+      if (pending.isEmpty()) return;
+      batch = pending;
+      pending = new ArrayList<>(batchSize);
+    }
+    submit(batch);
+  }
+
+  private void submit(List<Candle> batch) {
+    if (writerPool.isShutdown()) {
+      write(batch);
+    } else {
+      writerPool.execute(() -> write(batch));
+    }
+  }
+
+  private void write(List<Candle> batch) {
+    if (retry.run(batch.size(), () -> writer.insert(batch))) {
+      written.increment(batch.size());
+    } else {
+      failed.increment(batch.size());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    stopping = true;
+    ingestThreads.forEach(Thread::interrupt);
+    for (Thread t : ingestThreads) t.join(TimeUnit.SECONDS.toMillis(5));
+    flusher.shutdownNow();
+    flush();
+    writerPool.shutdown();
+    writerPool.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
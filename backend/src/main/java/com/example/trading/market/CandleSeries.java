@@ -0,0 +1,26 @@
+package com.example.trading.market;
+
+/**
+ * Indexed OHLCV bars of one (symbol, timeframe), oldest first. Prices and volume are
+ * {@link com.example.trading.domain.FixedPoint} longs and {@link #time} is the UTC bar start in
+ * epoch millis. Implementations may only retain a recent window; callers read indices within it.
+ */
+public interface CandleSeries {
+  String symbol();
+
+  String timeframe();
+
+  int size();
+
+  long time(int i);
+
+  long open(int i);
+
+  long high(int i);
+
+  long low(int i);
+
+  long close(int i);
+
+  long volume(int i);
+}
@@ -0,0 +1,226 @@
+package com.example.trading.market;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.MarketData;
+import com.example.trading.repository.MarketDataRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * The most recent {@code capacity} bars of every (symbol, timeframe), held in primitive ring
+ * buffers so chart reads for the recent window never touch Postgres. Series exist only for
+ * pairs stored at startup or ingested since; each is loaded from {@code market_data} once and
+ * then kept current by {@link CandleIngestionService}; {@link #reload} picks up bars stored
+ * some other way, such as a backfill. Reads never create a series, so the
+ * store is bounded by the pairs actually traded rather than by what clients ask for.
+ * {@link #window} returns {@code null} for an unknown pair or when the requested range reaches
+ * past what the buffer holds; callers fall back to the repository for that.
+ */
+@Component
+public class CandleStore {
+  private final MarketDataRepository marketDataRepository;
+  private final int capacity;
+  private final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+
+  private final Counter hits;
+  private final Counter misses;
+
+  public CandleStore(
+    MarketDataRepository marketDataRepository,
+    MeterRegistry meterRegistry,
+    @Value("${market.data.candles.store.capacity:1000}") int capacity
+  ) {
+    this.marketDataRepository = marketDataRepository;
+    this.capacity = capacity;
+    this.hits = Counter.builder("market.candles.store").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("market.candles.store").tag("result", "miss").register(meterRegistry);
+    Gauge.builder("market.candles.store.series", series, Map::size).register(meterRegistry);
+  }
+
+  /** Runs before ingestion starts, so the first appended bars land after the warmed history. */
+  @EventListener(ApplicationReadyEvent.class)
+  @Order(0)
+  public void warm() {
+    for (String symbol : marketDataRepository.findAllSymbols()) {
+      for (String timeframe : marketDataRepository.findTimeframesBySymbol(symbol)) {
+        track(new SeriesKey(symbol, timeframe));
+      }
+    }
+  }
+
+  public void append(Candle candle) {
+    track(new SeriesKey(candle.symbol(), candle.timeframe())).append(candle);
+  }
+
+  /**
+   * Up to {@code limit} bars strictly before {@code beforeMillis} (or the latest bars when
+   * {@code null}), oldest first; {@code null} if the buffer cannot answer the whole window.
+   */
+  public List<Candle> window(String symbol, String timeframe, Long beforeMillis, int limit) {
+    SeriesKey key = new SeriesKey(symbol, timeframe);
+    Series s = series.get(key);
+    List<Candle> bars = s == null ? null : loaded(s, key).window(key, beforeMillis == null ? Long.MAX_VALUE : beforeMillis, limit);
+    (bars != null ? hits : misses).increment();
+    return bars;
+  }
+
+  /**
+   * Reloads the series from {@code market_data}, for bars stored outside ingestion, e.g. by a
+   * backfill. Bars held in memory that are newer than anything stored are kept.
+   */
+  public void reload(String symbol, String timeframe) {
+    SeriesKey key = new SeriesKey(symbol, timeframe);
+    Series s = series.computeIfAbsent(key, k -> new Series(capacity));
+    s.reset(key, stored(key));
+  }
+
+  /** Only stored or ingested pairs get a series. */
+  private Series track(SeriesKey key) {
+    return loaded(series.computeIfAbsent(key, k -> new Series(capacity)), key);
+  }
+
+  private Series loaded(Series s, SeriesKey key) {
+    if (!s.loaded) {
+      synchronized (s) {
+        if (!s.loaded) s.reset(key, stored(key));
+      }
+    }
+    return s;
+  }
+
+  /** The latest {@code capacity} stored bars of the series, oldest first. */
+  private List<Candle> stored(SeriesKey key) {
+    List<MarketData> latest = marketDataRepository
+      .findBySymbolAndTimeframeOrderByTimestampDesc(key.symbol(), key.timeframe(), PageRequest.of(0, capacity))
+      .getContent();
+    List<Candle> bars = new ArrayList<>(latest.size());
+    for (int i = latest.size() - 1; i >= 0; i--) bars.add(toCandle(latest.get(i)));
+    return bars;
+  }
+
+  static Candle toCandle(MarketData m) {
+    return new Candle(
+      m.getSymbol(),
+      m.getTimeframe(),
+      m.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli(),
+      FixedPoint.fromBigDecimal(m.getOpen()),
+      FixedPoint.fromBigDecimal(m.getHigh()),
+      FixedPoint.fromBigDecimal(m.getLow()),
+      FixedPoint.fromBigDecimal(m.getClose()),
+      FixedPoint.fromBigDecimal(m.getVolume()),
+      FixedPoint.fromBigDecimal(m.getVwap()),
+      0
+    );
+  }
+
+  private record SeriesKey(String symbol, String timeframe) {}
+
+  /** Ring of parallel primitive columns, ascending by open time; oldest bar at {@code head}. */
+  private static final class Series {
+    final long[] time;
+    final long[] open;
+    final long[] high;
+    final long[] low;
+    final long[] close;
+    final long[] volume;
+    final long[] vwap;
+    int head;
+    int size;
+    volatile boolean loaded;
+    boolean complete;
+
+    Series(int capacity) {
+      time = new long[capacity];
+      open = new long[capacity];
+      high = new long[capacity];
+      low = new long[capacity];
+      close = new long[capacity];
+      volume = new long[capacity];
+      vwap = new long[capacity];
+    }
+
+    synchronized void append(Candle c) {
+      int slot;
+      if (size > 0) {
+        long last = time[physical(size - 1)];
+        if (c.openTime() < last) return;
+        if (c.openTime() == last) {
+          write(physical(size - 1), c);
+          return;
+        }
+      }
+      if (size < time.length) {
+        slot = physical(size++);
+      } else {
+        slot = head;
+        head = (head + 1) % time.length;
+        complete = false;
+      }
+      write(slot, c);
+    }
+
+    /** Replaces the contents with {@code stored}, keeping held bars newer than its last. */
+    synchronized void reset(SeriesKey key, List<Candle> stored) {
+      long newest = stored.isEmpty() ? Long.MIN_VALUE : stored.get(stored.size() - 1).openTime();
+      List<Candle> newer = new ArrayList<>();
+      for (int i = size - 1; i >= 0 && time[physical(i)] > newest; i--) newer.add(candle(key, physical(i)));
+      head = 0;
+      size = 0;
+      for (Candle c : stored) append(c);
+      // Fewer rows than fit means the buffer holds the series' entire history
+      complete = stored.size() < time.length;
+      for (int i = newer.size() - 1; i >= 0; i--) append(newer.get(i));
+      loaded = true;
+    }
+
+    synchronized List<Candle> window(SeriesKey key, long before, int limit) {
+      // end = number of bars with time < before; bars are ascending so binary search works
+      int lo = 0;
+      int hi = size;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (time[physical(mid)] < before) lo = mid + 1;
+        else hi = mid;
+      }
+      int end = lo;
+      int start = end - limit;
+      if (start < 0) {
+        if (!complete) return null;
+        start = 0;
+      }
+      List<Candle> out = new ArrayList<>(end - start);
+      for (int i = start; i < end; i++) out.add(candle(key, physical(i)));
+      return out;
+    }
+
+    private Candle candle(SeriesKey key, int p) {
+      return new Candle(key.symbol(), key.timeframe(), time[p], open[p], high[p], low[p], close[p], volume[p], vwap[p], 0);
+    }
+
+    private void write(int p, Candle c) {
+      time[p] = c.openTime();
+      open[p] = c.open();
+      high[p] = c.high();
+      low[p] = c.low();
+      close[p] = c.close();
+      volume[p] = c.volume();
+      vwap[p] = c.vwap();
+    }
+
+    private int physical(int logical) {
+      return (head + logical) % time.length;
+    }
+  }
+}
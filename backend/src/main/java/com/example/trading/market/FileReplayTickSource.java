@@ -0,0 +1,56 @@
+package com.example.trading.market;
+
+import com.example.trading.domain.FixedPoint;
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replays ticks from a CSV file of {@code epochMillis,symbol,price,size} lines as fast as they
+ * can be read. Stand-in for a live exchange feed in development and load tests; enabled by
+ * setting {@code market.data.candles.replay-file}. Blank lines, {@code #} comments and a
+ * non-numeric header line are skipped.
+ */
+@Component
+@ConditionalOnProperty("market.data.candles.replay-file")
+public class FileReplayTickSource implements TickSource {
+  private final Path file;
+
+  public FileReplayTickSource(@Value("${market.data.candles.replay-file}") Path file) {
+    this.file = file;
+  }
+
+  @Override
+  public String name() {
+    return "replay-" + file.getFileName();
+  }
+
+  @Override
+  public void stream(TickHandler handler) throws Exception {
+    try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      long lineNo = 0;
+      while ((line = in.readLine()) != null) {
+        lineNo++;
+        if (Thread.currentThread().isInterrupted()) return;
+        if (line.isBlank() || line.charAt(0) == '#' || !Character.isDigit(line.charAt(0))) continue;
+        int c1 = line.indexOf(',');
+        int c2 = line.indexOf(',', c1 + 1);
+        int c3 = line.indexOf(',', c2 + 1);
+        if (c1 < 0 || c2 < 0 || c3 < 0) {
+          throw new IllegalArgumentException(file + ":" + lineNo + ": expected epochMillis,symbol,price,size");
+        }
+        handler.onTick(
+          line.substring(c1 + 1, c2),
+          Long.parseLong(line, 0, c1, 10),
+          FixedPoint.parse(line, c2 + 1, c3),
+          FixedPoint.parse(line, c3 + 1, line.length())
+        );
+      }
+    }
+  }
+}
@@ -1,7 +1,30 @@
 package com.example.trading.market;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface MarketDataService {
-  BigDecimal getLastPrice(String symbol);
-}
\ No newline at end of file
+  /**
+   * Last prices for all given symbols, fetched in as few upstream calls as possible.
+   * Symbols without a quote are absent from the resulting map. Implementations must not
+   * block the calling thread on network I/O.
+   */
+  CompletableFuture<Map<String, BigDecimal>> getLastPricesAsync(Collection<String> symbols);
+
+  /** Empty when there is no quote for the symbol, including when the upstream request failed. */
+  default CompletableFuture<Optional<BigDecimal>> getLastPriceAsync(String symbol) {
+    return getLastPricesAsync(List.of(symbol)).thenApply(prices -> Optional.ofNullable(prices.get(symbol)));
+  }
+
+  default Map<String, BigDecimal> getLastPrices(Collection<String> symbols) {
+    return getLastPricesAsync(symbols).join();
+  }
+
+  default Optional<BigDecimal> getLastPrice(String symbol) {
+    return getLastPriceAsync(symbol).join();
+  }
+}
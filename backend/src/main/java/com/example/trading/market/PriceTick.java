@@ -0,0 +1,7 @@
+package com.example.trading.market;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** Published whenever the last traded price of a watched symbol changes. */
+public record PriceTick(String symbol, BigDecimal price, Instant timestamp) {}
@@ -0,0 +1,84 @@
+package com.example.trading.market;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single shared poller that turns quote changes for watched symbols into {@link PriceTick}
+ * application events. Consumers register interest with {@link #watch} / {@link #unwatch};
+ * each poll prices every watched symbol in one batch, so cost is independent of how many
+ * consumers care about a symbol.
+ */
+@Component
+public class PriceTickPublisher {
+  private final MarketDataService marketDataService;
+  private final ApplicationEventPublisher events;
+  private final Map<String, Integer> watchers = new ConcurrentHashMap<>();
+  private final Map<String, BigDecimal> lastPrices = new ConcurrentHashMap<>();
+  private final AtomicBoolean polling = new AtomicBoolean();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "price-tick-publisher");
+    t.setDaemon(true);
+    return t;
+  });
+
+  public PriceTickPublisher(
+    MarketDataService marketDataService,
+    ApplicationEventPublisher events,
+    @Value("${market.data.tick-interval:PT1S}") Duration interval
+  ) {
+    this.marketDataService = marketDataService;
+    this.events = events;
+    scheduler.scheduleWithFixedDelay(this::poll, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public void watch(String symbol) {
+    watchers.merge(symbol, 1, Integer::sum);
+  }
+
+  public void unwatch(String symbol) {
+    watchers.computeIfPresent(symbol, (s, n) -> n > 1 ? n - 1 : null);
+    if (!watchers.containsKey(symbol)) lastPrices.remove(symbol);
+  }
+
+  private void poll() {
+    if (watchers.isEmpty() || !polling.compareAndSet(false, true)) return;
+    List<String> symbols = new ArrayList<>(watchers.keySet());
+    marketDataService.getLastPricesAsync(symbols).whenComplete((prices, ex) -> {
+      try {
+        if (ex == null) publishChanges(prices);
+      } finally {
+        polling.set(false);
+      }
+    });
+  }
+
+  private void publishChanges(Map<String, BigDecimal> prices) {
+    Instant now = Instant.now();
+    for (var e : prices.entrySet()) {
+      if (!watchers.containsKey(e.getKey())) continue;
+      BigDecimal previous = lastPrices.put(e.getKey(), e.getValue());
+      if (previous == null || previous.compareTo(e.getValue()) != 0) {
+        events.publishEvent(new PriceTick(e.getKey(), e.getValue(), now));
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+}
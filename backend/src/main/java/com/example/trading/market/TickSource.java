@@ -0,0 +1,20 @@
+package com.example.trading.market;
+
+/**
+ * A feed of raw trades (ticks) for candle ingestion. Implementations push ticks into a
+ * {@link TickHandler} on the calling thread until the feed ends or the thread is interrupted.
+ * Prices and sizes are {@link com.example.trading.domain.FixedPoint} longs so a tick costs
+ * no allocation between the source and the aggregator.
+ */
+public interface TickSource {
+
+  /** Short name used for the ingestion thread and metrics tags. */
+  String name();
+
+  void stream(TickHandler handler) throws Exception;
+
+  @FunctionalInterface
+  interface TickHandler {
+    void onTick(String symbol, long epochMillis, long price, long size);
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.trading.market;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bar timeframe as stored in {@code market_data.timeframe} ({@code 1m}, {@code 15m}, {@code 4h},
+ * {@code 1d}, ...). Bars are aligned to UTC epoch multiples of {@link #millis()}.
+ */
+public record Timeframe(String label, long millis) {
+
+  public static Timeframe parse(String label) {
+    String s = label.trim();
+    if (s.length() < 2) throw new IllegalArgumentException("Bad timeframe: " + label);
+    long n;
+    try {
+      n = Long.parseLong(s.substring(0, s.length() - 1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Bad timeframe: " + label);
+    }
+    Duration unit = switch (s.charAt(s.length() - 1)) {
+      case 's' -> Duration.ofSeconds(1);
+      case 'm' -> Duration.ofMinutes(1);
+      case 'h' -> Duration.ofHours(1);
+      case 'd' -> Duration.ofDays(1);
+      default -> throw new IllegalArgumentException("Bad timeframe: " + label);
+    };
+    if (n <= 0) throw new IllegalArgumentException("Bad timeframe: " + label);
+    return new Timeframe(s, unit.multipliedBy(n).toMillis());
+  }
+
+  public static List<Timeframe> parseAll(String labels) {
+    return Arrays.stream(labels.split(",")).filter(s -> !s.isBlank()).map(Timeframe::parse).toList();
+  }
+
+  /** Start of the bar containing {@code epochMillis}. */
+  public long bucketStart(long epochMillis) {
+    return epochMillis - Math.floorMod(epochMillis, millis);
+  }
+}
@@ -4,31 +4,66 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.stereotype.Service;
 
 @Service
 public class YahooMarketDataService implements MarketDataService {
-  private final HttpClient httpClient = HttpClient.newHttpClient();
+  // Yahoo accepts long symbol lists, but keep URLs well under common proxy limits
+  private static final int MAX_SYMBOLS_PER_REQUEST = 50;
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+  private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
   private final ObjectMapper objectMapper = new ObjectMapper();
 
   @Override
-  public BigDecimal getLastPrice(String symbol) {
+  public CompletableFuture<Map<String, BigDecimal>> getLastPricesAsync(Collection<String> symbols) {
+    List<String> distinct = new ArrayList<>(new LinkedHashSet<>(symbols));
+    List<CompletableFuture<Map<String, BigDecimal>>> chunks = new ArrayList<>();
+    for (int from = 0; from < distinct.size(); from += MAX_SYMBOLS_PER_REQUEST) {
+      chunks.add(fetchQuotes(distinct.subList(from, Math.min(from + MAX_SYMBOLS_PER_REQUEST, distinct.size()))));
+    }
+    return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+      Map<String, BigDecimal> prices = new HashMap<>();
+      for (var chunk : chunks) prices.putAll(chunk.join());
+      return prices;
+    });
+  }
+
+  private CompletableFuture<Map<String, BigDecimal>> fetchQuotes(List<String> symbols) {
+    String joined = URLEncoder.encode(String.join(",", symbols), StandardCharsets.UTF_8);
+    String url = "https://query1.finance.yahoo.com/v7/finance/quote?symbols=" + joined;
+    HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).timeout(REQUEST_TIMEOUT).GET().build();
+    return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+      .thenApply(response -> parseQuotes(response.body()))
+      .exceptionally(ex -> Map.of());
+  }
+
+  private Map<String, BigDecimal> parseQuotes(String body) {
+    Map<String, BigDecimal> prices = new HashMap<>();
     try {
-      String url = "https://query1.finance.yahoo.com/v7/finance/quote?symbols=" + symbol;
-      HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
-      HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-      JsonNode root = objectMapper.readTree(response.body());
+      JsonNode root = objectMapper.readTree(body);
       JsonNode result = root.path("quoteResponse").path("result");
-      if (result.isArray() && result.size() > 0) {
-        JsonNode item = result.get(0);
-        if (item.has("regularMarketPrice")) {
-          return item.get("regularMarketPrice").decimalValue();
+      if (result.isArray()) {
+        for (JsonNode item : result) {
+          if (item.has("symbol") && item.has("regularMarketPrice")) {
+            prices.put(item.get("symbol").asText(), item.get("regularMarketPrice").decimalValue());
+          }
         }
       }
     } catch (Exception ignored) {}
-    return BigDecimal.ZERO;
+    return prices;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,158 @@
+package com.example.trading.paper;
+
+import com.example.trading.domain.FixedPoint;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One paper account's open positions, netted per symbol, with equity kept current
+ * incrementally: marking a symbol to a new price adjusts unrealized PnL by that symbol's change
+ * alone. All amounts are FixedPoint longs. Owned by the risk monitor's thread.
+ */
+final class AccountExposure {
+  /** Margin level of an account that holds no margin; sorts after every real level. */
+  static final long NO_MARGIN = Long.MAX_VALUE;
+
+  final long accountId;
+  long balance;
+  private long margin;
+  private long unrealized;
+  private long level = NO_MARGIN;
+  int heapIndex = -1;
+  boolean marginCalled;
+
+  private final Map<String, Net> bySymbol = new HashMap<>(4);
+  private final Map<Long, Held> positions = new HashMap<>(4);
+
+  AccountExposure(long accountId) {
+    this.accountId = accountId;
+  }
+
+  /** An open position; {@code sign} is 1 for long and -1 for short. */
+  record Held(long positionId, String symbol, int sign, long volume, long openPrice, long margin) {}
+
+  /** Net position in one symbol: signed volume, signed cost basis and the last mark. */
+  private static final class Net {
+    long volume;
+    long cost;
+    long last;
+    long unrealized;
+    int count;
+
+    /** Re-marks at {@code price} and returns the change in unrealized PnL. */
+    long mark(long price) {
+      last = price;
+      long next = FixedPoint.subtract(FixedPoint.multiply(volume, price), cost);
+      long delta = FixedPoint.subtract(next, unrealized);
+      unrealized = next;
+      return delta;
+    }
+  }
+
+  long equity() {
+    return FixedPoint.add(balance, unrealized);
+  }
+
+  long unrealized() {
+    return unrealized;
+  }
+
+  long margin() {
+    return margin;
+  }
+
+  /** Equity over margin in percent, or {@link #NO_MARGIN} while no margin is held. */
+  long level() {
+    return level;
+  }
+
+  boolean holds(long positionId) {
+    return positions.containsKey(positionId);
+  }
+
+  boolean isEmpty() {
+    return positions.isEmpty();
+  }
+
+  boolean holdsSymbol(String symbol) {
+    return bySymbol.containsKey(symbol);
+  }
+
+  /** Adds the position, marking it at {@code price} when known (non-zero). */
+  void add(Held h, long price) {
+    positions.put(h.positionId(), h);
+    Net net = bySymbol.computeIfAbsent(h.symbol(), s -> new Net());
+    net.count++;
+    net.volume = FixedPoint.add(net.volume, h.sign() * h.volume());
+    net.cost = FixedPoint.add(net.cost, h.sign() * FixedPoint.multiply(h.volume(), h.openPrice()));
+    margin = FixedPoint.add(margin, h.margin());
+    long mark = price != 0 ? price : net.last != 0 ? net.last : h.openPrice();
+    unrealized = FixedPoint.add(unrealized, net.mark(mark));
+    updateLevel();
+  }
+
+  /**
+   * Removes the position, crediting the balance with its PnL at the symbol's last mark as an
+   * estimate until the committed close reports the real balance. Returns the removed position.
+   */
+  Held remove(long positionId) {
+    Held h = positions.remove(positionId);
+    if (h == null) return null;
+    Net net = bySymbol.get(h.symbol());
+    long pnl = pnl(h, net.last);
+    unrealized = FixedPoint.subtract(unrealized, net.unrealized);
+    if (--net.count == 0) {
+      bySymbol.remove(h.symbol());
+    } else {
+      net.volume = FixedPoint.subtract(net.volume, h.sign() * h.volume());
+      net.cost = FixedPoint.subtract(net.cost, h.sign() * FixedPoint.multiply(h.volume(), h.openPrice()));
+      net.unrealized = 0;
+      unrealized = FixedPoint.add(unrealized, net.mark(net.last));
+    }
+    balance = FixedPoint.add(balance, pnl);
+    margin = FixedPoint.subtract(margin, h.margin());
+    updateLevel();
+    return h;
+  }
+
+  /** Marks {@code symbol} to {@code price}; returns false if the account does not hold it. */
+  boolean mark(String symbol, long price) {
+    Net net = bySymbol.get(symbol);
+    if (net == null) return false;
+    unrealized = FixedPoint.add(unrealized, net.mark(price));
+    updateLevel();
+    return true;
+  }
+
+  void setBalance(long balance) {
+    this.balance = balance;
+    updateLevel();
+  }
+
+  /** The open position with the largest loss at current marks, or null if none. */
+  Held worst() {
+    Held worst = null;
+    long worstPnl = Long.MAX_VALUE;
+    for (Held h : positions.values()) {
+      long pnl = pnl(h, bySymbol.get(h.symbol()).last);
+      if (pnl < worstPnl) {
+        worst = h;
+        worstPnl = pnl;
+      }
+    }
+    return worst;
+  }
+
+  /** Last mark of a held symbol. */
+  long last(String symbol) {
+    return bySymbol.get(symbol).last;
+  }
+
+  private static long pnl(Held h, long price) {
+    return h.sign() * FixedPoint.multiply(h.volume(), FixedPoint.subtract(price, h.openPrice()));
+  }
+
+  private void updateLevel() {
+    level = margin > 0 ? FixedPoint.multiply(FixedPoint.divide(equity(), margin), FixedPoint.of(100)) : NO_MARGIN;
+  }
+}
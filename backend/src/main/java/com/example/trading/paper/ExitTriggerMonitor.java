@@ -0,0 +1,192 @@
+package com.example.trading.paper;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.Position;
+import com.example.trading.domain.Trade;
+import com.example.trading.market.PriceTick;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.repository.OpenPosition;
+import com.example.trading.repository.PositionRepository;
+import com.example.trading.repository.ProtectedTrade;
+import com.example.trading.repository.TradeRepository;
+import com.example.trading.service.TradeChange;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+/**
+ * Enforces the stop-loss and take-profit levels of open paper positions and open trades. Every
+ * position or trade with either level is indexed in a per-symbol {@link SymbolTriggers}, so a
+ * tick closes exactly the ones whose levels it crossed without looking at any other. Crossed
+ * entries are closed through {@link PositionCloser} at the tick price, which batches the writes
+ * and publishes the entry again if its close cannot be written; the indexes are kept current from
+ * {@link PositionChange}s and {@link TradeChange}s, and code that amends a position's levels
+ * calls {@link #place} again.
+ */
+@Service
+public class ExitTriggerMonitor {
+  private final PositionRepository positionRepository;
+  private final TradeRepository tradeRepository;
+  private final PositionCloser closer;
+  private final PriceTickPublisher tickPublisher;
+  private final int loadPageSize;
+
+  // Position and trade ids are separate sequences, so each gets its own books
+  private final Index positions = new Index();
+  private final Index trades = new Index();
+
+  public ExitTriggerMonitor(
+    PositionRepository positionRepository,
+    TradeRepository tradeRepository,
+    PositionCloser closer,
+    PriceTickPublisher tickPublisher,
+    MeterRegistry meterRegistry,
+    @Value("${trading.paper-trading.closing.load-page-size:10000}") int loadPageSize
+  ) {
+    this.positionRepository = positionRepository;
+    this.tradeRepository = tradeRepository;
+    this.closer = closer;
+    this.tickPublisher = tickPublisher;
+    this.loadPageSize = loadPageSize;
+    Gauge.builder("paper.positions.protected", positions.symbolsById, Map::size).register(meterRegistry);
+    Gauge.builder("trades.protected", trades.symbolsById, Map::size).register(meterRegistry);
+  }
+
+  /** Indexes the levels of every open position and trade, reading only the indexed fields in keyset pages. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    long after = 0;
+    while (true) {
+      List<OpenPosition> page = positionRepository.findOpenAfter(after, PageRequest.ofSize(loadPageSize));
+      for (OpenPosition row : page) {
+        place(row.getId(), row.getSymbol(), row.getSide(), row.getStopLoss(), row.getTakeProfit());
+      }
+      if (page.size() < loadPageSize) break;
+      after = page.get(page.size() - 1).getId();
+    }
+    after = 0;
+    while (true) {
+      List<ProtectedTrade> page = tradeRepository.findProtectedOpenAfter(after, PageRequest.ofSize(loadPageSize));
+      for (ProtectedTrade row : page) {
+        placeTrade(row.getId(), row.getSymbol(), row.getSide(), row.getStopLoss(), row.getTakeProfit());
+      }
+      if (page.size() < loadPageSize) return;
+      after = page.get(page.size() - 1).getId();
+    }
+  }
+
+  @EventListener
+  public void onPositionChange(PositionChange change) {
+    if (change.open()) {
+      place(change.positionId(), change.symbol(), change.side(), change.stopLoss(), change.takeProfit());
+    } else {
+      cancel(change.positionId());
+    }
+  }
+
+  @EventListener
+  public void onTradeChange(TradeChange change) {
+    if (change.open()) {
+      placeTrade(change.tradeId(), change.symbol(), change.side(), change.stopLoss(), change.takeProfit());
+    } else {
+      trades.cancel(change.tradeId());
+    }
+  }
+
+  /**
+   * Indexes or re-indexes the position's levels; null or non-positive levels are unset. Returns
+   * false, leaving the position unindexed, when neither is set.
+   */
+  public boolean place(long positionId, String symbol, Position.PositionSide side, BigDecimal stopLoss,
+                       BigDecimal takeProfit) {
+    return positions.place(positionId, symbol, side == Position.PositionSide.SHORT, stopLoss, takeProfit);
+  }
+
+  /** Like {@link #place} for a trade; a SELL trade is short. */
+  public boolean placeTrade(long tradeId, String symbol, Trade.TradeSide side, BigDecimal stopLoss,
+                            BigDecimal takeProfit) {
+    return trades.place(tradeId, symbol, side == Trade.TradeSide.SELL, stopLoss, takeProfit);
+  }
+
+  public void cancel(Long positionId) {
+    positions.cancel(positionId);
+  }
+
+  public int protectedCount() {
+    return positions.symbolsById.size() + trades.symbolsById.size();
+  }
+
+  @EventListener
+  public void onPriceTick(PriceTick tick) {
+    onTick(tick.symbol(), FixedPoint.fromBigDecimal(tick.price()));
+  }
+
+  /** Closes every position and trade whose level {@code price}, a FixedPoint long, crossed. */
+  public void onTick(String symbol, long price) {
+    positions.onTick(symbol, price, (positionId, reason) -> closer.close(positionId, price, reason));
+    trades.onTick(symbol, price, (tradeId, reason) -> closer.closeTrade(tradeId, price, reason));
+  }
+
+  /** Per-symbol books over one id space, watching a symbol while its book is non-empty. */
+  private final class Index {
+    final Map<String, SymbolTriggers> books = new ConcurrentHashMap<>();
+    final Map<Long, String> symbolsById = new ConcurrentHashMap<>();
+
+    boolean place(long id, String symbol, boolean isShort, BigDecimal stopLoss, BigDecimal takeProfit) {
+      long stop = stopLoss != null ? FixedPoint.fromBigDecimal(stopLoss) : 0;
+      long target = takeProfit != null ? FixedPoint.fromBigDecimal(takeProfit) : 0;
+      if (stop <= 0 && target <= 0) {
+        cancel(id);
+        return false;
+      }
+      String previous = symbolsById.get(id);
+      if (previous != null && !previous.equals(symbol)) removeFromBook(previous, id);
+      books.compute(symbol, (s, book) -> {
+        if (book == null) {
+          book = new SymbolTriggers();
+          tickPublisher.watch(s);
+        }
+        book.add(id, isShort, stop, target);
+        symbolsById.put(id, s);
+        return book;
+      });
+      return true;
+    }
+
+    void cancel(Long id) {
+      String symbol = symbolsById.remove(id);
+      if (symbol != null) removeFromBook(symbol, id);
+    }
+
+    void onTick(String symbol, long price, SymbolTriggers.TriggerSink sink) {
+      SymbolTriggers book = books.get(symbol);
+      if (book == null) return;
+      book.onPrice(price, (id, reason) -> {
+        symbolsById.remove(id, symbol);
+        sink.crossed(id, reason);
+      });
+      if (book.size() == 0) books.computeIfPresent(symbol, this::release);
+    }
+
+    private void removeFromBook(String symbol, long id) {
+      books.computeIfPresent(symbol, (s, book) -> {
+        book.remove(id);
+        return release(s, book);
+      });
+    }
+
+    private SymbolTriggers release(String symbol, SymbolTriggers book) {
+      if (book.size() > 0) return book;
+      tickPublisher.unwatch(symbol);
+      return null;
+    }
+  }
+}
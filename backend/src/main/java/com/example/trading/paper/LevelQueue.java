@@ -0,0 +1,84 @@
+package com.example.trading.paper;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min-heap of accounts by margin level, so the account closest to a margin call
+ * is always on top. Each account records its own heap slot, making {@link #update} after a
+ * re-mark O(log n); accounts holding no margin are kept out of the heap.
+ */
+final class LevelQueue {
+  private AccountExposure[] heap = new AccountExposure[64];
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  /** The account with the lowest margin level, or null if none holds margin. */
+  AccountExposure peek() {
+    return size > 0 ? heap[0] : null;
+  }
+
+  /** Inserts, repositions or removes {@code a} after its level changed. */
+  void update(AccountExposure a) {
+    boolean queued = a.heapIndex >= 0;
+    if (a.level() == AccountExposure.NO_MARGIN) {
+      if (queued) remove(a);
+      return;
+    }
+    if (!queued) {
+      if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+      a.heapIndex = size;
+      heap[size++] = a;
+      siftUp(a.heapIndex);
+      return;
+    }
+    int i = a.heapIndex;
+    siftUp(i);
+    if (a.heapIndex == i) siftDown(i);
+  }
+
+  void remove(AccountExposure a) {
+    int i = a.heapIndex;
+    if (i < 0) return;
+    a.heapIndex = -1;
+    AccountExposure last = heap[--size];
+    heap[size] = null;
+    if (i == size) return;
+    heap[i] = last;
+    last.heapIndex = i;
+    siftUp(i);
+    if (last.heapIndex == i) siftDown(i);
+  }
+
+  private void siftUp(int i) {
+    AccountExposure a = heap[i];
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      AccountExposure p = heap[parent];
+      if (p.level() <= a.level()) break;
+      heap[i] = p;
+      p.heapIndex = i;
+      i = parent;
+    }
+    heap[i] = a;
+    a.heapIndex = i;
+  }
+
+  private void siftDown(int i) {
+    AccountExposure a = heap[i];
+    int half = size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && heap[child + 1].level() < heap[child].level()) child++;
+      AccountExposure c = heap[child];
+      if (a.level() <= c.level()) break;
+      heap[i] = c;
+      c.heapIndex = i;
+      i = child;
+    }
+    heap[i] = a;
+    a.heapIndex = i;
+  }
+}
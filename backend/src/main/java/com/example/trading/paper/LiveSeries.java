@@ -0,0 +1,98 @@
+package com.example.trading.paper;
+
+import com.example.trading.market.Candle;
+import com.example.trading.market.CandleSeries;
+
+/**
+ * Closed bars of one live (symbol, timeframe) shared by every strategy running on it. Indices
+ * are absolute and keep growing, as a compiled Pine script expects, while only the newest
+ * {@link #CAPACITY} bars are retained. One thread appends; strategies read on their own threads
+ * after the appended bar is handed to them, and a reader stays correct as long as it is less
+ * than {@link #MAX_LAG} bars behind (see {@link #readable}), which leaves room for Pine's
+ * 500-bar history limit.
+ */
+final class LiveSeries implements CandleSeries {
+  static final int CAPACITY = 1024;
+  static final int MAX_LAG = CAPACITY - 512;
+  private static final int MASK = CAPACITY - 1;
+
+  private final String symbol;
+  private final String timeframe;
+  private final long[] time = new long[CAPACITY];
+  private final long[] open = new long[CAPACITY];
+  private final long[] high = new long[CAPACITY];
+  private final long[] low = new long[CAPACITY];
+  private final long[] close = new long[CAPACITY];
+  private final long[] volume = new long[CAPACITY];
+  private volatile int size;
+
+  LiveSeries(String symbol, String timeframe) {
+    this.symbol = symbol;
+    this.timeframe = timeframe;
+  }
+
+  /** Appends a bar newer than the last one and returns its index, or -1 if it is not newer. */
+  synchronized int append(Candle c) {
+    int n = size;
+    if (n > 0 && c.openTime() <= time[(n - 1) & MASK]) return -1;
+    int p = n & MASK;
+    time[p] = c.openTime();
+    open[p] = c.open();
+    high[p] = c.high();
+    low[p] = c.low();
+    close[p] = c.close();
+    volume[p] = c.volume();
+    size = n + 1;
+    return n;
+  }
+
+  /** Whether bar {@code i} and the history a script may read behind it are still retained. */
+  boolean readable(int i) {
+    return size - 1 - i < MAX_LAG;
+  }
+
+  @Override
+  public String symbol() {
+    return symbol;
+  }
+
+  @Override
+  public String timeframe() {
+    return timeframe;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public long time(int i) {
+    return time[i & MASK];
+  }
+
+  @Override
+  public long open(int i) {
+    return open[i & MASK];
+  }
+
+  @Override
+  public long high(int i) {
+    return high[i & MASK];
+  }
+
+  @Override
+  public long low(int i) {
+    return low[i & MASK];
+  }
+
+  @Override
+  public long close(int i) {
+    return close[i & MASK];
+  }
+
+  @Override
+  public long volume(int i) {
+    return volume[i & MASK];
+  }
+}
@@ -0,0 +1,9 @@
+package com.example.trading.paper;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when a paper account's margin level falls to the margin-call level, and again with
+ * {@code stopOut} set when it falls to the stop-out level and positions are being closed.
+ */
+public record MarginCall(Long accountId, BigDecimal equity, BigDecimal margin, BigDecimal marginLevel, boolean stopOut) {}
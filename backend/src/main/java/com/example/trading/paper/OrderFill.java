@@ -0,0 +1,9 @@
+package com.example.trading.paper;
+
+import com.example.trading.domain.Order;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** Published once a paper order's fill has been committed. */
+public record OrderFill(Long orderId, Long accountId, String symbol, Order.OrderSide side, BigDecimal volume,
+                        BigDecimal price, Order.OrderStatus status, Instant timestamp) {}
@@ -0,0 +1,407 @@
+package com.example.trading.paper;
+
+import com.example.trading.alert.ThresholdHeap;
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.Order;
+import com.example.trading.domain.Order.OrderSide;
+import com.example.trading.domain.Order.OrderStatus;
+import com.example.trading.domain.Order.OrderType;
+import com.example.trading.domain.PaperTradingAccount;
+import com.example.trading.domain.Position;
+import com.example.trading.market.PriceTick;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.repository.OrderRepository;
+import com.example.trading.repository.PaperTradingAccountRepository;
+import com.example.trading.repository.PositionRepository;
+import com.example.trading.repository.RestingOrder;
+import com.example.trading.repository.WriteRetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Matches resting paper LIMIT and STOP orders against live prices. Every PENDING or
+ * PARTIALLY_FILLED order is indexed by trigger price in a per-symbol {@link SymbolOrders}, so
+ * placing an order is O(log n) and a tick pays only for the orders it crosses. Each crossed
+ * order fills its whole remaining volume at the tick price moved against the trader by
+ * {@code trading.paper-trading.slippage} (never worse than a limit's own price). Orders with an
+ * {@code expiresAt} also sit in a deadline heap that a sweeper pops once they are due.
+ *
+ * <p>Fills and expiries are collected into batches and a single writer thread applies them to
+ * the {@link Order} rows. Each fill opens a {@link Position} on the order's side with the order's
+ * stop loss and take profit, and books its margin on the {@link PaperTradingAccount}, the same
+ * way {@link StrategyRunner} records an entry; a fill against an inactive account or one without
+ * the free margin for it rejects the order instead. An {@link OrderFill} and a
+ * {@link PositionChange} are published per committed fill. An order that was cancelled or
+ * changed in the database since it was indexed is left untouched. Transient write failures are
+ * retried; orders in a batch that still fails are re-read and placed back in the book. Code that
+ * creates, amends or cancels orders calls {@link #place} / {@link #cancel} to keep the index
+ * current.
+ */
+@Service
+public class OrderMatchingEngine {
+  private final OrderRepository orderRepository;
+  private final PaperTradingAccountRepository accountRepository;
+  private final PositionRepository positionRepository;
+  private final PriceTickPublisher tickPublisher;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+  private final WriteRetry retry = new WriteRetry("order-fill-writer");
+  private final long slippage;
+  private final long leverage;
+  private final int batchSize;
+  private final int loadPageSize;
+
+  private final Map<String, SymbolOrders> books = new ConcurrentHashMap<>();
+  private final Map<Long, String> symbolsByOrder = new ConcurrentHashMap<>();
+  // Rising heap of expiry millis -> order id, so the earliest deadline is on top
+  private final ThresholdHeap deadlines = new ThresholdHeap(true);
+  private final Object lock = new Object();
+  private List<Outcome> pending;
+  private final ThreadPoolExecutor writerPool;
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "order-matching-scheduler");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private final Counter filled;
+  private final Counter expired;
+  private final Counter rejected;
+  private final Counter unsupported;
+  private final Counter skipped;
+  private final Counter failed;
+
+  public OrderMatchingEngine(
+    OrderRepository orderRepository,
+    PaperTradingAccountRepository accountRepository,
+    PositionRepository positionRepository,
+    PriceTickPublisher tickPublisher,
+    ApplicationEventPublisher events,
+    PlatformTransactionManager transactionManager,
+    MeterRegistry meterRegistry,
+    @Value("${trading.paper-trading.slippage:0.001}") double slippage,
+    @Value("${trading.paper-trading.max-leverage:100}") int maxLeverage,
+    @Value("${trading.paper-trading.matching.batch-size:500}") int batchSize,
+    @Value("${trading.paper-trading.matching.flush-interval:PT1S}") Duration flushInterval,
+    @Value("${trading.paper-trading.matching.expiry-interval:PT1S}") Duration expiryInterval,
+    @Value("${trading.paper-trading.matching.load-page-size:10000}") int loadPageSize
+  ) {
+    this.orderRepository = orderRepository;
+    this.accountRepository = accountRepository;
+    this.positionRepository = positionRepository;
+    this.tickPublisher = tickPublisher;
+    this.events = events;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.slippage = FixedPoint.fromBigDecimal(BigDecimal.valueOf(slippage));
+    this.leverage = FixedPoint.of(Math.max(1, maxLeverage));
+    this.batchSize = batchSize;
+    this.loadPageSize = loadPageSize;
+    this.pending = new ArrayList<>(batchSize);
+    this.writerPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread t = new Thread(r, "order-fill-writer");
+      t.setDaemon(true);
+      return t;
+    });
+    this.filled = Counter.builder("paper.orders.matched").tag("result", "filled").register(meterRegistry);
+    this.expired = Counter.builder("paper.orders.matched").tag("result", "expired").register(meterRegistry);
+    this.rejected = Counter.builder("paper.orders.matched").tag("result", "rejected").register(meterRegistry);
+    this.unsupported = Counter.builder("paper.orders.unsupported").register(meterRegistry);
+    this.skipped = Counter.builder("paper.orders.writes").tag("result", "skipped").register(meterRegistry);
+    this.failed = Counter.builder("paper.orders.writes").tag("result", "failed").register(meterRegistry);
+    Gauge.builder("paper.orders.resting", symbolsByOrder, Map::size).register(meterRegistry);
+
+    long flushMillis = flushInterval.toMillis();
+    scheduler.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    long expiryMillis = expiryInterval.toMillis();
+    scheduler.scheduleWithFixedDelay(() -> expireDue(System.currentTimeMillis()), expiryMillis, expiryMillis,
+      TimeUnit.MILLISECONDS);
+  }
+
+  /** {@code expired}: the order timed out instead of filling; volume and price are then unused. */
+  private record Outcome(long orderId, String symbol, boolean expired, long volume, long price, long epochMillis) {}
+
+  /** Indexes every resting order, reading only the matched fields in keyset pages. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    long after = 0;
+    while (true) {
+      List<RestingOrder> page = orderRepository.findRestingAfter(after, PageRequest.ofSize(loadPageSize));
+      for (RestingOrder row : page) {
+        place(row.getId(), row.getSymbol(), row.getType(), row.getSide(), row.getPrice(),
+          row.getVolume().subtract(row.getFilledVolume()), row.getExpiresAt());
+      }
+      if (page.size() < loadPageSize) return;
+      after = page.get(page.size() - 1).getId();
+    }
+  }
+
+  /** Adds or replaces the order in the book; orders that can no longer fill are removed instead. */
+  public boolean place(Order order) {
+    if (order.getStatus() != OrderStatus.PENDING && order.getStatus() != OrderStatus.PARTIALLY_FILLED) {
+      cancel(order.getId());
+      return false;
+    }
+    return place(order.getId(), order.getSymbol(), order.getType(), order.getSide(), order.getPrice(),
+      order.getRemainingVolume(), order.getExpiresAt());
+  }
+
+  /**
+   * Returns false, leaving the order unindexed, unless it is a LIMIT or STOP order with a
+   * positive price and remaining volume. {@code expiresAt} is in the server's time zone, like every
+   * other {@link LocalDateTime} column; null means good-till-cancelled.
+   */
+  public boolean place(long orderId, String symbol, OrderType type, OrderSide side, BigDecimal price,
+                       BigDecimal remaining, LocalDateTime expiresAt) {
+    if ((type != OrderType.LIMIT && type != OrderType.STOP) || price == null || price.signum() <= 0
+      || remaining == null || remaining.signum() <= 0) {
+      unsupported.increment();
+      cancel(orderId);
+      return false;
+    }
+    long trigger = FixedPoint.fromBigDecimal(price);
+    long volume = FixedPoint.fromBigDecimal(remaining);
+    long deadline = expiresAt != null ? expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : Long.MAX_VALUE;
+    String previous = symbolsByOrder.get(orderId);
+    if (previous != null && !previous.equals(symbol)) removeFromBook(previous, orderId);
+    books.compute(symbol, (s, book) -> {
+      if (book == null) {
+        book = new SymbolOrders(slippage);
+        tickPublisher.watch(s);
+      }
+      book.add(orderId, side == OrderSide.BUY, type == OrderType.LIMIT, trigger, volume, deadline);
+      // After add, so a fill of the replaced entry can't drop the new mapping
+      symbolsByOrder.put(orderId, s);
+      return book;
+    });
+    if (deadline != Long.MAX_VALUE) {
+      synchronized (deadlines) {
+        deadlines.push(deadline, orderId);
+      }
+    }
+    return true;
+  }
+
+  public void cancel(Long orderId) {
+    String symbol = symbolsByOrder.remove(orderId);
+    if (symbol != null) removeFromBook(symbol, orderId);
+  }
+
+  private void removeFromBook(String symbol, long orderId) {
+    books.computeIfPresent(symbol, (s, book) -> {
+      book.remove(orderId);
+      return release(s, book);
+    });
+  }
+
+  private SymbolOrders release(String symbol, SymbolOrders book) {
+    if (book.size() > 0) return book;
+    tickPublisher.unwatch(symbol);
+    return null;
+  }
+
+  public int restingCount() {
+    return symbolsByOrder.size();
+  }
+
+  @EventListener
+  public void onPriceTick(PriceTick tick) {
+    onTick(tick.symbol(), tick.timestamp().toEpochMilli(), FixedPoint.fromBigDecimal(tick.price()));
+  }
+
+  /** Matches a new last price for {@code symbol}; {@code price} is a FixedPoint long. */
+  public void onTick(String symbol, long epochMillis, long price) {
+    SymbolOrders book = books.get(symbol);
+    if (book == null) return;
+    book.onPrice(price, epochMillis, (orderId, buy, volume, fillPrice, at) -> {
+      symbolsByOrder.remove(orderId, symbol);
+      filled.increment();
+      enqueue(new Outcome(orderId, symbol, false, volume, fillPrice, at));
+    });
+    if (book.size() == 0) books.computeIfPresent(symbol, this::release);
+  }
+
+  /** Pops every deadline at or before {@code nowMillis} and expires orders that are still resting. */
+  void expireDue(long nowMillis) {
+    while (true) {
+      long orderId;
+      synchronized (deadlines) {
+        if (!deadlines.reached(nowMillis)) return;
+        orderId = deadlines.topRef();
+        deadlines.pop();
+      }
+      // A deadline left behind by a cancelled or re-placed order finds nothing due
+      String symbol = symbolsByOrder.get(orderId);
+      SymbolOrders book = symbol != null ? books.get(symbol) : null;
+      if (book == null || !book.expire(orderId, nowMillis)) continue;
+      symbolsByOrder.remove(orderId, symbol);
+      books.computeIfPresent(symbol, this::release);
+      expired.increment();
+      enqueue(new Outcome(orderId, symbol, true, 0, 0, nowMillis));
+    }
+  }
+
+  private void enqueue(Outcome o) {
+    List<Outcome> full = null;
+    synchronized (lock) {
+      pending.add(o);
+      if (pending.size() >= batchSize) {
+        full = pending;
+        pending = new ArrayList<>(batchSize);
+      }
+    }
+    if (full != null) submit(full);
+  }
+
+  private void flush() {
+    List<Outcome> batch;
+    synchronized (lock) {
+      if (pending.isEmpty()) return;
+      batch = pending;
+      pending = new ArrayList<>(batchSize);
+    }
+    submit(batch);
+  }
+
+  private void submit(List<Outcome> batch) {
+    if (writerPool.isShutdown()) {
+      write(batch);
+    } else {
+      writerPool.execute(() -> write(batch));
+    }
+  }
+
+  private void write(List<Outcome> batch) {
+    AtomicReference<Recorded> result = new AtomicReference<>();
+    if (retry.run(batch.size(), () -> result.set(tx.execute(status -> record(batch))))) {
+      Recorded recorded = result.get();
+      if (recorded == null) return;
+      rejected.increment(recorded.rejected());
+      skipped.increment(recorded.skipped());
+      recorded.fills().forEach(events::publishEvent);
+      recorded.positions().forEach(events::publishEvent);
+    } else if (batch.size() > 1 && !Thread.currentThread().isInterrupted()) {
+      // Isolate the outcome that can't be written so the rest of the batch still commits
+      for (Outcome o : batch) write(List.of(o));
+    } else {
+      failed.increment(batch.size());
+      if (!Thread.currentThread().isInterrupted()) batch.forEach(this::replace);
+    }
+  }
+
+  /**
+   * Puts an order whose outcome could not be written back in the book from its current row, so
+   * it can fill or expire again; one that is gone or no longer resting stays out.
+   */
+  private void replace(Outcome o) {
+    try {
+      orderRepository.findById(o.orderId()).ifPresent(this::place);
+    } catch (DataAccessException e) {
+      // Picked up again by load() on the next start
+    }
+  }
+
+  private record Recorded(List<OrderFill> fills, List<PositionChange> positions, int rejected, int skipped) {}
+
+  private Recorded record(List<Outcome> batch) {
+    Set<Long> ids = new LinkedHashSet<>();
+    for (Outcome o : batch) ids.add(o.orderId());
+    Map<Long, Order> orders = new HashMap<>();
+    for (Order order : orderRepository.findAllById(ids)) orders.put(order.getId(), order);
+    Set<Long> accountIds = new LinkedHashSet<>();
+    for (Order order : orders.values()) {
+      if (order.getAccount() != null) accountIds.add(order.getAccount().getId());
+    }
+    Map<Long, PaperTradingAccount> accounts = new HashMap<>();
+    for (PaperTradingAccount a : accountRepository.findAllById(accountIds)) accounts.put(a.getId(), a);
+
+    List<OrderFill> fills = new ArrayList<>(batch.size());
+    List<Position> opened = new ArrayList<>(batch.size());
+    int rejectedCount = 0;
+    int skippedCount = 0;
+    for (Outcome o : batch) {
+      Order order = orders.get(o.orderId());
+      if (order == null || (order.getStatus() != OrderStatus.PENDING && order.getStatus() != OrderStatus.PARTIALLY_FILLED)) {
+        skippedCount++;
+        continue;
+      }
+      if (o.expired()) {
+        order.setStatus(OrderStatus.EXPIRED);
+        continue;
+      }
+      PaperTradingAccount account = order.getAccount() != null ? accounts.get(order.getAccount().getId()) : null;
+      BigDecimal margin = FixedPoint.toBigDecimal(FixedPoint.divide(FixedPoint.multiply(o.price(), o.volume()), leverage));
+      if (account == null || account.getStatus() != PaperTradingAccount.AccountStatus.ACTIVE || !account.hasFreeMargin(margin)) {
+        order.setStatus(OrderStatus.REJECTED);
+        rejectedCount++;
+        continue;
+      }
+      BigDecimal volume = FixedPoint.toBigDecimal(o.volume());
+      BigDecimal price = FixedPoint.toBigDecimal(o.price());
+      order.fill(volume, price);
+      fills.add(new OrderFill(order.getId(), account.getId(), o.symbol(), order.getSide(), volume, price,
+        order.getStatus(), Instant.ofEpochMilli(o.epochMillis())));
+
+      Position position = new Position();
+      position.setSymbol(order.getSymbol());
+      position.setSide(order.getSide() == OrderSide.BUY ? Position.PositionSide.LONG : Position.PositionSide.SHORT);
+      position.setVolume(volume);
+      position.setOpenPrice(price);
+      position.setCurrentPrice(price);
+      position.setStopLoss(order.getStopLoss());
+      position.setTakeProfit(order.getTakeProfit());
+      position.setMargin(margin);
+      position.setAccount(account);
+      position.setUser(order.getUser());
+      // An order partly filled elsewhere may already own a position; later fills open their own
+      if (order.getPosition() == null) {
+        position.setOrder(order);
+        order.setPosition(position);
+      }
+      opened.add(position);
+      account.updateMargin(account.getMargin().add(margin));
+    }
+    // Loaded orders and accounts are managed; their changes are flushed on commit
+    positionRepository.saveAll(opened);
+
+    List<PositionChange> positions = new ArrayList<>(opened.size());
+    for (Position position : opened) positions.add(PositionChange.of(position));
+    return new Recorded(fills, positions, rejectedCount, skippedCount);
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    scheduler.shutdownNow();
+    flush();
+    writerPool.shutdown();
+    writerPool.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,19 @@
+package com.example.trading.paper;
+
+import com.example.trading.domain.Position;
+import java.math.BigDecimal;
+
+/**
+ * Published once a paper position has been opened or closed and committed. {@code balance} is
+ * the account balance after the change, so listeners can track it without a query.
+ */
+public record PositionChange(Long positionId, Long accountId, String symbol, Position.PositionSide side, BigDecimal volume,
+                             BigDecimal openPrice, BigDecimal margin, BigDecimal stopLoss, BigDecimal takeProfit,
+                             boolean open, BigDecimal balance) {
+
+  static PositionChange of(Position p) {
+    return new PositionChange(p.getId(), p.getAccount().getId(), p.getSymbol(), p.getSide(), p.getVolume(),
+      p.getOpenPrice(), p.getMargin(), p.getStopLoss(), p.getTakeProfit(),
+      p.getStatus() == Position.PositionStatus.OPEN, p.getAccount().getBalance());
+  }
+}
@@ -0,0 +1,353 @@
+package com.example.trading.paper;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.Order;
+import com.example.trading.domain.PaperTradingAccount;
+import com.example.trading.domain.Position;
+import com.example.trading.domain.Trade;
+import com.example.trading.domain.User;
+import com.example.trading.repository.DailyPnlRollupRepository;
+import com.example.trading.repository.OrderRepository;
+import com.example.trading.repository.PositionRepository;
+import com.example.trading.repository.TradeRepository;
+import com.example.trading.repository.WriteRetry;
+import com.example.trading.service.PortfolioStreamHub;
+import com.example.trading.service.PositionBook;
+import com.example.trading.service.TradeChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Closes open paper positions on behalf of the in-memory monitors, which decide on the tick
+ * path and must not wait on the database. Requests are collected into batches and a single
+ * writer thread closes each still-open position at the requested price moved against the holder
+ * by {@code trading.paper-trading.slippage}, records the closing MARKET {@link Order}, and books
+ * the realized PnL and released margin on the {@link PaperTradingAccount}. A position that was
+ * closed some other way in the meantime is skipped. Accounts and positions are versioned, so a
+ * batch that races another writer fails on commit and is retried from freshly read rows rather
+ * than booking PnL twice or overwriting the other write. Every committed close publishes an
+ * {@link OrderFill} and a {@link PositionChange}.
+ *
+ * <p>Open {@link Trade}s are closed on the same writer: the close price gets the same slippage,
+ * the row is closed with the same conditional update a user's close request uses, and the PnL is
+ * added to the daily rollup, so a trade closed by both is counted once. A close that cannot be
+ * written is published again as an open {@link PositionChange} or {@link TradeChange} if the row
+ * is still open, so the monitors that gave it up index it again.
+ */
+@Service
+public class PositionCloser {
+  public enum Reason { STOP_OUT, STOP_LOSS, TAKE_PROFIT }
+
+  private static final Logger log = LoggerFactory.getLogger(PositionCloser.class);
+
+  private final PositionRepository positionRepository;
+  private final OrderRepository orderRepository;
+  private final TradeRepository tradeRepository;
+  private final DailyPnlRollupRepository dailyPnlRepository;
+  private final PositionBook positionBook;
+  private final PortfolioStreamHub streamHub;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+  private final WriteRetry retry = new WriteRetry("position-close-writer");
+  private final long slippage;
+  private final int batchSize;
+
+  private final Object lock = new Object();
+  private List<Close> pending;
+  private final ThreadPoolExecutor writerPool;
+  private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "position-close-flusher");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private final Map<Reason, Counter> closed = new EnumMap<>(Reason.class);
+  private final Counter skipped;
+  private final Counter failed;
+
+  public PositionCloser(
+    PositionRepository positionRepository,
+    OrderRepository orderRepository,
+    TradeRepository tradeRepository,
+    DailyPnlRollupRepository dailyPnlRepository,
+    PositionBook positionBook,
+    PortfolioStreamHub streamHub,
+    ApplicationEventPublisher events,
+    PlatformTransactionManager transactionManager,
+    MeterRegistry meterRegistry,
+    @Value("${trading.paper-trading.slippage:0.001}") double slippage,
+    @Value("${trading.paper-trading.closing.batch-size:500}") int batchSize,
+    @Value("${trading.paper-trading.closing.flush-interval:PT0.2S}") Duration flushInterval
+  ) {
+    this.positionRepository = positionRepository;
+    this.orderRepository = orderRepository;
+    this.tradeRepository = tradeRepository;
+    this.dailyPnlRepository = dailyPnlRepository;
+    this.positionBook = positionBook;
+    this.streamHub = streamHub;
+    this.events = events;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.slippage = FixedPoint.fromBigDecimal(BigDecimal.valueOf(slippage));
+    this.batchSize = batchSize;
+    this.pending = new ArrayList<>(batchSize);
+    this.writerPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread t = new Thread(r, "position-close-writer");
+      t.setDaemon(true);
+      return t;
+    });
+    for (Reason reason : Reason.values()) {
+      closed.put(reason, Counter.builder("paper.positions.closed").tag("reason", reason.name()).register(meterRegistry));
+    }
+    this.skipped = Counter.builder("paper.positions.close-skipped").register(meterRegistry);
+    this.failed = Counter.builder("paper.positions.close-failed").register(meterRegistry);
+
+    long flushMillis = flushInterval.toMillis();
+    flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private record Close(long id, boolean trade, long price, Reason reason) {}
+
+  /** Queues a close of the position at {@code price}, a FixedPoint long, before slippage. */
+  public void close(long positionId, long price, Reason reason) {
+    enqueue(new Close(positionId, false, price, reason));
+  }
+
+  /** Queues a close of the trade at {@code price}, a FixedPoint long, before slippage. */
+  public void closeTrade(long tradeId, long price, Reason reason) {
+    enqueue(new Close(tradeId, true, price, reason));
+  }
+
+  private void enqueue(Close close) {
+    List<Close> full = null;
+    synchronized (lock) {
+      pending.add(close);
+      if (pending.size() >= batchSize) {
+        full = pending;
+        pending = new ArrayList<>(batchSize);
+      }
+    }
+    if (full != null) submit(full);
+  }
+
+  private void flush() {
+    List<Close> batch;
+    synchronized (lock) {
+      if (pending.isEmpty()) return;
+      batch = pending;
+      pending = new ArrayList<>(batchSize);
+    }
+    submit(batch);
+  }
+
+  private void submit(List<Close> batch) {
+    if (writerPool.isShutdown()) {
+      write(batch);
+    } else {
+      writerPool.execute(() -> write(batch));
+    }
+  }
+
+  private void write(List<Close> batch) {
+    AtomicReference<Recorded> result = new AtomicReference<>();
+    if (retry.run(batch.size(), () -> result.set(tx.execute(status -> record(batch))))) {
+      Recorded recorded = result.get();
+      if (recorded == null) return;
+      skipped.increment(recorded.skipped());
+      recorded.reasons().forEach(reason -> closed.get(reason).increment());
+      recorded.fills().forEach(events::publishEvent);
+      recorded.positions().forEach(events::publishEvent);
+      for (ClosedTrade closedTrade : recorded.trades()) {
+        Trade trade = closedTrade.trade();
+        if (closedTrade.subject() != null) {
+          positionBook.closed(closedTrade.subject(), trade);
+          streamHub.tradeChanged(closedTrade.subject());
+        }
+        events.publishEvent(TradeChange.of(trade));
+      }
+    } else if (batch.size() > 1 && !Thread.currentThread().isInterrupted()) {
+      for (Close c : batch) write(List.of(c));
+    } else {
+      failed.increment(batch.size());
+      reopen(batch);
+    }
+  }
+
+  /** Publishes the still-open rows of a batch that could not be closed, so they are indexed again. */
+  private void reopen(List<Close> batch) {
+    try {
+      List<Object> open = tx.execute(status -> {
+        List<Object> changes = new ArrayList<>(batch.size());
+        for (Close c : batch) {
+          if (c.trade()) {
+            tradeRepository.findById(c.id())
+              .filter(t -> t.getStatus() == Trade.TradeStatus.OPEN)
+              .ifPresent(t -> changes.add(TradeChange.of(t)));
+          } else {
+            positionRepository.findById(c.id())
+              .filter(p -> p.getStatus() == Position.PositionStatus.OPEN && p.getAccount() != null)
+              .ifPresent(p -> changes.add(PositionChange.of(p)));
+          }
+        }
+        return changes;
+      });
+      if (open != null) open.forEach(events::publishEvent);
+    } catch (RuntimeException e) {
+      log.error("Could not re-read {} rows whose close failed; they stay unprotected until restart", batch.size(), e);
+    }
+  }
+
+  private record ClosedTrade(UUID subject, Trade trade) {}
+
+  private record Recorded(List<OrderFill> fills, List<PositionChange> positions, List<ClosedTrade> trades,
+                          List<Reason> reasons, int skipped) {}
+
+  private Recorded record(List<Close> batch) {
+    Set<Long> positionIds = new LinkedHashSet<>();
+    Set<Long> tradeIds = new LinkedHashSet<>();
+    for (Close c : batch) (c.trade() ? tradeIds : positionIds).add(c.id());
+    Map<Long, Position> positions = new HashMap<>();
+    if (!positionIds.isEmpty()) {
+      for (Position p : positionRepository.findAllById(positionIds)) positions.put(p.getId(), p);
+    }
+    Map<Long, Trade> trades = new HashMap<>();
+    if (!tradeIds.isEmpty()) {
+      for (Trade t : tradeRepository.findAllById(tradeIds)) trades.put(t.getId(), t);
+    }
+
+    List<Order> orders = new ArrayList<>(batch.size());
+    List<Position> changed = new ArrayList<>(batch.size());
+    List<ClosedTrade> closedTrades = new ArrayList<>();
+    List<Reason> reasons = new ArrayList<>(batch.size());
+    int skippedCount = 0;
+    LocalDateTime now = LocalDateTime.now();
+    for (Close c : batch) {
+      if (c.trade()) {
+        ClosedTrade closedTrade = closeTrade(trades.get(c.id()), c.price(), now);
+        if (closedTrade == null) {
+          skippedCount++;
+        } else {
+          closedTrades.add(closedTrade);
+          reasons.add(c.reason());
+        }
+        continue;
+      }
+      Position position = positions.get(c.id());
+      PaperTradingAccount account = position != null ? position.getAccount() : null;
+      if (position == null || account == null || position.getStatus() != Position.PositionStatus.OPEN) {
+        skippedCount++;
+        continue;
+      }
+      // Closing a long sells, closing a short buys
+      boolean buy = position.isShort();
+      BigDecimal price = FixedPoint.toBigDecimal(
+        FixedPoint.multiply(c.price(), buy ? FixedPoint.ONE + slippage : FixedPoint.ONE - slippage));
+      Order order = new Order();
+      order.setSymbol(position.getSymbol());
+      order.setType(Order.OrderType.MARKET);
+      order.setSide(buy ? Order.OrderSide.BUY : Order.OrderSide.SELL);
+      order.setVolume(position.getVolume());
+      order.setPrice(price);
+      order.setAccount(account);
+      order.setUser(position.getUser());
+      order.fill(position.getVolume(), price);
+      orders.add(order);
+
+      position.close(price);
+      BigDecimal pnl = position.getRealizedPnL();
+      account.setBalance(account.getBalance().add(pnl));
+      account.setEquity(account.getEquity().add(pnl));
+      account.updateMargin(account.getMargin().subtract(position.getMargin()).max(BigDecimal.ZERO));
+      changed.add(position);
+      reasons.add(c.reason());
+    }
+    orderRepository.saveAll(orders);
+
+    Instant filledAt = Instant.now();
+    List<OrderFill> fills = new ArrayList<>(orders.size());
+    for (Order order : orders) {
+      fills.add(new OrderFill(order.getId(), order.getAccount().getId(), order.getSymbol(), order.getSide(),
+        order.getFilledVolume(), order.getFilledPrice(), order.getStatus(), filledAt));
+    }
+    List<PositionChange> changes = new ArrayList<>(changed.size());
+    for (Position position : changed) changes.add(PositionChange.of(position));
+    return new Recorded(fills, changes, closedTrades, reasons, skippedCount);
+  }
+
+  /**
+   * Closes the trade at {@code price} moved against the holder and adds its PnL to the daily
+   * rollup. Returns null when the trade is gone or no longer open. The managed row is left
+   * untouched and the close goes through the conditional update, so it cannot overwrite a close
+   * that committed in between.
+   */
+  private ClosedTrade closeTrade(Trade open, long price, LocalDateTime now) {
+    User user = open != null ? open.getUser() : null;
+    if (user == null || open.getStatus() != Trade.TradeStatus.OPEN) return null;
+    // Closing a BUY sells, closing a SELL buys
+    boolean buy = open.getSide() == Trade.TradeSide.SELL;
+    Trade t = new Trade();
+    t.setId(open.getId());
+    t.setUser(user);
+    t.setSymbol(open.getSymbol());
+    t.setSide(open.getSide());
+    t.setVolume(open.getVolume());
+    t.setOpenPrice(open.getOpenPrice());
+    t.setOpenTime(open.getOpenTime());
+    t.setCommission(open.getCommission());
+    t.setSlippage(open.getSlippage());
+    t.setStopLoss(open.getStopLoss());
+    t.setTakeProfit(open.getTakeProfit());
+    t.setClosePrice(FixedPoint.toBigDecimal(
+      FixedPoint.multiply(price, buy ? FixedPoint.ONE + slippage : FixedPoint.ONE - slippage)));
+    t.setCloseTime(now);
+    t.setDurationMinutes(Duration.between(t.getOpenTime(), now).toMinutes());
+    t.calculatePnL();
+    t.setStatus(Trade.TradeStatus.CLOSED);
+    if (tradeRepository.closeIfOpen(t.getId(), t.getClosePrice(), t.getCloseTime(), t.getDurationMinutes(),
+      t.getPnl(), t.getPnlPercent()) != 1) {
+      return null;
+    }
+    UUID subject = user.getAuthSubject();
+    if (subject != null) {
+      LocalDate day = now.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+      dailyPnlRepository.addClosedTrade(subject, day, t.getPnl());
+    }
+    return new ClosedTrade(subject, t);
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    flusher.shutdownNow();
+    flush();
+    writerPool.shutdown();
+    writerPool.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
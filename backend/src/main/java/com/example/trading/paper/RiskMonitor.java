@@ -0,0 +1,330 @@
+package com.example.trading.paper;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.PaperTradingAccount;
+import com.example.trading.domain.Position;
+import com.example.trading.market.PriceTick;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.repository.OpenPosition;
+import com.example.trading.repository.PaperTradingAccountRepository;
+import com.example.trading.repository.PositionRepository;
+import com.example.trading.repository.WriteRetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tick-driven margin monitor for paper accounts. Every account with open positions is held in
+ * memory as an {@link AccountExposure}, netted per symbol, and indexed by the symbols it holds;
+ * a price tick re-marks only the accounts holding that symbol, each in O(1), and repositions
+ * them in a {@link LevelQueue} ordered by margin level. Accounts at or below
+ * {@code margin-call-level} get a {@link MarginCall}; while the lowest account is at or below
+ * {@code stop-out-level}, its worst-losing position is closed through {@link PositionCloser}
+ * until it recovers or runs out of positions. No step scans every account.
+ *
+ * <p>All state is confined to one monitor thread, fed by ticks and by {@link PositionChange}s
+ * from the components that open and close positions. Changed accounts' unrealized PnL is written
+ * back in batches every {@code persist-interval} as equity over the account's committed balance,
+ * with free margin and margin level recomputed against its committed margin, so
+ * {@code marginLevel} queries see recent values. Balance and margin are only ever written by the
+ * components that open and close positions; a snapshot taken before one of those commits can't
+ * roll them back.
+ */
+@Service
+public class RiskMonitor {
+  private final PositionRepository positionRepository;
+  private final PaperTradingAccountRepository accountRepository;
+  private final PositionCloser closer;
+  private final PriceTickPublisher tickPublisher;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+  private final WriteRetry retry = new WriteRetry("risk-writer");
+  private final long marginCallLevel;
+  private final long stopOutLevel;
+  private final int loadPageSize;
+
+  // Monitor-thread state
+  private final Map<Long, AccountExposure> accounts = new HashMap<>();
+  private final Map<String, Set<AccountExposure>> holders = new HashMap<>();
+  private final Map<String, Long> lastPrices = new HashMap<>();
+  private final LevelQueue queue = new LevelQueue();
+  private Map<Long, AccountExposure> dirty = new LinkedHashMap<>();
+
+  private volatile int monitored;
+  private volatile double lowestLevel = Double.NaN;
+  private final ThreadPoolExecutor monitor;
+  private final ThreadPoolExecutor writerPool;
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "risk-scheduler");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private final Counter marginCalls;
+  private final Counter stopOuts;
+  private final Counter failed;
+
+  public RiskMonitor(
+    PositionRepository positionRepository,
+    PaperTradingAccountRepository accountRepository,
+    PositionCloser closer,
+    PriceTickPublisher tickPublisher,
+    ApplicationEventPublisher events,
+    PlatformTransactionManager transactionManager,
+    MeterRegistry meterRegistry,
+    @Value("${trading.paper-trading.risk.margin-call-level:100}") BigDecimal marginCallLevel,
+    @Value("${trading.paper-trading.risk.stop-out-level:50}") BigDecimal stopOutLevel,
+    @Value("${trading.paper-trading.risk.persist-interval:PT5S}") Duration persistInterval,
+    @Value("${trading.paper-trading.risk.load-page-size:10000}") int loadPageSize
+  ) {
+    this.positionRepository = positionRepository;
+    this.accountRepository = accountRepository;
+    this.closer = closer;
+    this.tickPublisher = tickPublisher;
+    this.events = events;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.marginCallLevel = FixedPoint.fromBigDecimal(marginCallLevel);
+    this.stopOutLevel = FixedPoint.fromBigDecimal(stopOutLevel);
+    this.loadPageSize = loadPageSize;
+    this.monitor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread t = new Thread(r, "risk-monitor");
+      t.setDaemon(true);
+      return t;
+    });
+    this.writerPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread t = new Thread(r, "risk-writer");
+      t.setDaemon(true);
+      return t;
+    });
+    this.marginCalls = Counter.builder("paper.risk.margin-calls").register(meterRegistry);
+    this.stopOuts = Counter.builder("paper.risk.stop-outs").register(meterRegistry);
+    this.failed = Counter.builder("paper.risk.persist-failed").register(meterRegistry);
+    Gauge.builder("paper.risk.accounts", this, m -> m.monitored).register(meterRegistry);
+    Gauge.builder("paper.risk.lowest-margin-level", this, m -> m.lowestLevel).register(meterRegistry);
+
+    long persistMillis = persistInterval.toMillis();
+    scheduler.scheduleWithFixedDelay(() -> monitor.execute(this::persist), persistMillis, persistMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private record Snapshot(long accountId, long unrealized) {}
+
+  /** Loads every open position in keyset pages, with the balances of the accounts holding them. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    Set<Long> known = new LinkedHashSet<>();
+    long after = 0;
+    while (true) {
+      List<OpenPosition> page = positionRepository.findOpenAfter(after, PageRequest.ofSize(loadPageSize));
+      Set<Long> accountIds = new LinkedHashSet<>();
+      for (OpenPosition p : page) {
+        if (known.add(p.getAccountId())) accountIds.add(p.getAccountId());
+      }
+      Map<Long, Long> balances = new HashMap<>();
+      for (PaperTradingAccount a : accountRepository.findAllById(accountIds)) {
+        balances.put(a.getId(), FixedPoint.fromBigDecimal(a.getBalance()));
+      }
+      monitor.execute(() -> {
+        for (OpenPosition p : page) {
+          AccountExposure account = account(p.getAccountId());
+          Long balance = balances.get(p.getAccountId());
+          if (balance != null) account.setBalance(balance);
+          add(account, p.getId(), p.getSymbol(), p.getSide(), p.getVolume(), p.getOpenPrice(), p.getMargin());
+        }
+        enforce();
+      });
+      if (page.size() < loadPageSize) return;
+      after = page.get(page.size() - 1).getId();
+    }
+  }
+
+  @EventListener
+  public void onPositionChange(PositionChange change) {
+    monitor.execute(() -> apply(change));
+  }
+
+  @EventListener
+  public void onPriceTick(PriceTick tick) {
+    String symbol = tick.symbol();
+    long price = FixedPoint.fromBigDecimal(tick.price());
+    monitor.execute(() -> onPrice(symbol, price));
+  }
+
+  public int monitoredCount() {
+    return monitored;
+  }
+
+  private void apply(PositionChange c) {
+    AccountExposure account = c.open() ? account(c.accountId()) : accounts.get(c.accountId());
+    if (account == null) return;
+    if (c.open()) {
+      // Set first: judged on a zero balance, a new account's first position would read as a margin call
+      if (c.balance() != null) account.setBalance(FixedPoint.fromBigDecimal(c.balance()));
+      if (!account.holds(c.positionId())) {
+        add(account, c.positionId(), c.symbol(), c.side(), c.volume(), c.openPrice(), c.margin());
+      }
+    } else if (account.holds(c.positionId())) {
+      account.remove(c.positionId());
+      release(account, c.symbol());
+    }
+    // The committed balance replaces any estimate booked when the monitor closed a position
+    if (c.balance() != null) account.setBalance(FixedPoint.fromBigDecimal(c.balance()));
+    touched(account);
+    enforce();
+  }
+
+  private void onPrice(String symbol, long price) {
+    if (price <= 0) return;
+    lastPrices.put(symbol, price);
+    Set<AccountExposure> holding = holders.get(symbol);
+    if (holding == null) return;
+    for (AccountExposure account : holding) {
+      account.mark(symbol, price);
+      touched(account);
+    }
+    enforce();
+  }
+
+  private AccountExposure account(long accountId) {
+    return accounts.computeIfAbsent(accountId, id -> {
+      monitored++;
+      return new AccountExposure(id);
+    });
+  }
+
+  private void add(AccountExposure account, long positionId, String symbol, Position.PositionSide side,
+                   BigDecimal volume, BigDecimal openPrice, BigDecimal margin) {
+    account.add(new AccountExposure.Held(
+      positionId,
+      symbol,
+      side == Position.PositionSide.SHORT ? -1 : 1,
+      FixedPoint.fromBigDecimal(volume),
+      FixedPoint.fromBigDecimal(openPrice),
+      FixedPoint.fromBigDecimal(margin)
+    ), lastPrices.getOrDefault(symbol, 0L));
+    if (holders.computeIfAbsent(symbol, s -> new LinkedHashSet<>()).add(account) && holders.get(symbol).size() == 1) {
+      tickPublisher.watch(symbol);
+    }
+    touched(account);
+  }
+
+  /** Drops the account from {@code symbol}'s holders, and from memory, once it no longer holds it. */
+  private void release(AccountExposure account, String symbol) {
+    if (!account.holdsSymbol(symbol)) {
+      Set<AccountExposure> holding = holders.get(symbol);
+      if (holding != null && holding.remove(account) && holding.isEmpty()) {
+        holders.remove(symbol);
+        tickPublisher.unwatch(symbol);
+      }
+    }
+    if (account.isEmpty()) {
+      queue.remove(account);
+      if (accounts.remove(account.accountId) != null) monitored--;
+    }
+  }
+
+  /** Requeues a changed account and raises or clears its margin call. */
+  private void touched(AccountExposure account) {
+    queue.update(account);
+    dirty.put(account.accountId, account);
+    boolean below = account.level() <= marginCallLevel;
+    if (below && !account.marginCalled) {
+      marginCalls.increment();
+      events.publishEvent(marginCall(account, false));
+    }
+    account.marginCalled = below;
+  }
+
+  /** Stops out accounts from the lowest margin level up until the lowest is above the stop-out level. */
+  private void enforce() {
+    AccountExposure lowest;
+    while ((lowest = queue.peek()) != null && lowest.level() <= stopOutLevel) {
+      AccountExposure account = lowest;
+      events.publishEvent(marginCall(account, true));
+      while (account.level() <= stopOutLevel && !account.isEmpty()) {
+        AccountExposure.Held worst = account.worst();
+        long price = account.last(worst.symbol());
+        account.remove(worst.positionId());
+        closer.close(worst.positionId(), price, PositionCloser.Reason.STOP_OUT);
+        stopOuts.increment();
+        release(account, worst.symbol());
+      }
+      if (!account.isEmpty()) touched(account);
+    }
+    lowestLevel = lowest != null ? FixedPoint.toBigDecimal(lowest.level()).doubleValue() : Double.NaN;
+  }
+
+  private static MarginCall marginCall(AccountExposure account, boolean stopOut) {
+    return new MarginCall(account.accountId, FixedPoint.toBigDecimal(account.equity()),
+      FixedPoint.toBigDecimal(account.margin()), FixedPoint.toBigDecimal(account.level(), 2), stopOut);
+  }
+
+  /** Monitor thread: hands the accounts changed since the last run to the writer. */
+  private void persist() {
+    if (dirty.isEmpty()) return;
+    List<Snapshot> batch = new ArrayList<>(dirty.size());
+    for (AccountExposure a : dirty.values()) batch.add(new Snapshot(a.accountId, a.unrealized()));
+    dirty = new LinkedHashMap<>();
+    if (writerPool.isShutdown()) {
+      write(batch);
+    } else {
+      writerPool.execute(() -> write(batch));
+    }
+  }
+
+  private void write(List<Snapshot> batch) {
+    boolean written = retry.run(batch.size(), () -> tx.executeWithoutResult(status -> {
+      Map<Long, Snapshot> byId = new HashMap<>();
+      for (Snapshot s : batch) byId.put(s.accountId(), s);
+      for (PaperTradingAccount account : accountRepository.findAllById(byId.keySet())) {
+        long balance = FixedPoint.fromBigDecimal(account.getBalance());
+        account.updateEquity(FixedPoint.toBigDecimal(FixedPoint.add(balance, byId.get(account.getId()).unrealized())));
+      }
+    }));
+    if (written) return;
+    failed.increment(batch.size());
+    // Marked dirty again, so the next persist retries them with current values
+    if (!monitor.isShutdown()) monitor.execute(() -> requeue(batch));
+  }
+
+  /** Monitor thread. */
+  private void requeue(List<Snapshot> batch) {
+    for (Snapshot s : batch) {
+      // An account no longer held in memory has no open positions, so nothing unrealized
+      AccountExposure account = accounts.get(s.accountId());
+      dirty.putIfAbsent(s.accountId(), account != null ? account : new AccountExposure(s.accountId()));
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    scheduler.shutdownNow();
+    monitor.execute(this::persist);
+    monitor.shutdown();
+    monitor.awaitTermination(5, TimeUnit.SECONDS);
+    writerPool.shutdown();
+    writerPool.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,500 @@
+package com.example.trading.paper;
+
+import com.example.trading.backtest.BarSignal;
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.Order;
+import com.example.trading.domain.PaperTradingAccount;
+import com.example.trading.domain.PaperTradingExecution;
+import com.example.trading.domain.PaperTradingExecution.ExecutionSignal;
+import com.example.trading.domain.PaperTradingExecution.ExecutionStatus;
+import com.example.trading.domain.Position;
+import com.example.trading.domain.Strategy;
+import com.example.trading.domain.Strategy.StrategyStatus;
+import com.example.trading.market.Candle;
+import com.example.trading.market.CandleStore;
+import com.example.trading.pine.PineCompileException;
+import com.example.trading.pine.PinePlanCache;
+import com.example.trading.repository.PaperTradingAccountRepository;
+import com.example.trading.repository.PaperTradingExecutionRepository;
+import com.example.trading.repository.PositionRepository;
+import com.example.trading.repository.StrategyRepository;
+import com.example.trading.repository.UserRepository;
+import com.example.trading.repository.WriteRetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs every ACTIVE strategy that has a live symbol, timeframe and paper account. Each strategy
+ * gets its own instance of its compiled {@link com.example.trading.pine.PinePlan}, warmed up on
+ * the recent bars in {@link CandleStore}, and is then stepped once per closed bar of its series.
+ * Strategies are pinned to one of {@code workers} partition threads by id, so a strategy's
+ * script state is only ever touched by one thread and needs no locking; a closed bar costs one
+ * task per partition that has strategies on the series.
+ *
+ * <p>When a strategy's desired position changes, the runner emits the executions that get it
+ * there (an exit, an entry, or both for a reversal). They are collected into batches and a single
+ * writer thread records each as an executed {@link PaperTradingExecution} with a filled MARKET
+ * {@link Order} at the bar close moved against the trader by {@code trading.paper-trading.slippage},
+ * opens or closes the strategy's {@link Position}, and books margin and realized PnL on the
+ * {@link PaperTradingAccount}. Executions against an inactive account, entries whose margin the
+ * account's free margin does not cover, and exits with no open position to close are recorded as
+ * FAILED. Transient write failures are retried and a batch that still fails is split, so one bad
+ * execution doesn't take the rest with it. An {@link OrderFill} is published for every
+ * committed fill and a {@link PositionChange} for every position opened or closed. Code that
+ * activates, edits or pauses strategies calls {@link #register} / {@link #unregister} to keep
+ * the runner current.
+ */
+@Service
+public class StrategyRunner {
+  private final StrategyRepository strategyRepository;
+  private final PaperTradingExecutionRepository executionRepository;
+  private final PositionRepository positionRepository;
+  private final PaperTradingAccountRepository accountRepository;
+  private final UserRepository userRepository;
+  private final PinePlanCache planCache;
+  private final CandleStore candleStore;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+  private final WriteRetry retry = new WriteRetry("strategy-writer");
+  private final long slippage;
+  private final long leverage;
+  private final int warmupBars;
+  private final int batchSize;
+  private final int loadPageSize;
+
+  private final ThreadPoolExecutor[] partitions;
+  private final Map<SeriesKey, Subscribers> series = new ConcurrentHashMap<>();
+  private final Map<Long, LiveStrategy> running = new ConcurrentHashMap<>();
+  private final Object lock = new Object();
+  private List<Intent> pending;
+  private final ThreadPoolExecutor writerPool;
+  private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "strategy-flusher");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private final Counter signals;
+  private final Counter rejected;
+  private final Counter lagged;
+  private final Counter executed;
+  private final Counter refused;
+  private final Counter failed;
+
+  public StrategyRunner(
+    StrategyRepository strategyRepository,
+    PaperTradingExecutionRepository executionRepository,
+    PositionRepository positionRepository,
+    PaperTradingAccountRepository accountRepository,
+    UserRepository userRepository,
+    PinePlanCache planCache,
+    CandleStore candleStore,
+    ApplicationEventPublisher events,
+    PlatformTransactionManager transactionManager,
+    MeterRegistry meterRegistry,
+    @Value("${trading.paper-trading.slippage:0.001}") double slippage,
+    @Value("${trading.paper-trading.max-leverage:100}") int maxLeverage,
+    @Value("${trading.paper-trading.runner.workers:0}") int workers,
+    @Value("${trading.paper-trading.runner.warmup-bars:500}") int warmupBars,
+    @Value("${trading.paper-trading.runner.batch-size:500}") int batchSize,
+    @Value("${trading.paper-trading.runner.flush-interval:PT1S}") Duration flushInterval,
+    @Value("${trading.paper-trading.runner.load-page-size:1000}") int loadPageSize
+  ) {
+    this.strategyRepository = strategyRepository;
+    this.executionRepository = executionRepository;
+    this.positionRepository = positionRepository;
+    this.accountRepository = accountRepository;
+    this.userRepository = userRepository;
+    this.planCache = planCache;
+    this.candleStore = candleStore;
+    this.events = events;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.slippage = FixedPoint.fromBigDecimal(BigDecimal.valueOf(slippage));
+    this.leverage = FixedPoint.of(Math.max(1, maxLeverage));
+    this.warmupBars = Math.min(warmupBars, LiveSeries.MAX_LAG);
+    this.batchSize = batchSize;
+    this.loadPageSize = loadPageSize;
+    this.pending = new ArrayList<>(batchSize);
+
+    int n = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    this.partitions = new ThreadPoolExecutor[n];
+    for (int i = 0; i < n; i++) {
+      String name = "strategy-runner-" + i;
+      partitions[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+      });
+    }
+    this.writerPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread t = new Thread(r, "strategy-writer");
+      t.setDaemon(true);
+      return t;
+    });
+    this.signals = Counter.builder("paper.strategies.signals").register(meterRegistry);
+    this.rejected = Counter.builder("paper.strategies.rejected").register(meterRegistry);
+    this.lagged = Counter.builder("paper.strategies.lagged-bars").register(meterRegistry);
+    this.executed = Counter.builder("paper.strategies.executions").tag("result", "executed").register(meterRegistry);
+    this.refused = Counter.builder("paper.strategies.executions").tag("result", "refused").register(meterRegistry);
+    this.failed = Counter.builder("paper.strategies.executions").tag("result", "failed").register(meterRegistry);
+    Gauge.builder("paper.strategies.running", running, Map::size).register(meterRegistry);
+
+    long flushMillis = flushInterval.toMillis();
+    flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private record SeriesKey(String symbol, String timeframe) {}
+
+  /** A series' bars plus the strategies reading it, grouped by partition. */
+  private record Subscribers(LiveSeries series, List<List<LiveStrategy>> byPartition) {}
+
+  /** Configuration is immutable; the rest is owned by the strategy's partition thread. */
+  private static final class LiveStrategy {
+    final long strategyId;
+    final long accountId;
+    final long userId;
+    final long volume;
+    final int partition;
+    final LiveSeries series;
+    final BarSignal signal;
+    volatile boolean stopped;
+    boolean started;
+    int lastIndex = -1;
+    int held;
+
+    LiveStrategy(long strategyId, long accountId, long userId, long volume, int partition, LiveSeries series, BarSignal signal) {
+      this.strategyId = strategyId;
+      this.accountId = accountId;
+      this.userId = userId;
+      this.volume = volume;
+      this.partition = partition;
+      this.series = series;
+      this.signal = signal;
+    }
+  }
+
+  private record Intent(LiveStrategy strategy, ExecutionSignal signal, long price, long barTime) {}
+
+  /** Starts every live strategy, loading them in keyset pages. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    long after = 0;
+    while (true) {
+      List<Strategy> page = strategyRepository.findLiveAfter(after, PageRequest.ofSize(loadPageSize));
+      for (Strategy strategy : page) register(strategy);
+      if (page.size() < loadPageSize) return;
+      after = page.get(page.size() - 1).getId();
+    }
+  }
+
+  /**
+   * Starts or restarts the strategy from its current script and live settings. Returns false,
+   * stopping it instead, unless it is ACTIVE, fully configured and its script compiles.
+   */
+  public boolean register(Strategy strategy) {
+    unregister(strategy.getId());
+    if (strategy.getStatus() != StrategyStatus.ACTIVE || strategy.getLiveSymbol() == null
+      || strategy.getLiveTimeframe() == null || strategy.getLiveAccount() == null || strategy.getUser() == null) {
+      return false;
+    }
+    BarSignal signal;
+    try {
+      signal = planCache.plan(strategy).instantiate(null);
+    } catch (PineCompileException e) {
+      rejected.increment();
+      return false;
+    }
+    BigDecimal volume = strategy.getLiveVolume();
+    Subscribers subs = series.computeIfAbsent(new SeriesKey(strategy.getLiveSymbol(), strategy.getLiveTimeframe()), this::subscribe);
+    LiveStrategy live = new LiveStrategy(
+      strategy.getId(),
+      strategy.getLiveAccount().getId(),
+      strategy.getUser().getId(),
+      volume != null && volume.signum() > 0 ? FixedPoint.fromBigDecimal(volume) : FixedPoint.ONE,
+      Math.floorMod(Long.hashCode(strategy.getId()), partitions.length),
+      subs.series(),
+      signal
+    );
+    running.put(live.strategyId, live);
+    // Added before warm-up is queued: a bar dispatched in between is skipped until started
+    // and then covered by the warm-up, which runs after it on the same thread
+    subs.byPartition().get(live.partition).add(live);
+    partitions[live.partition].execute(() -> start(live));
+    return true;
+  }
+
+  public void unregister(Long strategyId) {
+    // Stopped or deleted; a later start recompiles from the current source
+    planCache.invalidate(strategyId);
+    LiveStrategy live = running.remove(strategyId);
+    if (live == null) return;
+    live.stopped = true;
+    Subscribers subs = series.get(new SeriesKey(live.series.symbol(), live.series.timeframe()));
+    if (subs != null) subs.byPartition().get(live.partition).remove(live);
+  }
+
+  public int runningCount() {
+    return running.size();
+  }
+
+  private Subscribers subscribe(SeriesKey key) {
+    LiveSeries bars = new LiveSeries(key.symbol(), key.timeframe());
+    List<Candle> recent = candleStore.window(key.symbol(), key.timeframe(), null, warmupBars);
+    if (recent != null) recent.forEach(bars::append);
+    List<List<LiveStrategy>> byPartition = new ArrayList<>(partitions.length);
+    for (int i = 0; i < partitions.length; i++) byPartition.add(new CopyOnWriteArrayList<>());
+    return new Subscribers(bars, byPartition);
+  }
+
+  /** Steps the strategies on the bar's series, one task per partition that has any. */
+  @EventListener
+  public void onBar(Candle candle) {
+    Subscribers subs = series.get(new SeriesKey(candle.symbol(), candle.timeframe()));
+    if (subs == null) return;
+    int index = subs.series().append(candle);
+    if (index < 0) return;
+    for (int p = 0; p < partitions.length; p++) {
+      List<LiveStrategy> group = subs.byPartition().get(p);
+      if (group.isEmpty()) continue;
+      partitions[p].execute(() -> {
+        for (LiveStrategy live : group) step(live, index);
+      });
+    }
+  }
+
+  /** Partition thread: restores the held position and replays recent bars into the script. */
+  private void start(LiveStrategy live) {
+    if (live.stopped) return;
+    try {
+      live.held = executionRepository
+        .findFirstByStrategyIdAndStatusOrderByIdDesc(live.strategyId, ExecutionStatus.EXECUTED)
+        .map(e -> positionAfter(e.getSignal()))
+        .orElse(0);
+      int end = live.series.size();
+      for (int i = Math.max(0, end - warmupBars); i < end; i++) live.signal.onBar(live.series, i);
+      live.lastIndex = end - 1;
+      live.started = true;
+    } catch (RuntimeException e) {
+      rejected.increment();
+      unregister(live.strategyId);
+    }
+  }
+
+  /** Partition thread: evaluates every bar up to {@code index} and emits any position change. */
+  private void step(LiveStrategy live, int index) {
+    if (!live.started || live.stopped || index <= live.lastIndex) return;
+    int target = live.held;
+    try {
+      for (int i = live.lastIndex + 1; i <= index; i++) {
+        if (live.series.readable(i)) {
+          target = Integer.signum(live.signal.onBar(live.series, i));
+        } else {
+          lagged.increment();
+        }
+      }
+    } catch (RuntimeException e) {
+      rejected.increment();
+      unregister(live.strategyId);
+      return;
+    }
+    live.lastIndex = index;
+    if (target == live.held) return;
+    long close = live.series.close(index);
+    long time = live.series.time(index);
+    if (live.held != 0) enqueue(new Intent(live, live.held > 0 ? ExecutionSignal.EXIT_LONG : ExecutionSignal.EXIT_SHORT, close, time));
+    if (target != 0) enqueue(new Intent(live, target > 0 ? ExecutionSignal.BUY_LONG : ExecutionSignal.SELL_SHORT, close, time));
+    live.held = target;
+  }
+
+  private static int positionAfter(ExecutionSignal signal) {
+    return switch (signal) {
+      case BUY, BUY_LONG -> 1;
+      case SELL, SELL_SHORT -> -1;
+      default -> 0;
+    };
+  }
+
+  private void enqueue(Intent intent) {
+    signals.increment();
+    List<Intent> full = null;
+    synchronized (lock) {
+      pending.add(intent);
+      if (pending.size() >= batchSize) {
+        full = pending;
+        pending = new ArrayList<>(batchSize);
+      }
+    }
+    if (full != null) submit(full);
+  }
+
+  private void flush() {
+    List<Intent> batch;
+    synchronized (lock) {
+      if (pending.isEmpty()) return;
+      batch = pending;
+      pending = new ArrayList<>(batchSize);
+    }
+    submit(batch);
+  }
+
+  private void submit(List<Intent> batch) {
+    if (writerPool.isShutdown()) {
+      write(batch);
+    } else {
+      writerPool.execute(() -> write(batch));
+    }
+  }
+
+  private void write(List<Intent> batch) {
+    AtomicReference<Recorded> result = new AtomicReference<>();
+    if (retry.run(batch.size(), () -> result.set(tx.execute(status -> record(batch))))) {
+      Recorded recorded = result.get();
+      if (recorded == null) return;
+      executed.increment(recorded.fills().size());
+      refused.increment(recorded.refused());
+      recorded.fills().forEach(events::publishEvent);
+      recorded.positions().forEach(events::publishEvent);
+    } else if (batch.size() > 1 && !Thread.currentThread().isInterrupted()) {
+      for (Intent intent : batch) write(List.of(intent));
+    } else {
+      failed.increment(batch.size());
+    }
+  }
+
+  private record Recorded(List<OrderFill> fills, List<PositionChange> positions, int refused) {}
+
+  private Recorded record(List<Intent> batch) {
+    Set<Long> accountIds = new LinkedHashSet<>();
+    Set<Long> strategyIds = new LinkedHashSet<>();
+    for (Intent intent : batch) {
+      accountIds.add(intent.strategy().accountId);
+      strategyIds.add(intent.strategy().strategyId);
+    }
+    Map<Long, PaperTradingAccount> accounts = new HashMap<>();
+    for (PaperTradingAccount a : accountRepository.findAllById(accountIds)) accounts.put(a.getId(), a);
+    Map<Long, Position> open = new HashMap<>();
+    for (Position p : positionRepository.findOpenByStrategyIdIn(strategyIds)) {
+      open.put(p.getOrder().getExecution().getStrategy().getId(), p);
+    }
+
+    List<PaperTradingExecution> executions = new ArrayList<>(batch.size());
+    List<Order> orders = new ArrayList<>(batch.size());
+    List<Position> changed = new ArrayList<>(batch.size());
+    int refusedCount = 0;
+    for (Intent intent : batch) {
+      LiveStrategy live = intent.strategy();
+      PaperTradingAccount account = accounts.get(live.accountId);
+      boolean entry = intent.signal() == ExecutionSignal.BUY_LONG || intent.signal() == ExecutionSignal.SELL_SHORT;
+      Position position = entry ? null : open.remove(live.strategyId);
+
+      PaperTradingExecution execution = new PaperTradingExecution();
+      execution.setSymbol(live.series.symbol());
+      execution.setTimeframe(live.series.timeframe());
+      execution.setSignal(intent.signal());
+      execution.setPrice(FixedPoint.toBigDecimal(intent.price()));
+      execution.setVolume(FixedPoint.toBigDecimal(live.volume));
+      execution.setStrategy(strategyRepository.getReferenceById(live.strategyId));
+      execution.setUser(userRepository.getReferenceById(live.userId));
+      execution.setAccount(account);
+      executions.add(execution);
+      boolean buy = intent.signal() == ExecutionSignal.BUY_LONG || intent.signal() == ExecutionSignal.EXIT_SHORT;
+      long fill = FixedPoint.multiply(intent.price(), buy ? FixedPoint.ONE + slippage : FixedPoint.ONE - slippage);
+      BigDecimal margin = entry ? FixedPoint.toBigDecimal(FixedPoint.divide(FixedPoint.multiply(fill, live.volume), leverage)) : null;
+      if (account == null || account.getStatus() != PaperTradingAccount.AccountStatus.ACTIVE
+        || (entry ? !account.hasFreeMargin(margin) : position == null)) {
+        execution.setStatus(ExecutionStatus.FAILED);
+        refusedCount++;
+        continue;
+      }
+
+      BigDecimal fillPrice = FixedPoint.toBigDecimal(fill);
+      BigDecimal volume = execution.getVolume();
+      Order order = new Order();
+      order.setSymbol(execution.getSymbol());
+      order.setType(Order.OrderType.MARKET);
+      order.setSide(buy ? Order.OrderSide.BUY : Order.OrderSide.SELL);
+      order.setVolume(volume);
+      order.setPrice(fillPrice);
+      order.setAccount(account);
+      order.setUser(execution.getUser());
+      order.setExecution(execution);
+      order.fill(volume, fillPrice);
+      execution.setOrder(order);
+      execution.execute();
+      orders.add(order);
+
+      if (entry) {
+        Position opened = new Position();
+        opened.setSymbol(execution.getSymbol());
+        opened.setSide(buy ? Position.PositionSide.LONG : Position.PositionSide.SHORT);
+        opened.setVolume(volume);
+        opened.setOpenPrice(fillPrice);
+        opened.setCurrentPrice(fillPrice);
+        opened.setMargin(margin);
+        opened.setAccount(account);
+        opened.setUser(execution.getUser());
+        opened.setOrder(order);
+        order.setPosition(opened);
+        // A reversal later in this batch closes it
+        open.put(live.strategyId, opened);
+        changed.add(opened);
+        account.updateMargin(account.getMargin().add(opened.getMargin()));
+      } else {
+        position.close(fillPrice);
+        changed.add(position);
+        BigDecimal pnl = position.getRealizedPnL();
+        account.setBalance(account.getBalance().add(pnl));
+        account.setEquity(account.getEquity().add(pnl));
+        account.updateMargin(account.getMargin().subtract(position.getMargin()));
+      }
+    }
+    // Orders and new positions cascade from their execution; ids are assigned on insert
+    executionRepository.saveAll(executions);
+
+    List<OrderFill> fills = new ArrayList<>(orders.size());
+    for (Order order : orders) {
+      fills.add(new OrderFill(order.getId(), order.getAccount().getId(), order.getSymbol(), order.getSide(),
+        order.getFilledVolume(), order.getFilledPrice(), order.getStatus(), Instant.now()));
+    }
+    List<PositionChange> positions = new ArrayList<>(changed.size());
+    for (Position position : changed) positions.add(PositionChange.of(position));
+    return new Recorded(fills, positions, refusedCount);
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    flusher.shutdownNow();
+    for (ThreadPoolExecutor partition : partitions) partition.shutdown();
+    for (ThreadPoolExecutor partition : partitions) partition.awaitTermination(5, TimeUnit.SECONDS);
+    flush();
+    writerPool.shutdown();
+    writerPool.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
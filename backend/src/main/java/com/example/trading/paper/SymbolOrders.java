@@ -0,0 +1,151 @@
+package com.example.trading.paper;
+
+import com.example.trading.alert.ThresholdHeap;
+import com.example.trading.domain.FixedPoint;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resting LIMIT and STOP orders for one symbol, keyed by trigger price. Orders that fill once
+ * the price rises to their trigger (sell limits, buy stops) sit in one heap and orders that fill
+ * once it falls to it (buy limits, sell stops) in the other, so a tick that crosses nothing
+ * costs two heap peeks and one that crosses k orders pops exactly those k. Order state lives
+ * in parallel primitive arrays indexed by slot; heap entries refer to
+ * {@code generation << 32 | slot} and are dropped lazily once the order is cancelled.
+ */
+final class SymbolOrders {
+  private static final byte BUY = 1;
+  private static final byte LIMIT = 2;
+
+  @FunctionalInterface
+  interface FillSink {
+    void filled(long orderId, boolean buy, long volume, long price, long epochMillis);
+  }
+
+  private final long slippage;
+  private final ThresholdHeap rising = new ThresholdHeap(true);
+  private final ThresholdHeap falling = new ThresholdHeap(false);
+  private final Map<Long, Integer> slotsById = new HashMap<>();
+  private long[] orderIds = new long[16];
+  private long[] triggers = new long[16];
+  private long[] volumes = new long[16];
+  private long[] expiries = new long[16];
+  private byte[] flags = new byte[16];
+  private int[] generations = new int[16];
+  private int[] freeSlots = new int[16];
+  private int freeCount;
+  private int slotCount;
+  private int stale;
+
+  /** @param slippage fractional price penalty on every fill as a FixedPoint long */
+  SymbolOrders(long slippage) {
+    this.slippage = slippage;
+  }
+
+  synchronized int size() {
+    return slotsById.size();
+  }
+
+  /**
+   * Rests an order, replacing any earlier entry for {@code orderId}. {@code trigger} is the
+   * limit or stop price, {@code volume} the unfilled remainder and {@code expiresAt} epoch
+   * millis, or {@link Long#MAX_VALUE} for good-till-cancelled.
+   */
+  synchronized void add(long orderId, boolean buy, boolean limit, long trigger, long volume, long expiresAt) {
+    remove(orderId);
+    int slot = freeCount > 0 ? freeSlots[--freeCount] : newSlot();
+    orderIds[slot] = orderId;
+    triggers[slot] = trigger;
+    volumes[slot] = volume;
+    expiries[slot] = expiresAt;
+    flags[slot] = (byte) ((buy ? BUY : 0) | (limit ? LIMIT : 0));
+    slotsById.put(orderId, slot);
+    // Buy limits and sell stops wait for the price to come down to them
+    (buy == limit ? falling : rising).push(trigger, ref(slot));
+  }
+
+  synchronized boolean remove(long orderId) {
+    Integer slot = slotsById.remove(orderId);
+    if (slot == null) return false;
+    release(slot);
+    if (++stale > 1024 && stale > slotsById.size()) compact();
+    return true;
+  }
+
+  /** Removes the order if it is still resting and its expiry is at or before {@code nowMillis}. */
+  synchronized boolean expire(long orderId, long nowMillis) {
+    Integer slot = slotsById.get(orderId);
+    if (slot == null || expiries[slot] > nowMillis) return false;
+    return remove(orderId);
+  }
+
+  /** Fills every order crossed by {@code price} and reports each fill to {@code sink}. */
+  synchronized void onPrice(long price, long epochMillis, FillSink sink) {
+    if (price <= 0) return;
+    drain(rising, price, epochMillis, sink);
+    drain(falling, price, epochMillis, sink);
+  }
+
+  private void drain(ThresholdHeap heap, long price, long epochMillis, FillSink sink) {
+    while (heap.reached(price)) {
+      long ref = heap.topRef();
+      heap.pop();
+      if (!live(ref)) {
+        stale--;
+        continue;
+      }
+      int slot = (int) ref;
+      long orderId = orderIds[slot];
+      boolean buy = (flags[slot] & BUY) != 0;
+      long fillPrice = fillPrice(buy, (flags[slot] & LIMIT) != 0, triggers[slot], price);
+      long volume = volumes[slot];
+      slotsById.remove(orderId);
+      release(slot);
+      sink.filled(orderId, buy, volume, fillPrice, epochMillis);
+    }
+  }
+
+  /**
+   * The tick price moved against the trader by the slippage. A stop fills as a market order
+   * at that price; a limit never fills worse than its limit.
+   */
+  private long fillPrice(boolean buy, boolean limit, long trigger, long price) {
+    long slipped = FixedPoint.multiply(price, buy ? FixedPoint.ONE + slippage : FixedPoint.ONE - slippage);
+    if (!limit) return slipped;
+    return buy ? Math.min(slipped, trigger) : Math.max(slipped, trigger);
+  }
+
+  private void release(int slot) {
+    generations[slot]++;
+    if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+    freeSlots[freeCount++] = slot;
+  }
+
+  private void compact() {
+    rising.retain(this::live);
+    falling.retain(this::live);
+    stale = 0;
+  }
+
+  private boolean live(long ref) {
+    return generations[(int) ref] == (int) (ref >>> 32);
+  }
+
+  private long ref(int slot) {
+    return ((long) generations[slot] << 32) | slot;
+  }
+
+  private int newSlot() {
+    if (slotCount == orderIds.length) {
+      int n = slotCount * 2;
+      orderIds = Arrays.copyOf(orderIds, n);
+      triggers = Arrays.copyOf(triggers, n);
+      volumes = Arrays.copyOf(volumes, n);
+      expiries = Arrays.copyOf(expiries, n);
+      flags = Arrays.copyOf(flags, n);
+      generations = Arrays.copyOf(generations, n);
+    }
+    return slotCount++;
+  }
+}
@@ -0,0 +1,140 @@
+package com.example.trading.paper;
+
+import com.example.trading.alert.ThresholdHeap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stop-loss and take-profit levels of the open positions in one symbol. The long side keeps
+ * stops in a falling heap and targets in a rising one; the short side the reverse. A tick that
+ * crosses nothing costs four heap peeks and one that crosses k levels pops exactly those k.
+ * A position with both levels has an entry in each heap of its side, referring to
+ * {@code generation << 32 | slot}; once either fires or the position is removed the other
+ * entry goes stale and is dropped lazily.
+ */
+final class SymbolTriggers {
+  @FunctionalInterface
+  interface TriggerSink {
+    void crossed(long positionId, PositionCloser.Reason reason);
+  }
+
+  private final Side longs = new Side(false);
+  private final Side shorts = new Side(true);
+  private final Map<Long, Integer> slotsById = new HashMap<>();
+  private long[] positionIds = new long[16];
+  private int[] generations = new int[16];
+  private byte[] entries = new byte[16];
+  private int[] freeSlots = new int[16];
+  private int freeCount;
+  private int slotCount;
+  private int stale;
+
+  /** One side's stops and targets; a long's stop is hit as the price falls, a short's as it rises. */
+  private static final class Side {
+    final ThresholdHeap stops;
+    final ThresholdHeap targets;
+
+    Side(boolean isShort) {
+      stops = new ThresholdHeap(isShort);
+      targets = new ThresholdHeap(!isShort);
+    }
+  }
+
+  synchronized int size() {
+    return slotsById.size();
+  }
+
+  /**
+   * Indexes the position's levels, replacing any earlier entry. {@code stopLoss} and
+   * {@code takeProfit} are FixedPoint longs, 0 when unset; returns false, leaving the position
+   * unindexed, when neither is set.
+   */
+  synchronized boolean add(long positionId, boolean isShort, long stopLoss, long takeProfit) {
+    remove(positionId);
+    if (stopLoss <= 0 && takeProfit <= 0) return false;
+    int slot = freeCount > 0 ? freeSlots[--freeCount] : newSlot();
+    positionIds[slot] = positionId;
+    slotsById.put(positionId, slot);
+    Side side = isShort ? shorts : longs;
+    long ref = ref(slot);
+    entries[slot] = 0;
+    if (stopLoss > 0) {
+      side.stops.push(stopLoss, ref);
+      entries[slot]++;
+    }
+    if (takeProfit > 0) {
+      side.targets.push(takeProfit, ref);
+      entries[slot]++;
+    }
+    return true;
+  }
+
+  synchronized boolean remove(long positionId) {
+    Integer slot = slotsById.remove(positionId);
+    if (slot == null) return false;
+    stale += entries[slot];
+    release(slot);
+    if (stale > 1024 && stale > slotsById.size()) compact();
+    return true;
+  }
+
+  /** Removes and reports every position with a level crossed by {@code price}. */
+  synchronized void onPrice(long price, TriggerSink sink) {
+    if (price <= 0) return;
+    drain(longs.stops, price, PositionCloser.Reason.STOP_LOSS, sink);
+    drain(longs.targets, price, PositionCloser.Reason.TAKE_PROFIT, sink);
+    drain(shorts.stops, price, PositionCloser.Reason.STOP_LOSS, sink);
+    drain(shorts.targets, price, PositionCloser.Reason.TAKE_PROFIT, sink);
+  }
+
+  private void drain(ThresholdHeap heap, long price, PositionCloser.Reason reason, TriggerSink sink) {
+    while (heap.reached(price)) {
+      long ref = heap.topRef();
+      heap.pop();
+      if (!live(ref)) {
+        stale--;
+        continue;
+      }
+      int slot = (int) ref;
+      long positionId = positionIds[slot];
+      slotsById.remove(positionId);
+      // The position's other level, if any, is now stale in its heap
+      stale += entries[slot] - 1;
+      release(slot);
+      sink.crossed(positionId, reason);
+    }
+  }
+
+  private void release(int slot) {
+    generations[slot]++;
+    if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+    freeSlots[freeCount++] = slot;
+  }
+
+  private void compact() {
+    longs.stops.retain(this::live);
+    longs.targets.retain(this::live);
+    shorts.stops.retain(this::live);
+    shorts.targets.retain(this::live);
+    stale = 0;
+  }
+
+  private boolean live(long ref) {
+    return generations[(int) ref] == (int) (ref >>> 32);
+  }
+
+  private long ref(int slot) {
+    return ((long) generations[slot] << 32) | slot;
+  }
+
+  private int newSlot() {
+    if (slotCount == positionIds.length) {
+      int n = slotCount * 2;
+      positionIds = Arrays.copyOf(positionIds, n);
+      generations = Arrays.copyOf(generations, n);
+      entries = Arrays.copyOf(entries, n);
+    }
+    return slotCount++;
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.trading.pine;
+
+import com.example.trading.market.CandleSeries;
+import java.util.Arrays;
+
+/** Per-run mutable state of a compiled script: current bar, variable slots and position. */
+final class Frame {
+  final double[] vars;
+  final double[] inputs;
+  final Ring[] history;
+  CandleSeries bars;
+  int bar;
+  boolean firstBar = true;
+  int position;
+  String entryId;
+
+  Frame(double[] inputs, int[] historyDepth) {
+    this.vars = new double[historyDepth.length];
+    Arrays.fill(vars, Double.NaN);
+    this.inputs = inputs;
+    this.history = new Ring[historyDepth.length];
+    for (int i = 0; i < historyDepth.length; i++) {
+      if (historyDepth[i] > 0) history[i] = new Ring(historyDepth[i]);
+    }
+  }
+
+  /** Fixed-capacity history of doubles; {@code get(0)} is the newest value. */
+  static final class Ring {
+    private final double[] values;
+    private int head = -1;
+    private int size;
+
+    Ring(int capacity) {
+      values = new double[capacity];
+    }
+
+    void push(double v) {
+      head = (head + 1) % values.length;
+      values[head] = v;
+      if (size < values.length) size++;
+    }
+
+    double get(int back) {
+      if (back < 0 || back >= size) return Double.NaN;
+      return values[Math.floorMod(head - back, values.length)];
+    }
+
+    int size() {
+      return size;
+    }
+
+    int capacity() {
+      return values.length;
+    }
+  }
+}
@@ -0,0 +1,470 @@
+package com.example.trading.pine;
+
+import com.example.trading.domain.FixedPoint;
+
+/**
+ * Executable Pine node. The compiler resolves every name, operator and call to one of these
+ * classes up front, so evaluating a bar is plain virtual dispatch over a closed tree with no
+ * lookups. Booleans are doubles ({@code 0} false, anything else true) and {@code na} is NaN.
+ * Nodes holding per-run state (indicators, history) are deep-copied by {@link #copy()} for
+ * every run; stateless nodes may return themselves.
+ */
+abstract class Node {
+  static final int MAX_BARS_BACK = 500;
+
+  abstract double eval(Frame f);
+
+  abstract Node copy();
+
+  static boolean truthy(double v) {
+    return v != 0 && !Double.isNaN(v);
+  }
+
+  static double bool(boolean b) {
+    return b ? 1 : 0;
+  }
+
+  static Node[] copyAll(Node[] nodes) {
+    Node[] out = new Node[nodes.length];
+    for (int i = 0; i < nodes.length; i++) out[i] = nodes[i].copy();
+    return out;
+  }
+
+  static int length(Frame f, Node n) {
+    double v = n.eval(f);
+    if (Double.isNaN(v) || v < 1) throw new IllegalStateException("Indicator length must be a positive number, got " + v);
+    return (int) Math.round(v);
+  }
+
+  // ---- values ----
+
+  static final class Const extends Node {
+    final double value;
+
+    Const(double value) {
+      this.value = value;
+    }
+
+    @Override
+    double eval(Frame f) {
+      return value;
+    }
+
+    @Override
+    Node copy() {
+      return this;
+    }
+  }
+
+  static final class InputRef extends Node {
+    final int index;
+
+    InputRef(int index) {
+      this.index = index;
+    }
+
+    @Override
+    double eval(Frame f) {
+      return f.inputs[index];
+    }
+
+    @Override
+    Node copy() {
+      return this;
+    }
+  }
+
+  enum Field { OPEN, HIGH, LOW, CLOSE, VOLUME, HL2, HLC3, OHLC4, BAR_INDEX, TIME }
+
+  /** A built-in price series, optionally {@code back} bars ago; reads the mapped bars directly. */
+  static final class Series extends Node {
+    final Field field;
+    final Node back;
+
+    Series(Field field, Node back) {
+      this.field = field;
+      this.back = back;
+    }
+
+    @Override
+    double eval(Frame f) {
+      int i = f.bar;
+      if (back != null) {
+        double b = back.eval(f);
+        if (Double.isNaN(b)) return Double.NaN;
+        i -= (int) b;
+        if (i < 0 || i > f.bar) return Double.NaN;
+      }
+      return value(f, i);
+    }
+
+    private double value(Frame f, int i) {
+      double one = FixedPoint.ONE;
+      return switch (field) {
+        case OPEN -> f.bars.open(i) / one;
+        case HIGH -> f.bars.high(i) / one;
+        case LOW -> f.bars.low(i) / one;
+        case CLOSE -> f.bars.close(i) / one;
+        case VOLUME -> f.bars.volume(i) / one;
+        case HL2 -> (f.bars.high(i) + f.bars.low(i)) / 2.0 / one;
+        case HLC3 -> (f.bars.high(i) + f.bars.low(i) + f.bars.close(i)) / 3.0 / one;
+        case OHLC4 -> (f.bars.open(i) + f.bars.high(i) + f.bars.low(i) + f.bars.close(i)) / 4.0 / one;
+        case BAR_INDEX -> i;
+        case TIME -> f.bars.time(i);
+      };
+    }
+
+    @Override
+    Node copy() {
+      return back == null ? this : new Series(field, back.copy());
+    }
+  }
+
+  static final class VarRef extends Node {
+    final int slot;
+
+    VarRef(int slot) {
+      this.slot = slot;
+    }
+
+    @Override
+    double eval(Frame f) {
+      return f.vars[slot];
+    }
+
+    @Override
+    Node copy() {
+      return this;
+    }
+  }
+
+  /** {@code x[n]} on a variable: values committed at the end of previous bars. */
+  static final class VarHistory extends Node {
+    final int slot;
+    final Node back;
+
+    VarHistory(int slot, Node back) {
+      this.slot = slot;
+      this.back = back;
+    }
+
+    @Override
+    double eval(Frame f) {
+      double b = back.eval(f);
+      if (Double.isNaN(b)) return Double.NaN;
+      int n = (int) b;
+      return n == 0 ? f.vars[slot] : f.history[slot].get(n - 1);
+    }
+
+    @Override
+    Node copy() {
+      return new VarHistory(slot, back.copy());
+    }
+  }
+
+  /** {@code (expr)[n]} on an arbitrary expression: records the expression once per bar. */
+  static final class History extends Node {
+    final Node inner;
+    final Node back;
+    final Frame.Ring ring;
+    int lastBar = -1;
+
+    History(Node inner, Node back, int capacity) {
+      this.inner = inner;
+      this.back = back;
+      this.ring = new Frame.Ring(capacity);
+    }
+
+    @Override
+    double eval(Frame f) {
+      if (f.bar != lastBar) {
+        if (lastBar >= 0) {
+          // bars where this branch did not run have no value
+          for (int skipped = f.bar - lastBar - 1; skipped > 0 && skipped <= ring.capacity(); skipped--) ring.push(Double.NaN);
+        }
+        ring.push(inner.eval(f));
+        lastBar = f.bar;
+      }
+      double b = back.eval(f);
+      return Double.isNaN(b) ? Double.NaN : ring.get((int) b);
+    }
+
+    @Override
+    Node copy() {
+      return new History(inner.copy(), back.copy(), ring.capacity());
+    }
+  }
+
+  static final class PositionSize extends Node {
+    @Override
+    double eval(Frame f) {
+      return f.position;
+    }
+
+    @Override
+    Node copy() {
+      return this;
+    }
+  }
+
+  // ---- operators ----
+
+  enum Op { ADD, SUB, MUL, DIV, MOD, EQ, NE, LT, LE, GT, GE, AND, OR }
+
+  static final class Binary extends Node {
+    final Op op;
+    final Node a;
+    final Node b;
+
+    Binary(Op op, Node a, Node b) {
+      this.op = op;
+      this.a = a;
+      this.b = b;
+    }
+
+    @Override
+    double eval(Frame f) {
+      if (op == Op.AND) return bool(truthy(a.eval(f)) && truthy(b.eval(f)));
+      if (op == Op.OR) return bool(truthy(a.eval(f)) || truthy(b.eval(f)));
+      double x = a.eval(f);
+      double y = b.eval(f);
+      return switch (op) {
+        case ADD -> x + y;
+        case SUB -> x - y;
+        case MUL -> x * y;
+        case DIV -> x / y;
+        case MOD -> x % y;
+        case EQ -> bool(x == y);
+        case NE -> bool(x != y && !(Double.isNaN(x) && Double.isNaN(y)));
+        case LT -> bool(x < y);
+        case LE -> bool(x <= y);
+        case GT -> bool(x > y);
+        case GE -> bool(x >= y);
+        default -> throw new IllegalStateException(op.name());
+      };
+    }
+
+    @Override
+    Node copy() {
+      return new Binary(op, a.copy(), b.copy());
+    }
+  }
+
+  static final class Negate extends Node {
+    final Node a;
+
+    Negate(Node a) {
+      this.a = a;
+    }
+
+    @Override
+    double eval(Frame f) {
+      return -a.eval(f);
+    }
+
+    @Override
+    Node copy() {
+      return new Negate(a.copy());
+    }
+  }
+
+  static final class Not extends Node {
+    final Node a;
+
+    Not(Node a) {
+      this.a = a;
+    }
+
+    @Override
+    double eval(Frame f) {
+      return bool(!truthy(a.eval(f)));
+    }
+
+    @Override
+    Node copy() {
+      return new Not(a.copy());
+    }
+  }
+
+  static final class Ternary extends Node {
+    final Node cond;
+    final Node then;
+    final Node otherwise;
+
+    Ternary(Node cond, Node then, Node otherwise) {
+      this.cond = cond;
+      this.then = then;
+      this.otherwise = otherwise;
+    }
+
+    @Override
+    double eval(Frame f) {
+      return truthy(cond.eval(f)) ? then.eval(f) : otherwise.eval(f);
+    }
+
+    @Override
+    Node copy() {
+      return new Ternary(cond.copy(), then.copy(), otherwise.copy());
+    }
+  }
+
+  enum MathFn { ABS, MAX, MIN, SQRT, LOG, EXP, POW, ROUND, FLOOR, CEIL, SIGN, NA, NZ }
+
+  static final class Call extends Node {
+    final MathFn fn;
+    final Node[] args;
+
+    Call(MathFn fn, Node[] args) {
+      this.fn = fn;
+      this.args = args;
+    }
+
+    @Override
+    double eval(Frame f) {
+      double x = args[0].eval(f);
+      return switch (fn) {
+        case ABS -> Math.abs(x);
+        case MAX -> {
+          double m = x;
+          for (int i = 1; i < args.length; i++) m = Math.max(m, args[i].eval(f));
+          yield m;
+        }
+        case MIN -> {
+          double m = x;
+          for (int i = 1; i < args.length; i++) m = Math.min(m, args[i].eval(f));
+          yield m;
+        }
+        case SQRT -> Math.sqrt(x);
+        case LOG -> Math.log(x);
+        case EXP -> Math.exp(x);
+        case POW -> Math.pow(x, args[1].eval(f));
+        case ROUND -> Math.round(x);
+        case FLOOR -> Math.floor(x);
+        case CEIL -> Math.ceil(x);
+        case SIGN -> Math.signum(x);
+        case NA -> bool(Double.isNaN(x));
+        case NZ -> Double.isNaN(x) ? (args.length > 1 ? args[1].eval(f) : 0) : x;
+      };
+    }
+
+    @Override
+    Node copy() {
+      return new Call(fn, copyAll(args));
+    }
+  }
+
+  // ---- statements (evaluate to NaN) ----
+
+  static final class Assign extends Node {
+    final int slot;
+    final Node value;
+
+    Assign(int slot, Node value) {
+      this.slot = slot;
+      this.value = value;
+    }
+
+    @Override
+    double eval(Frame f) {
+      f.vars[slot] = value.eval(f);
+      return Double.NaN;
+    }
+
+    @Override
+    Node copy() {
+      return new Assign(slot, value.copy());
+    }
+  }
+
+  /** {@code var x = ...}: initialised on the first bar only, then kept across bars. */
+  static final class VarInit extends Node {
+    final int slot;
+    final Node value;
+
+    VarInit(int slot, Node value) {
+      this.slot = slot;
+      this.value = value;
+    }
+
+    @Override
+    double eval(Frame f) {
+      if (f.firstBar) f.vars[slot] = value.eval(f);
+      return Double.NaN;
+    }
+
+    @Override
+    Node copy() {
+      return new VarInit(slot, value.copy());
+    }
+  }
+
+  static final class If extends Node {
+    final Node cond;
+    final Node[] then;
+    final Node[] otherwise;
+
+    If(Node cond, Node[] then, Node[] otherwise) {
+      this.cond = cond;
+      this.then = then;
+      this.otherwise = otherwise;
+    }
+
+    @Override
+    double eval(Frame f) {
+      Node[] branch = truthy(cond.eval(f)) ? then : otherwise;
+      for (Node n : branch) n.eval(f);
+      return Double.NaN;
+    }
+
+    @Override
+    Node copy() {
+      return new If(cond.copy(), copyAll(then), copyAll(otherwise));
+    }
+  }
+
+  /** {@code strategy.entry(id, strategy.long|strategy.short)}; reverses an opposite position. */
+  static final class Entry extends Node {
+    final String id;
+    final int direction;
+
+    Entry(String id, int direction) {
+      this.id = id;
+      this.direction = direction;
+    }
+
+    @Override
+    double eval(Frame f) {
+      f.position = direction;
+      f.entryId = id;
+      return Double.NaN;
+    }
+
+    @Override
+    Node copy() {
+      return this;
+    }
+  }
+
+  /** {@code strategy.close(id)} closes only that entry; {@code strategy.close_all()} passes null. */
+  static final class Close extends Node {
+    final String id;
+
+    Close(String id) {
+      this.id = id;
+    }
+
+    @Override
+    double eval(Frame f) {
+      if (id == null || id.equals(f.entryId)) {
+        f.position = 0;
+        f.entryId = null;
+      }
+      return Double.NaN;
+    }
+
+    @Override
+    Node copy() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.example.trading.pine;
+
+/** A Pine script that falls outside the supported subset or does not parse. */
+public class PineCompileException extends IllegalArgumentException {
+  private static final long serialVersionUID = 1L;
+
+  private final int line;
+  private final int column;
+
+  public PineCompileException(String message, int line, int column) {
+    super(message + " at line " + line + ", column " + column);
+    this.line = line;
+    this.column = column;
+  }
+
+  public int getLine() {
+    return line;
+  }
+
+  public int getColumn() {
+    return column;
+  }
+}
@@ -0,0 +1,492 @@
+package com.example.trading.pine;
+
+import com.example.trading.pine.PineLexer.Kind;
+import com.example.trading.pine.PineLexer.Token;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses the supported Pine subset and resolves it straight into a {@link PinePlan}; there is
+ * no separate AST, every name is bound to a variable slot, input, price series or built-in
+ * node while parsing.
+ *
+ * <p>Supported: declarations ({@code x = }, {@code var x = }, optional {@code float/int/bool}),
+ * reassignment ({@code :=}), {@code if / else if / else} blocks, arithmetic, comparison,
+ * {@code and/or/not}, ternaries, history references {@code x[n]}, the price series
+ * ({@code open high low close volume hl2 hlc3 ohlc4 bar_index time}), {@code input*},
+ * {@code ta.sma/ema/rma/rsi/atr/highest/lowest/stdev/change/crossover/crossunder},
+ * {@code math.*}, {@code na}/{@code nz}, {@code strategy.entry/close/close_all} and
+ * {@code strategy.position_size}. Drawing calls ({@code plot}, {@code bgcolor}, ...) and the
+ * {@code strategy()/indicator()} header are accepted and ignored.
+ */
+public final class PineCompiler {
+  private static final Set<String> IGNORED_CALLS = Set.of(
+    "strategy", "indicator", "study", "plot", "plotshape", "plotchar", "plotarrow", "plotcandle", "plotbar",
+    "bgcolor", "barcolor", "hline", "fill", "alertcondition", "alert", "label.new", "line.new");
+  private static final Set<String> TYPES = Set.of("float", "int", "bool", "series", "simple");
+
+  private final List<Token> tokens;
+  private int p;
+  private final Map<String, Integer> slots = new HashMap<>();
+  private final List<Integer> historyDepth = new ArrayList<>();
+  private final List<PinePlan.Input> inputs = new ArrayList<>();
+  private String declaring;
+
+  private PineCompiler(List<Token> tokens) {
+    this.tokens = tokens;
+  }
+
+  public static PinePlan compile(String source) {
+    if (source == null || source.isBlank()) throw new PineCompileException("Empty script", 1, 1);
+    PineCompiler c = new PineCompiler(PineLexer.tokenize(source));
+    List<Node> body = new ArrayList<>();
+    while (c.peek().kind() != Kind.EOF) {
+      if (c.accept(Kind.NEWLINE)) continue;
+      Node stmt = c.statement();
+      if (stmt != null) body.add(stmt);
+    }
+    int[] depth = new int[c.historyDepth.size()];
+    for (int i = 0; i < depth.length; i++) depth[i] = c.historyDepth.get(i);
+    return new PinePlan(body.toArray(Node[]::new), depth, c.inputs);
+  }
+
+  // ---- statements ----
+
+  private Node statement() {
+    Token t = peek();
+    if (t.is("if")) return ifStatement();
+    if (t.kind() == Kind.OP && t.text().equals("=>") || t.is("for") || t.is("while") || t.is("switch")) {
+      throw error("'" + t.text() + "' is not supported", t);
+    }
+
+    boolean persistent = false;
+    if (t.is("var") || t.is("varip")) {
+      next();
+      persistent = true;
+    }
+    if (TYPES.contains(peek().text()) && peek().kind() == Kind.IDENT && peekAt(1).kind() == Kind.IDENT) next();
+
+    Token name = peek();
+    if (name.kind() == Kind.IDENT && peekAt(1).is("=")) {
+      next();
+      next();
+      declaring = name.text();
+      Node value = expression();
+      declaring = null;
+      endOfStatement();
+      Integer existing = slots.get(name.text());
+      int slot = existing != null ? existing : declare(name.text());
+      return persistent ? new Node.VarInit(slot, value) : new Node.Assign(slot, value);
+    }
+    if (persistent) throw error("Expected a declaration after 'var'", name);
+    if (name.kind() == Kind.IDENT && peekAt(1).is(":=")) {
+      next();
+      next();
+      Integer slot = slots.get(name.text());
+      if (slot == null) throw error("Cannot reassign undeclared variable '" + name.text() + "'", name);
+      Node value = expression();
+      endOfStatement();
+      return new Node.Assign(slot, value);
+    }
+    Node call = callStatement();
+    endOfStatement();
+    return call;
+  }
+
+  private Node ifStatement() {
+    expect("if");
+    Node cond = expression();
+    expect(Kind.NEWLINE);
+    Node[] then = block();
+    Node[] otherwise = new Node[0];
+    if (peek().is("else")) {
+      next();
+      if (peek().is("if")) {
+        otherwise = new Node[] {ifStatement()};
+      } else {
+        expect(Kind.NEWLINE);
+        otherwise = block();
+      }
+    }
+    return new Node.If(cond, then, otherwise);
+  }
+
+  private Node[] block() {
+    expect(Kind.INDENT);
+    List<Node> out = new ArrayList<>();
+    while (!accept(Kind.DEDENT)) {
+      if (accept(Kind.NEWLINE)) continue;
+      if (peek().kind() == Kind.EOF) throw error("Unexpected end of script in block", peek());
+      Node stmt = statement();
+      if (stmt != null) out.add(stmt);
+    }
+    return out.toArray(Node[]::new);
+  }
+
+  /** Top-level calls: strategy orders, or drawing/header calls that are parsed and dropped. */
+  private Node callStatement() {
+    Token name = peek();
+    if (name.kind() != Kind.IDENT || !peekAt(1).is("(")) throw error("Expected a statement", name);
+    next();
+    List<Arg> args = arguments();
+    switch (name.text()) {
+      case "strategy.entry" -> {
+        String id = stringArg(args, 0, "id", name);
+        Node dir = nodeArg(args, 1, "direction", name);
+        if (!(dir instanceof Node.Const c) || (c.value != 1 && c.value != -1)) {
+          throw error("strategy.entry direction must be strategy.long or strategy.short", name);
+        }
+        return new Node.Entry(id, (int) c.value);
+      }
+      case "strategy.close" -> {
+        return new Node.Close(stringArg(args, 0, "id", name));
+      }
+      case "strategy.close_all" -> {
+        return new Node.Close(null);
+      }
+      default -> {
+        if (IGNORED_CALLS.contains(name.text())) return null;
+        throw error("Unsupported statement '" + name.text() + "'", name);
+      }
+    }
+  }
+
+  private void endOfStatement() {
+    if (peek().kind() == Kind.DEDENT || peek().kind() == Kind.EOF) return;
+    expect(Kind.NEWLINE);
+  }
+
+  // ---- expressions ----
+
+  private Node expression() {
+    Node cond = or();
+    if (!peek().is("?")) return cond;
+    next();
+    Node then = expression();
+    expect(":");
+    Node otherwise = expression();
+    return new Node.Ternary(cond, then, otherwise);
+  }
+
+  private Node or() {
+    Node left = and();
+    while (peek().is("or")) {
+      next();
+      left = new Node.Binary(Node.Op.OR, left, and());
+    }
+    return left;
+  }
+
+  private Node and() {
+    Node left = not();
+    while (peek().is("and")) {
+      next();
+      left = new Node.Binary(Node.Op.AND, left, not());
+    }
+    return left;
+  }
+
+  private Node not() {
+    if (peek().is("not")) {
+      next();
+      return new Node.Not(not());
+    }
+    return equality();
+  }
+
+  private Node equality() {
+    Node left = comparison();
+    while (peek().is("==") || peek().is("!=")) {
+      Node.Op op = next().text().equals("==") ? Node.Op.EQ : Node.Op.NE;
+      left = new Node.Binary(op, left, comparison());
+    }
+    return left;
+  }
+
+  private Node comparison() {
+    Node left = additive();
+    while (peek().is("<") || peek().is("<=") || peek().is(">") || peek().is(">=")) {
+      Node.Op op = switch (next().text()) {
+        case "<" -> Node.Op.LT;
+        case "<=" -> Node.Op.LE;
+        case ">" -> Node.Op.GT;
+        default -> Node.Op.GE;
+      };
+      left = new Node.Binary(op, left, additive());
+    }
+    return left;
+  }
+
+  private Node additive() {
+    Node left = multiplicative();
+    while (peek().is("+") || peek().is("-")) {
+      Node.Op op = next().text().equals("+") ? Node.Op.ADD : Node.Op.SUB;
+      left = new Node.Binary(op, left, multiplicative());
+    }
+    return left;
+  }
+
+  private Node multiplicative() {
+    Node left = unary();
+    while (peek().is("*") || peek().is("/") || peek().is("%")) {
+      Node.Op op = switch (next().text()) {
+        case "*" -> Node.Op.MUL;
+        case "/" -> Node.Op.DIV;
+        default -> Node.Op.MOD;
+      };
+      left = new Node.Binary(op, left, unary());
+    }
+    return left;
+  }
+
+  private Node unary() {
+    if (peek().is("-")) {
+      next();
+      Node operand = unary();
+      return operand instanceof Node.Const c ? new Node.Const(-c.value) : new Node.Negate(operand);
+    }
+    if (peek().is("+")) {
+      next();
+      return unary();
+    }
+    return postfix();
+  }
+
+  private Node postfix() {
+    Node node = primary();
+    while (peek().is("[")) {
+      Token bracket = next();
+      Node back = expression();
+      expect("]");
+      int capacity = back instanceof Node.Const c ? (int) c.value + 1 : Node.MAX_BARS_BACK;
+      if (capacity < 1 || capacity > Node.MAX_BARS_BACK) throw error("History offset out of range", bracket);
+      if (node instanceof Node.Series s && s.back == null) {
+        node = new Node.Series(s.field, back);
+      } else if (node instanceof Node.VarRef v) {
+        historyDepth.set(v.slot, Math.max(historyDepth.get(v.slot), capacity));
+        node = new Node.VarHistory(v.slot, back);
+      } else {
+        node = new Node.History(node, back, capacity);
+      }
+    }
+    return node;
+  }
+
+  private Node primary() {
+    Token t = next();
+    switch (t.kind()) {
+      case NUMBER -> {
+        try {
+          return new Node.Const(Double.parseDouble(t.text()));
+        } catch (NumberFormatException e) {
+          throw error("Bad number '" + t.text() + "'", t);
+        }
+      }
+      case STRING -> throw error("Strings are only supported as order ids and titles", t);
+      case OP -> {
+        if (t.text().equals("(")) {
+          Node inner = expression();
+          expect(")");
+          return inner;
+        }
+        throw error("Unexpected '" + t.text() + "'", t);
+      }
+      case IDENT -> {
+        if (peek().is("(")) return call(t, arguments());
+        return name(t);
+      }
+      default -> throw error("Unexpected end of expression", t);
+    }
+  }
+
+  private Node name(Token t) {
+    return switch (t.text()) {
+      case "true" -> new Node.Const(1);
+      case "false" -> new Node.Const(0);
+      case "na" -> new Node.Const(Double.NaN);
+      case "open" -> new Node.Series(Node.Field.OPEN, null);
+      case "high" -> new Node.Series(Node.Field.HIGH, null);
+      case "low" -> new Node.Series(Node.Field.LOW, null);
+      case "close" -> new Node.Series(Node.Field.CLOSE, null);
+      case "volume" -> new Node.Series(Node.Field.VOLUME, null);
+      case "hl2" -> new Node.Series(Node.Field.HL2, null);
+      case "hlc3" -> new Node.Series(Node.Field.HLC3, null);
+      case "ohlc4" -> new Node.Series(Node.Field.OHLC4, null);
+      case "bar_index" -> new Node.Series(Node.Field.BAR_INDEX, null);
+      case "time" -> new Node.Series(Node.Field.TIME, null);
+      case "strategy.long" -> new Node.Const(1);
+      case "strategy.short" -> new Node.Const(-1);
+      case "strategy.position_size" -> new Node.PositionSize();
+      default -> {
+        Integer slot = slots.get(t.text());
+        if (slot == null) throw error("Unknown identifier '" + t.text() + "'", t);
+        yield new Node.VarRef(slot);
+      }
+    };
+  }
+
+  private Node call(Token name, List<Arg> args) {
+    String fn = name.text();
+    return switch (fn) {
+      case "input", "input.int", "input.float", "input.bool", "input.source" -> input(name, args);
+      case "ta.sma" -> new Ta.Sma(nodeArg(args, 0, "source", name), nodeArg(args, 1, "length", name));
+      case "ta.ema" -> new Ta.Ema(nodeArg(args, 0, "source", name), nodeArg(args, 1, "length", name), false);
+      case "ta.rma" -> new Ta.Ema(nodeArg(args, 0, "source", name), nodeArg(args, 1, "length", name), true);
+      case "ta.rsi" -> new Ta.Rsi(nodeArg(args, 0, "source", name), nodeArg(args, 1, "length", name));
+      case "ta.atr" -> new Ta.Atr(nodeArg(args, 0, "length", name));
+      case "ta.highest" -> extreme(name, args, true);
+      case "ta.lowest" -> extreme(name, args, false);
+      case "ta.stdev" -> new Ta.Stdev(nodeArg(args, 0, "source", name), nodeArg(args, 1, "length", name));
+      case "ta.change" -> new Ta.Change(nodeArg(args, 0, "source", name),
+        args.size() > 1 ? nodeArg(args, 1, "length", name) : new Node.Const(1));
+      case "ta.crossover" -> new Ta.Cross(nodeArg(args, 0, "source1", name), nodeArg(args, 1, "source2", name), true);
+      case "ta.crossunder" -> new Ta.Cross(nodeArg(args, 0, "source1", name), nodeArg(args, 1, "source2", name), false);
+      case "na" -> new Node.Call(Node.MathFn.NA, nodes(args, 1, 1, name));
+      case "nz" -> new Node.Call(Node.MathFn.NZ, nodes(args, 1, 2, name));
+      case "math.abs" -> new Node.Call(Node.MathFn.ABS, nodes(args, 1, 1, name));
+      case "math.max" -> new Node.Call(Node.MathFn.MAX, nodes(args, 1, 16, name));
+      case "math.min" -> new Node.Call(Node.MathFn.MIN, nodes(args, 1, 16, name));
+      case "math.sqrt" -> new Node.Call(Node.MathFn.SQRT, nodes(args, 1, 1, name));
+      case "math.log" -> new Node.Call(Node.MathFn.LOG, nodes(args, 1, 1, name));
+      case "math.exp" -> new Node.Call(Node.MathFn.EXP, nodes(args, 1, 1, name));
+      case "math.pow" -> new Node.Call(Node.MathFn.POW, nodes(args, 2, 2, name));
+      case "math.round" -> new Node.Call(Node.MathFn.ROUND, nodes(args, 1, 1, name));
+      case "math.floor" -> new Node.Call(Node.MathFn.FLOOR, nodes(args, 1, 1, name));
+      case "math.ceil" -> new Node.Call(Node.MathFn.CEIL, nodes(args, 1, 1, name));
+      case "math.sign" -> new Node.Call(Node.MathFn.SIGN, nodes(args, 1, 1, name));
+      default -> throw error("Unsupported function '" + fn + "'", name);
+    };
+  }
+
+  private Node extreme(Token name, List<Arg> args, boolean highest) {
+    // ta.highest(length) defaults the source to high / low
+    if (args.size() == 1) {
+      Node.Field field = highest ? Node.Field.HIGH : Node.Field.LOW;
+      return new Ta.Extreme(new Node.Series(field, null), nodeArg(args, 0, "length", name), highest);
+    }
+    return new Ta.Extreme(nodeArg(args, 0, "source", name), nodeArg(args, 1, "length", name), highest);
+  }
+
+  private Node input(Token name, List<Arg> args) {
+    Node def = nodeArg(args, 0, "defval", name);
+    if (name.text().equals("input.source")) return def;
+    if (!(def instanceof Node.Const c)) throw error("Input default must be a literal", name);
+    boolean bool = name.text().equals("input.bool");
+    boolean integer = name.text().equals("input.int");
+    String key = declaring != null ? declaring : "input" + inputs.size();
+    for (PinePlan.Input existing : inputs) {
+      if (existing.name().equals(key)) throw error("Duplicate input '" + key + "'", name);
+    }
+    inputs.add(new PinePlan.Input(key, c.value, integer, bool));
+    return new Node.InputRef(inputs.size() - 1);
+  }
+
+  // ---- arguments ----
+
+  private record Arg(String name, Node node, String string, Token token) {}
+
+  private List<Arg> arguments() {
+    expect("(");
+    List<Arg> args = new ArrayList<>();
+    if (accept(")")) return args;
+    do {
+      Token start = peek();
+      String argName = null;
+      if (start.kind() == Kind.IDENT && peekAt(1).is("=")) {
+        argName = start.text();
+        next();
+        next();
+      }
+      Token value = peek();
+      if (value.kind() == Kind.STRING) {
+        next();
+        args.add(new Arg(argName, null, value.text(), value));
+      } else if (value.kind() == Kind.IDENT && value.text().startsWith("color.")) {
+        next();
+        args.add(new Arg(argName, null, value.text(), value));
+      } else {
+        args.add(new Arg(argName, expression(), null, value));
+      }
+    } while (accept(","));
+    expect(")");
+    return args;
+  }
+
+  private Arg arg(List<Arg> args, int position, String name, Token call) {
+    for (Arg a : args) if (name.equals(a.name())) return a;
+    if (position < args.size() && args.get(position).name() == null) return args.get(position);
+    throw error(call.text() + " is missing argument '" + name + "'", call);
+  }
+
+  private Node nodeArg(List<Arg> args, int position, String name, Token call) {
+    Arg a = arg(args, position, name, call);
+    if (a.node() == null) throw error("Argument '" + name + "' of " + call.text() + " must be a number or series", a.token());
+    return a.node();
+  }
+
+  private String stringArg(List<Arg> args, int position, String name, Token call) {
+    Arg a = arg(args, position, name, call);
+    if (a.string() == null) throw error("Argument '" + name + "' of " + call.text() + " must be a string", a.token());
+    return a.string();
+  }
+
+  private Node[] nodes(List<Arg> args, int min, int max, Token call) {
+    if (args.size() < min || args.size() > max) throw error(call.text() + " takes " + min + (min == max ? "" : ".." + max) + " arguments", call);
+    Node[] out = new Node[args.size()];
+    for (int i = 0; i < out.length; i++) {
+      if (args.get(i).node() == null) throw error("Arguments of " + call.text() + " must be numbers or series", args.get(i).token());
+      out[i] = args.get(i).node();
+    }
+    return out;
+  }
+
+  // ---- tokens ----
+
+  private int declare(String name) {
+    int slot = historyDepth.size();
+    slots.put(name, slot);
+    historyDepth.add(0);
+    return slot;
+  }
+
+  private Token peek() {
+    return tokens.get(p);
+  }
+
+  private Token peekAt(int ahead) {
+    return tokens.get(Math.min(p + ahead, tokens.size() - 1));
+  }
+
+  private Token next() {
+    Token t = tokens.get(p);
+    if (t.kind() != Kind.EOF) p++;
+    return t;
+  }
+
+  private boolean accept(Kind kind) {
+    if (peek().kind() != kind) return false;
+    next();
+    return true;
+  }
+
+  private boolean accept(String op) {
+    if (!peek().is(op)) return false;
+    next();
+    return true;
+  }
+
+  private void expect(Kind kind) {
+    if (!accept(kind)) throw error("Expected " + kind.name().toLowerCase() + " but found '" + peek().text() + "'", peek());
+  }
+
+  private void expect(String op) {
+    if (!accept(op)) throw error("Expected '" + op + "' but found '" + peek().text() + "'", peek());
+  }
+
+  private static PineCompileException error(String message, Token at) {
+    return new PineCompileException(message, at.line(), at.column());
+  }
+}
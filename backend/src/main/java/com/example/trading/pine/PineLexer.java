@@ -0,0 +1,125 @@
+package com.example.trading.pine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tokenizes Pine source. Blocks are indentation-based, so the lexer emits INDENT / DEDENT
+ * around them like Python; a line continues onto the next while brackets are open or when it
+ * ends with a binary operator or comma. Dotted names ({@code ta.sma}, {@code strategy.long})
+ * come out as one identifier.
+ */
+final class PineLexer {
+  enum Kind { NUMBER, STRING, IDENT, OP, NEWLINE, INDENT, DEDENT, EOF }
+
+  record Token(Kind kind, String text, int line, int column) {
+    boolean is(String s) {
+      return (kind == Kind.OP || kind == Kind.IDENT) && text.equals(s);
+    }
+  }
+
+  private static final Set<String> CONTINUATION = Set.of(
+    "+", "-", "*", "/", "%", "==", "!=", "<", "<=", ">", ">=", "?", ":", ",", "=", ":=", "and", "or", "not");
+
+  private PineLexer() {
+  }
+
+  static List<Token> tokenize(String source) {
+    List<Token> out = new ArrayList<>();
+    Deque<Integer> indents = new ArrayDeque<>();
+    indents.push(0);
+    int depth = 0;
+    boolean continuing = false;
+    String[] lines = source.split("\r?\n", -1);
+
+    for (int ln = 0; ln < lines.length; ln++) {
+      String line = lines[ln];
+      int lineNo = ln + 1;
+      int pos = 0;
+      int indent = 0;
+      while (pos < line.length() && (line.charAt(pos) == ' ' || line.charAt(pos) == '\t')) {
+        indent += line.charAt(pos) == '\t' ? 4 : 1;
+        pos++;
+      }
+      if (pos == line.length() || line.startsWith("//", pos)) continue;
+
+      if (depth == 0 && !continuing) {
+        if (indent > indents.peek()) {
+          indents.push(indent);
+          out.add(new Token(Kind.INDENT, "", lineNo, pos + 1));
+        } else {
+          while (indent < indents.peek()) {
+            indents.pop();
+            out.add(new Token(Kind.DEDENT, "", lineNo, pos + 1));
+          }
+          if (indent != indents.peek()) throw new PineCompileException("Inconsistent indentation", lineNo, pos + 1);
+        }
+      }
+
+      while (pos < line.length()) {
+        char c = line.charAt(pos);
+        int col = pos + 1;
+        if (c == ' ' || c == '\t') {
+          pos++;
+        } else if (line.startsWith("//", pos)) {
+          break;
+        } else if (Character.isDigit(c) || (c == '.' && pos + 1 < line.length() && Character.isDigit(line.charAt(pos + 1)))) {
+          int start = pos;
+          while (pos < line.length() && (Character.isDigit(line.charAt(pos)) || line.charAt(pos) == '.')) pos++;
+          if (pos < line.length() && (line.charAt(pos) == 'e' || line.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < line.length() && (line.charAt(pos) == '+' || line.charAt(pos) == '-')) pos++;
+            while (pos < line.length() && Character.isDigit(line.charAt(pos))) pos++;
+          }
+          out.add(new Token(Kind.NUMBER, line.substring(start, pos), lineNo, col));
+        } else if (Character.isLetter(c) || c == '_') {
+          int start = pos;
+          while (pos < line.length()) {
+            char d = line.charAt(pos);
+            if (Character.isLetterOrDigit(d) || d == '_') {
+              pos++;
+            } else if (d == '.' && pos + 1 < line.length() && (Character.isLetter(line.charAt(pos + 1)) || line.charAt(pos + 1) == '_')) {
+              pos++;
+            } else {
+              break;
+            }
+          }
+          out.add(new Token(Kind.IDENT, line.substring(start, pos), lineNo, col));
+        } else if (c == '"' || c == '\'') {
+          int end = line.indexOf(c, pos + 1);
+          if (end < 0) throw new PineCompileException("Unterminated string", lineNo, col);
+          out.add(new Token(Kind.STRING, line.substring(pos + 1, end), lineNo, col));
+          pos = end + 1;
+        } else {
+          String two = pos + 1 < line.length() ? line.substring(pos, pos + 2) : "";
+          if (two.equals(":=") || two.equals("==") || two.equals("!=") || two.equals("<=") || two.equals(">=") || two.equals("=>")) {
+            out.add(new Token(Kind.OP, two, lineNo, col));
+            pos += 2;
+          } else if ("+-*/%<>=?:,()[]".indexOf(c) >= 0) {
+            if (c == '(' || c == '[') depth++;
+            if (c == ')' || c == ']') depth = Math.max(0, depth - 1);
+            out.add(new Token(Kind.OP, String.valueOf(c), lineNo, col));
+            pos++;
+          } else {
+            throw new PineCompileException("Unexpected character '" + c + "'", lineNo, col);
+          }
+        }
+      }
+
+      Token last = out.isEmpty() ? null : out.get(out.size() - 1);
+      continuing = last != null && (last.kind() == Kind.OP || last.kind() == Kind.IDENT) && CONTINUATION.contains(last.text());
+      if (depth == 0 && !continuing) out.add(new Token(Kind.NEWLINE, "", lineNo, line.length() + 1));
+    }
+
+    int end = lines.length;
+    while (indents.size() > 1) {
+      indents.pop();
+      out.add(new Token(Kind.DEDENT, "", end, 1));
+    }
+    out.add(new Token(Kind.EOF, "", end, 1));
+    return out;
+  }
+}
@@ -0,0 +1,93 @@
+package com.example.trading.pine;
+
+import com.example.trading.backtest.BarSignal;
+import com.example.trading.market.CandleSeries;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled Pine script: an immutable prototype node tree plus its inputs. Safe to share
+ * and cache; {@link #instantiate} copies the stateful nodes into a fresh {@link BarSignal}
+ * for each backtest run or live execution, so no run ever re-parses the source.
+ */
+public final class PinePlan {
+  private final Node[] body;
+  private final int[] historyDepth;
+  private final List<Input> inputs;
+
+  /** A script input ({@code len = input.int(14)}); overridable by parameter {@code name}. */
+  public record Input(String name, double defaultValue, boolean integer, boolean bool) {}
+
+  PinePlan(Node[] body, int[] historyDepth, List<Input> inputs) {
+    this.body = body;
+    this.historyDepth = historyDepth;
+    this.inputs = List.copyOf(inputs);
+  }
+
+  public List<Input> inputs() {
+    return inputs;
+  }
+
+  public Map<String, Double> defaults() {
+    Map<String, Double> out = new LinkedHashMap<>();
+    for (Input in : inputs) out.put(in.name(), in.defaultValue());
+    return Collections.unmodifiableMap(out);
+  }
+
+  /**
+   * A new, independent evaluation of this script. {@code parameters} override input
+   * defaults by name; unknown names are ignored so a sweep can carry extra settings.
+   */
+  public BarSignal instantiate(Map<String, String> parameters) {
+    double[] values = new double[inputs.size()];
+    for (int i = 0; i < values.length; i++) {
+      Input in = inputs.get(i);
+      String raw = parameters != null ? parameters.get(in.name()) : null;
+      values[i] = raw == null ? in.defaultValue() : parse(in, raw);
+    }
+    return new Program(Node.copyAll(body), new Frame(values, historyDepth), historyDepth);
+  }
+
+  private static double parse(Input in, String raw) {
+    String s = raw.trim();
+    if (in.bool()) {
+      if (s.equalsIgnoreCase("true")) return 1;
+      if (s.equalsIgnoreCase("false")) return 0;
+      throw new IllegalArgumentException("Input " + in.name() + " expects true/false, got " + raw);
+    }
+    try {
+      double v = Double.parseDouble(s);
+      return in.integer() ? Math.round(v) : v;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Input " + in.name() + " expects a number, got " + raw);
+    }
+  }
+
+  private static final class Program implements BarSignal {
+    private final Node[] body;
+    private final Frame frame;
+    private final int[] tracked;
+
+    Program(Node[] body, Frame frame, int[] historyDepth) {
+      this.body = body;
+      this.frame = frame;
+      int n = 0;
+      for (int d : historyDepth) if (d > 0) n++;
+      this.tracked = new int[n];
+      for (int slot = 0, j = 0; slot < historyDepth.length; slot++) if (historyDepth[slot] > 0) tracked[j++] = slot;
+    }
+
+    @Override
+    public int onBar(CandleSeries bars, int i) {
+      Frame f = frame;
+      f.bars = bars;
+      f.bar = i;
+      for (Node n : body) n.eval(f);
+      for (int slot : tracked) f.history[slot].push(f.vars[slot]);
+      f.firstBar = false;
+      return f.position;
+    }
+  }
+}
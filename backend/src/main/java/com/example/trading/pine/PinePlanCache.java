@@ -0,0 +1,69 @@
+package com.example.trading.pine;
+
+import com.example.trading.cache.TtlCache;
+import com.example.trading.domain.Strategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compiled {@link PinePlan}s per strategy id. An entry is reused while the strategy's
+ * {@code version}, {@code updatedAt} and source are unchanged and recompiled on the first
+ * lookup after any of them changes, so editing a script never serves a stale plan and an
+ * unchanged script is parsed once per {@code ttl}. Compile errors are not cached.
+ *
+ * <p>Strategies can be deleted outside this service, so the cache is bounded instead of relying
+ * on {@link #invalidate}: the least recently used plans are dropped past {@code max-size} and
+ * every plan is recompiled once it is older than {@code ttl}.
+ */
+@Component
+public class PinePlanCache {
+  private final TtlCache<Long, Entry> plans;
+  private final Counter hits;
+  private final Counter misses;
+
+  public PinePlanCache(
+    MeterRegistry meterRegistry,
+    @Value("${pine.plans.ttl:PT1H}") Duration ttl,
+    @Value("${pine.plans.max-size:10000}") int maxSize
+  ) {
+    this.plans = new TtlCache<Long, Entry>(ttl, maxSize).bindTo(meterRegistry, "pine.plans.cache");
+    this.hits = Counter.builder("pine.plans").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("pine.plans").tag("result", "compiled").register(meterRegistry);
+  }
+
+  private record Entry(String version, LocalDateTime updatedAt, String source, PinePlan plan) {
+    boolean matches(Strategy s) {
+      return Objects.equals(version, s.getVersion())
+        && Objects.equals(updatedAt, s.getUpdatedAt())
+        && Objects.equals(source, s.getPineScript());
+    }
+  }
+
+  /** @throws PineCompileException if the strategy's script does not compile */
+  public PinePlan plan(Strategy strategy) {
+    if (strategy.getId() == null) return PineCompiler.compile(strategy.getPineScript());
+    Entry cached = plans.get(strategy.getId(), System.nanoTime());
+    if (cached != null && cached.matches(strategy)) {
+      hits.increment();
+      return cached.plan();
+    }
+    // Compiled outside the cache lock; two threads missing together both compile, which is
+    // cheaper than serializing every compile
+    misses.increment();
+    long epoch = plans.epoch();
+    long loadedAt = System.nanoTime();
+    PinePlan plan = PineCompiler.compile(strategy.getPineScript());
+    Entry entry = new Entry(strategy.getVersion(), strategy.getUpdatedAt(), strategy.getPineScript(), plan);
+    plans.putIfCurrent(strategy.getId(), entry, loadedAt, epoch);
+    return plan;
+  }
+
+  public void invalidate(Long strategyId) {
+    plans.invalidate(strategyId);
+  }
+}
@@ -0,0 +1,228 @@
+package com.example.trading.pine;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.indicator.RollingExtreme;
+
+/**
+ * {@code ta.*} built-ins as stateful nodes over the streaming indicators in
+ * {@code com.example.trading.indicator}. Each updates at most once per bar (a second
+ * evaluation on the same bar returns the cached value) and sizes its window on the first
+ * bar, once the length argument, which may be an input, is known.
+ */
+final class Ta {
+  private Ta() {
+  }
+
+  abstract static class Stateful extends Node {
+    private int lastBar = -1;
+    private double value = Double.NaN;
+
+    @Override
+    final double eval(Frame f) {
+      if (f.bar != lastBar) {
+        lastBar = f.bar;
+        value = update(f);
+      }
+      return value;
+    }
+
+    abstract double update(Frame f);
+  }
+
+  static final class Sma extends Stateful {
+    final Node src;
+    final Node len;
+    com.example.trading.indicator.Sma sma;
+
+    Sma(Node src, Node len) {
+      this.src = src;
+      this.len = len;
+    }
+
+    @Override
+    double update(Frame f) {
+      if (sma == null) sma = new com.example.trading.indicator.Sma(length(f, len));
+      return sma.update(src.eval(f));
+    }
+
+    @Override
+    Node copy() {
+      return new Sma(src.copy(), len.copy());
+    }
+  }
+
+  /** {@code ta.ema}, or {@code ta.rma} (Wilder smoothing) when {@code wilder}. */
+  static final class Ema extends Stateful {
+    final Node src;
+    final Node len;
+    final boolean wilder;
+    com.example.trading.indicator.Ema ema;
+
+    Ema(Node src, Node len, boolean wilder) {
+      this.src = src;
+      this.len = len;
+      this.wilder = wilder;
+    }
+
+    @Override
+    double update(Frame f) {
+      if (ema == null) {
+        int n = length(f, len);
+        ema = wilder ? com.example.trading.indicator.Ema.wilder(n) : new com.example.trading.indicator.Ema(n);
+      }
+      return ema.update(src.eval(f));
+    }
+
+    @Override
+    Node copy() {
+      return new Ema(src.copy(), len.copy(), wilder);
+    }
+  }
+
+  static final class Rsi extends Stateful {
+    final Node src;
+    final Node len;
+    com.example.trading.indicator.Rsi rsi;
+
+    Rsi(Node src, Node len) {
+      this.src = src;
+      this.len = len;
+    }
+
+    @Override
+    double update(Frame f) {
+      if (rsi == null) rsi = new com.example.trading.indicator.Rsi(length(f, len));
+      return rsi.update(src.eval(f));
+    }
+
+    @Override
+    Node copy() {
+      return new Rsi(src.copy(), len.copy());
+    }
+  }
+
+  /** {@code ta.atr(len)}: Wilder average of true range. */
+  static final class Atr extends Stateful {
+    final Node len;
+    com.example.trading.indicator.Atr atr;
+
+    Atr(Node len) {
+      this.len = len;
+    }
+
+    @Override
+    double update(Frame f) {
+      if (atr == null) atr = new com.example.trading.indicator.Atr(length(f, len));
+      double one = FixedPoint.ONE;
+      return atr.update(f.bars.high(f.bar) / one, f.bars.low(f.bar) / one, f.bars.close(f.bar) / one);
+    }
+
+    @Override
+    Node copy() {
+      return new Atr(len.copy());
+    }
+  }
+
+  /** {@code ta.highest} / {@code ta.lowest} over the last {@code len} values. */
+  static final class Extreme extends Stateful {
+    final Node src;
+    final Node len;
+    final boolean highest;
+    RollingExtreme extreme;
+
+    Extreme(Node src, Node len, boolean highest) {
+      this.src = src;
+      this.len = len;
+      this.highest = highest;
+    }
+
+    @Override
+    double update(Frame f) {
+      if (extreme == null) extreme = new RollingExtreme(length(f, len), highest);
+      return extreme.update(src.eval(f));
+    }
+
+    @Override
+    Node copy() {
+      return new Extreme(src.copy(), len.copy(), highest);
+    }
+  }
+
+  /** {@code ta.stdev}: population standard deviation over the last {@code len} values. */
+  static final class Stdev extends Stateful {
+    final Node src;
+    final Node len;
+    com.example.trading.indicator.Stdev stdev;
+
+    Stdev(Node src, Node len) {
+      this.src = src;
+      this.len = len;
+    }
+
+    @Override
+    double update(Frame f) {
+      if (stdev == null) stdev = new com.example.trading.indicator.Stdev(length(f, len));
+      return stdev.update(src.eval(f));
+    }
+
+    @Override
+    Node copy() {
+      return new Stdev(src.copy(), len.copy());
+    }
+  }
+
+  /** {@code ta.change(src, len)}: {@code src - src[len]}. */
+  static final class Change extends Stateful {
+    final Node src;
+    final Node len;
+    Frame.Ring window;
+
+    Change(Node src, Node len) {
+      this.src = src;
+      this.len = len;
+    }
+
+    @Override
+    double update(Frame f) {
+      if (window == null) window = new Frame.Ring(length(f, len) + 1);
+      double x = src.eval(f);
+      window.push(x);
+      return x - window.get(window.capacity() - 1);
+    }
+
+    @Override
+    Node copy() {
+      return new Change(src.copy(), len.copy());
+    }
+  }
+
+  /** {@code ta.crossover} / {@code ta.crossunder}. */
+  static final class Cross extends Stateful {
+    final Node a;
+    final Node b;
+    final boolean over;
+    double prevA = Double.NaN;
+    double prevB = Double.NaN;
+
+    Cross(Node a, Node b, boolean over) {
+      this.a = a;
+      this.b = b;
+      this.over = over;
+    }
+
+    @Override
+    double update(Frame f) {
+      double x = a.eval(f);
+      double y = b.eval(f);
+      boolean crossed = over ? x > y && prevA <= prevB : x < y && prevA >= prevB;
+      prevA = x;
+      prevB = y;
+      return bool(crossed);
+    }
+
+    @Override
+    Node copy() {
+      return new Cross(a.copy(), b.copy(), over);
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package com.example.trading.repository;
+
+/** Id and condition text of an active alert, for loading the alert engine without entities. */
+public interface ActiveAlertCondition {
+    Long getId();
+
+    String getCondition();
+}
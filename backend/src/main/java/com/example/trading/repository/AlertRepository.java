@@ -3,12 +3,14 @@ package com.example.trading.repository;
 import com.example.trading.domain.Alert;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -114,4 +116,19 @@ public interface AlertRepository extends JpaRepository<Alert, Long> {
     
     @Query("SELECT a FROM Alert a WHERE a.strategy.id = :strategyId AND a.triggerCount = 0")
     List<Alert> findNeverTriggeredByStrategyId(@Param("strategyId") Long strategyId);
-}
\ No newline at end of file
+    
+    /** Keyset page of active alert conditions with ids above {@code afterId}, in id order. */
+    @Query("SELECT a.id AS id, a.condition AS condition FROM Alert a WHERE a.status = 'ACTIVE' AND a.id > :afterId ORDER BY a.id")
+    List<ActiveAlertCondition> findActiveConditionsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * Keyset page of alerts of any status updated after {@code since}, in (updatedAt, id) order;
+     * the next page starts after the last row's {@code (updatedAt, id)}.
+     */
+    @Query("SELECT a.id AS id, a.condition AS condition, a.status AS status, a.updatedAt AS updatedAt FROM Alert a "
+            + "WHERE a.updatedAt > :since OR (a.updatedAt = :since AND a.id > :afterId) ORDER BY a.updatedAt, a.id")
+    List<ChangedAlertCondition> findChangedAfter(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"deliveryMethods", "user"})
+    List<Alert> findWithDeliveryMethodsByIdIn(Collection<Long> ids);
+}
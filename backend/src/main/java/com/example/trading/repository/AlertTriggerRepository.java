@@ -129,4 +129,8 @@ public interface AlertTriggerRepository extends JpaRepository<AlertTrigger, Long
     
     @Query("SELECT at FROM AlertTrigger at WHERE at.user.id = :userId AND at.deliveryResponse LIKE %:error%")
     List<AlertTrigger> findWithErrorByUserId(@Param("userId") Long userId, @Param("error") String error);
-}
\ No newline at end of file
+    
+    /** Keyset page of PENDING triggers for one channel, with their alerts and owners, for delivery recovery. */
+    @Query("SELECT at FROM AlertTrigger at JOIN FETCH at.alert a LEFT JOIN FETCH a.user WHERE at.status = 'PENDING' AND at.deliveryMethod = :method AND at.id > :afterId ORDER BY at.id")
+    List<AlertTrigger> findPendingForDelivery(@Param("method") AlertTrigger.DeliveryMethod method, @Param("afterId") Long afterId, Pageable pageable);
+}
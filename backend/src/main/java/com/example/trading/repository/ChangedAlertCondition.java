@@ -0,0 +1,15 @@
+package com.example.trading.repository;
+
+import com.example.trading.domain.Alert;
+import java.time.LocalDateTime;
+
+/** Id, condition and status of a recently changed alert, for refreshing the alert engine. */
+public interface ChangedAlertCondition {
+    Long getId();
+
+    String getCondition();
+
+    Alert.AlertStatus getStatus();
+
+    LocalDateTime getUpdatedAt();
+}
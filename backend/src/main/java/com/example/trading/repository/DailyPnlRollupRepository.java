@@ -0,0 +1,28 @@
+package com.example.trading.repository;
+
+import com.example.trading.domain.DailyPnlRollup;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface DailyPnlRollupRepository extends JpaRepository<DailyPnlRollup, UUID> {
+  List<DailyPnlRollup> findByUserIdOrderByTradeDateAsc(UUID userId);
+
+  List<DailyPnlRollup> findByUserIdAndTradeDateBetweenOrderByTradeDateAsc(UUID userId, LocalDate from, LocalDate to);
+
+  @Transactional
+  @Modifying
+  @Query(nativeQuery = true, value = """
+    INSERT INTO daily_pnl_rollup (id, user_id, trade_date, pnl, trade_count, created_at, updated_at)
+    VALUES (gen_random_uuid(), :userId, :tradeDate, :pnl, 1, now(), now())
+    ON CONFLICT (user_id, trade_date)
+    DO UPDATE SET pnl = daily_pnl_rollup.pnl + EXCLUDED.pnl, trade_count = daily_pnl_rollup.trade_count + 1
+    """)
+  void addClosedTrade(@Param("userId") UUID userId, @Param("tradeDate") LocalDate tradeDate, @Param("pnl") BigDecimal pnl);
+}
@@ -0,0 +1,224 @@
+package com.example.trading.repository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk load path for backfilling {@code market_data}, bypassing the entity layer entirely.
+ * Bars are encoded straight into PostgreSQL's binary COPY format and streamed through the
+ * driver's {@link CopyIn} into an unindexed temp table, with prices kept as FixedPoint
+ * {@code int8}; a single {@code INSERT ... SELECT} then converts them, drops repeats of a
+ * (symbol, timeframe, timestamp) within the input and skips bars already stored. Each load runs
+ * in one transaction and takes no lock beyond the rows it inserts.
+ *
+ * <p>For a large backfill in a maintenance window, {@link #dropSecondaryIndexes} and
+ * {@link #rebuildSecondaryIndexes} bracket a series of loads so the secondary
+ * {@code idx_timestamp} is built once at the end instead of maintained per row. Both run
+ * {@code CONCURRENTLY} in their own autocommit statements, outside any load transaction, so
+ * readers are never locked out, but time-range queries scan the table until the rebuild is
+ * done. The unique bar key always stays, since it decides what is a duplicate.
+ */
+@Repository
+public class MarketDataCopyLoader {
+  private static final String STAGE = """
+    CREATE TEMP TABLE market_data_import (
+      symbol TEXT, timeframe TEXT, ts TIMESTAMP,
+      open INT8, high INT8, low INT8, close INT8, volume INT8, vwap INT8
+    ) ON COMMIT DROP
+    """;
+  private static final String COPY = "COPY market_data_import FROM STDIN (FORMAT binary)";
+  private static final String MERGE = """
+    INSERT INTO market_data (id, symbol, timeframe, timestamp, open, high, low, close, volume, vwap, created_at, updated_at)
+    SELECT nextval('market_data_seq'), symbol, timeframe, ts,
+      open::numeric / 100000000, high::numeric / 100000000, low::numeric / 100000000,
+      close::numeric / 100000000, volume::numeric / 100000000, vwap::numeric / 100000000,
+      LOCALTIMESTAMP, LOCALTIMESTAMP
+    FROM (SELECT DISTINCT ON (symbol, timeframe, ts) * FROM market_data_import ORDER BY symbol, timeframe, ts) s
+    ON CONFLICT (symbol, timeframe, timestamp) DO NOTHING
+    """;
+  private static final String DROP_TIME_INDEX = "DROP INDEX CONCURRENTLY IF EXISTS idx_timestamp";
+  private static final String CREATE_TIME_INDEX = "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_timestamp ON market_data (timestamp)";
+
+  // Binary COPY timestamps count microseconds from 2000-01-01
+  private static final long PG_EPOCH_MILLIS = LocalDateTime.of(2000, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+  private static final byte[] HEADER = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0};
+  private static final short FIELDS = 9;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate tx;
+
+  public MarketDataCopyLoader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.tx = new TransactionTemplate(transactionManager);
+  }
+
+  /** Receives parsed bars; prices and volume are FixedPoint longs, {@code vwap} 0 when absent. */
+  @FunctionalInterface
+  public interface BarSink {
+    void bar(String symbol, String timeframe, long epochMillis, long open, long high, long low, long close,
+             long volume, long vwap) throws IOException;
+  }
+
+  /** Produces the bars to load by feeding them to the sink, e.g. while parsing a file. */
+  @FunctionalInterface
+  public interface BarSource {
+    void forEach(BarSink sink) throws IOException;
+  }
+
+  /** {@code read} bars were streamed; {@code inserted} were new, the rest were duplicates. */
+  public record Result(long read, long inserted) {
+    public long duplicates() {
+      return read - inserted;
+    }
+  }
+
+  public Result load(BarSource source) {
+    return tx.execute(status -> jdbcTemplate.execute((ConnectionCallback<Result>) con -> {
+      try (Statement st = con.createStatement()) {
+        st.execute(STAGE);
+        long read = copy(con, source);
+        long inserted = st.executeUpdate(MERGE);
+        st.execute("ANALYZE market_data");
+        return new Result(read, inserted);
+      }
+    }));
+  }
+
+  /** Maintenance window only; must not be called inside a transaction. */
+  public void dropSecondaryIndexes() {
+    jdbcTemplate.execute(DROP_TIME_INDEX);
+  }
+
+  /** Rebuilds what {@link #dropSecondaryIndexes} dropped; must not be called inside a transaction. */
+  public void rebuildSecondaryIndexes() {
+    jdbcTemplate.execute(CREATE_TIME_INDEX);
+  }
+
+  private long copy(Connection con, BarSource source) throws SQLException {
+    CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY);
+    try {
+      CopyEncoder out = new CopyEncoder(copyIn);
+      out.bytes(HEADER);
+      long[] rows = {0};
+      source.forEach((symbol, timeframe, epochMillis, open, high, low, close, volume, vwap) -> {
+        out.row(symbol, timeframe, epochMillis, open, high, low, close, volume, vwap);
+        rows[0]++;
+      });
+      out.int16((short) -1);
+      out.flush();
+      copyIn.endCopy();
+      return rows[0];
+    } catch (IOException e) {
+      throw new SQLException("Bulk load input failed: " + e.getMessage(), e);
+    } finally {
+      if (copyIn.isActive()) copyIn.cancelCopy();
+    }
+  }
+
+  /** Big-endian writer over a reusable buffer, flushed to the COPY stream when full. */
+  private static final class CopyEncoder {
+    private final CopyIn copyIn;
+    private final byte[] buf = new byte[1 << 16];
+    private int pos;
+    // Consecutive rows usually share a symbol and timeframe; reuse their encoded bytes
+    private String symbol;
+    private byte[] symbolBytes;
+    private String timeframe;
+    private byte[] timeframeBytes;
+
+    CopyEncoder(CopyIn copyIn) {
+      this.copyIn = copyIn;
+    }
+
+    void row(String symbol, String timeframe, long epochMillis, long open, long high, long low, long close,
+             long volume, long vwap) throws IOException {
+      if (!symbol.equals(this.symbol)) {
+        this.symbol = symbol;
+        this.symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+      }
+      if (!timeframe.equals(this.timeframe)) {
+        this.timeframe = timeframe;
+        this.timeframeBytes = timeframe.getBytes(StandardCharsets.UTF_8);
+      }
+      ensure(2 + 8 + symbolBytes.length + timeframeBytes.length + 7 * 12);
+      int16(FIELDS);
+      int32(symbolBytes.length);
+      bytes(symbolBytes);
+      int32(timeframeBytes.length);
+      bytes(timeframeBytes);
+      int8((epochMillis - PG_EPOCH_MILLIS) * 1000);
+      int8(open);
+      int8(high);
+      int8(low);
+      int8(close);
+      int8(volume);
+      if (vwap != 0) {
+        int8(vwap);
+      } else {
+        int32(-1);
+      }
+    }
+
+    /** A length-prefixed int8 field. */
+    private void int8(long v) throws IOException {
+      int32(8);
+      ensure(8);
+      for (int shift = 56; shift >= 0; shift -= 8) buf[pos++] = (byte) (v >>> shift);
+    }
+
+    void int16(short v) throws IOException {
+      ensure(2);
+      buf[pos++] = (byte) (v >>> 8);
+      buf[pos++] = (byte) v;
+    }
+
+    private void int32(int v) throws IOException {
+      ensure(4);
+      buf[pos++] = (byte) (v >>> 24);
+      buf[pos++] = (byte) (v >>> 16);
+      buf[pos++] = (byte) (v >>> 8);
+      buf[pos++] = (byte) v;
+    }
+
+    void bytes(byte[] b) throws IOException {
+      if (b.length > buf.length) {
+        flush();
+        write(b, b.length);
+        return;
+      }
+      ensure(b.length);
+      System.arraycopy(b, 0, buf, pos, b.length);
+      pos += b.length;
+    }
+
+    private void ensure(int n) throws IOException {
+      if (pos + n > buf.length) flush();
+    }
+
+    void flush() throws IOException {
+      write(buf, pos);
+      pos = 0;
+    }
+
+    private void write(byte[] b, int len) throws IOException {
+      if (len == 0) return;
+      try {
+        copyIn.writeToCopy(b, 0, len);
+      } catch (SQLException e) {
+        throw new IOException(e);
+      }
+    }
+  }
+}
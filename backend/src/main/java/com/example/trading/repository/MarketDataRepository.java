@@ -42,10 +42,10 @@ public interface MarketDataRepository extends JpaRepository<MarketData, Long> {
                                                                  @Param("timeframe") String timeframe,
                                                                  Pageable pageable);
     
-    @Query("SELECT m FROM MarketData m WHERE m.symbol = :symbol AND m.timeframe = :timeframe AND m.timestamp >= :since")
-    List<MarketData> findBySymbolAndTimeframeAndTimestampAfter(@Param("symbol") String symbol,
-                                                              @Param("timeframe") String timeframe,
-                                                              @Param("since") LocalDateTime since);
+    List<MarketData> findBySymbolAndTimeframeAndTimestampBeforeOrderByTimestampDesc(String symbol,
+                                                                                   String timeframe,
+                                                                                   LocalDateTime before,
+                                                                                   Pageable pageable);
     
     @Query("SELECT m FROM MarketData m WHERE m.symbol = :symbol AND m.timeframe = :timeframe AND m.close >= :minPrice")
     List<MarketData> findBySymbolAndTimeframeAndMinClose(@Param("symbol") String symbol,
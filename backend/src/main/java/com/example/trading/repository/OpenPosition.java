@@ -0,0 +1,25 @@
+package com.example.trading.repository;
+
+import com.example.trading.domain.Position;
+import java.math.BigDecimal;
+
+/** The fields of an open paper position that the in-memory risk and trigger indexes track. */
+public interface OpenPosition {
+    Long getId();
+
+    Long getAccountId();
+
+    String getSymbol();
+
+    Position.PositionSide getSide();
+
+    BigDecimal getVolume();
+
+    BigDecimal getOpenPrice();
+
+    BigDecimal getMargin();
+
+    BigDecimal getStopLoss();
+
+    BigDecimal getTakeProfit();
+}
@@ -59,6 +59,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.account.id = :accountId AND o.expiresAt <= :expiryTime")
     List<Order> findExpiredOrders(@Param("accountId") Long accountId, @Param("expiryTime") LocalDateTime expiryTime);
     
+    /** Keyset page of LIMIT and STOP orders still waiting to fill, with ids above {@code afterId}, in id order. */
+    @Query("SELECT o.id AS id, o.symbol AS symbol, o.type AS type, o.side AS side, o.price AS price, o.volume AS volume, " +
+           "o.filledVolume AS filledVolume, o.expiresAt AS expiresAt FROM Order o " +
+           "WHERE o.status IN ('PENDING', 'PARTIALLY_FILLED') AND o.type IN ('LIMIT', 'STOP') AND o.id > :afterId ORDER BY o.id")
+    List<RestingOrder> findRestingAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
     @Query("SELECT o FROM Order o WHERE o.account.id = :accountId ORDER BY o.createdAt DESC")
     List<Order> findByAccountIdOrderByCreatedAtDesc(@Param("accountId") Long accountId);
     
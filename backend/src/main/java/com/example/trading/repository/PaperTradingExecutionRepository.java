@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PaperTradingExecutionRepository extends JpaRepository<PaperTradingExecution, Long> {
@@ -166,4 +167,6 @@ public interface PaperTradingExecutionRepository extends JpaRepository<PaperTrad
     
     @Query("SELECT COUNT(pe) FROM PaperTradingExecution pe WHERE pe.user.id = :userId AND pe.signal = :signal")
     long countByUserIdAndSignal(@Param("userId") Long userId, @Param("signal") PaperTradingExecution.ExecutionSignal signal);
+    
+    Optional<PaperTradingExecution> findFirstByStrategyIdAndStatusOrderByIdDesc(Long strategyId, PaperTradingExecution.ExecutionStatus status);
 }
\ No newline at end of file
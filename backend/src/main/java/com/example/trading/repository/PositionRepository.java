@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -126,4 +127,14 @@ public interface PositionRepository extends JpaRepository<Position, Long> {
     List<Position> findOpenByUserIdAndSymbolAndSide(@Param("userId") Long userId, 
                                                    @Param("symbol") String symbol,
                                                    @Param("side") Position.PositionSide side);
+    
+    /** Open positions entered by the given strategies' executions, with the order and execution fetched. */
+    @Query("SELECT p FROM Position p JOIN FETCH p.order o JOIN FETCH o.execution e WHERE e.strategy.id IN :strategyIds AND p.status = 'OPEN'")
+    List<Position> findOpenByStrategyIdIn(@Param("strategyIds") Collection<Long> strategyIds);
+    
+    /** Keyset page of open positions with ids above {@code afterId}, in id order, without loading entities. */
+    @Query("SELECT p.id AS id, p.account.id AS accountId, p.symbol AS symbol, p.side AS side, p.volume AS volume, " +
+           "p.openPrice AS openPrice, p.margin AS margin, p.stopLoss AS stopLoss, p.takeProfit AS takeProfit " +
+           "FROM Position p WHERE p.status = 'OPEN' AND p.id > :afterId ORDER BY p.id")
+    List<OpenPosition> findOpenAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.example.trading.repository;
+
+import com.example.trading.domain.Trade;
+import java.math.BigDecimal;
+
+/** The fields of an open trade that the in-memory trigger index tracks. */
+public interface ProtectedTrade {
+    Long getId();
+
+    String getSymbol();
+
+    Trade.TradeSide getSide();
+
+    BigDecimal getStopLoss();
+
+    BigDecimal getTakeProfit();
+}
@@ -0,0 +1,24 @@
+package com.example.trading.repository;
+
+import com.example.trading.domain.Order;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** The fields of a resting paper order that the matching engine indexes. */
+public interface RestingOrder {
+    Long getId();
+
+    String getSymbol();
+
+    Order.OrderType getType();
+
+    Order.OrderSide getSide();
+
+    BigDecimal getPrice();
+
+    BigDecimal getVolume();
+
+    BigDecimal getFilledVolume();
+
+    LocalDateTime getExpiresAt();
+}
@@ -31,6 +31,11 @@ public interface StrategyRepository extends JpaRepository<Strategy, Long> {
     
     List<Strategy> findByType(Strategy.StrategyType type);
     
+    /** Keyset page of ACTIVE strategies configured for live paper trading, with ids above {@code afterId}. */
+    @Query("SELECT s FROM Strategy s WHERE s.status = 'ACTIVE' AND s.liveSymbol IS NOT NULL AND s.liveTimeframe IS NOT NULL " +
+           "AND s.liveAccount IS NOT NULL AND s.id > :afterId ORDER BY s.id")
+    List<Strategy> findLiveAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
     @Query("SELECT s FROM Strategy s WHERE s.user.id = :userId AND s.name LIKE %:name%")
     List<Strategy> findByUserIdAndNameContaining(@Param("userId") Long userId, @Param("name") String name);
     
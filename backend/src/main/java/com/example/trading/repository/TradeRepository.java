@@ -4,6 +4,7 @@ import com.example.trading.domain.Trade;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -131,33 +132,6 @@ public interface TradeRepository extends JpaRepository<Trade, Long> {
     @Query("SELECT COUNT(t) FROM Trade t WHERE t.strategy.id = :strategyId")
     long countByStrategyId(@Param("strategyId") Long strategyId);
     
-    @Query("SELECT COUNT(t) FROM Trade t WHERE t.account.id = :accountId AND t.status = :status")
-    long countByAccountIdAndStatus(@Param("accountId") Long accountId, @Param("status") Trade.TradeStatus status);
-    
-    @Query("SELECT COUNT(t) FROM Trade t WHERE t.user.id = :userId AND t.status = :status")
-    long countByUserIdAndStatus(@Param("userId") Long userId, @Param("status") Trade.TradeStatus status);
-    
-    @Query("SELECT COUNT(t) FROM Trade t WHERE t.strategy.id = :strategyId AND t.status = :status")
-    long countByStrategyIdAndStatus(@Param("strategyId") Long strategyId, @Param("status") Trade.TradeStatus status);
-    
-    @Query("SELECT COUNT(t) FROM Trade t WHERE t.account.id = :accountId AND t.pnl > 0")
-    long countProfitableByAccountId(@Param("accountId") Long accountId);
-    
-    @Query("SELECT COUNT(t) FROM Trade t WHERE t.user.id = :userId AND t.pnl > 0")
-    long countProfitableByUserId(@Param("userId") Long userId);
-    
-    @Query("SELECT COUNT(t) FROM Trade t WHERE t.strategy.id = :strategyId AND t.pnl > 0")
-    long countProfitableByStrategyId(@Param("strategyId") Long strategyId);
-    
-    @Query("SELECT COUNT(t) FROM Trade t WHERE t.account.id = :accountId AND t.pnl < 0")
-    long countLosingByAccountId(@Param("accountId") Long accountId);
-    
-    @Query("SELECT COUNT(t) FROM Trade t WHERE t.user.id = :userId AND t.pnl < 0")
-    long countLosingByUserId(@Param("userId") Long userId);
-    
-    @Query("SELECT COUNT(t) FROM Trade t WHERE t.strategy.id = :strategyId AND t.pnl < 0")
-    long countLosingByStrategyId(@Param("strategyId") Long strategyId);
-    
     @Query("SELECT t FROM Trade t WHERE t.account.id = :accountId AND t.symbol = :symbol AND t.side = :side")
     List<Trade> findByAccountIdAndSymbolAndSide(@Param("accountId") Long accountId, 
                                                @Param("symbol") String symbol,
@@ -172,4 +146,52 @@ public interface TradeRepository extends JpaRepository<Trade, Long> {
     List<Trade> findByStrategyIdAndSymbolAndSide(@Param("strategyId") Long strategyId, 
                                                 @Param("symbol") String symbol,
                                                 @Param("side") Trade.TradeSide side);
-}
\ No newline at end of file
+    
+    // Closes the trade only if it is still open; a 0 return means another request closed it first
+    @Modifying
+    @Query("UPDATE Trade t SET t.status = com.example.trading.domain.Trade.TradeStatus.CLOSED, "
+            + "t.closePrice = :closePrice, t.closeTime = :closeTime, t.durationMinutes = :durationMinutes, "
+            + "t.pnl = :pnl, t.pnlPercent = :pnlPercent "
+            + "WHERE t.id = :id AND t.status = com.example.trading.domain.Trade.TradeStatus.OPEN")
+    int closeIfOpen(@Param("id") Long id,
+                    @Param("closePrice") BigDecimal closePrice,
+                    @Param("closeTime") LocalDateTime closeTime,
+                    @Param("durationMinutes") Long durationMinutes,
+                    @Param("pnl") BigDecimal pnl,
+                    @Param("pnlPercent") BigDecimal pnlPercent);
+    
+    // Open trades with a stop-loss or take-profit, in id order for keyset paging
+    @Query("SELECT t.id AS id, t.symbol AS symbol, t.side AS side, t.stopLoss AS stopLoss, t.takeProfit AS takeProfit "
+            + "FROM Trade t WHERE t.status = com.example.trading.domain.Trade.TradeStatus.OPEN "
+            + "AND (t.stopLoss IS NOT NULL OR t.takeProfit IS NOT NULL) AND t.id > :afterId ORDER BY t.id")
+    List<ProtectedTrade> findProtectedOpenAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Counts, win/loss split and realized PnL of a scope in one pass
+    String TRADE_STATS_SELECT = "SELECT COUNT(t) AS total, "
+            + "COALESCE(SUM(CASE WHEN t.status = com.example.trading.domain.Trade.TradeStatus.OPEN THEN 1 ELSE 0 END), 0) AS open, "
+            + "COALESCE(SUM(CASE WHEN t.status = com.example.trading.domain.Trade.TradeStatus.CLOSED THEN 1 ELSE 0 END), 0) AS closed, "
+            + "COALESCE(SUM(CASE WHEN t.status = com.example.trading.domain.Trade.TradeStatus.CLOSED AND t.pnl > 0 THEN 1 ELSE 0 END), 0) AS winning, "
+            + "COALESCE(SUM(CASE WHEN t.status = com.example.trading.domain.Trade.TradeStatus.CLOSED AND t.pnl < 0 THEN 1 ELSE 0 END), 0) AS losing, "
+            + "COALESCE(SUM(CASE WHEN t.status = com.example.trading.domain.Trade.TradeStatus.CLOSED THEN t.pnl ELSE 0 END), 0) AS realizedPnl, "
+            + "COALESCE(SUM(CASE WHEN t.status = com.example.trading.domain.Trade.TradeStatus.CLOSED AND t.pnl > 0 THEN t.pnl ELSE 0 END), 0) AS grossProfit, "
+            + "COALESCE(SUM(CASE WHEN t.status = com.example.trading.domain.Trade.TradeStatus.CLOSED AND t.pnl < 0 THEN t.pnl ELSE 0 END), 0) AS grossLoss "
+            + "FROM Trade t ";
+    
+    @Query(TRADE_STATS_SELECT + "WHERE t.user.id = :userId")
+    TradeStats statsByUserId(@Param("userId") Long userId);
+    
+    String TRADE_SUMMARY_SELECT = "SELECT t.id AS id, t.symbol AS symbol, t.side AS type, t.status AS status, "
+            + "t.volume AS volume, t.openPrice AS openPrice, t.closePrice AS closePrice, t.pnl AS finalPnl, "
+            + "t.openTime AS openTime, t.closeTime AS closeTime FROM Trade t WHERE t.user.id = :userId ";
+    
+    // Keyset pagination over (openTime DESC, id DESC), backed by idx_trades_user_open_time_id;
+    // pass PageRequest.of(0, limit) for the row limit
+    @Query(TRADE_SUMMARY_SELECT + "ORDER BY t.openTime DESC, t.id DESC")
+    List<TradeSummary> findSummariesByUserId(@Param("userId") Long userId, Pageable limit);
+    
+    @Query(TRADE_SUMMARY_SELECT + "AND (t.openTime, t.id) < (:openTime, :id) ORDER BY t.openTime DESC, t.id DESC")
+    List<TradeSummary> findSummariesByUserIdBefore(@Param("userId") Long userId,
+                                                   @Param("openTime") LocalDateTime openTime,
+                                                   @Param("id") Long id,
+                                                   Pageable limit);
+}
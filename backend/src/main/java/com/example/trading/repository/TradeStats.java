@@ -0,0 +1,22 @@
+package com.example.trading.repository;
+
+import java.math.BigDecimal;
+
+/** Counts and PnL sums over one scope's trades, computed in a single grouped query. */
+public interface TradeStats {
+    long getTotal();
+
+    long getOpen();
+
+    long getClosed();
+
+    long getWinning();
+
+    long getLosing();
+
+    BigDecimal getRealizedPnl();
+
+    BigDecimal getGrossProfit();
+
+    BigDecimal getGrossLoss();
+}
@@ -0,0 +1,28 @@
+package com.example.trading.repository;
+
+import com.example.trading.domain.Trade;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Slim read-only view of a trade row for list endpoints. */
+public interface TradeSummary {
+    Long getId();
+
+    String getSymbol();
+
+    Trade.TradeSide getType();
+
+    Trade.TradeStatus getStatus();
+
+    BigDecimal getVolume();
+
+    BigDecimal getOpenPrice();
+
+    BigDecimal getClosePrice();
+
+    BigDecimal getFinalPnl();
+
+    LocalDateTime getOpenTime();
+
+    LocalDateTime getCloseTime();
+}
@@ -0,0 +1,72 @@
+package com.example.trading.repository;
+
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Retry policy for the single-writer batch pipelines. A batch that fails because the database
+ * is unreachable, timed out or lost a lock race is retried on the writer thread with
+ * exponential backoff until it lands, which also holds back the batches queued behind it, so
+ * writes stay in order. Any other failure is logged with the batch's context and reported to
+ * the caller, which decides what to do with the rows.
+ */
+public final class WriteRetry {
+  private static final Logger log = LoggerFactory.getLogger(WriteRetry.class);
+
+  private final String name;
+  private final long initialMillis;
+  private final long maxMillis;
+
+  public WriteRetry(String name, Duration initialBackoff, Duration maxBackoff) {
+    this.name = name;
+    this.initialMillis = Math.max(1, initialBackoff.toMillis());
+    this.maxMillis = Math.max(initialMillis, maxBackoff.toMillis());
+  }
+
+  public WriteRetry(String name) {
+    this(name, Duration.ofMillis(100), Duration.ofSeconds(10));
+  }
+
+  /**
+   * Runs {@code write}, retrying transient failures. Returns false when the batch failed
+   * permanently or the writer thread was interrupted while backing off.
+   */
+  public boolean run(int rows, Runnable write) {
+    long backoff = initialMillis;
+    for (int attempt = 1; ; attempt++) {
+      try {
+        write.run();
+        if (attempt > 1) log.info("{}: batch of {} rows written after {} attempts", name, rows, attempt);
+        return true;
+      } catch (DataAccessException | TransactionException e) {
+        if (!isTransient(e)) {
+          log.error("{}: batch of {} rows failed permanently and was not written", name, rows, e);
+          return false;
+        }
+        log.warn("{}: batch of {} rows failed (attempt {}), retrying in {} ms: {}", name, rows, attempt, backoff, e.getMessage());
+        try {
+          Thread.sleep(backoff);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          log.error("{}: interrupted while retrying a batch of {} rows; it was not written", name, rows, e);
+          return false;
+        }
+        backoff = Math.min(backoff * 2, maxMillis);
+      }
+    }
+  }
+
+  static boolean isTransient(RuntimeException e) {
+    return e instanceof TransientDataAccessException
+      || e instanceof RecoverableDataAccessException
+      || e instanceof DataAccessResourceFailureException
+      || e instanceof CannotCreateTransactionException;
+  }
+}
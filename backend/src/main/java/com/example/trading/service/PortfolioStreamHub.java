@@ -0,0 +1,221 @@
+package com.example.trading.service;
+
+import com.example.trading.market.PriceTick;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.service.PortfolioService.PortfolioSnapshot;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Fan-out hub for portfolio SSE streams. A snapshot is recomputed once per user when a
+ * price tick for one of their open symbols or a trade change arrives, then offered to
+ * every emitter that user has open. All work runs on one fixed worker pool, so thread
+ * count does not grow with the number of connections.
+ */
+@Service
+public class PortfolioStreamHub {
+  private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(10);
+
+  private final PortfolioService portfolioService;
+  private final PriceTickPublisher tickPublisher;
+  private final ExecutorService workers;
+  private final int queueCapacity;
+  private final int maxDropped;
+
+  private final Map<UUID, UserStream> streams = new ConcurrentHashMap<>();
+  private final Map<String, Set<UUID>> usersBySymbol = new ConcurrentHashMap<>();
+
+  public PortfolioStreamHub(
+    PortfolioService portfolioService,
+    PriceTickPublisher tickPublisher,
+    @Value("${portfolio.stream.workers:4}") int workerCount,
+    @Value("${portfolio.stream.queue-capacity:2}") int queueCapacity,
+    @Value("${portfolio.stream.max-dropped:50}") int maxDropped
+  ) {
+    this.portfolioService = portfolioService;
+    this.tickPublisher = tickPublisher;
+    this.queueCapacity = queueCapacity;
+    this.maxDropped = maxDropped;
+    AtomicInteger n = new AtomicInteger();
+    this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+      Thread t = new Thread(r, "portfolio-stream-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  public SseEmitter subscribe(UUID userId) {
+    SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+    Subscriber sub = new Subscriber(emitter, new ArrayBlockingQueue<>(queueCapacity));
+    UserStream stream = join(userId, sub);
+
+    emitter.onCompletion(() -> unsubscribe(stream, sub));
+    emitter.onTimeout(() -> unsubscribe(stream, sub));
+    emitter.onError(e -> unsubscribe(stream, sub));
+
+    if (stream.symbolsLoaded.compareAndSet(false, true)) {
+      refreshSymbols(stream);
+    }
+    requestRecompute(stream);
+    return emitter;
+  }
+
+  private UserStream join(UUID userId, Subscriber sub) {
+    while (true) {
+      UserStream stream = streams.computeIfAbsent(userId, UserStream::new);
+      stream.subscribers.add(sub);
+      // The last subscriber may have retired this stream concurrently; retry on a fresh one
+      if (streams.get(userId) == stream) return stream;
+      stream.subscribers.remove(sub);
+    }
+  }
+
+  /** Called after a trade is opened or closed so the user's symbol set and snapshot refresh. */
+  public void tradeChanged(UUID userId) {
+    UserStream stream = streams.get(userId);
+    if (stream == null) return;
+    refreshSymbols(stream);
+    requestRecompute(stream);
+  }
+
+  @EventListener
+  public void onPriceTick(PriceTick tick) {
+    Set<UUID> users = usersBySymbol.get(tick.symbol());
+    if (users == null) return;
+    for (UUID userId : users) {
+      UserStream stream = streams.get(userId);
+      if (stream != null) requestRecompute(stream);
+    }
+  }
+
+  private void requestRecompute(UserStream stream) {
+    // Coalesces bursts of ticks into a single recompute per user
+    if (!stream.recomputeQueued.compareAndSet(false, true)) return;
+    workers.execute(() -> {
+      stream.recomputeQueued.set(false);
+      if (stream.subscribers.isEmpty()) return;
+      portfolioService.getRealtimeSnapshotAsync(stream.userId)
+        .thenAccept(snapshot -> {
+          for (Subscriber sub : stream.subscribers) offer(stream, sub, snapshot);
+        });
+    });
+  }
+
+  private void offer(UserStream stream, Subscriber sub, PortfolioSnapshot snapshot) {
+    // Slow consumer: replace the stale pending snapshot, and cut the stream off if it never catches up
+    while (!sub.queue.offer(snapshot)) {
+      sub.queue.poll();
+      if (sub.dropped.incrementAndGet() > maxDropped) {
+        unsubscribe(stream, sub);
+        sub.emitter.complete();
+        return;
+      }
+    }
+    if (sub.draining.compareAndSet(false, true)) {
+      workers.execute(() -> drain(stream, sub));
+    }
+  }
+
+  private void drain(UserStream stream, Subscriber sub) {
+    try {
+      PortfolioSnapshot next;
+      while ((next = sub.queue.poll()) != null) {
+        sub.emitter.send(SseEmitter.event().name("snapshot").data(next));
+        sub.dropped.set(0);
+      }
+    } catch (IOException | IllegalStateException e) {
+      unsubscribe(stream, sub);
+      sub.emitter.completeWithError(e);
+      return;
+    } finally {
+      sub.draining.set(false);
+    }
+    if (!sub.queue.isEmpty() && sub.draining.compareAndSet(false, true)) {
+      workers.execute(() -> drain(stream, sub));
+    }
+  }
+
+  private void unsubscribe(UserStream stream, Subscriber sub) {
+    stream.subscribers.remove(sub);
+    sub.queue.clear();
+    if (stream.subscribers.isEmpty() && streams.remove(stream.userId, stream)) {
+      synchronized (stream) {
+        updateSymbols(stream, Set.of());
+      }
+    }
+  }
+
+  /** Applies the user's open symbols once the book has them; an older refresh never overwrites a newer one. */
+  private void refreshSymbols(UserStream stream) {
+    long generation = stream.symbolsGeneration.incrementAndGet();
+    portfolioService.getOpenSymbolsAsync(stream.userId).thenAcceptAsync(symbols -> {
+      synchronized (stream) {
+        if (streams.get(stream.userId) == stream && stream.symbolsGeneration.get() == generation) {
+          updateSymbols(stream, symbols);
+        }
+      }
+    }, workers);
+  }
+
+  private void updateSymbols(UserStream stream, Set<String> symbols) {
+    for (String symbol : stream.symbols) {
+      if (symbols.contains(symbol)) continue;
+      usersBySymbol.computeIfPresent(symbol, (s, users) -> {
+        users.remove(stream.userId);
+        return users.isEmpty() ? null : users;
+      });
+      tickPublisher.unwatch(symbol);
+    }
+    for (String symbol : symbols) {
+      if (stream.symbols.contains(symbol)) continue;
+      usersBySymbol.computeIfAbsent(symbol, s -> ConcurrentHashMap.newKeySet()).add(stream.userId);
+      tickPublisher.watch(symbol);
+    }
+    stream.symbols = Set.copyOf(symbols);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    workers.shutdownNow();
+    for (UserStream stream : streams.values()) {
+      for (Subscriber sub : stream.subscribers) sub.emitter.complete();
+    }
+  }
+
+  private static final class UserStream {
+    final UUID userId;
+    final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    final AtomicBoolean recomputeQueued = new AtomicBoolean();
+    final AtomicBoolean symbolsLoaded = new AtomicBoolean();
+    final AtomicLong symbolsGeneration = new AtomicLong();
+    volatile Set<String> symbols = Set.of();
+
+    UserStream(UUID userId) {
+      this.userId = userId;
+    }
+  }
+
+  private record Subscriber(SseEmitter emitter, BlockingQueue<PortfolioSnapshot> queue, AtomicBoolean draining, AtomicInteger dropped) {
+    Subscriber(SseEmitter emitter, BlockingQueue<PortfolioSnapshot> queue) {
+      this(emitter, queue, new AtomicBoolean(), new AtomicInteger());
+    }
+  }
+}
@@ -0,0 +1,338 @@
+package com.example.trading.service;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.Portfolio;
+import com.example.trading.domain.Trade;
+import com.example.trading.market.MarketDataService;
+import com.example.trading.market.PriceTick;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.repository.PortfolioRepository;
+import com.example.trading.repository.TradeRepository;
+import com.example.trading.repository.UserRepository;
+import com.example.trading.service.PortfolioService.PortfolioSnapshot;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-user book of open positions, marked to market as price ticks arrive. A user's book is
+ * seeded from the database on first access, on a {@code portfolio.book.seed-threads} pool so the
+ * reader only gets a future, and afterwards kept current by trade opens and closes, so building
+ * a snapshot touches neither the database nor the quote API. Books not
+ * read for {@code portfolio.book.idle-timeout} are dropped and stop watching their symbols; the
+ * next read seeds them again.
+ */
+@Component
+public class PositionBook {
+  private final TradeRepository tradeRepository;
+  private final PortfolioRepository portfolioRepository;
+  private final UserRepository userRepository;
+  private final MarketDataService marketDataService;
+  private final PriceTickPublisher tickPublisher;
+  private final long idleNanos;
+
+  // Keyed by the Supabase user id (JWT subject); trades hang off the matching User row
+  private final Map<UUID, CompletableFuture<UserBook>> books = new ConcurrentHashMap<>();
+  private final Map<String, Set<UserBook>> booksBySymbol = new ConcurrentHashMap<>();
+  private final ExecutorService seeders;
+  private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "position-book-sweeper");
+    t.setDaemon(true);
+    return t;
+  });
+
+  public PositionBook(
+    TradeRepository tradeRepository,
+    PortfolioRepository portfolioRepository,
+    UserRepository userRepository,
+    MarketDataService marketDataService,
+    PriceTickPublisher tickPublisher,
+    @Value("${portfolio.book.idle-timeout:PT30M}") Duration idleTimeout,
+    @Value("${portfolio.book.seed-threads:4}") int seedThreads
+  ) {
+    this.tradeRepository = tradeRepository;
+    this.portfolioRepository = portfolioRepository;
+    this.userRepository = userRepository;
+    this.marketDataService = marketDataService;
+    this.tickPublisher = tickPublisher;
+    this.idleNanos = idleTimeout.toNanos();
+    AtomicInteger n = new AtomicInteger();
+    this.seeders = Executors.newFixedThreadPool(seedThreads, r -> {
+      Thread t = new Thread(r, "position-book-seed-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    long sweepMillis = Math.max(1000L, idleTimeout.toMillis() / 4);
+    sweeper.scheduleWithFixedDelay(this::evictIdle, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public CompletableFuture<PortfolioSnapshot> snapshot(UUID userId) {
+    return book(userId).thenApply(UserBook::snapshot);
+  }
+
+  public CompletableFuture<Set<String>> openSymbols(UUID userId) {
+    return book(userId).thenApply(UserBook::symbols);
+  }
+
+  public void opened(UUID userId, Trade trade) {
+    CompletableFuture<UserBook> book = books.get(userId);
+    if (book == null) return;
+    Portfolio portfolio = portfolioRepository.findByUserId(userId).orElse(null);
+    OpenPosition position = OpenPosition.of(trade);
+    long last = FixedPoint.fromBigDecimal(trade.getOpenPrice());
+    book.thenAccept(b -> {
+      b.setPortfolio(portfolio);
+      b.open(position, last);
+    });
+  }
+
+  public void closed(UUID userId, Trade trade) {
+    CompletableFuture<UserBook> book = books.get(userId);
+    if (book == null) return;
+    Portfolio portfolio = portfolioRepository.findByUserId(userId).orElse(null);
+    Long tradeId = trade.getId();
+    book.thenAccept(b -> {
+      b.setPortfolio(portfolio);
+      b.close(tradeId);
+    });
+  }
+
+  // Runs before other tick listeners so they observe already-marked books
+  @EventListener
+  @Order(0)
+  public void onPriceTick(PriceTick tick) {
+    Set<UserBook> holders = booksBySymbol.get(tick.symbol());
+    if (holders == null) return;
+    long price = FixedPoint.fromBigDecimal(tick.price());
+    for (UserBook book : holders) book.mark(tick.symbol(), price);
+  }
+
+  private CompletableFuture<UserBook> book(UUID userId) {
+    CompletableFuture<UserBook> existing = books.get(userId);
+    if (existing == null) {
+      CompletableFuture<UserBook> mine = new CompletableFuture<>();
+      existing = books.putIfAbsent(userId, mine);
+      if (existing == null) {
+        try {
+          seeders.execute(() -> {
+            try {
+              seed(userId, mine);
+            } catch (RuntimeException e) {
+              books.remove(userId, mine);
+              mine.completeExceptionally(e);
+            }
+          });
+        } catch (RuntimeException e) {
+          // Rejected during shutdown
+          books.remove(userId, mine);
+          mine.completeExceptionally(e);
+        }
+        existing = mine;
+      }
+    }
+    return existing.thenApply(UserBook::touch);
+  }
+
+  private void seed(UUID userId, CompletableFuture<UserBook> into) {
+    UserBook book = new UserBook(portfolioRepository.findByUserId(userId).orElse(null));
+    Long id = userRepository.findByAuthSubject(userId).map(u -> u.getId()).orElse(null);
+    List<OpenPosition> open = new ArrayList<>();
+    if (id != null) {
+      for (Trade trade : tradeRepository.findByUserIdAndStatus(id, Trade.TradeStatus.OPEN)) open.add(OpenPosition.of(trade));
+    }
+    Set<String> symbols = new HashSet<>();
+    for (OpenPosition position : open) symbols.add(position.symbol());
+
+    CompletableFuture<Map<String, BigDecimal>> prices = symbols.isEmpty()
+      ? CompletableFuture.completedFuture(Map.of())
+      : marketDataService.getLastPricesAsync(symbols);
+    prices.whenComplete((last, ex) -> {
+      try {
+        if (ex != null) throw ex instanceof RuntimeException r ? r : new IllegalStateException(ex);
+        for (OpenPosition position : open) {
+          BigDecimal price = last.get(position.symbol());
+          book.open(position, price != null ? FixedPoint.fromBigDecimal(price) : 0L);
+        }
+        into.complete(book);
+      } catch (RuntimeException e) {
+        // Never leave readers waiting on a book that will not be seeded
+        books.remove(userId, into);
+        book.evict();
+        into.completeExceptionally(e);
+      }
+    });
+  }
+
+  private void evictIdle() {
+    long now = System.nanoTime();
+    for (var e : books.entrySet()) {
+      CompletableFuture<UserBook> future = e.getValue();
+      UserBook book = future.getNow(null);
+      if (book == null || now - book.lastAccess < idleNanos) continue;
+      if (books.remove(e.getKey(), future)) book.evict();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sweeper.shutdownNow();
+    seeders.shutdownNow();
+  }
+
+  private void watch(String symbol, UserBook book) {
+    booksBySymbol.computeIfAbsent(symbol, s -> ConcurrentHashMap.newKeySet()).add(book);
+    tickPublisher.watch(symbol);
+  }
+
+  private void unwatch(String symbol, UserBook book) {
+    booksBySymbol.computeIfPresent(symbol, (s, holders) -> {
+      holders.remove(book);
+      return holders.isEmpty() ? null : holders;
+    });
+    tickPublisher.unwatch(symbol);
+  }
+
+  // Prices, volumes and PnL are FixedPoint-scaled longs; BigDecimal only appears in snapshots
+  private record OpenPosition(Long tradeId, String symbol, boolean isLong, long openPrice, long volume) {
+    static OpenPosition of(Trade trade) {
+      return new OpenPosition(
+        trade.getId(),
+        trade.getSymbol(),
+        trade.isLong(),
+        FixedPoint.fromBigDecimal(trade.getOpenPrice()),
+        FixedPoint.fromBigDecimal(trade.getVolume())
+      );
+    }
+
+    long pnlAt(long last) {
+      if (last <= 0) return 0L;
+      long priceDiff = isLong ? FixedPoint.subtract(last, openPrice) : FixedPoint.subtract(openPrice, last);
+      return FixedPoint.round(FixedPoint.multiply(priceDiff, volume), 2);
+    }
+  }
+
+  private static final class SymbolBucket {
+    final List<OpenPosition> positions = new ArrayList<>();
+    long last;
+    long pnl;
+  }
+
+  private final class UserBook {
+    private final Map<Long, OpenPosition> positions = new HashMap<>();
+    private final Map<String, SymbolBucket> buckets = new HashMap<>();
+    private long unrealizedPnl;
+    private Portfolio portfolio;
+    private boolean evicted;
+    volatile long lastAccess = System.nanoTime();
+
+    UserBook(Portfolio portfolio) {
+      this.portfolio = portfolio;
+    }
+
+    synchronized void setPortfolio(Portfolio portfolio) {
+      this.portfolio = portfolio;
+    }
+
+    UserBook touch() {
+      lastAccess = System.nanoTime();
+      return this;
+    }
+
+    /**
+     * Releases the book's symbol watches. A reader that fetched the book just before it was
+     * dropped still sees its last marks; later opens and closes on it are ignored.
+     */
+    synchronized void evict() {
+      if (evicted) return;
+      evicted = true;
+      for (String symbol : buckets.keySet()) unwatch(symbol, this);
+    }
+
+    synchronized void open(OpenPosition position, long last) {
+      if (evicted) return;
+      close(position.tradeId());
+      positions.put(position.tradeId(), position);
+      SymbolBucket bucket = buckets.get(position.symbol());
+      if (bucket == null) {
+        bucket = new SymbolBucket();
+        buckets.put(position.symbol(), bucket);
+        watch(position.symbol(), this);
+      }
+      bucket.positions.add(position);
+      if (last > 0) bucket.last = last;
+      long pnl = position.pnlAt(bucket.last);
+      bucket.pnl = FixedPoint.add(bucket.pnl, pnl);
+      unrealizedPnl = FixedPoint.add(unrealizedPnl, pnl);
+    }
+
+    synchronized void close(Long tradeId) {
+      if (evicted) return;
+      OpenPosition position = positions.remove(tradeId);
+      if (position == null) return;
+      SymbolBucket bucket = buckets.get(position.symbol());
+      bucket.positions.remove(position);
+      long pnl = position.pnlAt(bucket.last);
+      bucket.pnl = FixedPoint.subtract(bucket.pnl, pnl);
+      unrealizedPnl = FixedPoint.subtract(unrealizedPnl, pnl);
+      if (bucket.positions.isEmpty()) {
+        buckets.remove(position.symbol());
+        unwatch(position.symbol(), this);
+      }
+    }
+
+    synchronized void mark(String symbol, long last) {
+      SymbolBucket bucket = buckets.get(symbol);
+      if (bucket == null || last <= 0) return;
+      long pnl = 0L;
+      for (OpenPosition position : bucket.positions) pnl = FixedPoint.add(pnl, position.pnlAt(last));
+      unrealizedPnl = FixedPoint.add(unrealizedPnl, FixedPoint.subtract(pnl, bucket.pnl));
+      bucket.pnl = pnl;
+      bucket.last = last;
+    }
+
+    synchronized Set<String> symbols() {
+      return Set.copyOf(buckets.keySet());
+    }
+
+    synchronized PortfolioSnapshot snapshot() {
+      BigDecimal balance = portfolio != null ? portfolio.getBalance() : BigDecimal.ZERO;
+      BigDecimal margin = portfolio != null ? portfolio.getMargin() : BigDecimal.ZERO;
+      BigDecimal pnl = FixedPoint.toBigDecimal(unrealizedPnl, 2);
+      long equity = FixedPoint.add(FixedPoint.fromBigDecimal(balance), unrealizedPnl);
+      long used = FixedPoint.fromBigDecimal(margin);
+      // Equity over used margin in percent, as on paper accounts; 0 while no margin is in use
+      BigDecimal marginLevel = BigDecimal.ZERO;
+      if (used > 0) {
+        long level = FixedPoint.round(FixedPoint.divide(equity, used), 4);
+        marginLevel = FixedPoint.toBigDecimal(FixedPoint.multiply(level, FixedPoint.of(100)), 2);
+      }
+      return new PortfolioSnapshot(
+        portfolio != null ? portfolio.getInitialBalance() : BigDecimal.ZERO,
+        balance,
+        balance.add(pnl),
+        margin,
+        portfolio != null ? balance.subtract(margin) : BigDecimal.ZERO,
+        marginLevel,
+        pnl
+      );
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.example.trading.service;
+
+import com.example.trading.domain.Trade;
+import java.math.BigDecimal;
+
+/** Published once a trade has been opened or closed and committed; {@code userId} is the owner's row id. */
+public record TradeChange(Long tradeId, Long userId, String symbol, Trade.TradeSide side, BigDecimal stopLoss,
+                          BigDecimal takeProfit, boolean open) {
+
+  public static TradeChange of(Trade t) {
+    return new TradeChange(t.getId(), t.getUser() != null ? t.getUser().getId() : null, t.getSymbol(), t.getSide(),
+      t.getStopLoss(), t.getTakeProfit(), t.getStatus() == Trade.TradeStatus.OPEN);
+  }
+}
@@ -0,0 +1,89 @@
+package com.example.trading.service;
+
+import com.example.trading.cache.TtlCache;
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.repository.TradeRepository;
+import com.example.trading.repository.TradeStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * A user's trade statistics from one grouped query, cached per user for
+ * {@code trading.api.trades.stats.ttl}. Every {@link TradeChange}, whichever writer opened or
+ * closed the trade, invalidates the owner's entry; a query that raced with an invalidation returns its result without
+ * caching it, so a stale count is never stored.
+ */
+@Service
+public class TradeStatsService {
+  private final TradeRepository tradeRepository;
+  // Keyed by the user's row id
+  private final TtlCache<Long, Stats> cache;
+
+  private final Counter hits;
+  private final Counter misses;
+
+  public TradeStatsService(
+    TradeRepository tradeRepository,
+    MeterRegistry meterRegistry,
+    @Value("${trading.api.trades.stats.ttl:PT30S}") Duration ttl,
+    @Value("${trading.api.trades.stats.max-size:10000}") int maxSize
+  ) {
+    this.tradeRepository = tradeRepository;
+    this.cache = new TtlCache<Long, Stats>(ttl, maxSize).bindTo(meterRegistry, "trades.stats.cache");
+    this.hits = Counter.builder("trades.stats.cache").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("trades.stats.cache").tag("result", "miss").register(meterRegistry);
+  }
+
+  /** {@code winRate} is winning over closed trades in percent, 0 before the first close. */
+  public record Stats(
+    long total,
+    long open,
+    long closed,
+    long winning,
+    long losing,
+    BigDecimal winRate,
+    BigDecimal realizedPnl,
+    BigDecimal grossProfit,
+    BigDecimal grossLoss
+  ) {}
+
+  public static final Stats EMPTY = new Stats(0, 0, 0, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+
+  public Stats stats(Long userId) {
+    long now = System.nanoTime();
+    Stats cached = cache.get(userId, now);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    long epoch = cache.epoch();
+    Stats stats = toStats(tradeRepository.statsByUserId(userId));
+    cache.putIfCurrent(userId, stats, now, epoch);
+    return stats;
+  }
+
+  public void invalidate(Long userId) {
+    cache.invalidate(userId);
+  }
+
+  @EventListener
+  public void onTradeChange(TradeChange change) {
+    if (change.userId() != null) invalidate(change.userId());
+  }
+
+  private static Stats toStats(TradeStats s) {
+    BigDecimal winRate = BigDecimal.ZERO;
+    if (s.getClosed() > 0) {
+      long ratio = FixedPoint.divide(FixedPoint.of(s.getWinning() * 100), FixedPoint.of(s.getClosed()));
+      winRate = FixedPoint.toBigDecimal(FixedPoint.round(ratio, 2), 2);
+    }
+    return new Stats(s.getTotal(), s.getOpen(), s.getClosed(), s.getWinning(), s.getLosing(), winRate,
+      s.getRealizedPnl(), s.getGrossProfit(), s.getGrossLoss());
+  }
+}
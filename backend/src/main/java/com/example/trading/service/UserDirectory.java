@@ -0,0 +1,49 @@
+package com.example.trading.service;
+
+import com.example.trading.config.SecurityConfig.CurrentUser;
+import com.example.trading.domain.User;
+import com.example.trading.repository.UserRepository;
+import java.util.UUID;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maps the Supabase user behind a JWT to its {@link User} row, creating the row on the user's
+ * first write. Credentials stay in Supabase, so provisioned rows carry no usable password.
+ */
+@Service
+public class UserDirectory {
+  private final UserRepository userRepository;
+
+  public UserDirectory(UserRepository userRepository) {
+    this.userRepository = userRepository;
+  }
+
+  public static UUID subject(Jwt jwt) {
+    return UUID.fromString(CurrentUser.getUserId(jwt));
+  }
+
+  /** The user's row id, or null before their first write. */
+  public Long findUserId(UUID subject) {
+    return userRepository.findByAuthSubject(subject).map(User::getId).orElse(null);
+  }
+
+  public User resolve(Jwt jwt) {
+    UUID subject = subject(jwt);
+    User existing = userRepository.findByAuthSubject(subject).orElse(null);
+    if (existing != null) return existing;
+    User user = new User();
+    user.setAuthSubject(subject);
+    // Username and email are unique; derive both from the subject rather than trusting claims
+    user.setUsername(subject.toString());
+    user.setEmail(subject + "@users.invalid");
+    user.setPassword("!");
+    try {
+      return userRepository.saveAndFlush(user);
+    } catch (DataIntegrityViolationException e) {
+      // Another request provisioned the same subject first
+      return userRepository.findByAuthSubject(subject).orElseThrow(() -> e);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.trading.web;
+
+import com.example.trading.alert.AlertStreamHub;
+import com.example.trading.service.UserDirectory;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/alerts")
+public class AlertController {
+  private final AlertStreamHub streamHub;
+
+  public AlertController(AlertStreamHub streamHub) {
+    this.streamHub = streamHub;
+  }
+
+  /** In-app notification stream: one {@code alert} event per WEB_NOTIFICATION trigger. */
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(@AuthenticationPrincipal Jwt jwt) {
+    return streamHub.subscribe(UserDirectory.subject(jwt));
+  }
+}
@@ -0,0 +1,94 @@
+package com.example.trading.web;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.MarketData;
+import com.example.trading.market.Candle;
+import com.example.trading.market.CandleStore;
+import com.example.trading.repository.MarketDataRepository;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/market-data")
+public class MarketDataController {
+  private final CandleStore candleStore;
+  private final MarketDataRepository marketDataRepository;
+  private final int defaultLimit;
+  private final int maxLimit;
+
+  public MarketDataController(
+    CandleStore candleStore,
+    MarketDataRepository marketDataRepository,
+    @Value("${market.data.candles.api.default-limit:500}") int defaultLimit,
+    @Value("${market.data.candles.api.max-limit:5000}") int maxLimit
+  ) {
+    this.candleStore = candleStore;
+    this.marketDataRepository = marketDataRepository;
+    this.defaultLimit = defaultLimit;
+    this.maxLimit = maxLimit;
+  }
+
+  public record CandleBar(
+    LocalDateTime timestamp,
+    BigDecimal open,
+    BigDecimal high,
+    BigDecimal low,
+    BigDecimal close,
+    BigDecimal volume,
+    BigDecimal vwap
+  ) {}
+
+  /**
+   * Bars before {@code before} (latest when omitted), oldest first. The recent window is
+   * answered from {@link CandleStore}; only deep history goes to {@code market_data}.
+   */
+  @GetMapping("/candles")
+  public List<CandleBar> candles(
+    @RequestParam String symbol,
+    @RequestParam String timeframe,
+    @RequestParam(required = false) Integer limit,
+    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant before
+  ) {
+    int size = Math.max(1, Math.min(limit != null ? limit : defaultLimit, maxLimit));
+    List<Candle> recent = candleStore.window(symbol, timeframe, before != null ? before.toEpochMilli() : null, size);
+    if (recent != null) {
+      List<CandleBar> out = new ArrayList<>(recent.size());
+      for (Candle c : recent) out.add(toBar(c));
+      return out;
+    }
+
+    PageRequest page = PageRequest.of(0, size);
+    List<MarketData> rows = before == null
+      ? marketDataRepository.findBySymbolAndTimeframeOrderByTimestampDesc(symbol, timeframe, page).getContent()
+      : marketDataRepository.findBySymbolAndTimeframeAndTimestampBeforeOrderByTimestampDesc(
+          symbol, timeframe, LocalDateTime.ofInstant(before, ZoneOffset.UTC), page);
+    List<CandleBar> out = new ArrayList<>(rows.size());
+    for (int i = rows.size() - 1; i >= 0; i--) {
+      MarketData m = rows.get(i);
+      out.add(new CandleBar(m.getTimestamp(), m.getOpen(), m.getHigh(), m.getLow(), m.getClose(), m.getVolume(), m.getVwap()));
+    }
+    return out;
+  }
+
+  private static CandleBar toBar(Candle c) {
+    return new CandleBar(
+      LocalDateTime.ofInstant(Instant.ofEpochMilli(c.openTime()), ZoneOffset.UTC),
+      FixedPoint.toBigDecimal(c.open()),
+      FixedPoint.toBigDecimal(c.high()),
+      FixedPoint.toBigDecimal(c.low()),
+      FixedPoint.toBigDecimal(c.close()),
+      FixedPoint.toBigDecimal(c.volume()),
+      FixedPoint.toBigDecimal(c.vwap())
+    );
+  }
+}
@@ -1,42 +1,44 @@
 package com.example.trading.web;
 
 import com.example.trading.config.SecurityConfig.CurrentUser;
-import com.example.trading.domain.Trade;
-import com.example.trading.repository.TradeRepository;
+import com.example.trading.domain.DailyPnlRollup;
+import com.example.trading.repository.DailyPnlRollupRepository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.*;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api/performance")
 public class PerformanceController {
-  private final TradeRepository tradeRepository;
+  private final DailyPnlRollupRepository dailyPnlRepository;
 
-  public PerformanceController(TradeRepository tradeRepository) {
-    this.tradeRepository = tradeRepository;
+  public PerformanceController(DailyPnlRollupRepository dailyPnlRepository) {
+    this.dailyPnlRepository = dailyPnlRepository;
   }
 
   public record DailyPnl(LocalDate date, BigDecimal pnl) {}
 
   @GetMapping
-  public List<DailyPnl> history(@AuthenticationPrincipal Jwt jwt) {
+  public List<DailyPnl> history(
+    @AuthenticationPrincipal Jwt jwt,
+    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+  ) {
     UUID userId = UUID.fromString(CurrentUser.getUserId(jwt));
-    List<Trade> trades = tradeRepository.findByUserIdOrderByOpenTimeDesc(userId);
-    Map<LocalDate, BigDecimal> byDay = new TreeMap<>();
-    for (Trade t : trades) {
-      if (t.getStatus() == Trade.Status.CLOSED && t.getFinalPnl() != null && t.getCloseTime() != null) {
-        LocalDate d = t.getCloseTime().atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
-        byDay.merge(d, t.getFinalPnl(), BigDecimal::add);
-      }
-    }
-    List<DailyPnl> out = new ArrayList<>();
-    for (var e : byDay.entrySet()) out.add(new DailyPnl(e.getKey(), e.getValue()));
+    List<DailyPnlRollup> days = from == null && to == null
+      ? dailyPnlRepository.findByUserIdOrderByTradeDateAsc(userId)
+      : dailyPnlRepository.findByUserIdAndTradeDateBetweenOrderByTradeDateAsc(
+          userId, from != null ? from : LocalDate.EPOCH, to != null ? to : LocalDate.now(ZoneOffset.UTC));
+    List<DailyPnl> out = new ArrayList<>(days.size());
+    for (DailyPnlRollup d : days) out.add(new DailyPnl(d.getTradeDate(), d.getPnl()));
     return out;
   }
-}
\ No newline at end of file
+}
@@ -3,11 +3,9 @@ package com.example.trading.web;
 import com.example.trading.config.SecurityConfig.CurrentUser;
 import com.example.trading.service.PortfolioService;
 import com.example.trading.service.PortfolioService.PortfolioSnapshot;
-import java.io.IOException;
-import java.time.Duration;
+import com.example.trading.service.PortfolioStreamHub;
 import java.util.UUID;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -20,40 +18,22 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 @RequestMapping("/api/portfolio")
 public class PortfolioController {
   private final PortfolioService portfolioService;
+  private final PortfolioStreamHub streamHub;
 
-  public PortfolioController(PortfolioService portfolioService) {
+  public PortfolioController(PortfolioService portfolioService, PortfolioStreamHub streamHub) {
     this.portfolioService = portfolioService;
+    this.streamHub = streamHub;
   }
 
   @GetMapping
-  public PortfolioSnapshot getSnapshot(@AuthenticationPrincipal Jwt jwt) {
+  public CompletableFuture<PortfolioSnapshot> getSnapshot(@AuthenticationPrincipal Jwt jwt) {
     UUID userId = UUID.fromString(CurrentUser.getUserId(jwt));
-    return portfolioService.getRealtimeSnapshot(userId);
+    return portfolioService.getRealtimeSnapshotAsync(userId);
   }
 
   @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
   public SseEmitter streamSnapshot(@AuthenticationPrincipal Jwt jwt) {
     UUID userId = UUID.fromString(CurrentUser.getUserId(jwt));
-    SseEmitter emitter = new SseEmitter(0L);
-
-    var exec = Executors.newSingleThreadScheduledExecutor();
-    exec.scheduleAtFixedRate(() -> {
-      try {
-        PortfolioSnapshot snap = portfolioService.getRealtimeSnapshot(userId);
-        emitter.send(SseEmitter.event().name("snapshot").data(snap));
-      } catch (IOException e) {
-        emitter.completeWithError(e);
-      }
-    }, 0, 5, TimeUnit.SECONDS);
-
-    // Auto-complete after 10 minutes
-    exec.schedule(() -> {
-      emitter.complete();
-      exec.shutdownNow();
-    }, Duration.ofMinutes(10).toSeconds(), TimeUnit.SECONDS);
-
-    emitter.onCompletion(exec::shutdownNow);
-    emitter.onTimeout(exec::shutdownNow);
-    return emitter;
+    return streamHub.subscribe(userId);
   }
-}
\ No newline at end of file
+}
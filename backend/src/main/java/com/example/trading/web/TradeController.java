@@ -1,41 +1,149 @@
 package com.example.trading.web;
 
-import com.example.trading.config.SecurityConfig.CurrentUser;
 import com.example.trading.domain.Trade;
+import com.example.trading.domain.User;
 import com.example.trading.market.MarketDataService;
+import com.example.trading.repository.DailyPnlRollupRepository;
 import com.example.trading.repository.TradeRepository;
+import com.example.trading.repository.TradeSummary;
+import com.example.trading.service.PortfolioStreamHub;
+import com.example.trading.service.PositionBook;
+import com.example.trading.service.TradeChange;
+import com.example.trading.service.TradeStatsService;
+import com.example.trading.service.UserDirectory;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
-import java.time.OffsetDateTime;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/api/trades")
 public class TradeController {
   private final TradeRepository tradeRepository;
+  private final DailyPnlRollupRepository dailyPnlRepository;
   private final MarketDataService marketDataService;
+  private final PositionBook positionBook;
+  private final PortfolioStreamHub streamHub;
+  private final TradeStatsService statsService;
+  private final UserDirectory userDirectory;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+  private final int defaultPageSize;
+  private final int maxPageSize;
 
-  public TradeController(TradeRepository tradeRepository, MarketDataService marketDataService) {
+  public TradeController(
+    TradeRepository tradeRepository,
+    DailyPnlRollupRepository dailyPnlRepository,
+    MarketDataService marketDataService,
+    PositionBook positionBook,
+    PortfolioStreamHub streamHub,
+    TradeStatsService statsService,
+    UserDirectory userDirectory,
+    ApplicationEventPublisher events,
+    PlatformTransactionManager transactionManager,
+    @Value("${trading.api.trades.default-page-size:50}") int defaultPageSize,
+    @Value("${trading.api.trades.max-page-size:500}") int maxPageSize
+  ) {
     this.tradeRepository = tradeRepository;
+    this.dailyPnlRepository = dailyPnlRepository;
     this.marketDataService = marketDataService;
+    this.positionBook = positionBook;
+    this.streamHub = streamHub;
+    this.statsService = statsService;
+    this.userDirectory = userDirectory;
+    this.events = events;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.defaultPageSize = defaultPageSize;
+    this.maxPageSize = maxPageSize;
   }
 
   @GetMapping
   public List<Trade> list(@AuthenticationPrincipal Jwt jwt) {
-    UUID userId = UUID.fromString(CurrentUser.getUserId(jwt));
-    return tradeRepository.findByUserIdOrderByOpenTimeDesc(userId);
+    Long userId = userDirectory.findUserId(UserDirectory.subject(jwt));
+    return userId != null ? tradeRepository.findByUserIdOrderByOpenTimeDesc(userId) : List.of();
+  }
+
+  public record TradePage(List<TradeSummary> items, String nextCursor) {}
+
+  /**
+   * Keyset-paged, slim variant of {@link #list}. Pass the previous page's {@code nextCursor}
+   * to continue; a null cursor in the response means there are no more trades.
+   */
+  @GetMapping("/page")
+  public TradePage page(
+    @AuthenticationPrincipal Jwt jwt,
+    @RequestParam(required = false) String cursor,
+    @RequestParam(required = false) Integer limit
+  ) {
+    Long userId = userDirectory.findUserId(UserDirectory.subject(jwt));
+    if (userId == null) return new TradePage(List.of(), null);
+    int size = Math.max(1, Math.min(limit != null ? limit : defaultPageSize, maxPageSize));
+    // Fetch one extra row to learn whether another page exists
+    PageRequest rowLimit = PageRequest.of(0, size + 1);
+    List<TradeSummary> rows;
+    if (cursor == null || cursor.isBlank()) {
+      rows = tradeRepository.findSummariesByUserId(userId, rowLimit);
+    } else {
+      PageCursor after = PageCursor.decode(cursor);
+      rows = tradeRepository.findSummariesByUserIdBefore(userId, after.openTime(), after.id(), rowLimit);
+    }
+    if (rows.size() <= size) {
+      return new TradePage(rows, null);
+    }
+    List<TradeSummary> items = rows.subList(0, size);
+    TradeSummary last = items.get(size - 1);
+    return new TradePage(items, new PageCursor(last.getOpenTime(), last.getId()).encode());
+  }
+
+  record PageCursor(LocalDateTime openTime, Long id) {
+    String encode() {
+      String raw = openTime + "|" + id;
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static PageCursor decode(String cursor) {
+      try {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int sep = raw.indexOf('|');
+        return new PageCursor(
+          LocalDateTime.parse(raw.substring(0, sep)),
+          Long.parseLong(raw.substring(sep + 1))
+        );
+      } catch (RuntimeException e) {
+        throw new org.springframework.web.server.ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+      }
+    }
+  }
+
+  /** Counts, win rate and realized PnL over all of the user's trades, from one grouped query. */
+  @GetMapping("/stats")
+  public TradeStatsService.Stats stats(@AuthenticationPrincipal Jwt jwt) {
+    Long userId = userDirectory.findUserId(UserDirectory.subject(jwt));
+    return userId != null ? statsService.stats(userId) : TradeStatsService.EMPTY;
   }
 
   public record CreateTradeRequest(
     @NotBlank String symbol,
-    @NotNull Trade.Side type,
+    @NotNull Trade.TradeSide type,
     @NotNull BigDecimal volume,
     BigDecimal stopLoss,
     BigDecimal takeProfit
@@ -43,41 +151,74 @@ public class TradeController {
 
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
-  public Trade create(@AuthenticationPrincipal Jwt jwt, @Valid @RequestBody CreateTradeRequest req) {
-    UUID userId = UUID.fromString(CurrentUser.getUserId(jwt));
-    BigDecimal current = marketDataService.getLastPrice(req.symbol());
+  public CompletableFuture<Trade> create(@AuthenticationPrincipal Jwt jwt, @Valid @RequestBody CreateTradeRequest req) {
+    UUID userId = UserDirectory.subject(jwt);
+    User user = userDirectory.resolve(jwt);
+    return marketDataService.getLastPriceAsync(req.symbol()).thenApply(quote -> {
+      BigDecimal current = quote.orElseThrow(() -> noQuote(req.symbol()));
+      Trade t = new Trade();
+      t.setUser(user);
+      t.setSymbol(req.symbol());
+      t.setSide(req.type());
+      t.setVolume(req.volume());
+      t.setOpenPrice(current);
+      t.setOpenTime(LocalDateTime.now());
+      t.setPnl(BigDecimal.ZERO);
+      t.setPnlPercent(BigDecimal.ZERO);
+      t.setStatus(Trade.TradeStatus.OPEN);
+      t.setStopLoss(req.stopLoss());
+      t.setTakeProfit(req.takeProfit());
 
-    Trade t = new Trade();
-    t.setUserId(userId);
-    t.setSymbol(req.symbol());
-    t.setType(req.type());
-    t.setVolume(req.volume());
-    t.setOpenPrice(current);
-    t.setCurrentPrice(current);
-    t.setOpenTime(OffsetDateTime.now());
-    t.setPnl(BigDecimal.ZERO);
-    t.setPnlPercent(BigDecimal.ZERO);
-    t.setStatus(Trade.Status.OPEN);
-    t.setStopLoss(req.stopLoss());
-    t.setTakeProfit(req.takeProfit());
-
-    return tradeRepository.save(t);
+      Trade saved = tradeRepository.save(t);
+      positionBook.opened(userId, saved);
+      streamHub.tradeChanged(userId);
+      events.publishEvent(TradeChange.of(saved));
+      return saved;
+    });
   }
 
   @PostMapping("/{id}/close")
-  public Trade close(@AuthenticationPrincipal Jwt jwt, @PathVariable UUID id) {
-    UUID userId = UUID.fromString(CurrentUser.getUserId(jwt));
-    Trade t = tradeRepository.findById(id).orElseThrow();
-    if (!t.getUserId().equals(userId)) {
+  public CompletableFuture<Trade> close(@AuthenticationPrincipal Jwt jwt, @PathVariable Long id) {
+    UUID userId = UserDirectory.subject(jwt);
+    Long owner = userDirectory.findUserId(userId);
+    Trade t = tradeRepository.findById(id).orElseThrow(
+      () -> new org.springframework.web.server.ResponseStatusException(HttpStatus.NOT_FOUND, "Trade not found"));
+    if (owner == null || t.getUser() == null || !owner.equals(t.getUser().getId())) {
       throw new org.springframework.web.server.ResponseStatusException(HttpStatus.FORBIDDEN, "Cannot close another user's trade");
     }
-    BigDecimal last = marketDataService.getLastPrice(t.getSymbol());
-    t.setClosePrice(last);
-    t.setCloseTime(OffsetDateTime.now());
-    BigDecimal direction = t.getType() == Trade.Side.BUY ? BigDecimal.ONE : BigDecimal.ONE.negate();
-    BigDecimal pnl = last.subtract(t.getOpenPrice()).multiply(direction).multiply(t.getVolume());
-    t.setFinalPnl(pnl);
-    t.setStatus(Trade.Status.CLOSED);
-    return tradeRepository.save(t);
+    if (t.getStatus() != Trade.TradeStatus.OPEN) {
+      throw alreadyClosed();
+    }
+    return marketDataService.getLastPriceAsync(t.getSymbol()).thenApply(quote -> {
+      t.setClosePrice(quote.orElseThrow(() -> noQuote(t.getSymbol())));
+      t.setCloseTime(LocalDateTime.now());
+      t.setDurationMinutes(Duration.between(t.getOpenTime(), t.getCloseTime()).toMinutes());
+      t.calculatePnL();
+      t.setStatus(Trade.TradeStatus.CLOSED);
+      LocalDate day = t.getCloseTime().atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+      // Only the request whose conditional update flips the row adds it to the rollup, so a
+      // trade closed by concurrent requests is counted once
+      boolean closed = Boolean.TRUE.equals(tx.execute(status -> {
+        int updated = tradeRepository.closeIfOpen(t.getId(), t.getClosePrice(), t.getCloseTime(),
+          t.getDurationMinutes(), t.getPnl(), t.getPnlPercent());
+        if (updated != 1) return false;
+        dailyPnlRepository.addClosedTrade(userId, day, t.getPnl());
+        return true;
+      }));
+      if (!closed) throw alreadyClosed();
+      positionBook.closed(userId, t);
+      streamHub.tradeChanged(userId);
+      events.publishEvent(TradeChange.of(t));
+      return t;
+    });
+  }
+
+  // Opening or closing at a made-up price would book a bogus PnL, so the client retries instead
+  private static org.springframework.web.server.ResponseStatusException noQuote(String symbol) {
+    return new org.springframework.web.server.ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No quote for " + symbol);
+  }
+
+  private static org.springframework.web.server.ResponseStatusException alreadyClosed() {
+    return new org.springframework.web.server.ResponseStatusException(HttpStatus.CONFLICT, "Trade is already closed");
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.example.trading.alert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.repository.AlertRepository;
+import com.example.trading.repository.AlertTriggerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class AlertEngineTest {
+  private final PriceTickPublisher tickPublisher = mock(PriceTickPublisher.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AlertEngine engine = new AlertEngine(mock(AlertRepository.class), mock(AlertTriggerRepository.class),
+    mock(AlertDeliveryService.class), tickPublisher, new ObjectMapper(), mock(PlatformTransactionManager.class),
+    meterRegistry, 500, Duration.ofHours(1), 10_000, Duration.ofHours(1), Duration.ofMinutes(1), Duration.ofHours(1));
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    engine.shutdown();
+  }
+
+  @Test
+  void watchesASymbolWhileItHasAlerts() {
+    engine.register(1, "BTCUSDT >= 65000");
+    engine.register(2, "BTCUSDT <= 60000");
+    engine.unregister(1L);
+
+    verify(tickPublisher, times(1)).watch("BTCUSDT");
+    verify(tickPublisher, times(0)).unwatch("BTCUSDT");
+
+    engine.unregister(2L);
+
+    verify(tickPublisher).unwatch("BTCUSDT");
+    assertThat(engine.activeCount()).isZero();
+  }
+
+  @Test
+  void movesAnAlertWhoseSymbolChanged() {
+    engine.register(1, "BTCUSDT >= 65000");
+    engine.register(1, "ETHUSDT >= 3000");
+
+    verify(tickPublisher).unwatch("BTCUSDT");
+    verify(tickPublisher).watch("ETHUSDT");
+    assertThat(engine.activeCount()).isEqualTo(1);
+  }
+
+  @Test
+  void skipsAndCountsConditionsThatAreNotPriceConditionsOnce() {
+    assertThat(engine.register(1, "MACD crosses signal")).isFalse();
+    assertThat(engine.register(1, "MACD crosses signal")).isFalse();
+
+    assertThat(engine.activeCount()).isZero();
+    assertThat(meterRegistry.counter("alerts.engine.unsupported").count()).isEqualTo(1.0);
+  }
+
+  @Test
+  void countsEveryFiredAlert() {
+    engine.register(1, "BTCUSDT >= 100");
+    engine.register(2, "BTCUSDT >= 200");
+
+    engine.onTick("BTCUSDT", 0, FixedPoint.of(150));
+    engine.onTick("ETHUSDT", 0, FixedPoint.of(150));
+
+    assertThat(meterRegistry.counter("alerts.engine.fired").count()).isEqualTo(1.0);
+  }
+}
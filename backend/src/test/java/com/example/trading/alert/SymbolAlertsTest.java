@@ -0,0 +1,101 @@
+package com.example.trading.alert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.trading.domain.FixedPoint;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SymbolAlertsTest {
+
+  @Test
+  void parsesConditionsIntoInclusiveBounds() {
+    assertThat(PriceCondition.parse("BTCUSDT crosses above 65000"))
+      .isEqualTo(new PriceCondition("BTCUSDT", true, FixedPoint.of(65000), true));
+    assertThat(PriceCondition.parse("EURUSD=X <= 1.05"))
+      .isEqualTo(new PriceCondition("EURUSD=X", false, FixedPoint.parse("1.05"), false));
+    assertThat(PriceCondition.parse("AAPL > 100").threshold()).isEqualTo(FixedPoint.of(100) + 1);
+    assertThat(PriceCondition.parse("AAPL < 100").threshold()).isEqualTo(FixedPoint.of(100) - 1);
+    assertThatThrownBy(() -> PriceCondition.parse("MACD crosses signal")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void levelAlertFiresOnTheFirstPriceAndOncePerCrossing() {
+    SymbolAlerts alerts = new SymbolAlerts();
+    alerts.add(1, PriceCondition.parse("X >= 100"));
+
+    assertThat(fired(alerts, 105)).containsExactly(1L);
+    assertThat(fired(alerts, 110)).isEmpty();
+    // Re-arms only once the price is back below the threshold
+    assertThat(fired(alerts, 100)).isEmpty();
+    assertThat(fired(alerts, 99)).isEmpty();
+    assertThat(fired(alerts, 100)).containsExactly(1L);
+  }
+
+  @Test
+  void crossingAlertWaitsForThePriceToMoveThroughTheThreshold() {
+    SymbolAlerts alerts = new SymbolAlerts();
+    alerts.add(1, PriceCondition.parse("X crosses below 50"));
+
+    // Already below when first seen: no crossing observed yet
+    assertThat(fired(alerts, 40)).isEmpty();
+    assertThat(fired(alerts, 51)).isEmpty();
+    assertThat(fired(alerts, 50)).containsExactly(1L);
+  }
+
+  @Test
+  void crossingAlertAddedAfterAPriceIsPlacedAgainstIt() {
+    SymbolAlerts alerts = new SymbolAlerts();
+    fired(alerts, 120);
+    alerts.add(1, PriceCondition.parse("X crosses above 100"));
+
+    assertThat(fired(alerts, 130)).isEmpty();
+    assertThat(fired(alerts, 99)).isEmpty();
+    assertThat(fired(alerts, 101)).containsExactly(1L);
+  }
+
+  @Test
+  void onlyAlertsWhoseThresholdsAreReachedFire() {
+    SymbolAlerts alerts = new SymbolAlerts();
+    alerts.add(1, PriceCondition.parse("X >= 110"));
+    alerts.add(2, PriceCondition.parse("X >= 120"));
+    alerts.add(3, PriceCondition.parse("X <= 90"));
+    fired(alerts, 100);
+
+    assertThat(fired(alerts, 115)).containsExactly(1L);
+    assertThat(fired(alerts, 85)).containsExactly(3L);
+  }
+
+  @Test
+  void removedAndReplacedAlertsUseTheirCurrentCondition() {
+    SymbolAlerts alerts = new SymbolAlerts();
+    alerts.add(1, PriceCondition.parse("X >= 110"));
+    alerts.add(2, PriceCondition.parse("X >= 110"));
+    fired(alerts, 100);
+
+    assertThat(alerts.remove(1)).isTrue();
+    alerts.add(2, PriceCondition.parse("X >= 200"));
+
+    assertThat(fired(alerts, 150)).isEmpty();
+    assertThat(fired(alerts, 200)).containsExactly(2L);
+    assertThat(alerts.size()).isEqualTo(1);
+  }
+
+  @Test
+  void compactsAfterManyRemovals() {
+    SymbolAlerts alerts = new SymbolAlerts();
+    fired(alerts, 100);
+    for (int i = 0; i < 3000; i++) alerts.add(i, PriceCondition.parse("X >= 200"));
+    for (int i = 0; i < 2999; i++) alerts.remove(i);
+
+    assertThat(fired(alerts, 250)).containsExactly(2999L);
+  }
+
+  private static List<Long> fired(SymbolAlerts alerts, long price) {
+    List<Long> ids = new ArrayList<>();
+    alerts.onPrice(FixedPoint.of(price), 0, (alertId, above, threshold, last, at) -> ids.add(alertId));
+    return ids;
+  }
+}
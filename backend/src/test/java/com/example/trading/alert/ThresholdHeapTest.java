@@ -0,0 +1,66 @@
+package com.example.trading.alert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ThresholdHeapTest {
+
+  @Test
+  void risingHeapSurfacesLowestThresholdAndIsReachedAtOrAbove() {
+    ThresholdHeap heap = new ThresholdHeap(true);
+    heap.push(30, 3);
+    heap.push(10, 1);
+    heap.push(20, 2);
+
+    assertThat(heap.reached(9)).isFalse();
+    assertThat(heap.reached(10)).isTrue();
+    assertThat(popReached(heap, 25)).containsExactly(1L, 2L);
+    assertThat(heap.size()).isEqualTo(1);
+  }
+
+  @Test
+  void fallingHeapSurfacesHighestThresholdAndIsReachedAtOrBelow() {
+    ThresholdHeap heap = new ThresholdHeap(false);
+    heap.push(10, 1);
+    heap.push(30, 3);
+    heap.push(20, 2);
+
+    assertThat(heap.reached(31)).isFalse();
+    assertThat(heap.reached(30)).isTrue();
+    assertThat(popReached(heap, 15)).containsExactly(3L, 2L);
+  }
+
+  @Test
+  void growsPastItsInitialCapacityAndKeepsOrder() {
+    ThresholdHeap heap = new ThresholdHeap(true);
+    for (int i = 100; i > 0; i--) heap.push(i, i);
+
+    List<Long> popped = popReached(heap, Long.MAX_VALUE);
+
+    assertThat(popped).hasSize(100).isSorted();
+  }
+
+  @Test
+  void retainDropsDeadRefsAndRestoresHeapOrder() {
+    ThresholdHeap heap = new ThresholdHeap(true);
+    for (int i = 1; i <= 40; i++) heap.push(41 - i, 41 - i);
+
+    heap.retain(ref -> ref % 3 == 0);
+
+    assertThat(heap.size()).isEqualTo(13);
+    assertThat(popReached(heap, Long.MAX_VALUE)).isSorted().allMatch(ref -> ref % 3 == 0);
+    assertThat(heap.reached(Long.MAX_VALUE)).isFalse();
+  }
+
+  private static List<Long> popReached(ThresholdHeap heap, long price) {
+    List<Long> refs = new ArrayList<>();
+    while (heap.reached(price)) {
+      refs.add(heap.topRef());
+      heap.pop();
+    }
+    return refs;
+  }
+}
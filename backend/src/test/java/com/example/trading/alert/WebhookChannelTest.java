@@ -0,0 +1,37 @@
+package com.example.trading.alert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.URI;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class WebhookChannelTest {
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "0.0.0.0", "127.0.0.1", "10.1.2.3", "172.16.0.1", "192.168.1.1", "169.254.169.254", "100.64.0.1",
+    "192.0.0.8", "198.18.0.1", "224.0.0.1", "255.255.255.255",
+    "::", "::1", "fe80::1", "fd00::1", "fc00::1", "ff02::1", "::ffff:127.0.0.1", "::10.0.0.1", "64:ff9b::a00:1"
+  })
+  void refusesNonPublicAddresses(String address) throws Exception {
+    assertThat(WebhookChannel.isPublic(InetAddress.getByName(address))).isFalse();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"8.8.8.8", "1.1.1.1", "100.128.0.1", "172.32.0.1", "2606:4700:4700::1111"})
+  void allowsPublicAddresses(String address) throws Exception {
+    assertThat(WebhookChannel.isPublic(InetAddress.getByName(address))).isTrue();
+  }
+
+  @Test
+  void requiresHttpsToAPublicHost() {
+    assertThat(WebhookChannel.rejectReason(URI.create("http://8.8.8.8/hook"))).contains("https");
+    assertThat(WebhookChannel.rejectReason(URI.create("https://127.0.0.1/hook"))).contains("non-public");
+    assertThat(WebhookChannel.rejectReason(URI.create("https://[::1]:8443/hook"))).contains("non-public");
+    assertThat(WebhookChannel.rejectReason(URI.create("https://user:pw@8.8.8.8/hook"))).contains("credentials");
+    assertThat(WebhookChannel.rejectReason(URI.create("https://8.8.8.8/hook"))).isNull();
+  }
+}
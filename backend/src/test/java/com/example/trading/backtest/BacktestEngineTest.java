@@ -0,0 +1,121 @@
+package com.example.trading.backtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.example.trading.domain.BacktestResult;
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.market.ArchivedCandles;
+import com.example.trading.market.Candle;
+import com.example.trading.market.CandleArchive;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BacktestEngineTest {
+  private static final long HOUR = 3_600_000L;
+  private static final BacktestEngine.Settings SETTINGS = new BacktestEngine.Settings(1000, 1, 0.01, HOUR, 100);
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void fillsSignalsAtTheNextOpenMovedAgainstTheTrader() {
+    ArchivedCandles bars = bars(new double[] {10, 10, 12, 12}, new double[] {10, 11, 12, 13});
+
+    // Long after bar 0, flat after bar 2: in at bar 1's open, out at bar 3's open
+    BacktestStats stats = BacktestEngine.run(bars, 0, 4, (s, i) -> i < 2 ? 1 : 0, SETTINGS, () -> false);
+
+    assertThat(stats.totalTrades()).isEqualTo(1);
+    assertThat(stats.winRatePercent()).isEqualTo(100.0);
+    assertThat(stats.equity()).isCloseTo(1000 + 12 * 0.99 - 10 * 1.01, within(1e-9));
+  }
+
+  @Test
+  void shortsProfitFromFallingPricesAfterSlippage() {
+    ArchivedCandles bars = bars(new double[] {20, 20, 10, 10}, new double[] {20, 15, 10, 10});
+
+    BacktestStats stats = BacktestEngine.run(bars, 0, 4, (s, i) -> i < 2 ? -1 : 0, SETTINGS, () -> false);
+
+    assertThat(stats.totalTrades()).isEqualTo(1);
+    assertThat(stats.equity()).isCloseTo(1000 + 20 * 0.99 - 10 * 1.01, within(1e-9));
+  }
+
+  @Test
+  void closesAPositionStillOpenAtTheLastCloseWithSlippage() {
+    ArchivedCandles bars = bars(new double[] {10, 10, 10}, new double[] {10, 10, 20});
+
+    BacktestStats stats = BacktestEngine.run(bars, 0, 3, (s, i) -> 1, SETTINGS, () -> false);
+
+    assertThat(stats.totalTrades()).isEqualTo(1);
+    assertThat(stats.equity()).isCloseTo(1000 + 20 * 0.99 - 10 * 1.01, within(1e-9));
+
+    // The curve's last point is the balance after that close
+    BacktestResult result = new BacktestResult();
+    stats.applyTo(result);
+    assertThat(result.getFinalBalance()).isEqualByComparingTo("1009.7");
+    assertThat(result.getEquityCurve()).endsWith(",1009.7]]");
+  }
+
+  @Test
+  void stopsWhenCancelled() {
+    ArchivedCandles bars = bars(new double[] {10, 10}, new double[] {10, 10});
+
+    assertThatThrownBy(() -> BacktestEngine.run(bars, 0, 2, (s, i) -> 0, SETTINGS, () -> true))
+      .isInstanceOf(CancellationException.class);
+  }
+
+  @Test
+  void statsTrackDrawdownProfitFactorAndWinRate() {
+    BacktestStats stats = new BacktestStats(100, HOUR, 4, 4);
+    stats.onEquity(0, 120);
+    stats.onEquity(HOUR, 90);
+    stats.onEquity(2 * HOUR, 110);
+    stats.onTradeClosed(10);
+    stats.onTradeClosed(-5);
+    stats.onTradeClosed(5);
+
+    assertThat(stats.maxDrawdownPercent()).isCloseTo(25.0, within(1e-9));
+    assertThat(stats.totalReturnPercent()).isCloseTo(10.0, within(1e-9));
+    assertThat(stats.profitFactor()).isCloseTo(3.0, within(1e-9));
+    assertThat(stats.winRatePercent()).isCloseTo(200.0 / 3, within(1e-9));
+  }
+
+  @Test
+  void statsClampUnboundedRatiosToTheColumnScale() {
+    BacktestStats stats = new BacktestStats(100, HOUR, 1, 1);
+    stats.onEquity(0, -50);
+    stats.onTradeClosed(1);
+
+    assertThat(stats.profitFactor()).isEqualTo(Double.POSITIVE_INFINITY);
+    // A loss past the whole balance is a 100% drawdown
+    assertThat(stats.maxDrawdownPercent()).isEqualTo(100.0);
+
+    BacktestResult result = new BacktestResult();
+    stats.applyTo(result);
+    assertThat(result.getProfitFactor()).isEqualByComparingTo("999.99");
+    assertThat(result.getMaxDrawdown()).isEqualByComparingTo("100.00");
+  }
+
+  private ArchivedCandles bars(double[] opens, double[] closes) {
+    CandleArchive archive = new CandleArchive(dir);
+    List<Candle> candles = new ArrayList<>();
+    for (int i = 0; i < opens.length; i++) {
+      long open = price(opens[i]);
+      long close = price(closes[i]);
+      candles.add(new Candle("BTC", "1h", i * HOUR, open, Math.max(open, close), Math.min(open, close), close,
+        FixedPoint.ONE, 0, 0));
+    }
+    archive.append("BTC", "1h", candles);
+    return archive.open("BTC", "1h");
+  }
+
+  private static long price(double value) {
+    return FixedPoint.fromBigDecimal(BigDecimal.valueOf(value));
+  }
+}
@@ -0,0 +1,104 @@
+package com.example.trading.backtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.trading.domain.BacktestResult;
+import com.example.trading.domain.BacktestResult.BacktestStatus;
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.Strategy;
+import com.example.trading.market.Candle;
+import com.example.trading.market.CandleArchive;
+import com.example.trading.market.CandleArchiveExporter;
+import com.example.trading.pine.PinePlanCache;
+import com.example.trading.repository.BacktestResultRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BacktestServiceTest {
+  private static final long HOUR = 3_600_000L;
+
+  @TempDir
+  Path dir;
+
+  private final BacktestResultRepository repository = mock(BacktestResultRepository.class);
+  private BacktestService service;
+
+  @BeforeEach
+  void setUp() {
+    CandleArchive archive = new CandleArchive(dir);
+    List<Candle> candles = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      long price = FixedPoint.of(10 + i);
+      candles.add(new Candle("BTC", "1h", i * HOUR, price, price, price, price, FixedPoint.ONE, 0, 0));
+    }
+    archive.append("BTC", "1h", candles);
+    service = new BacktestService(archive, mock(CandleArchiveExporter.class), repository, mock(PinePlanCache.class),
+      new ObjectMapper(), 0.001, BigDecimal.valueOf(1000), 1_000_000, 1, 2, 4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutdown();
+  }
+
+  @Test
+  void queuesARunUntilAWorkerStartsIt() throws Exception {
+    List<BacktestStatus> saved = new CopyOnWriteArrayList<>();
+    when(repository.save(any())).thenAnswer(inv -> {
+      BacktestResult result = inv.getArgument(0);
+      saved.add(result.getStatus());
+      result.setId(1L);
+      return result;
+    });
+
+    BacktestResult result = service.submit(new Strategy(), request(Map.of()), (s, i) -> 1).get(10, TimeUnit.SECONDS);
+
+    assertThat(saved).containsExactly(BacktestStatus.QUEUED, BacktestStatus.RUNNING, BacktestStatus.COMPLETED);
+    assertThat(result.getTotalTrades()).isEqualTo(1);
+  }
+
+  @Test
+  void sweepKeepsTheBestCombinationsBestFirst() throws Exception {
+    when(repository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    BacktestService.SweepRequest sweep = new BacktestService.SweepRequest(
+      request(Map.of("length", "14")), Map.of("side", List.of("-1", "0", "1")), SweepMetric.TOTAL_RETURN, 2);
+
+    // Prices only rise, so long beats flat beats short
+    List<BacktestResult> results = service.sweep(new Strategy(), sweep,
+      p -> (s, i) -> Integer.parseInt(p.get("side"))).get(10, TimeUnit.SECONDS);
+
+    assertThat(results).extracting(BacktestResult::getParameters)
+      .containsExactly("{\"length\":\"14\",\"side\":\"1\"}", "{\"length\":\"14\",\"side\":\"0\"}");
+    assertThat(results).allMatch(r -> r.getStatus() == BacktestStatus.COMPLETED);
+    assertThat(results.get(0).getTotalReturn()).isPositive();
+  }
+
+  @Test
+  void rejectsSweepsPastTheCombinationLimit() {
+    BacktestService.SweepRequest sweep = new BacktestService.SweepRequest(
+      request(Map.of()), Map.of("a", List.of("1", "2", "3"), "b", List.of("1", "2")), SweepMetric.SHARPE_RATIO, 1);
+
+    assertThatThrownBy(() -> service.sweep(new Strategy(), sweep, p -> (s, i) -> 0))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("6 combinations");
+  }
+
+  private static BacktestService.BacktestRequest request(Map<String, String> parameters) {
+    return new BacktestService.BacktestRequest("BTC", "1h", null, null, null, null, parameters);
+  }
+}
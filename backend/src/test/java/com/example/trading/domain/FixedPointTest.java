@@ -0,0 +1,82 @@
+package com.example.trading.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.Test;
+
+class FixedPointTest {
+
+    @Test
+    void multiplyRoundsHalfAwayFromZero() {
+        long half = FixedPoint.parse("0.5");
+        long tick = FixedPoint.parse("0.00000001");
+
+        assertThat(FixedPoint.multiply(FixedPoint.parse("1.5"), FixedPoint.parse("1.5"))).isEqualTo(FixedPoint.parse("2.25"));
+        assertThat(FixedPoint.multiply(tick, half)).isEqualTo(tick);
+        assertThat(FixedPoint.multiply(-tick, half)).isEqualTo(-tick);
+        assertThat(FixedPoint.multiply(tick, FixedPoint.parse("0.49999999"))).isZero();
+        assertThat(FixedPoint.multiply(FixedPoint.parse("-2.5"), FixedPoint.parse("-0.00000003"))).isEqualTo(FixedPoint.parse("0.00000008"));
+    }
+
+    @Test
+    void divideRoundsHalfAwayFromZero() {
+        assertThat(FixedPoint.divide(FixedPoint.of(1), FixedPoint.of(3))).isEqualTo(FixedPoint.parse("0.33333333"));
+        assertThat(FixedPoint.divide(FixedPoint.of(2), FixedPoint.of(3))).isEqualTo(FixedPoint.parse("0.66666667"));
+        assertThat(FixedPoint.divide(FixedPoint.of(-2), FixedPoint.of(3))).isEqualTo(FixedPoint.parse("-0.66666667"));
+        assertThat(FixedPoint.divide(FixedPoint.of(2), FixedPoint.of(-3))).isEqualTo(FixedPoint.parse("-0.66666667"));
+        assertThat(FixedPoint.divide(1, FixedPoint.of(2))).isEqualTo(1);
+        assertThat(FixedPoint.divide(-1, FixedPoint.of(2))).isEqualTo(-1);
+    }
+
+    @Test
+    void divideHandlesDivisorsNearTheLongRange() {
+        assertThat(FixedPoint.divide(Long.MAX_VALUE - 1, Long.MAX_VALUE)).isEqualTo(FixedPoint.ONE);
+        assertThat(FixedPoint.divide(Long.MAX_VALUE, Long.MIN_VALUE)).isEqualTo(-FixedPoint.ONE);
+        assertThat(FixedPoint.divide(1, Long.MAX_VALUE)).isZero();
+    }
+
+    @Test
+    void matchesBigDecimalOnRandomOperands() {
+        Random random = new Random(8);
+        for (int i = 0; i < 100_000; i++) {
+            long a = random.nextLong() % (FixedPoint.ONE * 1_000_000_000L);
+            long b = random.nextLong() % (FixedPoint.ONE * 1_000L);
+            check(a + " * " + b, () -> FixedPoint.multiply(a, b), toDecimal(a).multiply(toDecimal(b)));
+            if (b != 0) {
+                check(a + " / " + b, () -> FixedPoint.divide(a, b), toDecimal(a).divide(toDecimal(b), FixedPoint.SCALE, RoundingMode.HALF_UP));
+            }
+        }
+    }
+
+    /** The result must match the exact value rounded to 8 decimals, or throw when that overflows. */
+    private static void check(String description, LongSupplier actual, BigDecimal exact) {
+        BigInteger expected = exact.setScale(FixedPoint.SCALE, RoundingMode.HALF_UP).unscaledValue();
+        if (expected.bitLength() < Long.SIZE) {
+            assertThat(actual.getAsLong()).as(description).isEqualTo(expected.longValueExact());
+        } else {
+            assertThatThrownBy(actual::getAsLong).as(description).isInstanceOf(ArithmeticException.class);
+        }
+    }
+
+    @Test
+    void throwsOnOverflowInsteadOfWrapping() {
+        long million = FixedPoint.of(1_000_000);
+
+        assertThatThrownBy(() -> FixedPoint.multiply(million, million)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedPoint.multiply(Long.MIN_VALUE, -FixedPoint.ONE)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedPoint.divide(Long.MAX_VALUE, FixedPoint.parse("0.5"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedPoint.divide(FixedPoint.ONE, 0)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedPoint.of(Long.MAX_VALUE / 10)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedPoint.add(Long.MAX_VALUE, 1)).isInstanceOf(ArithmeticException.class);
+    }
+
+    private static BigDecimal toDecimal(long raw) {
+        return BigDecimal.valueOf(raw, FixedPoint.SCALE);
+    }
+}
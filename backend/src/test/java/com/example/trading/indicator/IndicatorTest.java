@@ -0,0 +1,267 @@
+package com.example.trading.indicator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks every streaming indicator against a brute-force recomputation over the full history
+ * on each bar, and that snapshot/restore continues exactly where the original left off.
+ */
+class IndicatorTest {
+  private static final int BARS = 2_000;
+  private static final double TOLERANCE = 1e-6;
+
+  private final Random random = new Random(16);
+  /** A random walk far from zero, with a few NaN gaps that every indicator must skip. */
+  private final double[] closes = walk(BARS, 50_000);
+
+  @Test
+  void sma() {
+    checkSeries(() -> new Sma(20), Sma::update, Sma::value, xs -> mean(last(xs, 20)), 20);
+    roundTrip(() -> new Sma(20), Sma::update, Sma::value);
+  }
+
+  @Test
+  void ema() {
+    checkSeries(() -> new Ema(20), Ema::update, Ema::value, xs -> ema(xs, 20, 2.0 / 21), 20);
+    checkSeries(() -> Ema.wilder(14), Ema::update, Ema::value, xs -> ema(xs, 14, 1.0 / 14), 14);
+    roundTrip(() -> new Ema(20), Ema::update, Ema::value);
+  }
+
+  @Test
+  void rsi() {
+    checkSeries(() -> new Rsi(14), Rsi::update, Rsi::value, IndicatorTest::rsi, 15);
+    roundTrip(() -> new Rsi(14), Rsi::update, Rsi::value);
+  }
+
+  @Test
+  void stdev() {
+    checkSeries(() -> new Stdev(20), Stdev::update, Stdev::value, xs -> stdev(last(xs, 20)), 20);
+    roundTrip(() -> new Stdev(20), Stdev::update, Stdev::value);
+  }
+
+  @Test
+  void bollinger() {
+    checkSeries(() -> new Bollinger(20, 2), Bollinger::update, Bollinger::upper,
+      xs -> mean(last(xs, 20)) + 2 * stdev(last(xs, 20)), 20);
+    checkSeries(() -> new Bollinger(20, 2), Bollinger::update, Bollinger::lower,
+      xs -> mean(last(xs, 20)) - 2 * stdev(last(xs, 20)), 20);
+    roundTrip(() -> new Bollinger(20, 2), Bollinger::update, Bollinger::upper);
+  }
+
+  @Test
+  void highestAndLowest() {
+    checkSeries(() -> RollingExtreme.highest(50), RollingExtreme::update, RollingExtreme::value,
+      xs -> Arrays.stream(last(xs, 50)).max().orElseThrow(), 50);
+    checkSeries(() -> RollingExtreme.lowest(50), RollingExtreme::update, RollingExtreme::value,
+      xs -> Arrays.stream(last(xs, 50)).min().orElseThrow(), 50);
+    roundTrip(() -> RollingExtreme.highest(50), RollingExtreme::update, RollingExtreme::value);
+    roundTrip(() -> RollingExtreme.lowest(50), RollingExtreme::update, RollingExtreme::value);
+  }
+
+  @Test
+  void atr() {
+    double[][] bars = ohlc();
+    Atr atr = new Atr(14);
+    for (int i = 0; i < BARS; i++) {
+      double actual = atr.update(bars[0][i], bars[1][i], bars[2][i]);
+      double expected = i + 1 < 14 ? Double.NaN : atrReference(bars, i, 14);
+      assertClose(actual, expected, i);
+    }
+
+    Atr original = new Atr(14);
+    for (int i = 0; i < BARS / 2; i++) original.update(bars[0][i], bars[1][i], bars[2][i]);
+    Atr restored = new Atr(14);
+    restored.restore(original.snapshot());
+    for (int i = BARS / 2; i < BARS; i++) {
+      assertIdentical(restored.update(bars[0][i], bars[1][i], bars[2][i]), original.update(bars[0][i], bars[1][i], bars[2][i]), i);
+    }
+  }
+
+  @Test
+  void vwapRestartsEachAnchorPeriod() {
+    long hour = 3_600_000L;
+    long anchor = 24 * hour;
+    double[] volumes = new double[BARS];
+    for (int i = 0; i < BARS; i++) volumes[i] = random.nextInt(10) == 0 ? 0 : random.nextDouble() * 100;
+    double[] prices = walk(BARS, 100);
+
+    Vwap vwap = new Vwap(anchor);
+    for (int i = 0; i < BARS; i++) {
+      double actual = vwap.update(i * hour, prices[i], volumes[i]);
+      double notional = 0;
+      double volume = 0;
+      for (int j = i; j >= 0 && j * hour / anchor == i * hour / anchor; j--) {
+        if (!Double.isNaN(prices[j]) && volumes[j] > 0) {
+          notional += prices[j] * volumes[j];
+          volume += volumes[j];
+        }
+      }
+      assertClose(actual, volume > 0 ? notional / volume : Double.NaN, i);
+    }
+
+    Vwap original = new Vwap(anchor);
+    for (int i = 0; i < BARS / 2; i++) original.update(i * hour, prices[i], volumes[i]);
+    Vwap restored = new Vwap(anchor);
+    restored.restore(original.snapshot());
+    for (int i = BARS / 2; i < BARS; i++) {
+      assertIdentical(restored.update(i * hour, prices[i], volumes[i]), original.update(i * hour, prices[i], volumes[i]), i);
+    }
+  }
+
+  @Test
+  void resetForgetsAllBars() {
+    Sma sma = new Sma(3);
+    for (double x : new double[] {1, 2, 3}) sma.update(x);
+
+    sma.reset();
+
+    assertThat(sma.isReady()).isFalse();
+    assertThat(sma.update(4)).isNaN();
+  }
+
+  @Test
+  void restoreRejectsStateFromAnotherIndicator() {
+    assertThatThrownBy(() -> new Sma(20).restore(new Sma(21).snapshot())).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new Sma(20).restore(new Ema(20).snapshot())).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> RollingExtreme.highest(5).restore(RollingExtreme.lowest(5).snapshot()))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new Bollinger(20, 2).restore(new Bollinger(20, 2.5).snapshot()))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new Vwap(1000).restore(null)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @FunctionalInterface
+  private interface Update<T> {
+    void accept(T indicator, double x);
+  }
+
+  /**
+   * Feeds {@link #closes} and compares every output with {@code reference} applied to the
+   * non-NaN inputs so far; the output must be NaN until {@code warmup} of them were seen.
+   */
+  private <T extends Indicator> void checkSeries(
+    Supplier<T> factory, Update<T> update, ToDoubleFunction<T> output, ToDoubleFunction<double[]> reference, int warmup
+  ) {
+    T indicator = factory.get();
+    List<Double> seen = new ArrayList<>();
+    for (int i = 0; i < BARS; i++) {
+      update.accept(indicator, closes[i]);
+      if (!Double.isNaN(closes[i])) seen.add(closes[i]);
+      double[] xs = seen.stream().mapToDouble(Double::doubleValue).toArray();
+      double expected = xs.length < warmup ? Double.NaN : reference.applyAsDouble(xs);
+      assertClose(output.applyAsDouble(indicator), expected, i);
+      assertThat(indicator.isReady()).as("ready at bar %d", i).isEqualTo(xs.length >= warmup);
+    }
+  }
+
+  /** Snapshot halfway, restore into a fresh instance, and both must agree bit for bit after. */
+  private <T extends Indicator> void roundTrip(Supplier<T> factory, Update<T> update, ToDoubleFunction<T> output) {
+    T original = factory.get();
+    for (int i = 0; i < BARS / 2; i++) update.accept(original, closes[i]);
+    double[] state = original.snapshot();
+    T restored = factory.get();
+    restored.restore(state);
+    assertThat(restored.snapshot()).isEqualTo(state);
+    for (int i = BARS / 2; i < BARS; i++) {
+      update.accept(original, closes[i]);
+      update.accept(restored, closes[i]);
+      assertIdentical(output.applyAsDouble(restored), output.applyAsDouble(original), i);
+    }
+  }
+
+  private static void assertClose(double actual, double expected, int bar) {
+    if (Double.isNaN(expected)) {
+      assertThat(actual).as("bar %d", bar).isNaN();
+    } else {
+      assertThat(actual).as("bar %d", bar).isCloseTo(expected, within(TOLERANCE));
+    }
+  }
+
+  /** Bit-for-bit equal; NaN matches NaN. */
+  private static void assertIdentical(double actual, double expected, int bar) {
+    assertThat(Double.doubleToLongBits(actual)).as("bar %d", bar).isEqualTo(Double.doubleToLongBits(expected));
+  }
+
+  private double[] walk(int n, double start) {
+    double[] out = new double[n];
+    double price = start;
+    for (int i = 0; i < n; i++) {
+      price += random.nextGaussian() * start * 0.001;
+      out[i] = random.nextInt(100) == 0 ? Double.NaN : price;
+    }
+    return out;
+  }
+
+  /** High, low and close rows around {@link #closes}, without gaps. */
+  private double[][] ohlc() {
+    double[][] bars = new double[3][BARS];
+    double previous = 50_000;
+    for (int i = 0; i < BARS; i++) {
+      double close = Double.isNaN(closes[i]) ? previous : closes[i];
+      bars[0][i] = Math.max(close, previous) + random.nextDouble() * 20;
+      bars[1][i] = Math.min(close, previous) - random.nextDouble() * 20;
+      bars[2][i] = close;
+      previous = close;
+    }
+    return bars;
+  }
+
+  private static double[] last(double[] xs, int n) {
+    return Arrays.copyOfRange(xs, xs.length - n, xs.length);
+  }
+
+  private static double mean(double[] xs) {
+    double sum = 0;
+    for (double x : xs) sum += x;
+    return sum / xs.length;
+  }
+
+  private static double stdev(double[] xs) {
+    double mean = mean(xs);
+    double sum = 0;
+    for (double x : xs) sum += (x - mean) * (x - mean);
+    return Math.sqrt(sum / xs.length);
+  }
+
+  /** Seeded with the mean of the first {@code period} values, then smoothed with {@code alpha}. */
+  private static double ema(double[] xs, int period, double alpha) {
+    double value = mean(Arrays.copyOf(xs, period));
+    for (int i = period; i < xs.length; i++) value = alpha * xs[i] + (1 - alpha) * value;
+    return value;
+  }
+
+  private static double rsi(double[] xs) {
+    double[] gains = new double[xs.length - 1];
+    double[] losses = new double[xs.length - 1];
+    for (int i = 1; i < xs.length; i++) {
+      gains[i - 1] = Math.max(xs[i] - xs[i - 1], 0);
+      losses[i - 1] = Math.max(xs[i - 1] - xs[i], 0);
+    }
+    double up = ema(gains, 14, 1.0 / 14);
+    double down = ema(losses, 14, 1.0 / 14);
+    if (down == 0) return up == 0 ? 50 : 100;
+    return 100 - 100 / (1 + up / down);
+  }
+
+  private static double atrReference(double[][] bars, int last, int period) {
+    double[] ranges = new double[last + 1];
+    for (int i = 0; i <= last; i++) {
+      double high = bars[0][i];
+      double low = bars[1][i];
+      ranges[i] = i == 0
+        ? high - low
+        : Math.max(high - low, Math.max(Math.abs(high - bars[2][i - 1]), Math.abs(low - bars[2][i - 1])));
+    }
+    return ema(ranges, period, 1.0 / period);
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.trading.market;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.trading.domain.FixedPoint;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CandleAggregatorTest {
+  private static final long MINUTE = 60_000L;
+
+  private final List<Candle> emitted = new ArrayList<>();
+  private final CandleAggregator aggregator = new CandleAggregator(Timeframe.parseAll("1m,5m"), emitted::add);
+
+  @Test
+  void emitsABarOnceTheNextBucketStarts() {
+    tick(0, "100", "1");
+    tick(30_000, "110", "3");
+    assertThat(emitted).isEmpty();
+
+    tick(MINUTE + 1_000, "90", "2");
+
+    assertThat(emitted).containsExactly(new Candle("BTC", "1m", 0, price("100"), price("110"), price("100"),
+      price("110"), price("4"), price("107.5"), 2));
+  }
+
+  @Test
+  void rollsEveryTimeframeFromTheSameTicks() {
+    tick(0, "100", "1");
+    tick(MINUTE, "120", "1");
+    tick(2 * MINUTE, "80", "1");
+    tick(5 * MINUTE, "100", "1");
+
+    assertThat(emitted).filteredOn(c -> c.timeframe().equals("1m")).extracting(Candle::openTime)
+      .containsExactly(0L, MINUTE, 2 * MINUTE);
+    assertThat(emitted).filteredOn(c -> c.timeframe().equals("5m")).singleElement().satisfies(c -> {
+      assertThat(c.open()).isEqualTo(price("100"));
+      assertThat(c.high()).isEqualTo(price("120"));
+      assertThat(c.low()).isEqualTo(price("80"));
+      assertThat(c.close()).isEqualTo(price("80"));
+      assertThat(c.tickCount()).isEqualTo(3);
+    });
+  }
+
+  @Test
+  void skipsLateTicksInsteadOfRewritingEmittedBars() {
+    tick(0, "100", "1");
+    tick(MINUTE, "110", "1");
+    tick(59_000, "500", "1");
+
+    assertThat(aggregator.lateTicks()).isEqualTo(1);
+    aggregator.flushOpen();
+    assertThat(emitted).filteredOn(c -> c.timeframe().equals("1m")).extracting(Candle::high)
+      .containsExactly(price("100"), price("110"));
+    // Still inside the open 5m bar, so it counts there
+    assertThat(emitted).filteredOn(c -> c.timeframe().equals("5m")).extracting(Candle::high)
+      .containsExactly(price("500"));
+  }
+
+  @Test
+  void flushOpenEmitsEachOpenBarOnce() {
+    tick(0, "100", "1");
+    aggregator.onTick("ETH", 0, price("10"), price("1"));
+
+    aggregator.flushOpen();
+    aggregator.flushOpen();
+
+    assertThat(emitted).hasSize(4);
+  }
+
+  @Test
+  void ignoresBadTicksAndRequiresATimeframe() {
+    tick(0, "0", "1");
+    aggregator.onTick("BTC", 0, price("100"), -1);
+    aggregator.flushOpen();
+
+    assertThat(emitted).isEmpty();
+    assertThat(aggregator.ticks()).isZero();
+    assertThatThrownBy(() -> new CandleAggregator(List.of(), emitted::add)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private void tick(long epochMillis, String price, String size) {
+    aggregator.onTick("BTC", epochMillis, price(price), price(size));
+  }
+
+  private static long price(String value) {
+    return FixedPoint.fromBigDecimal(new BigDecimal(value));
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.trading.market;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.trading.domain.FixedPoint;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CandleArchiveTest {
+  private static final long HOUR = 3_600_000L;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void appendedBarsReadBackColumnByColumn() {
+    CandleArchive archive = archive();
+    assertThat(archive.open("EURUSD=X", "1h").size()).isZero();
+    assertThat(archive.lastTime("EURUSD=X", "1h")).isEqualTo(Long.MIN_VALUE);
+
+    assertThat(archive.append("EURUSD=X", "1h", bars(0, 3))).isEqualTo(3);
+
+    ArchivedCandles bars = archive.open("EURUSD=X", "1h");
+    assertThat(bars.size()).isEqualTo(3);
+    assertThat(bars.candle(1)).isEqualTo(bar("EURUSD=X", 1));
+    assertThat(archive.lastTime("EURUSD=X", "1h")).isEqualTo(2 * HOUR);
+    assertThat(bars.indexOf(HOUR)).isEqualTo(1);
+    assertThat(bars.indexOf(HOUR + 1)).isEqualTo(2);
+    assertThat(bars.indexOf(10 * HOUR)).isEqualTo(3);
+  }
+
+  @Test
+  void skipsBarsNotNewerThanTheLastArchived() {
+    CandleArchive archive = archive();
+    archive.append("BTC", "1h", bars(0, 3));
+
+    assertThat(archive.append("BTC", "1h", bars(1, 5))).isEqualTo(2);
+    assertThat(archive.open("BTC", "1h").size()).isEqualTo(5);
+  }
+
+  @Test
+  void ignoresAndOverwritesATornTail() throws Exception {
+    CandleArchive archive = archive();
+    archive.append("BTC", "1h", bars(0, 2));
+    // An append that died after writing one column
+    Files.write(dir.resolve("candles/BTC/1h/open.col"), new byte[Long.BYTES], StandardOpenOption.APPEND);
+
+    assertThat(archive.open("BTC", "1h").size()).isEqualTo(2);
+    archive.append("BTC", "1h", bars(2, 3));
+
+    ArchivedCandles bars = archive.open("BTC", "1h");
+    assertThat(bars.size()).isEqualTo(3);
+    assertThat(bars.candle(2)).isEqualTo(bar("BTC", 2));
+  }
+
+  @Test
+  void publishingAStagedCopyReplacesTheSeriesAndKeepsEarlierViews() {
+    CandleArchive archive = archive();
+    archive.append("BTC", "1h", bars(0, 3));
+    ArchivedCandles before = archive.open("BTC", "1h");
+
+    archive.appendStaged("BTC", "1h", bars(5, 7));
+    assertThat(archive.open("BTC", "1h").size()).isEqualTo(3);
+    archive.publishStaged("BTC", "1h");
+
+    ArchivedCandles after = archive.open("BTC", "1h");
+    assertThat(after.size()).isEqualTo(2);
+    assertThat(after.time(0)).isEqualTo(5 * HOUR);
+    assertThat(before.size()).isEqualTo(3);
+    assertThat(before.candle(2)).isEqualTo(bar("BTC", 2));
+
+    // Nothing staged any more
+    archive.publishStaged("BTC", "1h");
+    assertThat(archive.open("BTC", "1h").size()).isEqualTo(2);
+  }
+
+  @Test
+  void discardedStagingLeavesTheSeriesAlone() {
+    CandleArchive archive = archive();
+    archive.append("BTC", "1h", bars(0, 1));
+    archive.appendStaged("BTC", "1h", bars(5, 6));
+
+    archive.discardStaged("BTC", "1h");
+    archive.publishStaged("BTC", "1h");
+
+    assertThat(archive.open("BTC", "1h").time(0)).isZero();
+  }
+
+  @Test
+  void rejectsNamesThatWouldLeaveTheArchive() {
+    assertThatThrownBy(() -> archive().open("..", "1h")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private CandleArchive archive() {
+    // Staging copies go next to the root, so keep both inside the temp dir
+    return new CandleArchive(dir.resolve("candles"));
+  }
+
+  private static List<Candle> bars(int from, int to) {
+    List<Candle> out = new ArrayList<>();
+    for (int i = from; i < to; i++) out.add(bar("BTC", i));
+    return out;
+  }
+
+  private static Candle bar(String symbol, int index) {
+    return new Candle(symbol, "1h", index * HOUR, FixedPoint.of(10 + index), FixedPoint.of(12 + index),
+      FixedPoint.of(9 + index), FixedPoint.of(11 + index), FixedPoint.of(index + 1), FixedPoint.of(10 + index), 0);
+  }
+}
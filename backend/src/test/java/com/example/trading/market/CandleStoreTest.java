@@ -0,0 +1,108 @@
+package com.example.trading.market;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.MarketData;
+import com.example.trading.repository.MarketDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+class CandleStoreTest {
+  private static final long MINUTE = 60_000L;
+
+  private final MarketDataRepository repository = mock(MarketDataRepository.class);
+  private final CandleStore store = new CandleStore(repository, new SimpleMeterRegistry(), 3);
+
+  @Test
+  void readsNeverCreateASeries() {
+    assertThat(store.window("BTC", "1m", null, 1)).isNull();
+    assertThat(store.window("BTC", "1m", null, 1)).isNull();
+  }
+
+  @Test
+  void answersWindowsFromStoredAndAppendedBars() {
+    stored(0, 1);
+    store.append(bar(2, 30));
+
+    assertThat(times(store.window("BTC", "1m", null, 2))).containsExactly(MINUTE, 2 * MINUTE);
+    assertThat(times(store.window("BTC", "1m", 2 * MINUTE, 5))).containsExactly(0L, MINUTE);
+  }
+
+  @Test
+  void fallsBackOnceAWindowReachesPastTheRing() {
+    stored();
+    for (int i = 0; i < 5; i++) store.append(bar(i, 10 + i));
+
+    assertThat(times(store.window("BTC", "1m", null, 3))).containsExactly(2 * MINUTE, 3 * MINUTE, 4 * MINUTE);
+    assertThat(store.window("BTC", "1m", null, 4)).isNull();
+    assertThat(store.window("BTC", "1m", 3 * MINUTE, 2)).isNull();
+  }
+
+  @Test
+  void replacesTheOpenBarAndDropsOlderOnes() {
+    stored(0, 1);
+    store.append(bar(1, 99));
+    store.append(bar(0, 50));
+
+    assertThat(store.window("BTC", "1m", null, 2)).extracting(Candle::close)
+      .containsExactly(FixedPoint.of(10), FixedPoint.of(99));
+  }
+
+  @Test
+  void reloadKeepsHeldBarsNewerThanAnythingStored() {
+    stored(0);
+    store.append(bar(1, 20));
+    store.append(bar(2, 30));
+
+    // A backfill stored bar 1 with different values; bar 2 is only held in memory
+    when(repository.findBySymbolAndTimeframeOrderByTimestampDesc(eq("BTC"), eq("1m"), any(Pageable.class)))
+      .thenReturn(new PageImpl<>(List.of(row(1, 25), row(0, 10))));
+    store.reload("BTC", "1m");
+
+    assertThat(store.window("BTC", "1m", null, 3)).extracting(Candle::close)
+      .containsExactly(FixedPoint.of(10), FixedPoint.of(25), FixedPoint.of(30));
+  }
+
+  /** Stubs the stored rows, closing at 10 + index. */
+  private void stored(int... indexes) {
+    List<MarketData> rows = new ArrayList<>();
+    for (int i = indexes.length - 1; i >= 0; i--) rows.add(row(indexes[i], 10 + indexes[i]));
+    when(repository.findBySymbolAndTimeframeOrderByTimestampDesc(eq("BTC"), eq("1m"), any(Pageable.class)))
+      .thenReturn(new PageImpl<>(rows));
+  }
+
+  private static MarketData row(int index, long close) {
+    MarketData m = new MarketData();
+    m.setSymbol("BTC");
+    m.setTimeframe("1m");
+    m.setTimestamp(LocalDateTime.ofEpochSecond(index * 60L, 0, ZoneOffset.UTC));
+    m.setOpen(BigDecimal.valueOf(close));
+    m.setHigh(BigDecimal.valueOf(close));
+    m.setLow(BigDecimal.valueOf(close));
+    m.setClose(BigDecimal.valueOf(close));
+    m.setVolume(BigDecimal.ONE);
+    m.setVwap(BigDecimal.valueOf(close));
+    return m;
+  }
+
+  private static Candle bar(int index, long close) {
+    long price = FixedPoint.of(close);
+    return new Candle("BTC", "1m", index * MINUTE, price, price, price, price, FixedPoint.ONE, price, 1);
+  }
+
+  private static List<Long> times(List<Candle> candles) {
+    return candles.stream().map(Candle::openTime).toList();
+  }
+}
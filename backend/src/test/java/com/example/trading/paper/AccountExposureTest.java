@@ -0,0 +1,99 @@
+package com.example.trading.paper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.trading.domain.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+class AccountExposureTest {
+
+  @Test
+  void netsPositionsPerSymbolAndMarksThemIncrementally() {
+    AccountExposure account = account(1, 1000);
+    account.add(held(1, "BTC", 1, 2, 100, 20), 0);
+    account.add(held(2, "BTC", -1, 1, 110, 11), 0);
+    account.add(held(3, "ETH", 1, 1, 50, 5), 0);
+
+    assertThat(account.mark("BTC", FixedPoint.of(120))).isTrue();
+    assertThat(account.mark("SOL", FixedPoint.of(1))).isFalse();
+
+    // Long 2 from 100 (+40) and short 1 from 110 (-10) at 120; ETH still at its open price
+    assertThat(account.unrealized()).isEqualTo(FixedPoint.of(30));
+    assertThat(account.equity()).isEqualTo(FixedPoint.of(1030));
+    assertThat(account.margin()).isEqualTo(FixedPoint.of(36));
+  }
+
+  @Test
+  void marginLevelIsEquityOverMarginInPercent() {
+    AccountExposure account = account(1, 1000);
+    assertThat(account.level()).isEqualTo(AccountExposure.NO_MARGIN);
+
+    account.add(held(1, "BTC", 1, 10, 100, 100), 0);
+    assertThat(account.level()).isEqualTo(FixedPoint.of(1000));
+
+    account.mark("BTC", FixedPoint.of(20));
+    assertThat(account.level()).isEqualTo(FixedPoint.of(200));
+  }
+
+  @Test
+  void removingAPositionBooksItsPnlAtTheLastMark() {
+    AccountExposure account = account(1, 1000);
+    account.add(held(1, "BTC", 1, 1, 100, 10), 0);
+    account.add(held(2, "BTC", 1, 1, 90, 9), 0);
+    account.mark("BTC", FixedPoint.of(80));
+
+    assertThat(account.remove(1).positionId()).isEqualTo(1);
+    assertThat(account.remove(1)).isNull();
+
+    assertThat(account.balance).isEqualTo(FixedPoint.of(980));
+    assertThat(account.unrealized()).isEqualTo(FixedPoint.of(-10));
+    assertThat(account.margin()).isEqualTo(FixedPoint.of(9));
+    assertThat(account.holdsSymbol("BTC")).isTrue();
+  }
+
+  @Test
+  void worstIsTheLargestLoserAtCurrentMarks() {
+    AccountExposure account = account(1, 1000);
+    account.add(held(1, "BTC", 1, 1, 100, 10), 0);
+    account.add(held(2, "ETH", -1, 1, 100, 10), 0);
+    account.mark("BTC", FixedPoint.of(90));
+    account.mark("ETH", FixedPoint.of(120));
+
+    assertThat(account.worst().positionId()).isEqualTo(2);
+  }
+
+  @Test
+  void levelQueueKeepsTheLowestLevelOnTop() {
+    LevelQueue queue = new LevelQueue();
+    AccountExposure a = account(1, 1000);
+    AccountExposure b = account(2, 1000);
+    AccountExposure idle = account(3, 1000);
+    a.add(held(1, "BTC", 1, 1, 100, 100), 0);
+    b.add(held(2, "ETH", 1, 1, 100, 50), 0);
+    queue.update(a);
+    queue.update(b);
+    queue.update(idle);
+
+    assertThat(queue.size()).isEqualTo(2);
+    assertThat(queue.peek()).isSameAs(a);
+
+    a.mark("BTC", FixedPoint.of(2000));
+    queue.update(a);
+    assertThat(queue.peek()).isSameAs(b);
+
+    b.remove(2);
+    queue.update(b);
+    assertThat(queue.peek()).isSameAs(a);
+    assertThat(queue.size()).isEqualTo(1);
+  }
+
+  private static AccountExposure account(long id, long balance) {
+    AccountExposure account = new AccountExposure(id);
+    account.setBalance(FixedPoint.of(balance));
+    return account;
+  }
+
+  private static AccountExposure.Held held(long id, String symbol, int sign, long volume, long openPrice, long margin) {
+    return new AccountExposure.Held(id, symbol, sign, FixedPoint.of(volume), FixedPoint.of(openPrice), FixedPoint.of(margin));
+  }
+}
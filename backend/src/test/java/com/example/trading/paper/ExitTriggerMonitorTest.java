@@ -0,0 +1,70 @@
+package com.example.trading.paper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.Position.PositionSide;
+import com.example.trading.domain.Trade.TradeSide;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.repository.PositionRepository;
+import com.example.trading.repository.TradeRepository;
+import com.example.trading.service.TradeChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class ExitTriggerMonitorTest {
+  private final PositionCloser closer = mock(PositionCloser.class);
+  private final PriceTickPublisher tickPublisher = mock(PriceTickPublisher.class);
+  private final ExitTriggerMonitor monitor = new ExitTriggerMonitor(mock(PositionRepository.class),
+    mock(TradeRepository.class), closer, tickPublisher, new SimpleMeterRegistry(), 10_000);
+
+  @Test
+  void closesPositionsAndTradesWhoseLevelsTheTickCrossed() {
+    monitor.place(1, "BTC", PositionSide.LONG, BigDecimal.valueOf(90), null);
+    // Trade ids are their own sequence; the same id must not clash with the position's
+    monitor.placeTrade(1, "BTC", TradeSide.SELL, BigDecimal.valueOf(95), null);
+    monitor.placeTrade(2, "BTC", TradeSide.BUY, null, BigDecimal.valueOf(120));
+
+    monitor.onTick("BTC", FixedPoint.of(96));
+    verify(closer).closeTrade(1, FixedPoint.of(96), PositionCloser.Reason.STOP_LOSS);
+
+    monitor.onTick("BTC", FixedPoint.of(89));
+    verify(closer).close(1, FixedPoint.of(89), PositionCloser.Reason.STOP_LOSS);
+    verify(closer, never()).closeTrade(eq(2L), anyLong(), any());
+    assertThat(monitor.protectedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void followsTradeChanges() {
+    monitor.onTradeChange(new TradeChange(5L, 1L, "ETH", TradeSide.BUY, BigDecimal.valueOf(90), null, true));
+    monitor.onTradeChange(new TradeChange(5L, 1L, "ETH", TradeSide.BUY, BigDecimal.valueOf(90), null, false));
+
+    monitor.onTick("ETH", FixedPoint.of(80));
+
+    verify(closer, never()).closeTrade(anyLong(), anyLong(), any());
+    assertThat(monitor.protectedCount()).isZero();
+    verify(tickPublisher).watch("ETH");
+    verify(tickPublisher).unwatch("ETH");
+  }
+
+  @Test
+  void movesAPositionWhoseSymbolChanged() {
+    monitor.onPositionChange(new PositionChange(1L, 1L, "BTC", PositionSide.SHORT, BigDecimal.ONE, BigDecimal.TEN,
+      BigDecimal.ONE, BigDecimal.valueOf(12), null, true, BigDecimal.TEN));
+    monitor.place(1, "ETH", PositionSide.SHORT, BigDecimal.valueOf(12), null);
+
+    monitor.onTick("BTC", FixedPoint.of(20));
+    monitor.onTick("ETH", FixedPoint.of(12));
+
+    verify(closer).close(1, FixedPoint.of(12), PositionCloser.Reason.STOP_LOSS);
+    verify(closer, never()).close(1, FixedPoint.of(20), PositionCloser.Reason.STOP_LOSS);
+    verify(tickPublisher).unwatch("BTC");
+  }
+}
@@ -0,0 +1,116 @@
+package com.example.trading.paper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.Order;
+import com.example.trading.domain.Order.OrderSide;
+import com.example.trading.domain.Order.OrderStatus;
+import com.example.trading.domain.Order.OrderType;
+import com.example.trading.domain.PaperTradingAccount;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.repository.OrderRepository;
+import com.example.trading.repository.PaperTradingAccountRepository;
+import com.example.trading.repository.PositionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class OrderMatchingEngineTest {
+  private final OrderRepository orderRepository = mock(OrderRepository.class);
+  private final PaperTradingAccountRepository accountRepository = mock(PaperTradingAccountRepository.class);
+  private final PriceTickPublisher tickPublisher = mock(PriceTickPublisher.class);
+  private final List<Object> published = new CopyOnWriteArrayList<>();
+  private final OrderMatchingEngine engine = new OrderMatchingEngine(orderRepository, accountRepository,
+    mock(PositionRepository.class), tickPublisher, published::add, mock(PlatformTransactionManager.class),
+    new SimpleMeterRegistry(), 0.001, 10, 500, Duration.ofHours(1), Duration.ofHours(1), 10_000);
+
+  @Test
+  void fillsWhileTheAccountHasFreeMarginAndRejectsTheRest() throws Exception {
+    PaperTradingAccount account = account(PaperTradingAccount.AccountStatus.ACTIVE);
+    Order first = order(1, account, "100", "50");
+    Order second = order(2, account, "99", "60");
+    when(orderRepository.findAllById(any())).thenReturn(List.of(first, second));
+    when(accountRepository.findAllById(any())).thenReturn(List.of(account));
+    engine.place(first);
+    engine.place(second);
+
+    engine.onTick("BTC", 0, FixedPoint.of(98));
+    engine.shutdown();
+
+    // 98 moved against the buyer; margin is price * volume / leverage
+    assertThat(first.getStatus()).isEqualTo(OrderStatus.FILLED);
+    assertThat(first.getFilledPrice()).isEqualByComparingTo("98.098");
+    assertThat(account.getMargin()).isEqualByComparingTo("490.49");
+    assertThat(second.getStatus()).isEqualTo(OrderStatus.REJECTED);
+    assertThat(published).hasSize(2);
+    assertThat(published).filteredOn(OrderFill.class::isInstance).singleElement()
+      .extracting(e -> ((OrderFill) e).orderId()).isEqualTo(1L);
+    assertThat(published).filteredOn(PositionChange.class::isInstance).singleElement()
+      .satisfies(e -> assertThat(((PositionChange) e).margin()).isEqualByComparingTo("490.49"));
+  }
+
+  @Test
+  void rejectsFillsOnInactiveAccounts() throws Exception {
+    PaperTradingAccount account = account(PaperTradingAccount.AccountStatus.SUSPENDED);
+    Order order = order(1, account, "100", "1");
+    when(orderRepository.findAllById(any())).thenReturn(List.of(order));
+    when(accountRepository.findAllById(any())).thenReturn(List.of(account));
+    engine.place(order);
+
+    engine.onTick("BTC", 0, FixedPoint.of(100));
+    engine.shutdown();
+
+    assertThat(order.getStatus()).isEqualTo(OrderStatus.REJECTED);
+    assertThat(published).isEmpty();
+  }
+
+  @Test
+  void indexesOnlyRestingLimitAndStopOrders() throws Exception {
+    Order market = order(1, null, "100", "1");
+    market.setType(OrderType.MARKET);
+    Order filled = order(2, null, "100", "1");
+    filled.setStatus(OrderStatus.FILLED);
+
+    assertThat(engine.place(market)).isFalse();
+    assertThat(engine.place(filled)).isFalse();
+    assertThat(engine.place(order(3, null, "100", "1"))).isTrue();
+    assertThat(engine.restingCount()).isEqualTo(1);
+    verify(tickPublisher).watch("BTC");
+
+    engine.cancel(3L);
+    assertThat(engine.restingCount()).isZero();
+    verify(tickPublisher).unwatch("BTC");
+    engine.shutdown();
+  }
+
+  private static PaperTradingAccount account(PaperTradingAccount.AccountStatus status) {
+    PaperTradingAccount account = new PaperTradingAccount();
+    account.setId(1L);
+    account.setBalance(BigDecimal.valueOf(1000));
+    account.setEquity(BigDecimal.valueOf(1000));
+    account.setMargin(BigDecimal.ZERO);
+    account.setStatus(status);
+    return account;
+  }
+
+  private static Order order(long id, PaperTradingAccount account, String limit, String volume) {
+    Order order = new Order();
+    order.setId(id);
+    order.setSymbol("BTC");
+    order.setType(OrderType.LIMIT);
+    order.setSide(OrderSide.BUY);
+    order.setPrice(new BigDecimal(limit));
+    order.setVolume(new BigDecimal(volume));
+    order.setAccount(account);
+    return order;
+  }
+}
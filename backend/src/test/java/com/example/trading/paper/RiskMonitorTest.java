@@ -0,0 +1,96 @@
+package com.example.trading.paper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.Position.PositionSide;
+import com.example.trading.market.PriceTick;
+import com.example.trading.market.PriceTickPublisher;
+import com.example.trading.repository.PaperTradingAccountRepository;
+import com.example.trading.repository.PositionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class RiskMonitorTest {
+  private final PositionCloser closer = mock(PositionCloser.class);
+  private final PriceTickPublisher tickPublisher = mock(PriceTickPublisher.class);
+  private final List<Object> published = new CopyOnWriteArrayList<>();
+  private final RiskMonitor monitor = new RiskMonitor(mock(PositionRepository.class),
+    mock(PaperTradingAccountRepository.class), closer, tickPublisher, published::add,
+    mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), BigDecimal.valueOf(100), BigDecimal.valueOf(50),
+    Duration.ofHours(1), 10_000);
+
+  @Test
+  void callsMarginOnceAtTheMarginCallLevel() throws Exception {
+    monitor.onPositionChange(opened(1, 1, "BTC", 10, 100, 100, 1000));
+    tick("BTC", 20);
+    tick("BTC", 10);
+    tick("BTC", 9);
+    monitor.shutdown();
+
+    // Equity 100 over margin 100 is exactly the 100% margin-call level
+    assertThat(published).singleElement().isEqualTo(new MarginCall(1L, new BigDecimal("100.00000000"),
+      new BigDecimal("100.00000000"), new BigDecimal("100.00"), false));
+    verify(closer, never()).close(anyLong(), anyLong(), eq(PositionCloser.Reason.STOP_OUT));
+  }
+
+  @Test
+  void stopsOutTheWorstPositionUntilTheAccountRecovers() throws Exception {
+    monitor.onPositionChange(opened(1, 1, "BTC", 10, 100, 100, 1000));
+    monitor.onPositionChange(opened(2, 1, "ETH", 1, 100, 10, 1000));
+    monitor.onPositionChange(opened(3, 2, "BTC", 1, 100, 10, 1000));
+    tick("BTC", 5);
+    monitor.shutdown();
+
+    // Account 1: equity 50 over margin 110 is below 50%; closing BTC leaves 50 over 10
+    verify(closer).close(1, FixedPoint.of(5), PositionCloser.Reason.STOP_OUT);
+    verify(closer, never()).close(eq(2L), anyLong(), eq(PositionCloser.Reason.STOP_OUT));
+    verify(closer, never()).close(eq(3L), anyLong(), eq(PositionCloser.Reason.STOP_OUT));
+    assertThat(published).filteredOn(e -> ((MarginCall) e).stopOut())
+      .singleElement().extracting(e -> ((MarginCall) e).accountId()).isEqualTo(1L);
+  }
+
+  @Test
+  void watchesSymbolsWhileAnyAccountHoldsThem() throws Exception {
+    monitor.onPositionChange(opened(1, 1, "BTC", 1, 100, 10, 1000));
+    monitor.onPositionChange(opened(2, 2, "BTC", 1, 100, 10, 1000));
+    monitor.onPositionChange(closed(1, 1, "BTC", 1, 100, 10, 1000));
+    monitor.onPositionChange(closed(2, 2, "BTC", 1, 100, 10, 1000));
+    monitor.shutdown();
+
+    verify(tickPublisher).watch("BTC");
+    verify(tickPublisher).unwatch("BTC");
+    assertThat(monitor.monitoredCount()).isZero();
+  }
+
+  private void tick(String symbol, long price) {
+    monitor.onPriceTick(new PriceTick(symbol, BigDecimal.valueOf(price), Instant.EPOCH));
+  }
+
+  private static PositionChange opened(long id, long accountId, String symbol, long volume, long price, long margin,
+                                       long balance) {
+    return change(id, accountId, symbol, volume, price, margin, balance, true);
+  }
+
+  private static PositionChange closed(long id, long accountId, String symbol, long volume, long price, long margin,
+                                       long balance) {
+    return change(id, accountId, symbol, volume, price, margin, balance, false);
+  }
+
+  private static PositionChange change(long id, long accountId, String symbol, long volume, long price, long margin,
+                                       long balance, boolean open) {
+    return new PositionChange(id, accountId, symbol, PositionSide.LONG, BigDecimal.valueOf(volume),
+      BigDecimal.valueOf(price), BigDecimal.valueOf(margin), null, null, open, BigDecimal.valueOf(balance));
+  }
+}
@@ -0,0 +1,181 @@
+package com.example.trading.paper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.trading.backtest.BarSignal;
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.domain.PaperTradingAccount;
+import com.example.trading.domain.PaperTradingExecution;
+import com.example.trading.domain.PaperTradingExecution.ExecutionSignal;
+import com.example.trading.domain.PaperTradingExecution.ExecutionStatus;
+import com.example.trading.domain.Position;
+import com.example.trading.domain.Strategy;
+import com.example.trading.domain.User;
+import com.example.trading.market.Candle;
+import com.example.trading.market.CandleStore;
+import com.example.trading.pine.PinePlan;
+import com.example.trading.pine.PinePlanCache;
+import com.example.trading.repository.PaperTradingAccountRepository;
+import com.example.trading.repository.PaperTradingExecutionRepository;
+import com.example.trading.repository.PositionRepository;
+import com.example.trading.repository.StrategyRepository;
+import com.example.trading.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class StrategyRunnerTest {
+  private static final long HOUR = 3_600_000L;
+
+  private final PaperTradingExecutionRepository executionRepository = mock(PaperTradingExecutionRepository.class);
+  private final PositionRepository positionRepository = mock(PositionRepository.class);
+  private final PaperTradingAccountRepository accountRepository = mock(PaperTradingAccountRepository.class);
+  private final PinePlanCache planCache = mock(PinePlanCache.class);
+  private final CandleStore candleStore = mock(CandleStore.class);
+  private final List<Object> published = new CopyOnWriteArrayList<>();
+  private final StrategyRunner runner = new StrategyRunner(mock(StrategyRepository.class), executionRepository,
+    positionRepository, accountRepository, mock(UserRepository.class), planCache, candleStore,
+    published::add, mock(PlatformTransactionManager.class), new SimpleMeterRegistry(),
+    0.001, 10, 2, 500, 500, Duration.ofHours(1), 1000);
+
+  @Test
+  void entersAndReversesAtTheBarCloseMovedAgainstTheTrader() throws Exception {
+    PaperTradingAccount account = account("1000");
+    run(account, new int[] {1, -1}, 100, 110);
+
+    List<PaperTradingExecution> executions = saved();
+    assertThat(executions).extracting(PaperTradingExecution::getSignal)
+      .containsExactly(ExecutionSignal.BUY_LONG, ExecutionSignal.EXIT_LONG, ExecutionSignal.SELL_SHORT);
+    assertThat(executions).allMatch(e -> e.getStatus() == ExecutionStatus.EXECUTED);
+    assertThat(executions).extracting(e -> e.getOrder().getFilledPrice())
+      .usingElementComparator(BigDecimal::compareTo)
+      .containsExactly(new BigDecimal("100.1"), new BigDecimal("109.89"), new BigDecimal("109.89"));
+
+    // Long 2 units from 100.1 to 109.89, then short margin 109.89 * 2 / 10 still held
+    assertThat(account.getBalance()).isEqualByComparingTo("1019.58");
+    assertThat(account.getMargin()).isEqualByComparingTo("21.978");
+    assertThat(published).filteredOn(OrderFill.class::isInstance).hasSize(3);
+    assertThat(published).filteredOn(PositionChange.class::isInstance)
+      .extracting(e -> ((PositionChange) e).open())
+      .containsExactly(false, false, true);
+  }
+
+  @Test
+  void refusesEntriesTheFreeMarginDoesNotCover() throws Exception {
+    PaperTradingAccount account = account("20");
+    run(account, new int[] {1}, 100);
+
+    assertThat(saved()).singleElement().satisfies(e -> {
+      assertThat(e.getSignal()).isEqualTo(ExecutionSignal.BUY_LONG);
+      assertThat(e.getStatus()).isEqualTo(ExecutionStatus.FAILED);
+    });
+    assertThat(account.getMargin()).isEqualByComparingTo("0");
+    assertThat(published).isEmpty();
+  }
+
+  @Test
+  void refusesExitsWithNoOpenPosition() throws Exception {
+    PaperTradingExecution last = new PaperTradingExecution();
+    last.setSignal(ExecutionSignal.BUY_LONG);
+    when(executionRepository.findFirstByStrategyIdAndStatusOrderByIdDesc(anyLong(), any())).thenReturn(Optional.of(last));
+    run(account("1000"), new int[] {0}, 100);
+
+    assertThat(saved()).singleElement().satisfies(e -> {
+      assertThat(e.getSignal()).isEqualTo(ExecutionSignal.EXIT_LONG);
+      assertThat(e.getStatus()).isEqualTo(ExecutionStatus.FAILED);
+    });
+    assertThat(published).isEmpty();
+  }
+
+  @Test
+  void doesNotRunStrategiesThatAreNotFullyConfigured() throws Exception {
+    Strategy strategy = strategy(account("1000"));
+    strategy.setLiveSymbol(null);
+
+    assertThat(runner.register(strategy)).isFalse();
+    assertThat(runner.runningCount()).isZero();
+    runner.shutdown();
+  }
+
+  /**
+   * Runs a strategy that wants {@code positions[i]} after live bar i, then drains the writer.
+   * Bars are sent once the strategy has warmed up on one bar of history, so none is folded into
+   * the warm-up.
+   */
+  private void run(PaperTradingAccount account, int[] positions, long... closes) throws Exception {
+    CountDownLatch warmedUp = new CountDownLatch(1);
+    BarSignal signal = (s, i) -> {
+      if (i == 0) {
+        warmedUp.countDown();
+        return 0;
+      }
+      return positions[i - 1];
+    };
+    PinePlan plan = mock(PinePlan.class);
+    when(plan.instantiate(any())).thenReturn(signal);
+    when(planCache.plan(any())).thenReturn(plan);
+    when(accountRepository.findAllById(any())).thenReturn(List.of(account));
+    when(positionRepository.findOpenByStrategyIdIn(any())).thenReturn(List.<Position>of());
+
+    when(candleStore.window(eq("BTC"), eq("1h"), isNull(), anyInt())).thenReturn(List.of(bar(0, 100)));
+
+    assertThat(runner.register(strategy(account))).isTrue();
+    assertThat(warmedUp.await(10, TimeUnit.SECONDS)).isTrue();
+    for (int i = 0; i < closes.length; i++) runner.onBar(bar(i + 1, closes[i]));
+    runner.shutdown();
+  }
+
+  private static Candle bar(int index, long close) {
+    long price = FixedPoint.of(close);
+    return new Candle("BTC", "1h", index * HOUR, price, price, price, price, FixedPoint.ONE, 0, 0);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<PaperTradingExecution> saved() {
+    ArgumentCaptor<Iterable<PaperTradingExecution>> captor = ArgumentCaptor.forClass(Iterable.class);
+    verify(executionRepository).saveAll(captor.capture());
+    List<PaperTradingExecution> out = new ArrayList<>();
+    captor.getValue().forEach(out::add);
+    return out;
+  }
+
+  private static Strategy strategy(PaperTradingAccount account) {
+    User user = new User();
+    user.setId(1L);
+    Strategy strategy = new Strategy();
+    strategy.setId(7L);
+    strategy.setStatus(Strategy.StrategyStatus.ACTIVE);
+    strategy.setLiveSymbol("BTC");
+    strategy.setLiveTimeframe("1h");
+    strategy.setLiveVolume(BigDecimal.valueOf(2));
+    strategy.setLiveAccount(account);
+    strategy.setUser(user);
+    return strategy;
+  }
+
+  private static PaperTradingAccount account(String equity) {
+    PaperTradingAccount account = new PaperTradingAccount();
+    account.setId(1L);
+    account.setBalance(new BigDecimal("1000"));
+    account.setEquity(new BigDecimal(equity));
+    account.setMargin(BigDecimal.ZERO);
+    return account;
+  }
+}
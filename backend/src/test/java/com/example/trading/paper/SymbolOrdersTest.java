@@ -0,0 +1,83 @@
+package com.example.trading.paper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.trading.domain.FixedPoint;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SymbolOrdersTest {
+  private static final long GTC = Long.MAX_VALUE;
+
+  private final SymbolOrders orders = new SymbolOrders(price("0.001"));
+
+  private record Fill(long orderId, boolean buy, long volume, long price) {}
+
+  @Test
+  void limitsFillAtTheirPriceOrBetter() {
+    orders.add(1, false, true, price("110"), price("2"), GTC);
+    orders.add(2, true, true, price("90"), price("3"), GTC);
+
+    assertThat(fills(100)).isEmpty();
+    // Slippage would put the sell at 109.89; a limit never fills worse than its own price
+    assertThat(fills(110)).containsExactly(new Fill(1, false, price("2"), price("110")));
+    assertThat(fills(80)).containsExactly(new Fill(2, true, price("3"), price("80.08")));
+    assertThat(orders.size()).isZero();
+  }
+
+  @Test
+  void stopsFillAtTheTickMovedAgainstTheTrader() {
+    orders.add(1, true, false, price("110"), price("1"), GTC);
+    orders.add(2, false, false, price("90"), price("1"), GTC);
+
+    assertThat(fills(109)).isEmpty();
+    assertThat(fills(110)).containsExactly(new Fill(1, true, price("1"), price("110.11")));
+    assertThat(fills(90)).containsExactly(new Fill(2, false, price("1"), price("89.91")));
+  }
+
+  @Test
+  void aTickFillsEveryOrderItCrossesAndNoOther() {
+    orders.add(1, false, true, price("101"), price("1"), GTC);
+    orders.add(2, false, true, price("105"), price("1"), GTC);
+    orders.add(3, false, true, price("120"), price("1"), GTC);
+    orders.add(4, true, true, price("95"), price("1"), GTC);
+
+    assertThat(fills(106)).extracting(Fill::orderId).containsExactlyInAnyOrder(1L, 2L);
+    assertThat(orders.size()).isEqualTo(2);
+  }
+
+  @Test
+  void cancelledAndReplacedOrdersDoNotFillAtTheirOldPrice() {
+    orders.add(1, false, true, price("110"), price("1"), GTC);
+    orders.add(2, false, true, price("110"), price("1"), GTC);
+
+    assertThat(orders.remove(1)).isTrue();
+    assertThat(orders.remove(1)).isFalse();
+    orders.add(2, false, true, price("130"), price("4"), GTC);
+
+    assertThat(fills(120)).isEmpty();
+    assertThat(fills(130)).containsExactly(new Fill(2, false, price("4"), price("130")));
+  }
+
+  @Test
+  void expiresOnlyOnceTheDeadlineHasPassed() {
+    orders.add(1, true, true, price("90"), price("1"), 1_000);
+
+    assertThat(orders.expire(1, 999)).isFalse();
+    assertThat(orders.expire(1, 1_000)).isTrue();
+    assertThat(fills(80)).isEmpty();
+  }
+
+  private List<Fill> fills(long tick) {
+    List<Fill> out = new ArrayList<>();
+    orders.onPrice(FixedPoint.of(tick), 0, (orderId, buy, volume, fillPrice, at) ->
+      out.add(new Fill(orderId, buy, volume, fillPrice)));
+    return out;
+  }
+
+  private static long price(String value) {
+    return FixedPoint.fromBigDecimal(new BigDecimal(value));
+  }
+}
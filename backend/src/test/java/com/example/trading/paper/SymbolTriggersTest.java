@@ -0,0 +1,75 @@
+package com.example.trading.paper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SymbolTriggersTest {
+  private final SymbolTriggers triggers = new SymbolTriggers();
+
+  private record Crossed(long positionId, PositionCloser.Reason reason) {}
+
+  @Test
+  void longStopsFireFallingAndTargetsRising() {
+    triggers.add(1, false, 90, 0);
+    triggers.add(2, false, 0, 110);
+
+    assertThat(crossed(100)).isEmpty();
+    assertThat(crossed(90)).containsExactly(new Crossed(1, PositionCloser.Reason.STOP_LOSS));
+    assertThat(crossed(110)).containsExactly(new Crossed(2, PositionCloser.Reason.TAKE_PROFIT));
+    assertThat(triggers.size()).isZero();
+  }
+
+  @Test
+  void shortStopsFireRisingAndTargetsFalling() {
+    triggers.add(1, true, 110, 0);
+    triggers.add(2, true, 0, 90);
+
+    assertThat(crossed(100)).isEmpty();
+    assertThat(crossed(111)).containsExactly(new Crossed(1, PositionCloser.Reason.STOP_LOSS));
+    assertThat(crossed(89)).containsExactly(new Crossed(2, PositionCloser.Reason.TAKE_PROFIT));
+  }
+
+  @Test
+  void aPositionFiresOnceWhicheverLevelIsCrossedFirst() {
+    triggers.add(1, false, 90, 110);
+
+    assertThat(crossed(115)).containsExactly(new Crossed(1, PositionCloser.Reason.TAKE_PROFIT));
+    assertThat(crossed(80)).isEmpty();
+  }
+
+  @Test
+  void nothingIsIndexedWithoutALevel() {
+    assertThat(triggers.add(1, false, 0, 0)).isFalse();
+    assertThat(triggers.size()).isZero();
+  }
+
+  @Test
+  void removedAndReplacedLevelsNoLongerFire() {
+    triggers.add(1, false, 90, 110);
+    triggers.add(2, false, 90, 0);
+
+    assertThat(triggers.remove(1)).isTrue();
+    triggers.add(2, false, 50, 0);
+
+    assertThat(crossed(60)).isEmpty();
+    assertThat(crossed(120)).isEmpty();
+    assertThat(crossed(50)).containsExactly(new Crossed(2, PositionCloser.Reason.STOP_LOSS));
+  }
+
+  @Test
+  void compactsAfterManyRemovals() {
+    for (int i = 0; i < 3000; i++) triggers.add(i, i % 2 == 0, 50, 150);
+    for (int i = 1; i < 3000; i++) triggers.remove(i);
+
+    assertThat(crossed(40)).containsExactly(new Crossed(0, PositionCloser.Reason.TAKE_PROFIT));
+  }
+
+  private List<Crossed> crossed(long price) {
+    List<Crossed> out = new ArrayList<>();
+    triggers.onPrice(price, (id, reason) -> out.add(new Crossed(id, reason)));
+    return out;
+  }
+}
@@ -0,0 +1,184 @@
+package com.example.trading.pine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.trading.backtest.BarSignal;
+import com.example.trading.domain.FixedPoint;
+import com.example.trading.market.CandleSeries;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PineCompilerTest {
+
+  @Test
+  void reportsLineAndColumnOfCompileErrors() {
+    assertThatThrownBy(() -> PineCompiler.compile("x = close\ny = foo(1)\n"))
+      .isInstanceOfSatisfying(PineCompileException.class, e -> {
+        assertThat(e.getLine()).isEqualTo(2);
+        assertThat(e.getColumn()).isEqualTo(5);
+        assertThat(e.getMessage()).contains("Unsupported function 'foo'");
+      });
+
+    assertThatThrownBy(() -> PineCompiler.compile("x = close\nif x > 1\n    y := 2\n"))
+      .isInstanceOfSatisfying(PineCompileException.class, e -> {
+        assertThat(e.getLine()).isEqualTo(3);
+        assertThat(e.getColumn()).isEqualTo(5);
+        assertThat(e.getMessage()).contains("undeclared variable 'y'");
+      });
+
+    assertThatThrownBy(() -> PineCompiler.compile("  "))
+      .isInstanceOfSatisfying(PineCompileException.class, e -> {
+        assertThat(e.getLine()).isEqualTo(1);
+        assertThat(e.getColumn()).isEqualTo(1);
+      });
+  }
+
+  @Test
+  void rejectsHistoryOffsetsPastTheMaximum() {
+    PineCompiler.compile("x = close\ny = x[499]\n");
+
+    assertThatThrownBy(() -> PineCompiler.compile("x = close\ny = x[500]\n"))
+      .isInstanceOfSatisfying(PineCompileException.class, e -> {
+        assertThat(e.getLine()).isEqualTo(2);
+        assertThat(e.getMessage()).contains("History offset out of range");
+      });
+  }
+
+  @Test
+  void historyReferencesReadEarlierBars() {
+    String script = """
+      x = close * 2
+      if x[3] == 8
+          strategy.entry("L", strategy.long)
+      """;
+
+    // x[3] is NaN for the first three bars, then 2 * close three bars back
+    assertThat(run(script, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10))
+      .containsExactly(0, 0, 0, 0, 0, 0, 1, 1, 1, 1);
+  }
+
+  @Test
+  void expressionHistoryKeepsItsOwnDepth() {
+    String script = """
+      if (close - open)[2] > 0
+          strategy.entry("L", strategy.long)
+      else
+          strategy.close("L")
+      """;
+
+    // close - open is +1 on even bars and -1 on odd bars
+    int[] positions = run(script, 1, 2, 3, 4, 5, 6);
+    assertThat(positions).containsExactly(0, 0, 1, 0, 1, 0);
+  }
+
+  @Test
+  void varInitializesOnceAndPlainDeclarationsEveryBar() {
+    String script = """
+      var count = 0
+      count := count + 1
+      var first = close
+      plain = 0
+      plain := plain + 1
+      if count == 4 and plain == 1 and first == 10
+          strategy.entry("L", strategy.long)
+      """;
+
+    assertThat(run(script, 10, 20, 30, 40, 50)).containsExactly(0, 0, 0, 1, 1);
+  }
+
+  @Test
+  void instancesOfOnePlanDoNotShareState() {
+    PinePlan plan = PineCompiler.compile("""
+      var n = 0
+      n := n + 1
+      if n == 2
+          strategy.entry("S", strategy.short)
+      """);
+    CandleSeries bars = series(1, 2, 3);
+
+    BarSignal a = plan.instantiate(null);
+    a.onBar(bars, 0);
+    a.onBar(bars, 1);
+    BarSignal b = plan.instantiate(null);
+
+    assertThat(b.onBar(bars, 0)).isEqualTo(0);
+    assertThat(b.onBar(bars, 1)).isEqualTo(-1);
+  }
+
+  @Test
+  void parametersOverrideInputDefaults() {
+    PinePlan plan = PineCompiler.compile("""
+      level = input.int(3)
+      if close > level
+          strategy.entry("L", strategy.long)
+      """);
+    CandleSeries bars = series(4);
+
+    assertThat(plan.defaults()).containsEntry("level", 3.0);
+    assertThat(plan.instantiate(null).onBar(bars, 0)).isEqualTo(1);
+    assertThat(plan.instantiate(Map.of("level", "5")).onBar(bars, 0)).isEqualTo(0);
+  }
+
+  private static int[] run(String script, double... closes) {
+    CandleSeries bars = series(closes);
+    BarSignal signal = PineCompiler.compile(script).instantiate(null);
+    int[] positions = new int[bars.size()];
+    for (int i = 0; i < positions.length; i++) positions[i] = signal.onBar(bars, i);
+    return positions;
+  }
+
+  /** Bars that open one below their close on even indices and one above on odd ones. */
+  private static CandleSeries series(double... closes) {
+    return new CandleSeries() {
+      @Override
+      public String symbol() {
+        return "TEST";
+      }
+
+      @Override
+      public String timeframe() {
+        return "1m";
+      }
+
+      @Override
+      public int size() {
+        return closes.length;
+      }
+
+      @Override
+      public long time(int i) {
+        return i * 60_000L;
+      }
+
+      @Override
+      public long open(int i) {
+        return price(closes[i] + (i % 2 == 0 ? -1 : 1));
+      }
+
+      @Override
+      public long high(int i) {
+        return Math.max(open(i), close(i));
+      }
+
+      @Override
+      public long low(int i) {
+        return Math.min(open(i), close(i));
+      }
+
+      @Override
+      public long close(int i) {
+        return price(closes[i]);
+      }
+
+      @Override
+      public long volume(int i) {
+        return FixedPoint.ONE;
+      }
+    };
+  }
+
+  private static long price(double value) {
+    return Math.round(value * FixedPoint.ONE);
+  }
+}
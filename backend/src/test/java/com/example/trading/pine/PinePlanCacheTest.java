@@ -0,0 +1,105 @@
+package com.example.trading.pine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.trading.domain.Strategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+class PinePlanCacheTest {
+  private static final String SCRIPT = "len = input.int(14)\nx = ta.sma(close, len)\n";
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final PinePlanCache cache = new PinePlanCache(registry, Duration.ofHours(1), 2);
+
+  @Test
+  void reusesThePlanWhileTheStrategyIsUnchanged() {
+    Strategy strategy = strategy(1L, SCRIPT);
+
+    PinePlan first = cache.plan(strategy);
+
+    assertThat(cache.plan(strategy)).isSameAs(first);
+    assertThat(cache.plan(strategy(1L, SCRIPT))).isSameAs(first);
+    assertThat(compiled()).isEqualTo(1);
+  }
+
+  @Test
+  void recompilesWhenVersionChanges() {
+    Strategy strategy = strategy(1L, SCRIPT);
+    PinePlan first = cache.plan(strategy);
+
+    strategy.setVersion("1.1");
+
+    assertThat(cache.plan(strategy)).isNotSameAs(first);
+  }
+
+  @Test
+  void recompilesWhenUpdatedAtChanges() {
+    Strategy strategy = strategy(1L, SCRIPT);
+    PinePlan first = cache.plan(strategy);
+
+    strategy.setUpdatedAt(strategy.getUpdatedAt().plusSeconds(1));
+
+    assertThat(cache.plan(strategy)).isNotSameAs(first);
+  }
+
+  @Test
+  void recompilesWhenSourceChanges() {
+    Strategy strategy = strategy(1L, SCRIPT);
+    cache.plan(strategy);
+
+    strategy.setPineScript("fast = input.int(5)\nx = ta.ema(close, fast)\n");
+
+    assertThat(cache.plan(strategy).defaults()).containsOnlyKeys("fast");
+  }
+
+  @Test
+  void recompilesAfterInvalidate() {
+    Strategy strategy = strategy(1L, SCRIPT);
+    PinePlan first = cache.plan(strategy);
+
+    cache.invalidate(1L);
+
+    assertThat(cache.plan(strategy)).isNotSameAs(first);
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedPlansPastMaxSize() {
+    Strategy a = strategy(1L, SCRIPT);
+    PinePlan planA = cache.plan(a);
+    cache.plan(strategy(2L, SCRIPT));
+    cache.plan(a);
+    cache.plan(strategy(3L, SCRIPT));
+
+    assertThat(registry.get("pine.plans.cache.size").gauge().value()).isEqualTo(2);
+    assertThat(registry.get("pine.plans.cache.evictions").counter().count()).isEqualTo(1);
+    assertThat(cache.plan(a)).isSameAs(planA);
+  }
+
+  @Test
+  void doesNotCacheCompileErrorsOrUnsavedStrategies() {
+    Strategy broken = strategy(1L, "x = foo(1)\n");
+
+    assertThatThrownBy(() -> cache.plan(broken)).isInstanceOf(PineCompileException.class);
+    assertThatThrownBy(() -> cache.plan(broken)).isInstanceOf(PineCompileException.class);
+
+    Strategy unsaved = strategy(null, SCRIPT);
+    assertThat(cache.plan(unsaved)).isNotSameAs(cache.plan(unsaved));
+  }
+
+  private double compiled() {
+    return registry.get("pine.plans").tag("result", "compiled").counter().count();
+  }
+
+  private static Strategy strategy(Long id, String source) {
+    Strategy strategy = new Strategy();
+    strategy.setId(id);
+    strategy.setVersion("1.0");
+    strategy.setUpdatedAt(LocalDateTime.of(2026, 1, 1, 0, 0));
+    strategy.setPineScript(source);
+    return strategy;
+  }
+}
@@ -0,0 +1,149 @@
+package com.example.trading.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.trading.domain.FixedPoint;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class MarketDataCopyLoaderTest {
+  private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+  private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+  private final CopyIn copyIn = mock(CopyIn.class);
+  private final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+  private final MarketDataCopyLoader loader = new MarketDataCopyLoader(jdbcTemplate, mock(PlatformTransactionManager.class));
+
+  private record Row(String symbol, String timeframe, long epochMillis, long[] values, Long vwap) {}
+
+  @BeforeEach
+  void setUp() throws Exception {
+    Connection connection = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    PGConnection pg = mock(PGConnection.class);
+    CopyManager copyManager = mock(CopyManager.class);
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.executeUpdate(anyString())).thenReturn(1);
+    when(connection.unwrap(PGConnection.class)).thenReturn(pg);
+    when(pg.getCopyAPI()).thenReturn(copyManager);
+    when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+    doAnswer(inv -> {
+      streamed.write(inv.<byte[]>getArgument(0), inv.<Integer>getArgument(1), inv.<Integer>getArgument(2));
+      return null;
+    }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+    when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+      .thenAnswer(inv -> inv.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+  }
+
+  @Test
+  void encodesBarsInBinaryCopyFormat() throws Exception {
+    long epoch = Instant.parse("2024-01-02T03:04:05Z").toEpochMilli();
+
+    MarketDataCopyLoader.Result result = loader.load(sink -> {
+      sink.bar("BTC", "1h", epoch, FixedPoint.of(1), FixedPoint.of(2), FixedPoint.of(3), FixedPoint.of(4),
+        FixedPoint.of(5), FixedPoint.of(6));
+      sink.bar("ETH", "1d", epoch, 1, 2, 3, 4, 5, 0);
+    });
+
+    assertThat(result).isEqualTo(new MarketDataCopyLoader.Result(2, 1));
+    assertThat(result.duplicates()).isEqualTo(1);
+    List<Row> rows = decode();
+    assertThat(rows).hasSize(2);
+    assertThat(rows.get(0).symbol()).isEqualTo("BTC");
+    assertThat(rows.get(0).timeframe()).isEqualTo("1h");
+    assertThat(rows.get(0).epochMillis()).isEqualTo(epoch);
+    assertThat(rows.get(0).values()).containsExactly(FixedPoint.of(1), FixedPoint.of(2), FixedPoint.of(3),
+      FixedPoint.of(4), FixedPoint.of(5));
+    assertThat(rows.get(0).vwap()).isEqualTo(FixedPoint.of(6));
+    // A missing vwap is sent as NULL
+    assertThat(rows.get(1).symbol()).isEqualTo("ETH");
+    assertThat(rows.get(1).vwap()).isNull();
+    verify(copyIn).endCopy();
+  }
+
+  @Test
+  void streamsInputLargerThanTheBufferRowByRow() throws Exception {
+    int n = 5_000;
+
+    loader.load(sink -> {
+      for (int i = 0; i < n; i++) sink.bar(i % 2 == 0 ? "BTC" : "ETHUSDT", "1m", i * 60_000L, i, i, i, i, i, i + 1);
+    });
+
+    List<Row> rows = decode();
+    assertThat(rows).hasSize(n);
+    assertThat(rows.get(n - 1).symbol()).isEqualTo("ETHUSDT");
+    assertThat(rows.get(n - 1).epochMillis()).isEqualTo((n - 1) * 60_000L);
+    assertThat(rows.get(n - 1).vwap()).isEqualTo(n);
+  }
+
+  @Test
+  void cancelsTheCopyWhenTheSourceFails() throws Exception {
+    when(copyIn.isActive()).thenReturn(true);
+
+    assertThatThrownBy(() -> loader.load(sink -> {
+      throw new IOException("bad line 3");
+    })).hasRootCauseMessage("bad line 3");
+    verify(copyIn).cancelCopy();
+  }
+
+  /** Parses what was streamed: header, rows, then the -1 trailer. */
+  private List<Row> decode() {
+    ByteBuffer in = ByteBuffer.wrap(streamed.toByteArray());
+    byte[] signature = new byte[SIGNATURE.length];
+    in.get(signature);
+    assertThat(signature).isEqualTo(SIGNATURE);
+    assertThat(in.getInt()).isZero();
+    assertThat(in.getInt()).isZero();
+
+    long pgEpochMillis = Instant.parse("2000-01-01T00:00:00Z").toEpochMilli();
+    List<Row> rows = new ArrayList<>();
+    short fields;
+    while ((fields = in.getShort()) != -1) {
+      assertThat(fields).isEqualTo((short) 9);
+      String symbol = text(in);
+      String timeframe = text(in);
+      long micros = int8(in);
+      long[] values = new long[5];
+      for (int i = 0; i < values.length; i++) values[i] = int8(in);
+      int vwapLength = in.getInt();
+      Long vwap = vwapLength < 0 ? null : in.getLong();
+      rows.add(new Row(symbol, timeframe, pgEpochMillis + micros / 1000, values, vwap));
+    }
+    assertThat(in.hasRemaining()).isFalse();
+    return rows;
+  }
+
+  private static String text(ByteBuffer in) {
+    byte[] b = new byte[in.getInt()];
+    in.get(b);
+    return new String(b, StandardCharsets.UTF_8);
+  }
+
+  private static long int8(ByteBuffer in) {
+    assertThat(in.getInt()).isEqualTo(8);
+    return in.getLong();
+  }
+}
@@ -0,0 +1,46 @@
+package com.example.trading.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+class WriteRetryTest {
+  private final WriteRetry retry = new WriteRetry("test", Duration.ofMillis(1), Duration.ofMillis(2));
+  private final AtomicInteger attempts = new AtomicInteger();
+
+  @Test
+  void retriesLostVersionRacesUntilTheWriteLands() {
+    boolean written = retry.run(1, () -> {
+      if (attempts.incrementAndGet() < 3) throw new ObjectOptimisticLockingFailureException("stale account", null);
+    });
+
+    assertThat(written).isTrue();
+    assertThat(attempts).hasValue(3);
+  }
+
+  @Test
+  void retriesTimeouts() {
+    boolean written = retry.run(1, () -> {
+      if (attempts.incrementAndGet() < 2) throw new QueryTimeoutException("timed out");
+    });
+
+    assertThat(written).isTrue();
+    assertThat(attempts).hasValue(2);
+  }
+
+  @Test
+  void reportsPermanentFailuresWithoutRetrying() {
+    boolean written = retry.run(1, () -> {
+      attempts.incrementAndGet();
+      throw new DataIntegrityViolationException("duplicate key");
+    });
+
+    assertThat(written).isFalse();
+    assertThat(attempts).hasValue(1);
+  }
+}
@@ -0,0 +1,112 @@
+package com.example.trading.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.trading.market.MarketDataService;
+import com.example.trading.repository.DailyPnlRollupRepository;
+import com.example.trading.repository.TradeRepository;
+import com.example.trading.repository.TradeSummary;
+import com.example.trading.service.PortfolioStreamHub;
+import com.example.trading.service.PositionBook;
+import com.example.trading.service.TradeStatsService;
+import com.example.trading.service.UserDirectory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+class TradeControllerTest {
+  private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 18, 9, 30, 15, 123_456_000);
+
+  private final TradeRepository tradeRepository = mock(TradeRepository.class);
+  private final UserDirectory userDirectory = mock(UserDirectory.class);
+  private final TradeController controller = new TradeController(tradeRepository, mock(DailyPnlRollupRepository.class),
+    mock(MarketDataService.class), mock(PositionBook.class), mock(PortfolioStreamHub.class),
+    mock(TradeStatsService.class), userDirectory, event -> {}, mock(PlatformTransactionManager.class), 2, 3);
+  private final Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").subject(UUID.randomUUID().toString()).build();
+
+  @Test
+  void cursorRoundTripsOpenTimeAndId() {
+    TradeController.PageCursor cursor = new TradeController.PageCursor(T0, 42L);
+
+    String encoded = cursor.encode();
+
+    assertThat(encoded).doesNotContain("=", "+", "/");
+    assertThat(TradeController.PageCursor.decode(encoded)).isEqualTo(cursor);
+  }
+
+  @Test
+  void rejectsMalformedCursors() {
+    for (String bad : List.of("not base64!", "bm8tc2VwYXJhdG9y", "MjAyNi0xMC0xOHw0Mg")) {
+      assertThatThrownBy(() -> TradeController.PageCursor.decode(bad))
+        .isInstanceOf(ResponseStatusException.class)
+        .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  @Test
+  void pagesFetchOneExtraRowAndResumeAfterTheLastItem() {
+    when(userDirectory.findUserId(any())).thenReturn(7L);
+    List<TradeSummary> rows = summaries(5, 4, 3);
+    when(tradeRepository.findSummariesByUserId(7L, PageRequest.of(0, 3))).thenReturn(rows);
+
+    TradeController.TradePage first = controller.page(jwt, null, null);
+
+    assertThat(first.items()).extracting(TradeSummary::getId).containsExactly(5L, 4L);
+    assertThat(first.nextCursor()).isNotNull();
+
+    List<TradeSummary> rest = summaries(3);
+    when(tradeRepository.findSummariesByUserIdBefore(eq(7L), any(), any(), any())).thenReturn(rest);
+    TradeController.TradePage last = controller.page(jwt, first.nextCursor(), null);
+
+    verify(tradeRepository).findSummariesByUserIdBefore(7L, T0.minusMinutes(4), 4L, PageRequest.of(0, 3));
+    assertThat(last.items()).extracting(TradeSummary::getId).containsExactly(3L);
+    assertThat(last.nextCursor()).isNull();
+  }
+
+  @Test
+  void clampsTheRequestedLimit() {
+    when(userDirectory.findUserId(any())).thenReturn(7L);
+
+    controller.page(jwt, null, 1_000);
+    controller.page(jwt, " ", 0);
+
+    verify(tradeRepository).findSummariesByUserId(7L, PageRequest.of(0, 4));
+    verify(tradeRepository).findSummariesByUserId(7L, PageRequest.of(0, 2));
+  }
+
+  @Test
+  void unknownUsersGetAnEmptyPage() {
+    when(userDirectory.findUserId(any())).thenReturn(null);
+
+    TradeController.TradePage page = controller.page(jwt, "garbage", null);
+
+    assertThat(page.items()).isEmpty();
+    assertThat(page.nextCursor()).isNull();
+  }
+
+  /** Trades with the given ids, each opened {@code id} minutes before {@link #T0}. */
+  private static List<TradeSummary> summaries(long... ids) {
+    List<TradeSummary> out = new ArrayList<>();
+    for (long id : ids) {
+      TradeSummary s = mock(TradeSummary.class);
+      when(s.getId()).thenReturn(id);
+      when(s.getOpenTime()).thenReturn(T0.minusMinutes(id));
+      out.add(s);
+    }
+    return out;
+  }
+}
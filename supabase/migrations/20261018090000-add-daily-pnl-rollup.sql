@@ -0,0 +1,29 @@
+-- Per-user, per-day realized PnL, maintained incrementally when trades close
+CREATE TABLE public.daily_pnl_rollup (
+    id UUID NOT NULL DEFAULT gen_random_uuid() PRIMARY KEY,
+    user_id UUID NOT NULL,
+    trade_date DATE NOT NULL,
+    pnl DECIMAL(15,2) NOT NULL DEFAULT 0.00,
+    trade_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    UNIQUE(user_id, trade_date)
+);
+
+-- Enable Row Level Security
+ALTER TABLE public.daily_pnl_rollup ENABLE ROW LEVEL SECURITY;
+
+-- Create policies for daily_pnl_rollup
+CREATE POLICY "Users can view their own daily pnl" 
+ON public.daily_pnl_rollup 
+FOR SELECT 
+USING (auth.uid() = user_id);
+
+-- Existing closed trades are backfilled in 20261018180000-backfill-daily-pnl-rollup.sql, once
+-- users carry the auth subject the rollup is keyed by
+
+-- Create triggers for automatic timestamp updates
+CREATE TRIGGER update_daily_pnl_rollup_updated_at
+    BEFORE UPDATE ON public.daily_pnl_rollup
+    FOR EACH ROW
+    EXECUTE FUNCTION public.update_updated_at_column();
@@ -0,0 +1,22 @@
+-- Moves the high-volume JPA tables from IDENTITY ids to pooled sequences (allocationSize 50),
+-- which lets Hibernate batch their inserts. Each sequence starts past the table's current max
+-- id; the column keeps a nextval default for inserts that bypass the entity layer. Tables not
+-- yet created by Hibernate are skipped and get their sequence on first start.
+DO $$
+DECLARE
+    t TEXT;
+    next_id BIGINT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['market_data', 'orders', 'alert_triggers', 'paper_trading_executions', 'positions']
+    LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS public.%I INCREMENT BY 50', t || '_seq');
+        IF to_regclass('public.' || t) IS NOT NULL THEN
+            EXECUTE format('ALTER TABLE public.%I ALTER COLUMN id DROP IDENTITY IF EXISTS', t);
+            EXECUTE format('SELECT COALESCE(MAX(id), 0) + 50 FROM public.%I', t) INTO next_id;
+            -- Hibernate's pooled optimizer treats each value as the top of a block of 50
+            PERFORM setval('public.' || t || '_seq', next_id, false);
+            EXECUTE format('ALTER TABLE public.%I ALTER COLUMN id SET DEFAULT nextval(%L)', t, 'public.' || t || '_seq');
+            EXECUTE format('ALTER SEQUENCE public.%I OWNED BY public.%I.id', t || '_seq', t);
+        END IF;
+    END LOOP;
+END $$;
@@ -0,0 +1,12 @@
+-- One row per (symbol, timeframe, timestamp) bar, so bulk imports and the candle writer can
+-- skip bars already stored with ON CONFLICT DO NOTHING. Existing repeats keep their oldest row.
+DO $$
+BEGIN
+    IF to_regclass('public.market_data') IS NOT NULL THEN
+        DELETE FROM public.market_data m
+        USING public.market_data d
+        WHERE m.symbol = d.symbol AND m.timeframe = d.timeframe AND m.timestamp = d.timestamp AND m.id > d.id;
+        DROP INDEX IF EXISTS public.idx_symbol_timeframe_timestamp;
+        CREATE UNIQUE INDEX idx_symbol_timeframe_timestamp ON public.market_data(symbol, timeframe, timestamp);
+    END IF;
+END $$;
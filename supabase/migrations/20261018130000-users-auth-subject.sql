@@ -0,0 +1,13 @@
+-- Links JPA users to the Supabase auth user (the JWT subject) they are provisioned for, and
+-- gives entity trades their stop-loss / take-profit levels.
+DO $$
+BEGIN
+    IF to_regclass('public.users') IS NOT NULL THEN
+        ALTER TABLE public.users ADD COLUMN IF NOT EXISTS auth_subject UUID;
+        CREATE UNIQUE INDEX IF NOT EXISTS idx_users_auth_subject ON public.users(auth_subject);
+    END IF;
+    IF to_regclass('public.trades') IS NOT NULL THEN
+        ALTER TABLE public.trades ADD COLUMN IF NOT EXISTS stop_loss NUMERIC(19,8);
+        ALTER TABLE public.trades ADD COLUMN IF NOT EXISTS take_profit NUMERIC(19,8);
+    END IF;
+END $$;
@@ -0,0 +1,12 @@
+-- Keyset pagination of a user's trades runs over the entity columns, ordered by
+-- (open_time DESC, id DESC). Skipped while the table lacks them; Hibernate adds them on first start.
+-- Also drops idx_trades_user_open_time on the old openTime column, left by the removed
+-- 20261018100000 migration where it ran; nothing reads it.
+DROP INDEX IF EXISTS public.idx_trades_user_open_time;
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = 'public' AND table_name = 'trades' AND column_name = 'open_time') THEN
+        CREATE INDEX IF NOT EXISTS idx_trades_user_open_time_id ON public.trades(user_id, open_time DESC, id DESC);
+    END IF;
+END $$;
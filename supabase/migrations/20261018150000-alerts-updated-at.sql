@@ -0,0 +1,14 @@
+-- The alert engine re-reads alerts changed since its last pass by (updated_at, id), so
+-- updated_at must also move on edits made outside the backend. Skipped while the table
+-- does not exist; Hibernate creates it on first start.
+DO $$
+BEGIN
+    IF to_regclass('public.alerts') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_alerts_updated_at_id ON public.alerts(updated_at, id);
+        DROP TRIGGER IF EXISTS update_alerts_updated_at ON public.alerts;
+        CREATE TRIGGER update_alerts_updated_at
+            BEFORE UPDATE ON public.alerts
+            FOR EACH ROW
+            EXECUTE FUNCTION public.update_updated_at_column();
+    END IF;
+END $$;
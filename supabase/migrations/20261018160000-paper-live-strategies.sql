@@ -0,0 +1,32 @@
+-- Live paper trading: margin levels reach thousands of percent on lightly used accounts, past
+-- the old NUMERIC(5,2); ACTIVE strategies record where they trade, and orders link back to the
+-- strategy execution that placed them. Hibernate's update mode adds missing columns but never
+-- widens existing ones.
+DO $$
+BEGIN
+    IF to_regclass('public.paper_trading_accounts') IS NOT NULL THEN
+        ALTER TABLE public.paper_trading_accounts ALTER COLUMN margin_level TYPE NUMERIC(19,2);
+    END IF;
+    IF to_regclass('public.strategies') IS NOT NULL THEN
+        ALTER TABLE public.strategies ADD COLUMN IF NOT EXISTS live_symbol VARCHAR(255);
+        ALTER TABLE public.strategies ADD COLUMN IF NOT EXISTS live_timeframe VARCHAR(255);
+        ALTER TABLE public.strategies ADD COLUMN IF NOT EXISTS live_volume NUMERIC(19,8);
+        ALTER TABLE public.strategies ADD COLUMN IF NOT EXISTS live_account_id BIGINT;
+        IF to_regclass('public.paper_trading_accounts') IS NOT NULL AND NOT EXISTS (
+            SELECT 1 FROM pg_constraint WHERE conname = 'fk_strategies_live_account'
+        ) THEN
+            ALTER TABLE public.strategies ADD CONSTRAINT fk_strategies_live_account
+                FOREIGN KEY (live_account_id) REFERENCES public.paper_trading_accounts(id);
+        END IF;
+        CREATE INDEX IF NOT EXISTS idx_strategies_live_account_id ON public.strategies(live_account_id);
+    END IF;
+    IF to_regclass('public.orders') IS NOT NULL THEN
+        ALTER TABLE public.orders ADD COLUMN IF NOT EXISTS execution_id BIGINT;
+        IF to_regclass('public.paper_trading_executions') IS NOT NULL AND NOT EXISTS (
+            SELECT 1 FROM pg_constraint WHERE conname = 'fk_orders_execution'
+        ) THEN
+            ALTER TABLE public.orders ADD CONSTRAINT fk_orders_execution
+                FOREIGN KEY (execution_id) REFERENCES public.paper_trading_executions(id);
+        END IF;
+    END IF;
+END $$;
@@ -0,0 +1,13 @@
+-- Paper accounts and positions are updated by several background writers (strategy runner,
+-- order matching, SL/TP and stop-out closes, risk persistence); the version column lets a write
+-- based on a stale read fail and be retried instead of overwriting another. Existing rows start
+-- at 0.
+DO $$
+BEGIN
+    IF to_regclass('public.paper_trading_accounts') IS NOT NULL THEN
+        ALTER TABLE public.paper_trading_accounts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+    END IF;
+    IF to_regclass('public.positions') IS NOT NULL THEN
+        ALTER TABLE public.positions ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+    END IF;
+END $$;
@@ -0,0 +1,21 @@
+-- Backfills the daily PnL rollup from closed entity trades. Trades reference the BIGINT users.id
+-- while the rollup is keyed by the Supabase auth user, so rows are mapped through
+-- users.auth_subject; trades of users without one cannot be attributed and are left out.
+-- close_time has no zone, so its date is taken as written, which matches the UTC days of live
+-- closes when the application runs in UTC. Days the application already rolled up are kept.
+DO $$
+BEGIN
+    IF to_regclass('public.trades') IS NOT NULL AND EXISTS (
+        SELECT 1 FROM information_schema.columns
+        WHERE table_schema = 'public' AND table_name = 'users' AND column_name = 'auth_subject'
+    ) THEN
+        INSERT INTO public.daily_pnl_rollup (user_id, trade_date, pnl, trade_count)
+        SELECT u.auth_subject, t.close_time::date, SUM(t.pnl), COUNT(*)
+        FROM public.trades t
+        JOIN public.users u ON u.id = t.user_id
+        WHERE t.status = 'CLOSED' AND t.close_time IS NOT NULL AND t.pnl IS NOT NULL
+          AND u.auth_subject IS NOT NULL
+        GROUP BY u.auth_subject, t.close_time::date
+        ON CONFLICT (user_id, trade_date) DO NOTHING;
+    END IF;
+END $$;
@@ -0,0 +1,17 @@
+-- Moves trades from an IDENTITY id to the pooled trades_seq (allocationSize 50), the same way
+-- 20261018110000 moved the other high-volume tables. The name follows their <table>_seq
+-- scheme; trades_id_seq is the identity's own sequence, which DROP IDENTITY removes.
+DO $$
+DECLARE
+    next_id BIGINT;
+BEGIN
+    CREATE SEQUENCE IF NOT EXISTS public.trades_seq INCREMENT BY 50;
+    IF to_regclass('public.trades') IS NOT NULL THEN
+        ALTER TABLE public.trades ALTER COLUMN id DROP IDENTITY IF EXISTS;
+        SELECT COALESCE(MAX(id), 0) + 50 FROM public.trades INTO next_id;
+        -- Hibernate's pooled optimizer treats each value as the top of a block of 50
+        PERFORM setval('public.trades_seq', next_id, false);
+        ALTER TABLE public.trades ALTER COLUMN id SET DEFAULT nextval('public.trades_seq');
+        ALTER SEQUENCE public.trades_seq OWNED BY public.trades.id;
+    END IF;
+END $$;
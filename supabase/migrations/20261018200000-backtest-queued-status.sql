@@ -0,0 +1,11 @@
+-- Backtests are stored as QUEUED until a worker starts them. Hibernate creates the status column
+-- with an inline CHECK over the enum values, which Postgres names backtest_results_status_check
+-- and update mode never widens, so it is replaced with one that admits QUEUED.
+DO $$
+BEGIN
+    IF to_regclass('public.backtest_results') IS NOT NULL THEN
+        ALTER TABLE public.backtest_results DROP CONSTRAINT IF EXISTS backtest_results_status_check;
+        ALTER TABLE public.backtest_results ADD CONSTRAINT backtest_results_status_check
+            CHECK (status IN ('QUEUED', 'RUNNING', 'COMPLETED', 'FAILED', 'CANCELLED'));
+    END IF;
+END $$;